@@ -17,18 +17,6 @@ class ScheduledTasks {
         this.metricsService = metricsService;
     }
 
-    /**
-     * Traite les transitions automatiques toutes les minutes
-     */
-    @org.springframework.scheduling.annotation.Scheduled(fixedRate = 60000)
-    public void processAutomaticTransitions() {
-        logger.debug("Traitement des transitions automatiques planifié");
-        transitionService.processAutomaticTransitions()
-                .doOnNext(transition -> logger.debug("Transition automatique traitée: {}", transition.id()))
-                .doOnError(error -> logger.warn("Erreur lors du traitement des transitions automatiques", error))
-                .subscribe();
-    }
-
     /**
      * Nettoie les anciennes transitions toutes les heures
      */
@@ -0,0 +1,179 @@
+package com.petri.statetransition.config;
+
+import com.petri.statetransition.engine.MarkingTable;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.exception.ConcurrencyException;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.CompositeUnitResource;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.petri.PetriNet;
+import com.petri.statetransition.petri.StateNets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.mapping.event.AfterConvertCallback;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.r2dbc.mapping.event.BeforeSaveCallback;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Configuration du marquage en mémoire
+ * Toute sauvegarde d'entité ressource (création, blocage, libération forcée...) est reportée dans le marquage.
+ * En mode EN_MEMOIRE le marquage fait autorité : la lecture d'une ressource reprend son état et son propriétaire
+ * depuis le marquage, et une sauvegarde qui les modifie n'est écrite qu'après un compare-and-set réussi
+ * contre l'état lu ; sinon elle échoue en ConcurrencyException (relue puis rejouée par ConcurrencyRetry).
+ */
+@Configuration
+public class MarkingConfig {
+
+    @Bean
+    public AfterConvertCallback<UnitResource> unitResourceSnapshotCallback(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, table) -> {
+            if (isAuthoritative(marking, allocationMode)) {
+                overlay(marking.units(), resource.getId(), resource::setState, resource::setAllocatedServiceId);
+            }
+            resource.rememberLoaded();
+            return Mono.just(resource);
+        };
+    }
+
+    @Bean
+    public AfterConvertCallback<CompositeResource> compositeResourceSnapshotCallback(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, table) -> {
+            if (isAuthoritative(marking, allocationMode)) {
+                overlay(marking.composites(), resource.getId(), resource::setState, resource::setAllocatedServiceId);
+            }
+            resource.rememberLoaded();
+            return Mono.just(resource);
+        };
+    }
+
+    @Bean
+    public BeforeSaveCallback<UnitResource> unitResourceMarkingGuard(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, row, table) -> {
+            if (resource.getId() == null || !resource.isMarkingChanged() || !isAuthoritative(marking, allocationMode)) {
+                return Mono.just(resource);
+            }
+            boolean claimed = claim(marking.units(), StateNets.UNIT_RESOURCE, resource.getId(),
+                    resource.getLoadedState(), resource.getLoadedAllocatedServiceId(),
+                    resource.getState(), resource.getAllocatedServiceId());
+            return claimed ? Mono.just(resource) : Mono.error(new ConcurrencyException(
+                    "Ressource unitaire " + resource.getId() + " modifiée dans le marquage en mémoire"));
+        };
+    }
+
+    @Bean
+    public BeforeSaveCallback<CompositeResource> compositeResourceMarkingGuard(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, row, table) -> {
+            if (resource.getId() == null || !resource.isMarkingChanged() || !isAuthoritative(marking, allocationMode)) {
+                return Mono.just(resource);
+            }
+            boolean claimed = claim(marking.composites(), StateNets.COMPOSITE_RESOURCE, resource.getId(),
+                    resource.getLoadedState(), resource.getLoadedAllocatedServiceId(),
+                    resource.getState(), resource.getAllocatedServiceId());
+            return claimed ? Mono.just(resource) : Mono.error(new ConcurrencyException(
+                    "Ressource composite " + resource.getId() + " modifiée dans le marquage en mémoire"));
+        };
+    }
+
+    @Bean
+    public AfterSaveCallback<UnitResource> unitResourceMarkingCallback(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, row, table) -> {
+            mirror(marking.units(), isAuthoritative(marking, allocationMode), resource.getId(),
+                    resource.getState(), resource.getAllocatedServiceId());
+            marking.trackShared(resource.getId(), resource.getCapacity(), resource.getCurrentLoad(), resource.getLocation());
+            resource.rememberLoaded();
+            return Mono.just(resource);
+        };
+    }
+
+    @Bean
+    public AfterSaveCallback<CompositeResource> compositeResourceMarkingCallback(
+            ResourceMarking marking,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        return (resource, row, table) -> {
+            mirror(marking.composites(), isAuthoritative(marking, allocationMode), resource.getId(),
+                    resource.getState(), resource.getAllocatedServiceId());
+            marking.components().setMinimum(resource.getId(), resource.getMinRequiredComponents());
+            resource.rememberLoaded();
+            return Mono.just(resource);
+        };
+    }
+
+    @Bean
+    public AfterSaveCallback<CompositeUnitResource> compositeUnitResourceMarkingCallback(ResourceMarking marking) {
+        return (association, row, table) -> {
+            marking.trackComponent(association.getCompositeResourceId(), association.getUnitResourceId());
+            return Mono.just(association);
+        };
+    }
+
+    private static boolean isAuthoritative(ResourceMarking marking, AllocationMode allocationMode) {
+        return allocationMode == AllocationMode.EN_MEMOIRE && marking.isLoaded();
+    }
+
+    /**
+     * Remplace l'état et le propriétaire lus en base (en retard d'au plus un intervalle d'écriture différée)
+     * par ceux du marquage, si la ressource y est connue
+     */
+    private static <S extends Enum<S>> void overlay(MarkingTable<S> table, Long id,
+                                                    Consumer<S> state,
+                                                    Consumer<Long> owner) {
+        S current = table.state(id);
+        if (current != null) {
+            state.accept(current);
+            owner.accept(table.owner(id));
+        }
+    }
+
+    /**
+     * Compare-and-set de (état, propriétaire) contre la valeur lue ; rejouer la même cible est accepté
+     * (nouvel essai après un échec d'écriture en base). Sans instantané de lecture, seul un tir permis
+     * par le réseau et un propriétaire compatible sont acceptés. Une ressource inconnue du marquage
+     * (chargement concurrent) est laissée à la sauvegarde, puis reportée par le rappel après sauvegarde.
+     */
+    private static <S extends Enum<S>> boolean claim(MarkingTable<S> table, PetriNet<S> net, Long id,
+                                                     S loadedState, Long loadedOwner, S target, Long owner) {
+        if (table.state(id) == null) {
+            return true;
+        }
+        return table.transition(id, (state, currentOwner) -> {
+            if (state == target && Objects.equals(currentOwner, owner)) {
+                return true;
+            }
+            if (loadedState != null) {
+                return state == loadedState && Objects.equals(currentOwner, loadedOwner);
+            }
+            return net.canFire(state, target)
+                    && (currentOwner == null || owner == null || currentOwner.equals(owner));
+        }, target, owner);
+    }
+
+    /**
+     * Report de la sauvegarde dans le marquage : copie directe hors EN_MEMOIRE ; en EN_MEMOIRE seule une
+     * ressource nouvelle est chargée, et une ligne écrite différente du marquage est remise en écriture différée
+     */
+    private static <S extends Enum<S>> void mirror(MarkingTable<S> table, boolean authoritative, Long id,
+                                                   S state, Long owner) {
+        if (!authoritative || table.state(id) == null) {
+            table.put(id, state, owner);
+        } else if (table.state(id) != state || !Objects.equals(table.owner(id), owner)) {
+            table.markDirty(List.of(id));
+        }
+    }
+}
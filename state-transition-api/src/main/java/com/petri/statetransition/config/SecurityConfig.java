@@ -48,12 +48,14 @@ public class SecurityConfig {
                         .pathMatchers(HttpMethod.POST, "/api/v1/services").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.PUT, "/api/v1/services/**").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/services/*/start").hasAnyRole("ADMIN", "USER")
+                        .pathMatchers(HttpMethod.POST, "/api/v1/services/start-batch").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/services/*/complete").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/services/*/cancel").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/unit-resources/*/allocate").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/unit-resources/*/use").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/unit-resources/*/release").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/composite-resources/*/reserve").hasAnyRole("ADMIN", "USER")
+                        .pathMatchers(HttpMethod.POST, "/api/v1/composite-resources/*/lease/renew").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/composite-resources/*/use").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/composite-resources/*/release").hasAnyRole("ADMIN", "USER")
                         .pathMatchers(HttpMethod.POST, "/api/v1/transitions/trigger").hasAnyRole("ADMIN", "USER")
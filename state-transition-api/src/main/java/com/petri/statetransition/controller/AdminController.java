@@ -1,11 +1,21 @@
 package com.petri.statetransition.controller;
 
 import com.petri.statetransition.dto.ApiResponse;
+import com.petri.statetransition.dto.InvariantScanDTO;
+import com.petri.statetransition.dto.NetAnalysisDTO;
+import com.petri.statetransition.dto.SimulationRequestDTO;
+import com.petri.statetransition.dto.SimulationResultDTO;
+import com.petri.statetransition.service.AutomaticTransitionWorker;
+import com.petri.statetransition.service.CapacitySimulationService;
 import com.petri.statetransition.dto.SystemMetricsDTO;
+import com.petri.statetransition.exception.ValidationException;
 import com.petri.statetransition.service.MetricsService;
+import com.petri.statetransition.service.NetAnalysisService;
+import com.petri.statetransition.service.TokenInvariantChecker;
 import com.petri.statetransition.service.TransitionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,10 +39,21 @@ public class AdminController {
 
     private final TransitionService transitionService;
     private final MetricsService metricsService;
+    private final NetAnalysisService netAnalysisService;
+    private final CapacitySimulationService capacitySimulationService;
+    private final TokenInvariantChecker tokenInvariantChecker;
+    private final AutomaticTransitionWorker automaticTransitionWorker;
 
-    public AdminController(TransitionService transitionService, MetricsService metricsService) {
+    public AdminController(TransitionService transitionService, MetricsService metricsService,
+                           NetAnalysisService netAnalysisService, CapacitySimulationService capacitySimulationService,
+                           TokenInvariantChecker tokenInvariantChecker,
+                           AutomaticTransitionWorker automaticTransitionWorker) {
         this.transitionService = transitionService;
         this.metricsService = metricsService;
+        this.netAnalysisService = netAnalysisService;
+        this.capacitySimulationService = capacitySimulationService;
+        this.tokenInvariantChecker = tokenInvariantChecker;
+        this.automaticTransitionWorker = automaticTransitionWorker;
     }
 
     /**
@@ -44,7 +65,7 @@ public class AdminController {
 
         return transitionService.cleanupOldTransitions(30)
                 .flatMap(cleanupCount ->
-                        transitionService.processAutomaticTransitions()
+                        automaticTransitionWorker.drain()
                                 .count()
                                 .map(processedCount -> {
                                     Map<String, Object> result = Map.of(
@@ -83,6 +104,59 @@ public class AdminController {
                         .body(ApiResponse.error("Erreur lors de l'export des métriques")));
     }
 
+    /**
+     * Analyse d'accessibilité de la configuration courante : interblocages possibles et transitions mortes
+     */
+    @GetMapping("/analysis/reachability")
+    public Mono<ResponseEntity<ApiResponse<NetAnalysisDTO>>> analyzeReachability(
+            @RequestParam(required = false) Long maxMarkings) {
+        logger.info("Analyse d'accessibilité de la configuration");
+
+        return netAnalysisService.analyzeConfiguration(maxMarkings)
+                .map(analysis -> ResponseEntity.ok(ApiResponse.success("Analyse d'accessibilité terminée", analysis)))
+                .onErrorReturn(error -> !(error instanceof ValidationException), ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Erreur lors de l'analyse d'accessibilité")));
+    }
+
+    /**
+     * Simulation de capacité d'une localisation (charge ajustée sur l'historique des transitions)
+     */
+    @PostMapping("/simulation")
+    public Mono<ResponseEntity<ApiResponse<SimulationResultDTO>>> simulateCapacity(
+            @Valid @RequestBody SimulationRequestDTO request) {
+        logger.info("Simulation de capacité pour la localisation {}", request.location());
+
+        return capacitySimulationService.simulate(request)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Simulation de capacité terminée", result)));
+    }
+
+    /**
+     * Parcours complet des ressources à la recherche de jetons perdus (sans modification)
+     */
+    @GetMapping("/invariants/scan")
+    public Mono<ResponseEntity<ApiResponse<InvariantScanDTO>>> scanInvariants() {
+        logger.info("Contrôle complet des invariants de jetons");
+
+        return tokenInvariantChecker.scan(false)
+                .map(scan -> ResponseEntity.ok(ApiResponse.success("Contrôle des invariants terminé", scan)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Erreur lors du contrôle des invariants")));
+    }
+
+    /**
+     * Parcours complet avec réparation : les jetons perdus sont rendus et les services en attente réveillés
+     */
+    @PostMapping("/invariants/repair")
+    public Mono<ResponseEntity<ApiResponse<InvariantScanDTO>>> repairInvariants() {
+        logger.warn("Réparation des jetons perdus demandée");
+
+        return tokenInvariantChecker.scan(true)
+                .map(scan -> ResponseEntity.ok(ApiResponse.success(
+                        String.format("Réparation terminée: %d jetons rendus", scan.repairedTokens()), scan)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Erreur lors de la réparation des invariants")));
+    }
+
     /**
      * Endpoint pour les tests de charge
      */
@@ -3,6 +3,7 @@ package com.petri.statetransition.controller;
 import com.petri.statetransition.dto.ApiResponse;
 import com.petri.statetransition.dto.CompositeResourceDTO;
 import com.petri.statetransition.dto.CreateCompositeResourceDTO;
+import com.petri.statetransition.dto.ReservationLeaseDTO;
 import com.petri.statetransition.service.CompositeResourceService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -85,6 +86,22 @@ public class CompositeResourceController {
                         .body(ApiResponse.error("Erreur lors de la réservation de la ressource composite")));
     }
 
+    /**
+     * Prolonge le bail de réservation d'une ressource composite
+     */
+    @PostMapping("/{id}/lease/renew")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public Mono<ResponseEntity<ApiResponse<ReservationLeaseDTO>>> renewReservationLease(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long ttlSeconds) {
+        logger.info("Demande de renouvellement du bail de la ressource composite ID: {}", id);
+
+        return compositeResourceService.renewReservationLease(id, ttlSeconds)
+                .map(lease -> ResponseEntity.ok(ApiResponse.success("Bail de réservation prolongé", lease)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Erreur lors du renouvellement du bail de réservation")));
+    }
+
     /**
      * Utilise une ressource composite (PRÊT -> AFFECTÉ)
      */
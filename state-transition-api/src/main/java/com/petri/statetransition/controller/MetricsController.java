@@ -1,8 +1,18 @@
 package com.petri.statetransition.controller;
 
 import com.petri.statetransition.dto.ApiResponse;
+import com.petri.statetransition.dto.DeadlockReportDTO;
+import com.petri.statetransition.dto.DispatcherStatsDTO;
+import com.petri.statetransition.dto.InvariantReportDTO;
 import com.petri.statetransition.dto.SystemMetricsDTO;
+import com.petri.statetransition.dto.TransitionExecutorStatsDTO;
+import com.petri.statetransition.dto.TransitionJournalStatsDTO;
+import com.petri.statetransition.service.DeadlockDetector;
 import com.petri.statetransition.service.MetricsService;
+import com.petri.statetransition.service.ServiceDispatcher;
+import com.petri.statetransition.service.TokenInvariantChecker;
+import com.petri.statetransition.service.TransitionExecutorRegistry;
+import com.petri.statetransition.service.TransitionJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -12,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,9 +36,21 @@ public class MetricsController {
     private static final Logger logger = LoggerFactory.getLogger(MetricsController.class);
 
     private final MetricsService metricsService;
+    private final DeadlockDetector deadlockDetector;
+    private final ServiceDispatcher serviceDispatcher;
+    private final TokenInvariantChecker tokenInvariantChecker;
+    private final TransitionExecutorRegistry transitionExecutorRegistry;
+    private final TransitionJournal transitionJournal;
 
-    public MetricsController(MetricsService metricsService) {
+    public MetricsController(MetricsService metricsService, DeadlockDetector deadlockDetector,
+                             ServiceDispatcher serviceDispatcher, TokenInvariantChecker tokenInvariantChecker,
+                             TransitionExecutorRegistry transitionExecutorRegistry, TransitionJournal transitionJournal) {
         this.metricsService = metricsService;
+        this.deadlockDetector = deadlockDetector;
+        this.serviceDispatcher = serviceDispatcher;
+        this.tokenInvariantChecker = tokenInvariantChecker;
+        this.transitionExecutorRegistry = transitionExecutorRegistry;
+        this.transitionJournal = transitionJournal;
     }
 
     /**
@@ -65,6 +88,66 @@ public class MetricsController {
                         .body(ApiResponse.error("Erreur lors de la récupération des métriques de performance")));
     }
 
+    /**
+     * Interblocages détectés entre services bloqués et résolutions effectuées
+     */
+    @GetMapping("/deadlocks")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<DeadlockReportDTO>>> getDeadlocks() {
+        logger.debug("Demande du rapport d'interblocages");
+
+        return Mono.fromSupplier(deadlockDetector::report)
+                .map(report -> ResponseEntity.ok(ApiResponse.success("Rapport d'interblocages récupéré", report)));
+    }
+
+    /**
+     * Files du répartiteur par priorité : profondeur, poids et histogramme des temps d'attente
+     */
+    @GetMapping("/dispatcher")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<DispatcherStatsDTO>>> getDispatcherStats() {
+        logger.debug("Demande des statistiques du répartiteur");
+
+        return Mono.fromSupplier(serviceDispatcher::stats)
+                .map(stats -> ResponseEntity.ok(ApiResponse.success("Statistiques du répartiteur récupérées", stats)));
+    }
+
+    /**
+     * Violations de l'invariant de conservation des jetons et dernier parcours complet
+     */
+    @GetMapping("/invariants")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<InvariantReportDTO>>> getInvariantReport() {
+        logger.debug("Demande du rapport des invariants de jetons");
+
+        return Mono.fromSupplier(tokenInvariantChecker::report)
+                .map(report -> ResponseEntity.ok(ApiResponse.success("Rapport des invariants récupéré", report)));
+    }
+
+    /**
+     * Limites et compteurs des exécuteurs de transitions (actives, en attente, délais dépassés, refus)
+     */
+    @GetMapping("/executors")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<List<TransitionExecutorStatsDTO>>>> getExecutorStats() {
+        logger.debug("Demande des statistiques des exécuteurs de transitions");
+
+        return Mono.fromSupplier(transitionExecutorRegistry::stats)
+                .map(stats -> ResponseEntity.ok(ApiResponse.success("Statistiques des exécuteurs récupérées", stats)));
+    }
+
+    /**
+     * Mode, occupation et compteurs du journal des transitions (lots écrits, attentes sur file pleine)
+     */
+    @GetMapping("/journal")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<TransitionJournalStatsDTO>>> getJournalStats() {
+        logger.debug("Demande des statistiques du journal des transitions");
+
+        return Mono.fromSupplier(transitionJournal::stats)
+                .map(stats -> ResponseEntity.ok(ApiResponse.success("Statistiques du journal récupérées", stats)));
+    }
+
     /**
      * Endpoint de santé personnalisé pour le système
      */
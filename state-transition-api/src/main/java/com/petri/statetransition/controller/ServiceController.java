@@ -1,8 +1,10 @@
 package com.petri.statetransition.controller;
 
 import com.petri.statetransition.dto.*;
+import com.petri.statetransition.model.enums.EntityKind;
 import com.petri.statetransition.model.enums.ServiceState;
 import com.petri.statetransition.service.ServiceManager;
+import com.petri.statetransition.service.TransitionService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,9 +26,11 @@ public class ServiceController {
     private static final Logger logger = LoggerFactory.getLogger(ServiceController.class);
 
     private final ServiceManager serviceService;
+    private final TransitionService transitionService;
 
-    public ServiceController(ServiceManager serviceService) {
+    public ServiceController(ServiceManager serviceService, TransitionService transitionService) {
         this.serviceService = serviceService;
+        this.transitionService = transitionService;
     }
 
     /**
@@ -121,6 +125,34 @@ public class ServiceController {
                         .body(ApiResponse.error("Erreur lors du démarrage du service")));
     }
 
+    /**
+     * Démarre un lot de services, les conflits de ressources étant arbitrés par priorité
+     */
+    @PostMapping("/start-batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public Mono<ResponseEntity<ApiResponse<BatchStartResultDTO>>> startServices(@Valid @RequestBody StartBatchDTO startBatchDTO) {
+        logger.info("Demande de démarrage groupé de {} services", startBatchDTO.serviceIds().size());
+
+        return serviceService.startServices(startBatchDTO.serviceIds())
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Lot de services traité", result)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Erreur lors du démarrage groupé des services")));
+    }
+
+    /**
+     * Plan d'allocation à blanc d'un lot : services allouables, ressources bloquantes et conflits, sans écriture
+     */
+    @PostMapping("/plan")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<AllocationPlanDTO>>> planServices(@Valid @RequestBody StartBatchDTO startBatchDTO) {
+        logger.debug("Demande de plan d'allocation pour {} services", startBatchDTO.serviceIds().size());
+
+        return serviceService.planServices(startBatchDTO.serviceIds())
+                .map(plan -> ResponseEntity.ok(ApiResponse.success(plan)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Erreur lors du calcul du plan d'allocation")));
+    }
+
     /**
      * Termine un service (transition EN_COURS -> TERMINÉ)
      */
@@ -187,4 +219,19 @@ public class ServiceController {
 
         return Mono.just(ResponseEntity.ok(ApiResponse.success(serviceService.findByState(ServiceState.PRET))));
     }
+
+    /**
+     * Récupère l'historique des transitions d'un service, par pages (curseur before = nextCursor précédent)
+     */
+    @GetMapping("/{id}/transitions")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<TransitionPageDTO>>> getServiceTransitions(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") Integer limit) {
+        logger.debug("Demande de l'historique des transitions du service ID: {}", id);
+
+        return transitionService.findByParticipant(EntityKind.SERVICE, id, before, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success(page)));
+    }
 }
\ No newline at end of file
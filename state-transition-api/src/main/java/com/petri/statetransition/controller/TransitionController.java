@@ -3,6 +3,8 @@ package com.petri.statetransition.controller;
 import com.petri.statetransition.dto.*;
 import com.petri.statetransition.model.enums.TransitionType;
 import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.service.AutomaticTransitionWorker;
+import com.petri.statetransition.service.BulkTransitionService;
 import com.petri.statetransition.service.TransitionService;
 import com.petri.statetransition.service.MetricsService;
 import jakarta.validation.Valid;
@@ -29,9 +31,14 @@ public class TransitionController {
     private static final Logger logger = LoggerFactory.getLogger(TransitionController.class);
 
     private final TransitionService transitionService;
+    private final BulkTransitionService bulkTransitionService;
+    private final AutomaticTransitionWorker automaticTransitionWorker;
 
-    public TransitionController(TransitionService transitionService) {
+    public TransitionController(TransitionService transitionService, BulkTransitionService bulkTransitionService,
+                                AutomaticTransitionWorker automaticTransitionWorker) {
         this.transitionService = transitionService;
+        this.bulkTransitionService = bulkTransitionService;
+        this.automaticTransitionWorker = automaticTransitionWorker;
     }
 
     /**
@@ -50,6 +57,21 @@ public class TransitionController {
                         .body(ApiResponse.error("Erreur lors du déclenchement de la transition")));
     }
 
+    /**
+     * Applique un lot de transitions d'état sur des services et des ressources, avec un résultat par commande
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public Mono<ResponseEntity<ApiResponse<BulkTransitionResultDTO>>> applyBulkTransitions(
+            @Valid @RequestBody BulkTransitionDTO bulkTransitionDTO) {
+        logger.info("Demande d'application groupée de {} transitions", bulkTransitionDTO.commands().size());
+
+        return bulkTransitionService.applyAll(bulkTransitionDTO)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Lot de transitions traité", result)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Erreur lors de l'application groupée des transitions")));
+    }
+
     /**
      * Récupère une transition par son ID
      */
@@ -131,7 +153,7 @@ public class TransitionController {
 
         return Mono.just(ResponseEntity.ok(ApiResponse.success(
                 "Traitement des transitions automatiques démarré",
-                transitionService.processAutomaticTransitions())));
+                automaticTransitionWorker.drain())));
     }
 
     /**
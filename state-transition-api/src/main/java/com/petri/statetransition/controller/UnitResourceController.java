@@ -1,10 +1,12 @@
 package com.petri.statetransition.controller;
 
 import com.petri.statetransition.dto.*;
+import com.petri.statetransition.model.enums.EntityKind;
 import com.petri.statetransition.model.enums.UnitResourceState;
 import com.petri.statetransition.model.enums.CompositeResourceState;
 import com.petri.statetransition.service.UnitResourceService;
 import com.petri.statetransition.service.CompositeResourceService;
+import com.petri.statetransition.service.TransitionService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,9 +28,11 @@ public class UnitResourceController {
     private static final Logger logger = LoggerFactory.getLogger(UnitResourceController.class);
 
     private final UnitResourceService unitResourceService;
+    private final TransitionService transitionService;
 
-    public UnitResourceController(UnitResourceService unitResourceService) {
+    public UnitResourceController(UnitResourceService unitResourceService, TransitionService transitionService) {
         this.unitResourceService = unitResourceService;
+        this.transitionService = transitionService;
     }
 
     /**
@@ -110,6 +114,21 @@ public class UnitResourceController {
         return Mono.just(ResponseEntity.ok(ApiResponse.success(unitResourceService.findAvailableResources())));
     }
 
+    /**
+     * Récupère l'historique des transitions d'une ressource unitaire, par pages (curseur before = nextCursor précédent)
+     */
+    @GetMapping("/{id}/transitions")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER') or hasRole('VIEWER')")
+    public Mono<ResponseEntity<ApiResponse<TransitionPageDTO>>> getUnitResourceTransitions(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") Integer limit) {
+        logger.debug("Demande de l'historique des transitions de la ressource unitaire ID: {}", id);
+
+        return transitionService.findByParticipant(EntityKind.UNITAIRE, id, before, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success(page)));
+    }
+
     /**
      * Alloue une ressource unitaire (LIBRE -> AFFECTÉ)
      */
@@ -0,0 +1,18 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AllocationPlanDTO(
+        // Services PRÊT dans l'ordre d'arbitrage (priorité, ancienneté)
+        List<ServicePlanDTO> services,
+        List<Long> allocatableServiceIds,
+        List<Long> blockedServiceIds,
+        // Services absents ou qui ne sont pas PRÊT
+        List<Long> rejectedServiceIds,
+        // Services bloqués par une ressource qu'obtiendrait un service placé avant eux
+        Integer conflicts
+) {
+}
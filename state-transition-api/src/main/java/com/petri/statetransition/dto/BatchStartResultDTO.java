@@ -0,0 +1,14 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchStartResultDTO(
+        List<Long> startedServiceIds,
+        List<Long> blockedServiceIds,
+        List<Long> rejectedServiceIds,
+        Long transitionsRecorded
+) {
+}
@@ -0,0 +1,19 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.EntityKind;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkTransitionCommandDTO(
+        @NotNull(message = "Le type d'entité est obligatoire")
+        EntityKind kind,
+
+        @NotNull(message = "L'identifiant de l'entité est obligatoire")
+        Long id,
+
+        @NotBlank(message = "L'état cible est obligatoire")
+        String targetState
+) {
+}
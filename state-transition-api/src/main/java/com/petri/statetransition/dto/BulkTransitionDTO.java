@@ -0,0 +1,19 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkTransitionDTO(
+        @NotEmpty(message = "La liste des transitions est obligatoire")
+        @Size(max = 20000, message = "Un lot ne peut pas dépasser 20000 transitions")
+        List<@Valid BulkTransitionCommandDTO> commands,
+
+        @Size(max = 500, message = "La description ne peut pas dépasser 500 caractères")
+        String description
+) {
+}
@@ -0,0 +1,16 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.BulkTransitionOutcome;
+import com.petri.statetransition.model.enums.EntityKind;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkTransitionItemDTO(
+        EntityKind kind,
+        Long id,
+        String previousState,          // état lu avant application, absent si l'entité est introuvable
+        String targetState,
+        BulkTransitionOutcome outcome,
+        String message                 // motif du refus ou du conflit
+) {
+}
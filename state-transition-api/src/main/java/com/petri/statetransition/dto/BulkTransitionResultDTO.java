@@ -0,0 +1,15 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkTransitionResultDTO(
+        Integer requested,
+        Integer applied,
+        Integer failed,
+        Long transitionsRecorded,
+        List<BulkTransitionItemDTO> results   // dans l'ordre des commandes reçues
+) {
+}
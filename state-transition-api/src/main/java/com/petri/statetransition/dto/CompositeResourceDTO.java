@@ -33,7 +33,11 @@ public record CompositeResourceDTO(
         // Métadonnées
         String location,
         Integer totalCapacity,
-        Integer minRequiredComponents
+        Integer minRequiredComponents,
+
+        // Compteurs de composants (total / LIBRE)
+        Integer componentCount,
+        Integer readyComponents
 ) {
 
     /**
@@ -42,7 +46,7 @@ public record CompositeResourceDTO(
     public static CompositeResourceDTO create(String name, String description, List<Long> componentIds) {
         return new CompositeResourceDTO(
                 null, name, description, CompositeResourceState.VIDE,
-                null, null, null, componentIds, null, null, null
+                null, null, null, componentIds, null, null, null, null, null
         );
     }
 
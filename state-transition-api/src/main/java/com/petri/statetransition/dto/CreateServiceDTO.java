@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.petri.statetransition.model.enums.ServiceType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import com.petri.statetransition.model.enums.Priority;
 
@@ -32,6 +33,10 @@ public record CreateServiceDTO(
         List<Long> requiredUnitResourceIds,
         List<Long> requiredCompositeResourceIds,
         Integer maxExecutionTimeMinutes,
-        Boolean autoRetry
+        Boolean autoRetry,
+
+        // Charge demandée sur une ressource partagée (allocation fractionnaire), null pour une allocation exclusive
+        @Positive(message = "La demande doit être positive")
+        Integer demand
 ) {
 }
@@ -0,0 +1,14 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeadlockCycleDTO(
+        List<Long> serviceIds,       // Services du cycle, dans l'ordre des attentes
+        Long victimServiceId,        // Service dont les ressources ont été libérées (null si non résolu)
+        LocalDateTime detectedAt
+) {
+}
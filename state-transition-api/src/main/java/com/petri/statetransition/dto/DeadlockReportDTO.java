@@ -0,0 +1,15 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeadlockReportDTO(
+        Long detectedCycles,
+        Long resolvedCycles,
+        Integer waitingServices,     // Services bloqués ayant au moins un détenteur connu
+        Integer waitEdges,
+        List<DeadlockCycleDTO> recentCycles
+) {
+}
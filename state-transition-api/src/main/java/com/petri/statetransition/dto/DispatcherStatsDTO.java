@@ -0,0 +1,16 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DispatcherStatsDTO(
+        Boolean enabled,
+        Integer maxConcurrency,
+        Integer inFlight,                // Démarrages en cours
+        Long dispatched,
+        Long failed,
+        List<PriorityQueueStatsDTO> priorities
+) {
+}
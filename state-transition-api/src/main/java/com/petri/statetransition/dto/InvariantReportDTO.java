@@ -0,0 +1,19 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.InvariantViolationType;
+
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InvariantReportDTO(
+        Boolean incrementalChecking,  // Vrai en mode EN_MEMOIRE une fois le marquage chargé
+        Long heldTokens,              // Jetons ayant un propriétaire dans le marquage
+        Integer holdingServices,
+        Map<InvariantViolationType, Long> violationsByType,
+        Long repairedTokens,
+        InvariantScanDTO lastScan,
+        List<InvariantViolationDTO> recentViolations
+) {
+}
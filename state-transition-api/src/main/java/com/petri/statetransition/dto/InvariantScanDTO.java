@@ -0,0 +1,21 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.InvariantViolationType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InvariantScanDTO(
+        Long scannedUnitResources,
+        Long scannedCompositeResources,
+        Map<InvariantViolationType, Long> violationsByType,
+        Long repairedTokens,
+        List<InvariantViolationDTO> violations,   // Tronquée au-delà de la limite de rapport
+        Boolean truncated,
+        LocalDateTime startedAt,
+        Long durationMillis
+) {
+}
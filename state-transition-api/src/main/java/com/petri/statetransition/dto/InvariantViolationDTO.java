@@ -0,0 +1,19 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.InvariantViolationType;
+import com.petri.statetransition.model.enums.ResourceType;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InvariantViolationDTO(
+        InvariantViolationType type,
+        ResourceType resourceType,
+        Long resourceId,
+        String resourceState,        // État lu au moment de la détection
+        Long serviceId,              // Propriétaire (ou service qui vient de rendre ses ressources)
+        Boolean repaired,            // null hors réparation
+        LocalDateTime detectedAt
+) {
+}
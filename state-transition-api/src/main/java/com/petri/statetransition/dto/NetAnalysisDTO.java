@@ -0,0 +1,26 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NetAnalysisDTO(
+        Integer services,                // Services non terminés analysés
+        Integer places,
+        Integer transitions,
+        Long reachableMarkings,
+        Long edges,
+        Integer depth,
+        Boolean truncated,               // Limite de marquages atteinte : résultat partiel
+        Boolean deadlockFree,
+        Long deadlocks,
+        List<Map<String, Integer>> deadlockSamples,  // Places marquées (-1 : ω)
+        List<String> deadTransitions,    // Transitions jamais franchissables
+        List<String> unboundedPlaces,
+        Long elapsedMillis,
+        LocalDateTime analyzedAt
+) {
+}
@@ -0,0 +1,17 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PriorityQueueStatsDTO(
+        String priority,
+        Integer weight,
+        Integer queueDepth,
+        Long dispatched,
+        Double averageWaitMs,            // Attente depuis le passage à PRÊT jusqu'au démarrage
+        Long maxWaitMs,
+        Map<String, Long> waitTimeHistogram
+) {
+}
@@ -0,0 +1,12 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReservationLeaseDTO(
+        Long compositeResourceId,
+        LocalDateTime expiresAt
+) {
+}
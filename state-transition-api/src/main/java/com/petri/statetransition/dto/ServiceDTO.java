@@ -45,7 +45,8 @@ public record ServiceDTO(
 
         // Métadonnées additionnelles
         Integer maxExecutionTimeMinutes,
-        Boolean autoRetry
+        Boolean autoRetry,
+        Integer demand
 ) {
 
     /**
@@ -54,7 +55,7 @@ public record ServiceDTO(
     public static ServiceDTO create(String name, String description, ServiceType type, Priority priority) {
         return new ServiceDTO(
                 null, name, description, ServiceState.PLANIFIE, type, priority,
-                null, null, null, null, null, null, null, null
+                null, null, null, null, null, null, null, null, null
         );
     }
 
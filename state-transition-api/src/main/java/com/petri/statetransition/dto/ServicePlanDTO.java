@@ -0,0 +1,23 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.Priority;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ServicePlanDTO(
+        Long serviceId,
+        Priority priority,
+        boolean allocatable,
+
+        // Ressources qui seraient obtenues
+        List<Long> unitResourceIds,
+        List<Long> compositeResourceIds,
+
+        // Première ressource bloquante, et service du lot qui l'obtiendrait avant celui-ci
+        Long blockingUnitResourceId,
+        Long blockingCompositeResourceId,
+        Long conflictingServiceId
+) {
+}
@@ -0,0 +1,52 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SimulationRequestDTO(
+        @NotBlank(message = "La localisation simulée est obligatoire")
+        String location,
+
+        @Min(value = 1, message = "Au moins une ressource doit être simulée")
+        Integer units,                   // Nombre fixe de ressources ; absent : dimensionnement jusqu'à maxUnits
+
+        @Min(value = 1, message = "Le nombre maximal de ressources doit être positif")
+        @Max(value = 10000, message = "Le nombre maximal de ressources ne peut pas dépasser 10000")
+        Integer maxUnits,
+
+        @Min(value = 1, message = "La capacité d'une ressource doit être positive")
+        Integer unitCapacity,            // 1 : ressource exclusive
+
+        @Min(value = 1, message = "La demande d'un service doit être positive")
+        Integer demand,
+
+        @Min(value = 1, message = "Au moins une arrivée doit être simulée")
+        @Max(value = 50_000_000, message = "Une simulation ne peut pas dépasser 50 000 000 arrivées")
+        Long arrivals,
+
+        @DecimalMin(value = "0.0", message = "Le taux cible doit être compris entre 0 et 1")
+        @DecimalMax(value = "1.0", message = "Le taux cible doit être compris entre 0 et 1")
+        Double targetBlockedRatio,
+
+        @Min(value = 1, message = "La période d'historique doit être d'au moins un jour")
+        Integer historyDays,
+
+        // Paramètres imposés, prioritaires sur l'ajustement à l'historique des transitions
+        @DecimalMin(value = "0.0", inclusive = false, message = "Le taux d'arrivée doit être positif")
+        Double arrivalsPerSecond,
+
+        @Min(value = 1, message = "La durée moyenne doit être positive")
+        Long meanDurationMillis,
+
+        @DecimalMin(value = "0.0", message = "Le taux d'échec doit être compris entre 0 et 1")
+        @DecimalMax(value = "1.0", message = "Le taux d'échec doit être compris entre 0 et 1")
+        Double failureRate,
+
+        Long seed
+) {
+}
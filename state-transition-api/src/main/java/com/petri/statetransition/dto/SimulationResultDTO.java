@@ -0,0 +1,21 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SimulationResultDTO(
+        String location,
+        String workloadSource,           // HISTORIQUE, PARAMETRES ou MIXTE
+        Double arrivalsPerSecond,
+        Double meanDurationMillis,
+        Integer durationSamples,
+        Double failureRate,
+        Double targetBlockedRatio,
+        Integer recommendedUnits,        // Absent si aucun passage ne tient la cible
+        List<SimulationRunDTO> runs,
+        LocalDateTime simulatedAt
+) {
+}
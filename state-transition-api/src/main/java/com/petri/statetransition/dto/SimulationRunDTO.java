@@ -0,0 +1,25 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SimulationRunDTO(
+        Integer units,
+        Long arrivals,
+        Long blocked,                    // Services non placés à leur arrivée (BLOQUÉ)
+        Long failed,
+        Double blockedRatio,
+        Double utilization,              // Charge moyenne / capacité sur la durée simulée
+        Double minUnitUtilization,
+        Double maxUnitUtilization,
+        Map<String, Long> unitUtilizationHistogram,
+        Double averageWaitMs,
+        Long maxWaitMs,
+        Map<String, Long> waitTimeHistogram,
+        Long firings,
+        Long firingsPerSecond,
+        Long simulatedMillis
+) {
+}
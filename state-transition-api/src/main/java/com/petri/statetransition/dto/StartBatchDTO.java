@@ -0,0 +1,15 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StartBatchDTO(
+        @NotEmpty(message = "La liste des services à démarrer est obligatoire")
+        @Size(max = 5000, message = "Un lot ne peut pas dépasser 5000 services")
+        List<Long> serviceIds
+) {
+}
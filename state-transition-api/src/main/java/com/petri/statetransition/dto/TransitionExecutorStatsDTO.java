@@ -0,0 +1,22 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.TransitionType;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransitionExecutorStatsDTO(
+        TransitionType type,
+        String name,                 // absent : toutes les transitions du type
+        String executor,
+        Integer maxConcurrency,
+        Integer queueCapacity,
+        Long timeoutMillis,
+        Integer active,
+        Integer waiting,
+        Long completed,
+        Long failed,
+        Long timedOut,
+        Long rejected,
+        Long cancelled
+) {
+}
@@ -0,0 +1,19 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.petri.statetransition.model.enums.JournalMode;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransitionJournalStatsDTO(
+        JournalMode mode,
+        Integer capacity,          // absent en mode DIRECT
+        Integer buffered,          // en file, plus le lot en échec en attente de nouvel essai
+        Long appended,
+        Long written,
+        Long batches,
+        Long failedBatches,
+        Long throttled,            // mises en file retardées par une file pleine
+        Long rejected,             // mises en file abandonnées après le délai d'attente
+        Long dropped               // transitions asynchrones abandonnées après max-retries nouveaux essais
+) {
+}
@@ -0,0 +1,12 @@
+package com.petri.statetransition.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransitionPageDTO(
+        List<TransitionDTO> transitions,   // des plus récentes aux plus anciennes
+        Long nextCursor                    // paramètre before de la page suivante, absent en fin d'historique
+) {
+}
@@ -0,0 +1,140 @@
+package com.petri.statetransition.engine;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Cloison d'exécution non bloquante : au plus maxConcurrent tâches actives et maxWaiting tâches en attente
+ * d'une place ; au-delà la tâche est refusée immédiatement plutôt que d'allonger la file.
+ * Aucun thread n'attend : une tâche en attente est un abonnement suspendu, repris à la libération d'une place.
+ * Une place est rendue à la fin de la tâche, en erreur ou sur annulation, y compris pendant l'attente.
+ */
+public final class Bulkhead {
+
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int active;
+    private long rejected;
+
+    public Bulkhead(int maxConcurrent, int maxWaiting) {
+        if (maxConcurrent <= 0 || maxWaiting < 0) {
+            throw new IllegalArgumentException("Concurrence positive et file d'attente non négative requises");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * Cloison pleine : la tâche n'a pas été exécutée
+     */
+    public static final class FullException extends RuntimeException {
+
+        public FullException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Boolean> sink;
+        private boolean granted;
+
+        private Waiter(MonoSink<Boolean> sink) {
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Exécute la tâche dès qu'une place est libre ; la souscription à la tâche est différée jusque-là
+     */
+    public <T> Mono<T> execute(Mono<T> task) {
+        return Mono.usingWhen(acquire(), permit -> task,
+                permit -> Mono.fromRunnable(this::release),
+                (permit, error) -> Mono.fromRunnable(this::release),
+                permit -> Mono.fromRunnable(this::release));
+    }
+
+    public synchronized int active() {
+        return active;
+    }
+
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int maxWaiting() {
+        return maxWaiting;
+    }
+
+    private Mono<Boolean> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> cancel(waiter));
+            boolean granted = false;
+            boolean full = false;
+            synchronized (this) {
+                if (active < maxConcurrent) {
+                    active++;
+                    waiter.granted = true;
+                    granted = true;
+                } else if (waiting.size() < maxWaiting) {
+                    waiting.addLast(waiter);
+                } else {
+                    rejected++;
+                    full = true;
+                }
+            }
+            // Signaux émis hors verrou : l'aval peut s'exécuter sur ce thread
+            if (granted) {
+                sink.success(Boolean.TRUE);
+            } else if (full) {
+                sink.error(new FullException(String.format("Cloison saturée (%d actives, %d en attente)",
+                        maxConcurrent, maxWaiting)));
+            }
+        });
+    }
+
+    /**
+     * Passe la place au premier en attente, ou la rend
+     */
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                active--;
+                return;
+            }
+            next.granted = true;
+        }
+        next.sink.success(Boolean.TRUE);
+    }
+
+    /**
+     * Annulation avant la prise en charge : retire l'attente, ou rend la place accordée mais pas encore reçue
+     */
+    private void cancel(Waiter waiter) {
+        boolean handOver;
+        synchronized (this) {
+            if (waiting.remove(waiter)) {
+                return;
+            }
+            handOver = waiter.granted;
+        }
+        if (handOver) {
+            release();
+        }
+    }
+}
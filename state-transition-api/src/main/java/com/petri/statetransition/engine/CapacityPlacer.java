@@ -0,0 +1,65 @@
+package com.petri.statetransition.engine;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Placement d'une demande sur des ressources partagées (allocation fractionnaire, bin-packing)
+ * Renvoie les ressources pouvant l'accueillir dans l'ordre où les essayer : si une ressource est prise
+ * entre-temps par un service concurrent, l'appelant passe à la suivante.
+ */
+public final class CapacityPlacer {
+
+    public enum Strategy {
+        /** Première ressource (par identifiant) ayant assez de capacité libre */
+        FIRST_FIT,
+        /** Ressource qui restera la plus remplie après placement, pour garder de grands blocs libres ailleurs */
+        BEST_FIT
+    }
+
+    /**
+     * Ressource candidate : capacité totale et charge courante
+     */
+    public record Bin(Long id, int capacity, int load) {
+
+        public int free() {
+            return capacity - load;
+        }
+    }
+
+    private final Strategy strategy;
+
+    public CapacityPlacer(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Identifiants des ressources pouvant accueillir la demande, dans l'ordre de la stratégie
+     */
+    public List<Long> order(Collection<Bin> bins, int demand) {
+        return order(bins, demand, id -> false);
+    }
+
+    /**
+     * Comme {@link #order(Collection, int)}, les ressources préférées (même localisation) passant en tête
+     */
+    public List<Long> order(Collection<Bin> bins, int demand, LongPredicate preferred) {
+        Comparator<Bin> byStrategy = switch (strategy) {
+            case FIRST_FIT -> Comparator.comparing(Bin::id);
+            case BEST_FIT -> Comparator.comparingInt(Bin::free).thenComparing(Bin::id);
+        };
+        Comparator<Bin> order = Comparator.<Bin, Boolean>comparing(bin -> !preferred.test(bin.id()))
+                .thenComparing(byStrategy);
+        return bins.stream()
+                .filter(bin -> bin.free() >= demand)
+                .sorted(order)
+                .map(Bin::id)
+                .toList();
+    }
+}
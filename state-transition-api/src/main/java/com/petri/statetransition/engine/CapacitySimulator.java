@@ -0,0 +1,328 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.UnitResourceState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Simulation à événements discrets d'une localisation de ressources partagées
+ * Les services arrivent selon un processus de Poisson, demandent une capacité fixe et sont placés par les
+ * règles réelles du marquage en mémoire ({@link ResourceMarking#placeInLocation} / {@link ResourceMarking#removeLoad}).
+ * Un service non placé à son arrivée passe BLOQUÉ et attend en file (ordre d'arrivée) la prochaine libération.
+ * Les durées sont tirées dans l'échantillon observé ; un échec libère les ressources en cours d'exécution.
+ * Les événements sont des primitives dans un tas binaire : aucune allocation par événement hors marquage.
+ */
+public final class CapacitySimulator {
+
+    private static final int ARRIVAL = -1;
+
+    /**
+     * Charge de travail : taux d'arrivée, échantillon de durées (ms) et taux d'échec
+     */
+    public record Workload(double arrivalsPerSecond, long[] durationSamplesMillis, double failureRate) {
+
+        public Workload {
+            if (arrivalsPerSecond <= 0 || durationSamplesMillis.length == 0) {
+                throw new IllegalArgumentException("Charge de travail vide: taux d'arrivée ou durées manquants");
+            }
+        }
+    }
+
+    /**
+     * Localisation simulée : nombre de ressources, capacité de chacune, demande par service et nombre d'arrivées
+     */
+    public record Scenario(String location, int units, int unitCapacity, int demand, long arrivals, long seed) {
+    }
+
+    /**
+     * Résultat d'un passage ; utilisation moyenne et par ressource sur la durée simulée
+     */
+    public record Result(int units, long arrivals, long blocked, long failed, double blockedRatio, double utilization,
+                         double[] unitUtilization, LatencyHistogram waitTimes, long firings, long simulatedMillis,
+                         long elapsedNanos) {
+
+        public double firingsPerSecond() {
+            return elapsedNanos == 0 ? 0 : firings * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Dimensionnement : plus petit nombre de ressources (au plus maxUnits) qui garde le taux de services
+     * BLOQUÉS sous la cible, par dichotomie sur des passages de même graine
+     */
+    public Sizing size(Workload workload, Scenario scenario, int maxUnits, double targetBlockedRatio) {
+        List<Result> runs = new ArrayList<>();
+        int low = 1;
+        int high = maxUnits;
+        Result best = null;
+        while (low <= high) {
+            int units = (low + high) >>> 1;
+            Result result = run(workload, new Scenario(scenario.location(), units, scenario.unitCapacity(),
+                    scenario.demand(), scenario.arrivals(), scenario.seed()));
+            runs.add(result);
+            if (result.blockedRatio() <= targetBlockedRatio) {
+                best = result;
+                high = units - 1;
+            } else {
+                low = units + 1;
+            }
+        }
+        runs.sort(Comparator.comparingInt(Result::units));
+        return new Sizing(best, runs);
+    }
+
+    /**
+     * Résultat du dimensionnement : passage retenu (null si aucun ne tient la cible) et passages évalués
+     */
+    public record Sizing(Result recommended, List<Result> runs) {
+    }
+
+    public Result run(Workload workload, Scenario scenario) {
+        long startedAt = System.nanoTime();
+        ResourceMarking marking = new ResourceMarking();
+        for (long id = 1; id <= scenario.units(); id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+            marking.trackShared(id, scenario.unitCapacity(), 0, scenario.location());
+        }
+
+        Run run = new Run(workload, scenario, marking);
+        run.execute();
+        return run.result(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * État d'un passage
+     */
+    private static final class Run {
+
+        private final Workload workload;
+        private final Scenario scenario;
+        private final ResourceMarking marking;
+        private final SplittableRandom random;
+        private final EventQueue events = new EventQueue();
+        private final LatencyHistogram waitTimes = new LatencyHistogram();
+        private final long meanInterArrivalMicros;
+
+        // Services en cours ou en attente, indexés par emplacement recyclé
+        private long[] arrivedAt = new long[1024];
+        private long[] durationMicros = new long[1024];
+        private boolean[] fails = new boolean[1024];
+        private int[] slotUnit = new int[1024];
+        private int[] freeSlots = new int[1024];
+        private int freeCount;
+        private int slotCount;
+
+        // File d'attente circulaire des services bloqués
+        private int[] waiting = new int[1024];
+        private int waitingHead;
+        private int waitingSize;
+
+        // Intégrales de charge par ressource pour l'utilisation
+        private final long[] unitLoad;
+        private final long[] unitLastChange;
+        private final double[] unitLoadIntegral;
+
+        private long now;
+        private long generated;
+        private long blocked;
+        private long failed;
+        private long firings;
+
+        private Run(Workload workload, Scenario scenario, ResourceMarking marking) {
+            this.workload = workload;
+            this.scenario = scenario;
+            this.marking = marking;
+            this.random = new SplittableRandom(scenario.seed());
+            this.meanInterArrivalMicros = Math.max(1, Math.round(1_000_000 / workload.arrivalsPerSecond()));
+            this.unitLoad = new long[scenario.units() + 1];
+            this.unitLastChange = new long[scenario.units() + 1];
+            this.unitLoadIntegral = new double[scenario.units() + 1];
+        }
+
+        private void execute() {
+            if (scenario.arrivals() > 0) {
+                events.push(0, ARRIVAL);
+            }
+            while (!events.isEmpty()) {
+                now = events.peekTime();
+                int event = events.pop();
+                firings++;
+                if (event == ARRIVAL) {
+                    arrive();
+                } else {
+                    complete(event);
+                }
+            }
+        }
+
+        private void arrive() {
+            generated++;
+            if (generated < scenario.arrivals()) {
+                events.push(now + exponential(meanInterArrivalMicros), ARRIVAL);
+            }
+
+            int slot = allocateSlot();
+            arrivedAt[slot] = now;
+            long duration = workload.durationSamplesMillis()[random.nextInt(workload.durationSamplesMillis().length)] * 1_000;
+            fails[slot] = random.nextDouble() < workload.failureRate();
+            durationMicros[slot] = fails[slot] ? (long) (duration * random.nextDouble()) : duration;
+
+            if (waitingSize > 0 || !tryStart(slot)) {
+                blocked++;
+                enqueue(slot);
+            }
+        }
+
+        private void complete(int slot) {
+            int unit = slotUnit[slot];
+            changeLoad(unit, -scenario.demand());
+            marking.removeLoad((long) unit, scenario.demand());
+            if (fails[slot]) {
+                failed++;
+            }
+            releaseSlot(slot);
+
+            // Réveil des services bloqués dans l'ordre d'arrivée tant qu'ils trouvent place
+            while (waitingSize > 0 && tryStart(waiting[waitingHead])) {
+                waitingHead = (waitingHead + 1) % waiting.length;
+                waitingSize--;
+            }
+        }
+
+        private boolean tryStart(int slot) {
+            Long unit = marking.placeInLocation(scenario.location(), scenario.demand());
+            if (unit == null) {
+                return false;
+            }
+            firings++;
+            slotUnit[slot] = unit.intValue();
+            changeLoad(slotUnit[slot], scenario.demand());
+            waitTimes.record((now - arrivedAt[slot]) / 1_000);
+            events.push(now + durationMicros[slot], slot);
+            return true;
+        }
+
+        private void changeLoad(int unit, int delta) {
+            unitLoadIntegral[unit] += (double) unitLoad[unit] * (now - unitLastChange[unit]);
+            unitLastChange[unit] = now;
+            unitLoad[unit] += delta;
+        }
+
+        private long exponential(long meanMicros) {
+            return Math.max(1, (long) (-Math.log(1.0 - random.nextDouble()) * meanMicros));
+        }
+
+        private int allocateSlot() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (slotCount == arrivedAt.length) {
+                int capacity = slotCount * 2;
+                arrivedAt = Arrays.copyOf(arrivedAt, capacity);
+                durationMicros = Arrays.copyOf(durationMicros, capacity);
+                fails = Arrays.copyOf(fails, capacity);
+                slotUnit = Arrays.copyOf(slotUnit, capacity);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+            }
+            return slotCount++;
+        }
+
+        private void releaseSlot(int slot) {
+            freeSlots[freeCount++] = slot;
+        }
+
+        private void enqueue(int slot) {
+            if (waitingSize == waiting.length) {
+                int[] grown = new int[waiting.length * 2];
+                for (int i = 0; i < waitingSize; i++) {
+                    grown[i] = waiting[(waitingHead + i) % waiting.length];
+                }
+                waiting = grown;
+                waitingHead = 0;
+            }
+            waiting[(waitingHead + waitingSize) % waiting.length] = slot;
+            waitingSize++;
+        }
+
+        private Result result(long elapsedNanos) {
+            double capacity = (double) scenario.unitCapacity() * Math.max(1, now);
+            double[] utilization = new double[scenario.units()];
+            double total = 0;
+            for (int unit = 1; unit <= scenario.units(); unit++) {
+                changeLoad(unit, 0);
+                utilization[unit - 1] = unitLoadIntegral[unit] / capacity;
+                total += utilization[unit - 1];
+            }
+            double average = scenario.units() == 0 ? 0 : total / scenario.units();
+            double blockedRatio = generated == 0 ? 0 : (double) blocked / generated;
+            return new Result(scenario.units(), generated, blocked, failed, blockedRatio, average, utilization,
+                    waitTimes, firings, now / 1_000, elapsedNanos);
+        }
+    }
+
+    /**
+     * Tas binaire min d'événements (date en microsecondes, charge utile entière)
+     */
+    private static final class EventQueue {
+
+        private long[] times = new long[1024];
+        private int[] payloads = new int[1024];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private long peekTime() {
+            return times[0];
+        }
+
+        private void push(long time, int payload) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                payloads = Arrays.copyOf(payloads, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (times[parent] <= time) {
+                    break;
+                }
+                times[i] = times[parent];
+                payloads[i] = payloads[parent];
+                i = parent;
+            }
+            times[i] = time;
+            payloads[i] = payload;
+        }
+
+        private int pop() {
+            int payload = payloads[0];
+            long lastTime = times[--size];
+            int lastPayload = payloads[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && times[child + 1] < times[child]) {
+                    child++;
+                }
+                if (times[child] >= lastTime) {
+                    break;
+                }
+                times[i] = times[child];
+                payloads[i] = payloads[child];
+                i = child;
+            }
+            times[i] = lastTime;
+            payloads[i] = lastPayload;
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.petri.statetransition.engine;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compteurs de composants LIBRE des ressources composites en mode EN_MEMOIRE
+ * Chaque changement d'état d'une ressource unitaire incrémente ou décrémente le compteur des composites
+ * qui la contiennent ; la disponibilité d'une composite est alors une simple comparaison au seuil requis.
+ */
+public final class ComponentCounters {
+
+    private final Map<Long, Set<Long>> compositesByUnit = new ConcurrentHashMap<>();
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Ajoute un composant à une composite (sans effet s'il y est déjà)
+     */
+    public void addComponent(long compositeId, long unitId, boolean free) {
+        Counter counter = counters.computeIfAbsent(compositeId, id -> new Counter());
+        synchronized (counter) {
+            if (!compositesByUnit.computeIfAbsent(unitId, id -> ConcurrentHashMap.newKeySet()).add(compositeId)) {
+                return;
+            }
+            counter.components++;
+            if (free) {
+                counter.ready.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Oublie toutes les compositions (avant un nouveau chargement du marquage)
+     */
+    public void clear() {
+        compositesByUnit.clear();
+        counters.clear();
+    }
+
+    /**
+     * Seuil de composants libres de la composite (null : tous les composants)
+     */
+    public void setMinimum(long compositeId, Integer minRequiredComponents) {
+        counters.computeIfAbsent(compositeId, id -> new Counter()).minimum = minRequiredComponents;
+    }
+
+    /**
+     * Répercute le changement d'état d'une ressource unitaire sur les composites qui la contiennent
+     */
+    void unitChanged(long unitId, boolean wasFree, boolean isFree) {
+        if (wasFree == isFree) {
+            return;
+        }
+        Set<Long> composites = compositesByUnit.get(unitId);
+        if (composites == null) {
+            return;
+        }
+        for (Long compositeId : composites) {
+            Counter counter = counters.get(compositeId);
+            if (counter != null) {
+                counter.ready.addAndGet(isFree ? 1 : -1);
+            }
+        }
+    }
+
+    /**
+     * Nombre de composants LIBRE, null si la composition n'est pas connue
+     */
+    public Integer ready(long compositeId) {
+        Counter counter = known(compositeId);
+        return counter != null ? counter.ready.get() : null;
+    }
+
+    /**
+     * Nombre de composants LIBRE nécessaires, null si la composition n'est pas connue
+     */
+    public Integer required(long compositeId) {
+        Counter counter = known(compositeId);
+        return counter != null ? counter.required() : null;
+    }
+
+    /**
+     * Nombre de composants de la composite, null si la composition n'est pas connue
+     */
+    public Integer size(long compositeId) {
+        Counter counter = known(compositeId);
+        return counter != null ? counter.components : null;
+    }
+
+    /**
+     * Vrai / faux selon le compteur, null si la composition n'est pas connue (l'appelant recompte)
+     */
+    public Boolean isReady(long compositeId) {
+        Counter counter = known(compositeId);
+        return counter != null ? counter.ready.get() >= counter.required() : null;
+    }
+
+    private Counter known(long compositeId) {
+        Counter counter = counters.get(compositeId);
+        return counter != null && counter.components > 0 ? counter : null;
+    }
+
+    private static final class Counter {
+
+        private final AtomicInteger ready = new AtomicInteger();
+        private volatile int components;
+        private volatile Integer minimum;
+
+        private int required() {
+            Integer min = minimum;
+            return min != null ? Math.max(0, Math.min(min, components)) : components;
+        }
+    }
+}
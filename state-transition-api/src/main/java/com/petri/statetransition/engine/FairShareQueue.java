@@ -0,0 +1,112 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.Priority;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Files de services prêts par priorité, servies en partage pondéré (ordonnancement par pas, « stride »)
+ * Chaque file avance d'un pas inversement proportionnel à son poids à chaque service retiré ; la file
+ * non vide au plus petit compteur est servie. Une file qui redevient active repart du compteur courant
+ * et ne cumule donc pas de crédit pendant son inactivité.
+ */
+public final class FairShareQueue {
+
+    private static final long STRIDE_SCALE = 1L << 20;
+
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final Set<Long> queued = new HashSet<>();
+    private final int laneCapacity;
+    private long virtualTime;
+
+    public FairShareQueue(Map<Priority, Integer> weights, int laneCapacity) {
+        for (Priority priority : Priority.values()) {
+            int weight = weights.getOrDefault(priority, 1);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Poids invalide pour la priorité " + priority + ": " + weight);
+            }
+            lanes.put(priority, new Lane(weight));
+        }
+        this.laneCapacity = laneCapacity;
+    }
+
+    /**
+     * Ajoute un service en fin de file ; faux s'il y est déjà ou si la file est pleine
+     */
+    public synchronized boolean offer(Long serviceId, Priority priority, LocalDateTime readySince) {
+        Lane lane = lanes.get(priority != null ? priority : Priority.NORMALE);
+        if (lane.entries.size() >= laneCapacity || !queued.add(serviceId)) {
+            return false;
+        }
+        if (lane.entries.isEmpty()) {
+            lane.pass = Math.max(lane.pass, virtualTime);
+        }
+        lane.entries.addLast(new Entry(serviceId, priority, readySince));
+        return true;
+    }
+
+    /**
+     * Retire le prochain service selon les poids, null si toutes les files sont vides
+     * À compteur égal, la priorité la plus haute l'emporte.
+     */
+    public synchronized Entry poll() {
+        Lane next = null;
+        for (Lane lane : lanes.values()) {
+            if (!lane.entries.isEmpty() && (next == null || lane.pass < next.pass)) {
+                next = lane;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        virtualTime = next.pass;
+        next.pass += next.stride;
+        Entry entry = next.entries.pollFirst();
+        queued.remove(entry.serviceId());
+        return entry;
+    }
+
+    public synchronized boolean contains(Long serviceId) {
+        return queued.contains(serviceId);
+    }
+
+    /**
+     * Places libres dans la file de la priorité
+     */
+    public synchronized int remainingCapacity(Priority priority) {
+        return laneCapacity - lanes.get(priority).entries.size();
+    }
+
+    public synchronized int depth(Priority priority) {
+        return lanes.get(priority).entries.size();
+    }
+
+    public synchronized int size() {
+        return queued.size();
+    }
+
+    public int weight(Priority priority) {
+        return lanes.get(priority).weight;
+    }
+
+    public record Entry(Long serviceId, Priority priority, LocalDateTime readySince) {
+    }
+
+    private static final class Lane {
+
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        private final int weight;
+        private final long stride;
+        private long pass;
+
+        private Lane(int weight) {
+            this.weight = weight;
+            this.stride = STRIDE_SCALE / weight;
+        }
+    }
+}
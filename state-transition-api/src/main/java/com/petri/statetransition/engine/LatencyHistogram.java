@@ -0,0 +1,57 @@
+package com.petri.statetransition.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de durées à bornes fixes (millisecondes), sans verrou
+ * Chaque mesure incrémente le premier intervalle dont la borne supérieure la contient.
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BOUNDS_MILLIS = {10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 300_000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && value > BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double average() {
+        long total = count.get();
+        return total == 0 ? 0.0 : (double) sum.get() / total;
+    }
+
+    /**
+     * Effectifs par intervalle, clé = borne supérieure ("≤100ms", ..., "+Inf")
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            snapshot.put("≤" + BOUNDS_MILLIS[i] + "ms", buckets.get(i));
+        }
+        snapshot.put("+Inf", buckets.get(BOUNDS_MILLIS.length));
+        return snapshot;
+    }
+}
@@ -0,0 +1,112 @@
+package com.petri.statetransition.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roue temporelle hachée pour l'expiration des baux : chaque bail est rangé dans la case de son échéance
+ * (modulo la taille de la roue) et seule la case courante est examinée à chaque pas.
+ * Le coût d'un pas dépend du nombre de baux de la case, pas du nombre total de ressources.
+ * Un bail renouvelé est rangé dans sa nouvelle case ; l'ancienne entrée est ignorée puis purgée à son passage.
+ */
+public final class LeaseWheel<K> {
+
+    private final long tickMillis;
+    private final List<Set<K>> buckets;
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private long cursor;
+
+    public LeaseWheel(int wheelSize, long tickMillis, long nowMillis) {
+        if (wheelSize <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("Taille de roue et pas doivent être positifs");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.cursor = nowMillis / tickMillis;
+    }
+
+    /**
+     * Pose (ou remplace) le bail d'une clé
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        deadlines.put(key, deadlineMillis);
+        long tick = Math.max(tickOf(deadlineMillis), cursor + 1); // Échéance déjà passée : prochain pas
+        buckets.get(Math.floorMod(tick, buckets.size())).add(key);
+    }
+
+    /**
+     * Reporte l'échéance d'un bail existant ; faux si la clé n'a pas de bail
+     */
+    public synchronized boolean renew(K key, long deadlineMillis) {
+        if (!deadlines.containsKey(key)) {
+            return false;
+        }
+        schedule(key, deadlineMillis);
+        return true;
+    }
+
+    /**
+     * Retire le bail d'une clé ; faux si elle n'en avait pas
+     */
+    public synchronized boolean cancel(K key) {
+        return deadlines.remove(key) != null;
+    }
+
+    /**
+     * Échéance du bail, null si la clé n'en a pas
+     */
+    public synchronized Long deadline(K key) {
+        return deadlines.get(key);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Avance la roue jusqu'à l'instant donné et renvoie les clés dont le bail a expiré
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long target = nowMillis / tickMillis;
+        long steps = Math.min(target - cursor, buckets.size());
+        for (long step = 1; step <= steps; step++) {
+            int index = Math.floorMod(cursor + step, buckets.size());
+            Iterator<K> keys = buckets.get(index).iterator();
+            while (keys.hasNext()) {
+                K key = keys.next();
+                Long deadline = deadlines.get(key);
+                if (deadline == null) {
+                    keys.remove();
+                } else if (deadline <= nowMillis) {
+                    deadlines.remove(key);
+                    keys.remove();
+                    expired.add(key);
+                } else if (bucketOf(deadline) != index) {
+                    keys.remove(); // Bail renouvelé, rangé dans une autre case
+                }
+            }
+        }
+        cursor = Math.max(cursor, target);
+        return expired;
+    }
+
+    /**
+     * Case de l'échéance, arrondie au pas supérieur : la case n'est examinée qu'une fois l'échéance atteinte
+     */
+    private int bucketOf(long deadlineMillis) {
+        return Math.floorMod(tickOf(deadlineMillis), buckets.size());
+    }
+
+    private long tickOf(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    }
+}
@@ -0,0 +1,81 @@
+package com.petri.statetransition.engine;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.LongPredicate;
+
+/**
+ * Index localisation -> file des ressources partagées pouvant encore recevoir une charge
+ * Une ressource est remise en file à chaque changement d'état qui peut la rendre disponible (libération,
+ * retrait de charge, mise à jour) ; celles qui ne le sont plus sont retirées paresseusement lors du parcours.
+ * Le placement examine ainsi les ressources de la localisation en O(1) chacune, sans requête par demande.
+ */
+public final class LocationIndex {
+
+    private final Map<Long, String> locations = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Long>> available = new ConcurrentHashMap<>();
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Enregistre (ou retire si null) la localisation d'une ressource et la met en file
+     */
+    public void register(long id, String location) {
+        String previous = location != null ? locations.put(id, location) : locations.remove(id);
+        if (previous != null && !previous.equals(location) && queued.remove(id)) {
+            available.getOrDefault(previous, new ConcurrentLinkedDeque<>()).remove(id);
+        }
+        offer(id);
+    }
+
+    public String location(long id) {
+        return locations.get(id);
+    }
+
+    /**
+     * Remet la ressource en file de sa localisation (sans doublon)
+     */
+    public void offer(long id) {
+        String location = locations.get(id);
+        if (location != null && queued.add(id)) {
+            available.computeIfAbsent(location, key -> new ConcurrentLinkedDeque<>()).addLast(id);
+        }
+    }
+
+    /**
+     * Parcourt la file de la localisation et renvoie la première ressource acceptée par {@code claim} ;
+     * les ressources qui ne sont plus disponibles sont retirées au passage. Null si aucune ne convient.
+     */
+    public Long claim(String location, LongPredicate stillAvailable, LongPredicate claim) {
+        Deque<Long> deque = available.get(location);
+        if (deque == null) {
+            return null;
+        }
+
+        Iterator<Long> ids = deque.iterator();
+        while (ids.hasNext()) {
+            long id = ids.next();
+            if (!stillAvailable.test(id)) {
+                ids.remove();
+                queued.remove(id);
+                if (stillAvailable.test(id)) {
+                    offer(id); // Libérée entre la vérification et le retrait
+                }
+            } else if (claim.test(id)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de ressources en file pour la localisation (entrées périmées comprises)
+     */
+    public int queuedCount(String location) {
+        Deque<Long> deque = available.get(location);
+        return deque != null ? deque.size() : 0;
+    }
+}
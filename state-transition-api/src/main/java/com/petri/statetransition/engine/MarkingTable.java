@@ -0,0 +1,378 @@
+package com.petri.statetransition.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiPredicate;
+
+/**
+ * Table de marquage d'une place du réseau de Petri : un mot long par ressource, indexé par ID
+ * Le mot encode l'état (8 bits de poids faible, ordinal + 1) et le service propriétaire (bits restants).
+ * La valeur 0 signifie que la ressource n'est pas connue du marquage.
+ * Les mots sont rangés par segments de 4096 identifiants ; chaque mise à jour est un compare-and-set.
+ * Chaque segment tient aussi un bitset par état (bit = identifiant), ce qui ramène « toutes ces ressources
+ * sont-elles LIBRE ? » à un ET bit à bit contre un masque précalculé.
+ */
+public final class MarkingTable<S extends Enum<S>> {
+
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int WORDS_PER_SEGMENT = SEGMENT_SIZE / Long.SIZE;
+    private static final int STATE_BITS = 8;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private static final long NO_OWNER = 0L;
+
+    private final S[] states;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile Segment[] segments = new Segment[16];
+    private volatile StateListener<S> listener = (id, previous, next) -> { };
+    private volatile OwnerListener ownerListener = (id, previous, next) -> { };
+
+    public MarkingTable(Class<S> stateType) {
+        this.states = stateType.getEnumConstants();
+    }
+
+    /**
+     * Observateur des changements d'état (état précédent et nouvel état, null si la ressource est inconnue)
+     * Appelé après chaque compare-and-set réussi qui change l'état, depuis le thread qui l'a effectué.
+     */
+    @FunctionalInterface
+    public interface StateListener<S> {
+        void changed(long id, S previous, S next);
+    }
+
+    public void setListener(StateListener<S> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Observateur des changements de propriétaire (null : aucun), appelé comme {@link StateListener}
+     */
+    @FunctionalInterface
+    public interface OwnerListener {
+        void changed(long id, Long previous, Long next);
+    }
+
+    public void setOwnerListener(OwnerListener ownerListener) {
+        this.ownerListener = ownerListener;
+    }
+
+    /**
+     * État courant de la ressource, null si elle n'est pas connue du marquage
+     */
+    public S state(long id) {
+        return decodeState(word(id));
+    }
+
+    /**
+     * Service propriétaire de la ressource, null si aucun
+     */
+    public Long owner(long id) {
+        long owner = word(id) >>> STATE_BITS;
+        return owner == NO_OWNER ? null : owner;
+    }
+
+    /**
+     * Charge l'état persistant d'une ressource sans la marquer comme modifiée
+     */
+    public void put(long id, S state, Long owner) {
+        Segment segment = segmentFor(id, true);
+        long next = encode(state, owner);
+        long previous = segment.words.getAndSet(offset(id), next);
+        segment.reindex(offset(id));
+        notifyChange(id, previous, next);
+    }
+
+    /**
+     * Retire une ressource du marquage (ressource supprimée)
+     */
+    public void remove(long id) {
+        Segment segment = segmentFor(id, false);
+        if (segment != null) {
+            long previous = segment.words.getAndSet(offset(id), 0L);
+            segment.reindex(offset(id));
+            notifyChange(id, previous, 0L);
+        }
+        dirty.remove(id);
+    }
+
+    /**
+     * Fait passer la ressource à l'état cible si (état, propriétaire) satisfait la garde
+     * La ressource est alors marquée comme modifiée pour l'écriture différée.
+     */
+    public boolean transition(long id, BiPredicate<S, Long> guard, S target, Long owner) {
+        Segment segment = segmentFor(id, false);
+        if (segment == null) {
+            return false;
+        }
+
+        int offset = offset(id);
+        long next = encode(target, owner);
+        while (true) {
+            long current = segment.words.get(offset);
+            S state = decodeState(current);
+            long currentOwner = current >>> STATE_BITS;
+            if (state == null || !guard.test(state, currentOwner == NO_OWNER ? null : currentOwner)) {
+                return false;
+            }
+            if (current == next || segment.words.compareAndSet(offset, current, next)) {
+                if (current != next) {
+                    segment.reindex(offset);
+                    notifyChange(id, current, next);
+                }
+                dirty.add(id);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Retire et renvoie les identifiants modifiés depuis la dernière écriture
+     */
+    public Set<Long> drainDirty() {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : dirty) {
+            if (dirty.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Remet des identifiants dans la file d'écriture (échec de persistance)
+     */
+    public void markDirty(Collection<Long> ids) {
+        dirty.addAll(ids);
+    }
+
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Vrai si toutes les ressources du masque sont dans l'état donné (masque vide : vrai)
+     */
+    public boolean containsAll(S state, Mask mask) {
+        Segment[] current = segments;
+        for (int i = 0; i < mask.wordIndexes.length; i++) {
+            long bits = stateBits(current, state, mask.wordIndexes[i]);
+            if ((bits & mask.bits[i]) != mask.bits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vrai si au moins une ressource du masque est dans l'état donné
+     */
+    public boolean containsAny(S state, Mask mask) {
+        Segment[] current = segments;
+        for (int i = 0; i < mask.wordIndexes.length; i++) {
+            if ((stateBits(current, state, mask.wordIndexes[i]) & mask.bits[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nombre de ressources dans l'état donné
+     */
+    public long count(S state) {
+        long count = 0;
+        for (Segment segment : segments) {
+            if (segment != null) {
+                AtomicLongArray bits = segment.stateBits[state.ordinal()];
+                for (int i = 0; i < WORDS_PER_SEGMENT; i++) {
+                    count += Long.bitCount(bits.get(i));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Identifiants des ressources dans l'état donné, par ordre croissant
+     */
+    public List<Long> idsIn(S state) {
+        List<Long> ids = new ArrayList<>();
+        Segment[] current = segments;
+        for (int index = 0; index < current.length; index++) {
+            if (current[index] == null) {
+                continue;
+            }
+            AtomicLongArray bits = current[index].stateBits[state.ordinal()];
+            for (int i = 0; i < WORDS_PER_SEGMENT; i++) {
+                long word = bits.get(i);
+                while (word != 0) {
+                    ids.add(((long) index << SEGMENT_BITS) + ((long) i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void notifyChange(long id, long previous, long next) {
+        S previousState = decodeState(previous);
+        S nextState = decodeState(next);
+        if (previousState != nextState) {
+            listener.changed(id, previousState, nextState);
+        }
+        long previousOwner = previous >>> STATE_BITS;
+        long nextOwner = next >>> STATE_BITS;
+        if (previousOwner != nextOwner) {
+            ownerListener.changed(id, previousOwner == NO_OWNER ? null : previousOwner,
+                    nextOwner == NO_OWNER ? null : nextOwner);
+        }
+    }
+
+    private long stateBits(Segment[] current, S state, int wordIndex) {
+        int index = wordIndex / WORDS_PER_SEGMENT;
+        if (index >= current.length || current[index] == null) {
+            return 0L;
+        }
+        return current[index].stateBits[state.ordinal()].get(wordIndex % WORDS_PER_SEGMENT);
+    }
+
+    private long word(long id) {
+        Segment segment = segmentFor(id, false);
+        return segment == null ? 0L : segment.words.get(offset(id));
+    }
+
+    private S decodeState(long word) {
+        int ordinal = (int) (word & STATE_MASK);
+        return ordinal == 0 ? null : states[ordinal - 1];
+    }
+
+    private static long encode(Enum<?> state, Long owner) {
+        long ownerBits = owner == null ? NO_OWNER : owner;
+        return (ownerBits << STATE_BITS) | (state.ordinal() + 1);
+    }
+
+    private static int offset(long id) {
+        return (int) (id & SEGMENT_MASK);
+    }
+
+    private Segment segmentFor(long id, boolean create) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Identifiant de ressource négatif: " + id);
+        }
+
+        int index = Math.toIntExact(id >>> SEGMENT_BITS);
+        Segment[] current = segments;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        if (!create) {
+            return null;
+        }
+
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, index + 1));
+            } else if (current[index] != null) {
+                return current[index];
+            } else {
+                current = current.clone();
+            }
+            current[index] = new Segment(states.length);
+            segments = current;
+            return current[index];
+        }
+    }
+
+    /**
+     * Masque précalculé d'un ensemble de ressources : mots de bitset concernés et bits à tester
+     */
+    public static final class Mask {
+
+        private static final Mask EMPTY = new Mask(new int[0], new long[0]);
+
+        private final int[] wordIndexes;
+        private final long[] bits;
+
+        private Mask(int[] wordIndexes, long[] bits) {
+            this.wordIndexes = wordIndexes;
+            this.bits = bits;
+        }
+
+        public static Mask of(Collection<Long> ids) {
+            if (ids.isEmpty()) {
+                return EMPTY;
+            }
+
+            TreeMap<Integer, Long> words = new TreeMap<>();
+            for (Long id : ids) {
+                words.merge(Math.toIntExact(id >>> 6), 1L << (id & 63), (a, b) -> a | b);
+            }
+
+            int[] wordIndexes = new int[words.size()];
+            long[] bits = new long[words.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : words.entrySet()) {
+                wordIndexes[i] = entry.getKey();
+                bits[i++] = entry.getValue();
+            }
+            return new Mask(wordIndexes, bits);
+        }
+
+        public int size() {
+            int size = 0;
+            for (long word : bits) {
+                size += Long.bitCount(word);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Segment de 4096 identifiants : mots de marquage et bitsets par état
+     * Les bitsets sont réalignés sur le mot après chaque changement, sous le verrou du segment ;
+     * le dernier réalignement lit toujours le mot le plus récent.
+     */
+    private static final class Segment {
+
+        private final AtomicLongArray words = new AtomicLongArray(SEGMENT_SIZE);
+        private final AtomicLongArray[] stateBits;
+        private final byte[] indexed = new byte[SEGMENT_SIZE];
+
+        private Segment(int stateCount) {
+            stateBits = new AtomicLongArray[stateCount];
+            for (int i = 0; i < stateCount; i++) {
+                stateBits[i] = new AtomicLongArray(WORDS_PER_SEGMENT);
+            }
+        }
+
+        private synchronized void reindex(int offset) {
+            int ordinal = (int) (words.get(offset) & STATE_MASK);
+            int previous = indexed[offset];
+            if (ordinal == previous) {
+                return;
+            }
+
+            int wordIndex = offset >>> 6;
+            long bit = 1L << (offset & 63);
+            if (previous != 0) {
+                AtomicLongArray bits = stateBits[previous - 1];
+                bits.set(wordIndex, bits.get(wordIndex) & ~bit);
+            }
+            if (ordinal != 0) {
+                AtomicLongArray bits = stateBits[ordinal - 1];
+                bits.set(wordIndex, bits.get(wordIndex) | bit);
+            }
+            indexed[offset] = (byte) ordinal;
+        }
+    }
+}
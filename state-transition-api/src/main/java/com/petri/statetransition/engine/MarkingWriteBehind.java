@@ -0,0 +1,197 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.CompositeUnitResourceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistance du marquage en mémoire : chargement au démarrage (reprise après arrêt)
+ * et écriture différée des ressources modifiées vers unit_resources / composite_resources
+ */
+@Component
+public class MarkingWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarkingWriteBehind.class);
+    private static final int WRITE_CONCURRENCY = 8;
+
+    private final ResourceMarking marking;
+    private final UnitResourceRepository unitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final CompositeUnitResourceRepository compositeUnitResourceRepository;
+    private final AllocationMode allocationMode;
+    private final RetryBackoffSpec loadRetry;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    public MarkingWriteBehind(
+            ResourceMarking marking,
+            UnitResourceRepository unitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            CompositeUnitResourceRepository compositeUnitResourceRepository,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode,
+            @Value("${petri.marking.load-retries:5}") int loadRetries,
+            @Value("${petri.marking.load-backoff-ms:500}") long loadBackoffMillis) {
+        this(marking, unitResourceRepository, compositeResourceRepository, compositeUnitResourceRepository,
+                allocationMode, loadRetries, Duration.ofMillis(loadBackoffMillis));
+    }
+
+    MarkingWriteBehind(ResourceMarking marking, UnitResourceRepository unitResourceRepository,
+                       CompositeResourceRepository compositeResourceRepository,
+                       CompositeUnitResourceRepository compositeUnitResourceRepository,
+                       AllocationMode allocationMode, int loadRetries, Duration loadBackoff) {
+        this.marking = marking;
+        this.unitResourceRepository = unitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.compositeUnitResourceRepository = compositeUnitResourceRepository;
+        this.allocationMode = allocationMode;
+        this.loadRetry = Retry.backoff(Math.max(0, loadRetries), loadBackoff)
+                .doBeforeRetry(signal -> logger.warn("Échec du chargement du marquage en mémoire ({}), nouvelle tentative {}",
+                        signal.failure().getMessage(), signal.totalRetries() + 1))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Charge le marquage depuis la base une fois l'application démarrée
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (allocationMode != AllocationMode.EN_MEMOIRE) {
+            return;
+        }
+        load().subscribe(
+                count -> logger.info("Marquage en mémoire chargé: {} ressources", count),
+                error -> logger.error("Erreur lors du chargement du marquage en mémoire", error)
+        );
+    }
+
+    /**
+     * Lit l'état et le propriétaire de toutes les ressources, puis la composition des composites
+     * (compteurs de composants libres), et ouvre le marquage aux allocations.
+     * Une tentative échouée est rejouée avec un délai croissant ; le marquage n'est déclaré en échec
+     * qu'une fois les tentatives épuisées.
+     */
+    public Mono<Long> load() {
+        return Mono.defer(this::loadAttempt)
+                .retryWhen(loadRetry)
+                .doOnSuccess(count -> marking.markLoaded())
+                .doOnError(marking::markLoadFailed);
+    }
+
+    private Mono<Long> loadAttempt() {
+        marking.resetTracking();
+        Mono<Long> unitLoad = unitResourceRepository.findAll()
+                .doOnNext(resource -> {
+                    marking.units().put(resource.getId(), resource.getState(), resource.getAllocatedServiceId());
+                    marking.trackShared(resource.getId(), resource.getCapacity(), resource.getCurrentLoad(),
+                            resource.getLocation());
+                })
+                .count();
+        Mono<Long> compositeLoad = compositeResourceRepository.findAll()
+                .doOnNext(resource -> {
+                    marking.composites().put(resource.getId(), resource.getState(), resource.getAllocatedServiceId());
+                    marking.components().setMinimum(resource.getId(), resource.getMinRequiredComponents());
+                })
+                .count();
+        Mono<Long> componentLoad = compositeUnitResourceRepository.findAll()
+                .doOnNext(association -> marking.trackComponent(association.getCompositeResourceId(),
+                        association.getUnitResourceId()))
+                .count();
+
+        return Mono.zip(unitLoad, compositeLoad, Long::sum)
+                .flatMap(count -> componentLoad.thenReturn(count));
+    }
+
+    /**
+     * Écrit périodiquement les ressources modifiées dans le marquage
+     */
+    @Scheduled(fixedDelayString = "${petri.marking.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        if (allocationMode != AllocationMode.EN_MEMOIRE || !marking.isLoaded()) {
+            return;
+        }
+        flush().subscribe(
+                count -> {
+                    if (count > 0) {
+                        logger.debug("Écriture différée du marquage: {} ressources persistées", count);
+                    }
+                },
+                error -> logger.warn("Erreur lors de l'écriture différée du marquage", error)
+        );
+    }
+
+    /**
+     * Persiste l'état courant des ressources modifiées ; en cas d'échec elles restent à écrire
+     */
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            if (!flushing.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+
+            Set<Long> unitIds = marking.units().drainDirty();
+            Set<Long> compositeIds = marking.composites().drainDirty();
+            Set<Long> loadIds = marking.loads().drainDirty();
+
+            Flux<Integer> unitWrites = Flux.fromIterable(unitIds)
+                    .flatMap(id -> {
+                        var state = marking.units().state(id);
+                        return state == null ? Mono.<Integer>empty()
+                                : unitResourceRepository.writeMarking(id, state.name(), marking.units().owner(id));
+                    }, WRITE_CONCURRENCY);
+            Flux<Integer> compositeWrites = Flux.fromIterable(compositeIds)
+                    .flatMap(id -> {
+                        var state = marking.composites().state(id);
+                        return state == null ? Mono.<Integer>empty()
+                                : compositeResourceRepository.writeMarking(id, state.name(), marking.composites().owner(id));
+                    }, WRITE_CONCURRENCY);
+
+            Flux<Integer> loadWrites = Flux.fromIterable(loadIds)
+                    .flatMap(id -> {
+                        Integer load = marking.loads().load(id);
+                        return load == null ? Mono.<Integer>empty() : unitResourceRepository.writeLoad(id, load);
+                    }, WRITE_CONCURRENCY);
+
+            return unitWrites.concatWith(compositeWrites)
+                    .concatWith(loadWrites)
+                    .count()
+                    .doOnError(error -> {
+                        marking.units().markDirty(unitIds);
+                        marking.composites().markDirty(compositeIds);
+                        marking.loads().markDirty(loadIds);
+                    })
+                    .doFinally(signal -> flushing.set(false));
+        });
+    }
+
+    /**
+     * Dernière écriture avant l'arrêt de l'application
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (allocationMode != AllocationMode.EN_MEMOIRE || !marking.isLoaded()) {
+            return;
+        }
+        try {
+            Long count = flush().block(Duration.ofSeconds(10));
+            logger.info("Marquage persisté à l'arrêt: {} ressources", count);
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors de la persistance du marquage à l'arrêt", e);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
+
+/**
+ * Marquage en mémoire des places ressources du réseau de Petri (ressources unitaires et composites)
+ * En mode d'allocation EN_MEMOIRE il fait autorité : les décisions de franchissement y sont prises
+ * par compare-and-set, la base n'étant mise à jour qu'en écriture différée.
+ */
+@Component
+public class ResourceMarking {
+
+    private final MarkingTable<UnitResourceState> units = new MarkingTable<>(UnitResourceState.class);
+    private final MarkingTable<CompositeResourceState> composites = new MarkingTable<>(CompositeResourceState.class);
+    private final UnitLoads loads = new UnitLoads();
+    private final LocationIndex locations = new LocationIndex();
+    private final ComponentCounters components = new ComponentCounters();
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    public ResourceMarking() {
+        units.setListener((id, previous, next) -> components.unitChanged(id,
+                previous == UnitResourceState.LIBRE, next == UnitResourceState.LIBRE));
+    }
+
+    public MarkingTable<UnitResourceState> units() {
+        return units;
+    }
+
+    public MarkingTable<CompositeResourceState> composites() {
+        return composites;
+    }
+
+    public UnitLoads loads() {
+        return loads;
+    }
+
+    public LocationIndex locations() {
+        return locations;
+    }
+
+    public ComponentCounters components() {
+        return components;
+    }
+
+    /**
+     * Enregistre un composant d'une ressource composite, compté libre selon l'état courant du marquage
+     * (à appeler au chargement ou à la création de la composition, avant toute allocation du composant)
+     */
+    public void trackComponent(long compositeId, long unitId) {
+        components.addComponent(compositeId, unitId, units.state(unitId) == UnitResourceState.LIBRE);
+    }
+
+    /**
+     * Vrai si la composite est VIDE et a assez de composants libres ;
+     * null si sa composition n'est pas connue du marquage
+     */
+    public Boolean isCompositeAvailable(long compositeId) {
+        if (composites.state(compositeId) != CompositeResourceState.VIDE) {
+            return false;
+        }
+        return components.isReady(compositeId);
+    }
+
+    /**
+     * Enregistre la capacité, la charge persistée et la localisation d'une ressource unitaire
+     * (seules les ressources partagées sont indexées par localisation)
+     */
+    public void trackShared(long unitId, Integer capacity, Integer persistedLoad, String location) {
+        loads.track(unitId, capacity, persistedLoad);
+        locations.register(unitId, capacity != null ? location : null);
+    }
+
+    /**
+     * Vide les compteurs de composants et les charges avant une tentative de chargement :
+     * une tentative rejouée ne compte pas deux fois les composants déjà vus
+     */
+    public void resetTracking() {
+        components.clear();
+        loads.clear();
+    }
+
+    /**
+     * Signale la fin du chargement initial depuis la base
+     */
+    public void markLoaded() {
+        loaded.complete(null);
+    }
+
+    /**
+     * Signale l'échec définitif du chargement initial : les allocations en attente échouent
+     */
+    public void markLoadFailed(Throwable error) {
+        loaded.completeExceptionally(error);
+    }
+
+    public boolean isLoaded() {
+        return loaded.isDone() && !loaded.isCompletedExceptionally();
+    }
+
+    /**
+     * Se termine lorsque le marquage initial est chargé
+     */
+    public Mono<Void> whenLoaded() {
+        return Mono.fromFuture(loaded);
+    }
+
+    /**
+     * Franchit la transition d'allocation pour un service : composites réservées, unités affectées,
+     * puis composites prêtes. Si un seul jeton manque, tout ce qui a été pris est rendu.
+     */
+    public boolean tryClaim(Long serviceId, Collection<Long> unitIds, Collection<Long> compositeIds) {
+        List<Long> reserved = new ArrayList<>(compositeIds.size());
+        List<Long> affected = new ArrayList<>(unitIds.size());
+
+        for (Long compositeId : compositeIds) {
+            if (!composites.transition(compositeId, (state, owner) -> state == CompositeResourceState.VIDE,
+                    CompositeResourceState.EN_COURS_RESERVATION, serviceId)) {
+                rollback(serviceId, affected, reserved);
+                return false;
+            }
+            reserved.add(compositeId);
+        }
+
+        for (Long unitId : unitIds) {
+            if (!units.transition(unitId, (state, owner) -> state == UnitResourceState.LIBRE,
+                    UnitResourceState.AFFECTE, serviceId)) {
+                rollback(serviceId, affected, reserved);
+                return false;
+            }
+            affected.add(unitId);
+        }
+
+        for (Long compositeId : reserved) {
+            composites.transition(compositeId, ownedBy(serviceId, CompositeResourceState.EN_COURS_RESERVATION),
+                    CompositeResourceState.PRET, serviceId);
+        }
+        return true;
+    }
+
+    /**
+     * Franchit la transition d'allocation en pré-emptant : un jeton est pris s'il est libre ou détenu par l'un
+     * des services évincés, la propriété passant directement de l'un à l'autre sans repasser par l'état libre
+     * (aucun autre service ne peut s'intercaler). Tout ou rien : en cas d'échec chaque jeton pris est rendu
+     * à son détenteur précédent, dans son état précédent.
+     */
+    public boolean tryClaimFrom(Long serviceId, Collection<Long> unitIds, Collection<Long> compositeIds,
+                                Set<Long> victims) {
+        List<Taken<CompositeResourceState>> reserved = new ArrayList<>(compositeIds.size());
+        List<Taken<UnitResourceState>> affected = new ArrayList<>(unitIds.size());
+
+        for (Long compositeId : compositeIds) {
+            Taken<CompositeResourceState> taken = new Taken<>(compositeId);
+            if (!composites.transition(compositeId, taken.guard((state, owner) -> state == CompositeResourceState.VIDE ||
+                            (victims.contains(owner) && (state == CompositeResourceState.PRET ||
+                                    state == CompositeResourceState.AFFECTE || state.isAllocating()))),
+                    CompositeResourceState.EN_COURS_RESERVATION, serviceId)) {
+                restore(serviceId, affected, reserved);
+                return false;
+            }
+            reserved.add(taken);
+        }
+
+        for (Long unitId : unitIds) {
+            Taken<UnitResourceState> taken = new Taken<>(unitId);
+            if (!units.transition(unitId, taken.guard((state, owner) -> state == UnitResourceState.LIBRE ||
+                            (victims.contains(owner) && state.canBeReleased())),
+                    UnitResourceState.AFFECTE, serviceId)) {
+                restore(serviceId, affected, reserved);
+                return false;
+            }
+            affected.add(taken);
+        }
+
+        for (Taken<CompositeResourceState> taken : reserved) {
+            composites.transition(taken.id, ownedBy(serviceId, CompositeResourceState.EN_COURS_RESERVATION),
+                    CompositeResourceState.PRET, serviceId);
+        }
+        return true;
+    }
+
+    /**
+     * Rend au marquage libre les ressources détenues par le service
+     * Retourne les identifiants des jetons effectivement libérés.
+     */
+    public Released release(Long serviceId, Collection<Long> unitIds, Collection<Long> compositeIds) {
+        List<Long> releasedUnits = new ArrayList<>();
+        List<Long> releasedComposites = new ArrayList<>();
+        for (Long unitId : unitIds) {
+            if (units.transition(unitId,
+                    (state, owner) -> Objects.equals(owner, serviceId) && state.canBeReleased(),
+                    UnitResourceState.LIBRE, null)) {
+                locations.offer(unitId);
+                releasedUnits.add(unitId);
+            }
+        }
+        for (Long compositeId : compositeIds) {
+            if (composites.transition(compositeId,
+                    (state, owner) -> Objects.equals(owner, serviceId) && (state == CompositeResourceState.PRET ||
+                            state == CompositeResourceState.AFFECTE || state.isAllocating()),
+                    CompositeResourceState.VIDE, null)) {
+                releasedComposites.add(compositeId);
+            }
+        }
+        return new Released(releasedUnits, releasedComposites);
+    }
+
+    /**
+     * Ressources partagées parmi les identifiants donnés (toutes si vide) pouvant encore recevoir une charge
+     */
+    public List<CapacityPlacer.Bin> shareableBins(Collection<Long> unitIds) {
+        return loads.bins(unitIds).stream()
+                .filter(bin -> {
+                    UnitResourceState state = units.state(bin.id());
+                    return state != null && UnitLoads.isShareable(state, units.owner(bin.id()));
+                })
+                .toList();
+    }
+
+    /**
+     * Place une demande sur une ressource partagée ; faux si elle n'y tient plus ou n'est pas partageable
+     */
+    public boolean tryAddLoad(Long unitId, int demand) {
+        return loads.tryAdd(unitId, demand, units);
+    }
+
+    /**
+     * Retire une demande placée sur une ressource partagée
+     */
+    public boolean removeLoad(Long unitId, int demand) {
+        boolean removed = loads.remove(unitId, demand, units);
+        locations.offer(unitId);
+        return removed;
+    }
+
+    /**
+     * Place une demande sur la première ressource partagée de la localisation qui peut l'accueillir ;
+     * null si aucune ne convient
+     */
+    public Long placeInLocation(String location, int demand) {
+        return locations.claim(location, this::acceptsLoad, unitId -> tryAddLoad(unitId, demand));
+    }
+
+    private boolean acceptsLoad(long unitId) {
+        CapacityPlacer.Bin bin = loads.bin(unitId);
+        UnitResourceState state = units.state(unitId);
+        return bin != null && bin.free() > 0 && state != null && UnitLoads.isShareable(state, units.owner(unitId));
+    }
+
+    private void rollback(Long serviceId, List<Long> affected, List<Long> reserved) {
+        for (Long unitId : affected) {
+            units.transition(unitId, ownedBy(serviceId, UnitResourceState.AFFECTE), UnitResourceState.LIBRE, null);
+            locations.offer(unitId);
+        }
+        for (Long compositeId : reserved) {
+            composites.transition(compositeId, ownedBy(serviceId, CompositeResourceState.EN_COURS_RESERVATION),
+                    CompositeResourceState.VIDE, null);
+        }
+    }
+
+    private void restore(Long serviceId, List<Taken<UnitResourceState>> affected,
+                         List<Taken<CompositeResourceState>> reserved) {
+        for (Taken<UnitResourceState> taken : affected) {
+            units.transition(taken.id, ownedBy(serviceId, UnitResourceState.AFFECTE), taken.state, taken.owner);
+            if (taken.state == UnitResourceState.LIBRE) {
+                locations.offer(taken.id);
+            }
+        }
+        for (Taken<CompositeResourceState> taken : reserved) {
+            composites.transition(taken.id, ownedBy(serviceId, CompositeResourceState.EN_COURS_RESERVATION),
+                    taken.state, taken.owner);
+        }
+    }
+
+    private static <S> BiPredicate<S, Long> ownedBy(Long serviceId, S expected) {
+        return (state, owner) -> state == expected && Objects.equals(owner, serviceId);
+    }
+
+    /**
+     * Jetons rendus libres par {@link #release}
+     */
+    public record Released(List<Long> unitResourceIds, List<Long> compositeResourceIds) {
+
+        public int size() {
+            return unitResourceIds.size() + compositeResourceIds.size();
+        }
+    }
+
+    /**
+     * Jeton pris par pré-emption : état et détenteur vus par la garde au moment du compare-and-set réussi
+     */
+    private static final class Taken<S> {
+
+        private final long id;
+        private S state;
+        private Long owner;
+
+        private Taken(long id) {
+            this.id = id;
+        }
+
+        private BiPredicate<S, Long> guard(BiPredicate<S, Long> accept) {
+            return (state, owner) -> {
+                this.state = state;
+                this.owner = owner;
+                return accept.test(state, owner);
+            };
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.petri.statetransition.engine;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * File circulaire bornée sans verrou : plusieurs producteurs, un seul consommateur à la fois.
+ * Chaque case porte un numéro de séquence qui indique si elle est libre pour le tour courant des producteurs
+ * ou remplie pour le consommateur ; un producteur réserve sa position par CAS puis publie la case.
+ * Une file pleine refuse l'élément au lieu d'attendre : l'appelant choisit comment temporiser.
+ */
+public final class RingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Capacité arrondie à la puissance de deux supérieure, au moins 2 (avec une seule case, une case publiée
+     * et une case libérée porteraient la même séquence)
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacité de la file hors limites: " + capacity);
+        }
+        int rounded = 2;
+        while (rounded < capacity) {
+            rounded <<= 1;
+        }
+        this.capacity = rounded;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Ajoute l'élément ; faux si la file est pleine
+     */
+    public boolean offer(T value) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, value);
+                    // Publication : la case devient lisible par le consommateur
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // Case encore occupée par le tour précédent
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Retire au plus max éléments, dans l'ordre d'arrivée ; s'arrête à la première case réservée mais pas
+     * encore publiée. Réservé à un seul consommateur à la fois.
+     */
+    public int drainTo(List<? super T> target, int max) {
+        long position = head.get();
+        int count = 0;
+        while (count < max) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add(slots.get(index));
+            slots.set(index, null);
+            // Libère la case pour le tour suivant des producteurs
+            sequences.set(index, position + capacity);
+            position++;
+            count++;
+        }
+        head.set(position);
+        return count;
+    }
+
+    /**
+     * Nombre approximatif d'éléments en file (exact en l'absence d'opérations concurrentes)
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head.get()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,86 @@
+package com.petri.statetransition.engine;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre incrémental des jetons détenus par chaque service (P-invariant de conservation)
+ * Alimenté par les changements de propriétaire du marquage : chaque ressource a au plus un propriétaire,
+ * et la somme des jetons détenus par les services est égale au nombre de ressources ayant un propriétaire.
+ * Un service qui a rendu ses ressources doit donc y avoir un compte vide.
+ */
+public final class TokenLedger {
+
+    private final Map<Long, Set<Long>> unitsByService = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> compositesByService = new ConcurrentHashMap<>();
+    private final AtomicLong heldTokens = new AtomicLong();
+
+    /**
+     * Jetons détenus par un service
+     */
+    public record Holdings(Set<Long> unitResourceIds, Set<Long> compositeResourceIds) {
+
+        public boolean isEmpty() {
+            return unitResourceIds.isEmpty() && compositeResourceIds.isEmpty();
+        }
+    }
+
+    public void unitOwnerChanged(long unitId, Long previous, Long next) {
+        transfer(unitsByService, unitId, previous, next);
+    }
+
+    public void compositeOwnerChanged(long compositeId, Long previous, Long next) {
+        transfer(compositesByService, compositeId, previous, next);
+    }
+
+    /**
+     * Instantané des jetons détenus par le service
+     */
+    public Holdings holdings(Long serviceId) {
+        return new Holdings(snapshot(unitsByService, serviceId), snapshot(compositesByService, serviceId));
+    }
+
+    /**
+     * Nombre total de jetons ayant un propriétaire
+     */
+    public long heldTokens() {
+        return heldTokens.get();
+    }
+
+    /**
+     * Nombre de services détenant au moins un jeton
+     */
+    public int holders() {
+        Set<Long> services = new HashSet<>(unitsByService.keySet());
+        services.addAll(compositesByService.keySet());
+        return services.size();
+    }
+
+    private void transfer(Map<Long, Set<Long>> byService, long resourceId, Long previous, Long next) {
+        if (previous != null) {
+            byService.computeIfPresent(previous, (serviceId, held) -> {
+                if (held.remove(resourceId)) {
+                    heldTokens.decrementAndGet();
+                }
+                return held.isEmpty() ? null : held;
+            });
+        }
+        if (next != null) {
+            byService.compute(next, (serviceId, held) -> {
+                Set<Long> tokens = held != null ? held : ConcurrentHashMap.newKeySet();
+                if (tokens.add(resourceId)) {
+                    heldTokens.incrementAndGet();
+                }
+                return tokens;
+            });
+        }
+    }
+
+    private static Set<Long> snapshot(Map<Long, Set<Long>> byService, Long serviceId) {
+        Set<Long> held = byService.get(serviceId);
+        return held != null ? Set.copyOf(held) : Set.of();
+    }
+}
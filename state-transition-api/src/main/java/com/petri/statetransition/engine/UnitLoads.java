@@ -0,0 +1,146 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.UnitResourceState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Charge des ressources unitaires partagées (capacité non nulle) en mode EN_MEMOIRE
+ * Chaque ajout ou retrait de charge est atomique par ressource ; la première charge fait passer la ressource
+ * LIBRE -> AFFECTÉ sans propriétaire (ce qui l'exclut des allocations exclusives) et la dernière la rend LIBRE.
+ */
+public final class UnitLoads {
+
+    private final ConcurrentHashMap<Long, CapacityPlacer.Bin> loads = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Enregistre la capacité d'une ressource ; la charge persistée n'est reprise que si la ressource est nouvelle
+     */
+    public void track(long id, Integer capacity, Integer persistedLoad) {
+        loads.compute(id, (key, current) -> {
+            if (capacity == null) {
+                return null;
+            }
+            int load = current != null ? current.load() : persistedLoad != null ? persistedLoad : 0;
+            return new CapacityPlacer.Bin(key, capacity, load);
+        });
+    }
+
+    /**
+     * Oublie toutes les capacités et charges (avant un nouveau chargement du marquage)
+     */
+    public void clear() {
+        loads.clear();
+        dirty.clear();
+    }
+
+    public void remove(long id) {
+        loads.remove(id);
+        dirty.remove(id);
+    }
+
+    /**
+     * Charge courante, null si la ressource n'est pas partagée
+     */
+    public Integer load(long id) {
+        CapacityPlacer.Bin bin = loads.get(id);
+        return bin != null ? bin.load() : null;
+    }
+
+    public CapacityPlacer.Bin bin(long id) {
+        return loads.get(id);
+    }
+
+    /**
+     * Ressources partagées parmi les identifiants donnés (toutes si la collection est vide)
+     */
+    public List<CapacityPlacer.Bin> bins(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.copyOf(loads.values());
+        }
+        List<CapacityPlacer.Bin> bins = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CapacityPlacer.Bin bin = loads.get(id);
+            if (bin != null) {
+                bins.add(bin);
+            }
+        }
+        return bins;
+    }
+
+    public Set<Long> ids() {
+        return Set.copyOf(loads.keySet());
+    }
+
+    /**
+     * Ajoute la demande à la charge si elle tient dans la capacité libre et que la ressource est partageable
+     */
+    boolean tryAdd(long id, int demand, MarkingTable<UnitResourceState> units) {
+        boolean[] added = {false};
+        loads.computeIfPresent(id, (key, bin) -> {
+            if (bin.free() < demand || !units.transition(id, UnitLoads::isShareable, UnitResourceState.AFFECTE, null)) {
+                return bin;
+            }
+            added[0] = true;
+            return new CapacityPlacer.Bin(key, bin.capacity(), bin.load() + demand);
+        });
+        if (added[0]) {
+            dirty.add(id);
+        }
+        return added[0];
+    }
+
+    /**
+     * Retire la demande de la charge ; la ressource redevient LIBRE quand plus rien n'y est placé
+     */
+    boolean remove(long id, int demand, MarkingTable<UnitResourceState> units) {
+        boolean[] removed = {false};
+        loads.computeIfPresent(id, (key, bin) -> {
+            int load = Math.max(bin.load() - demand, 0);
+            if (load == 0) {
+                units.transition(id, (state, owner) -> owner == null && state == UnitResourceState.AFFECTE,
+                        UnitResourceState.LIBRE, null);
+            }
+            removed[0] = true;
+            return new CapacityPlacer.Bin(key, bin.capacity(), load);
+        });
+        if (removed[0]) {
+            dirty.add(id);
+        }
+        return removed[0];
+    }
+
+    /**
+     * Une ressource accepte une charge si elle est LIBRE, ou AFFECTÉE sans propriétaire (déjà partagée)
+     */
+    static boolean isShareable(UnitResourceState state, Long owner) {
+        return owner == null && (state == UnitResourceState.LIBRE || state == UnitResourceState.AFFECTE);
+    }
+
+    /**
+     * Retire et renvoie les identifiants dont la charge a changé depuis la dernière écriture
+     */
+    public Set<Long> drainDirty() {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : dirty) {
+            if (dirty.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    public void markDirty(Collection<Long> ids) {
+        dirty.addAll(ids);
+    }
+
+    public int dirtyCount() {
+        return dirty.size();
+    }
+}
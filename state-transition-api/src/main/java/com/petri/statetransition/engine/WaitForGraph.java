@@ -0,0 +1,94 @@
+package com.petri.statetransition.engine;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graphe d'attente des services bloqués : arc A -> B quand A attend une ressource détenue par B
+ * La détection est incrémentale : seul un cycle passant par les arcs qui viennent d'être posés peut être
+ * nouveau, on cherche donc un chemin retour vers le service qui vient de se bloquer.
+ */
+public final class WaitForGraph {
+
+    private final Map<Long, Set<Long>> waitsFor = new HashMap<>();
+
+    /**
+     * Remplace les arcs sortants du service et renvoie le cycle qu'ils ferment
+     * (service de départ en tête), vide s'il n'y en a pas
+     */
+    public synchronized List<Long> waitFor(Long serviceId, Collection<Long> holders) {
+        Set<Long> targets = new LinkedHashSet<>(holders);
+        targets.remove(serviceId);
+        if (targets.isEmpty()) {
+            waitsFor.remove(serviceId);
+            return List.of();
+        }
+        waitsFor.put(serviceId, targets);
+        return cycleThrough(serviceId);
+    }
+
+    /**
+     * Retire les arcs sortants du service (il n'attend plus)
+     */
+    public synchronized void remove(Long serviceId) {
+        waitsFor.remove(serviceId);
+    }
+
+    /**
+     * Retire les arcs entrants du service (il ne détient plus rien)
+     */
+    public synchronized void released(Long serviceId) {
+        waitsFor.values().removeIf(targets -> targets.remove(serviceId) && targets.isEmpty());
+    }
+
+    public synchronized int waitingCount() {
+        return waitsFor.size();
+    }
+
+    public synchronized int edgeCount() {
+        return waitsFor.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Parcours en profondeur depuis les successeurs du service jusqu'à revenir au service
+     */
+    private List<Long> cycleThrough(Long start) {
+        Map<Long, Long> parent = new HashMap<>();
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        for (Long next : waitsFor.get(start)) {
+            parent.putIfAbsent(next, start);
+            stack.push(next);
+        }
+
+        while (!stack.isEmpty()) {
+            Long node = stack.pop();
+            if (!visited.add(node)) {
+                continue;
+            }
+            for (Long next : waitsFor.getOrDefault(node, Set.of())) {
+                if (next.equals(start)) {
+                    LinkedList<Long> cycle = new LinkedList<>();
+                    for (Long member = node; !member.equals(start); member = parent.get(member)) {
+                        cycle.addFirst(member);
+                    }
+                    cycle.addFirst(start);
+                    return List.copyOf(cycle);
+                }
+                if (!visited.contains(next)) {
+                    parent.putIfAbsent(next, node);
+                    stack.push(next);
+                }
+            }
+        }
+        return List.of();
+    }
+}
@@ -2,13 +2,18 @@ package com.petri.statetransition.model.entity;
 
 import com.petri.statetransition.model.enums.UnitResourceState;
 import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.petri.StateNets;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.data.relational.core.mapping.Column;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 
 @Table("composite_resources")
@@ -34,6 +39,10 @@ public class CompositeResource {
     @Column("updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @Column("last_used_at")
     private LocalDateTime lastUsedAt;
 
@@ -46,6 +55,25 @@ public class CompositeResource {
     @Column("min_required_components")
     private Integer minRequiredComponents;
 
+    @Column("allocated_service_id")
+    private Long allocatedServiceId;
+
+    // Compteurs maintenus par la base (triggers sur unit_resources / composite_unit_resources)
+    @ReadOnlyProperty
+    @Column("component_count")
+    private Integer componentCount;
+
+    @ReadOnlyProperty
+    @Column("ready_components")
+    private Integer readyComponents;
+
+    // Instantané (état, propriétaire) pris à la lecture : garde du compare-and-set sur le marquage en mémoire
+    @Transient
+    private CompositeResourceState loadedState;
+
+    @Transient
+    private Long loadedAllocatedServiceId;
+
     // Constructeurs
     public CompositeResource() {
         this.state = CompositeResourceState.VIDE;
@@ -59,21 +87,23 @@ public class CompositeResource {
 
     // Méthodes métier
     public boolean canTransitionTo(CompositeResourceState newState) {
-        if (this.state == null) return false;
-
-        return switch (this.state) {
-            case VIDE -> newState == CompositeResourceState.EN_COURS_RESERVATION ||
-                    newState == CompositeResourceState.INDISPONIBLE;
-            case EN_COURS_RESERVATION -> newState == CompositeResourceState.PRET ||
-                    newState == CompositeResourceState.VIDE;
-            case PRET -> newState == CompositeResourceState.AFFECTE ||
-                    newState == CompositeResourceState.VIDE ||
-                    newState == CompositeResourceState.INDISPONIBLE;
-            case AFFECTE -> newState == CompositeResourceState.VIDE ||
-                    newState == CompositeResourceState.ZOMBIE;
-            case INDISPONIBLE -> newState == CompositeResourceState.VIDE;
-            case ZOMBIE -> newState == CompositeResourceState.VIDE;
-        };
+        return StateNets.COMPOSITE_RESOURCE.canFire(this.state, newState);
+    }
+
+    /**
+     * Nombre de composants LIBRE nécessaires : min_required_components borné au nombre de composants,
+     * tous les composants s'il n'est pas renseigné
+     */
+    public int requiredComponents() {
+        int components = componentCount != null ? componentCount : 0;
+        return minRequiredComponents != null ? Math.max(0, Math.min(minRequiredComponents, components)) : components;
+    }
+
+    /**
+     * Vrai si assez de composants sont libres pour réserver la composite (lecture du compteur maintenu)
+     */
+    public boolean isReady() {
+        return (readyComponents != null ? readyComponents : 0) >= requiredComponents();
     }
 
     public void transitionTo(CompositeResourceState newState) {
@@ -88,9 +118,30 @@ public class CompositeResource {
 
         if (newState == CompositeResourceState.AFFECTE) {
             this.lastUsedAt = LocalDateTime.now();
+        } else if (newState == CompositeResourceState.VIDE) {
+            this.allocatedServiceId = null;
         }
     }
 
+    /**
+     * Retient l'état et le propriétaire courants comme point de départ de la prochaine sauvegarde
+     */
+    public void rememberLoaded() {
+        this.loadedState = this.state;
+        this.loadedAllocatedServiceId = this.allocatedServiceId;
+    }
+
+    /**
+     * Vrai si l'état ou le propriétaire a changé depuis la lecture
+     */
+    public boolean isMarkingChanged() {
+        return state != loadedState || !Objects.equals(allocatedServiceId, loadedAllocatedServiceId);
+    }
+
+    public CompositeResourceState getLoadedState() { return loadedState; }
+
+    public Long getLoadedAllocatedServiceId() { return loadedAllocatedServiceId; }
+
     // Getters et Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -110,6 +161,9 @@ public class CompositeResource {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public LocalDateTime getLastUsedAt() { return lastUsedAt; }
     public void setLastUsedAt(LocalDateTime lastUsedAt) { this.lastUsedAt = lastUsedAt; }
 
@@ -123,4 +177,13 @@ public class CompositeResource {
     public void setMinRequiredComponents(Integer minRequiredComponents) {
         this.minRequiredComponents = minRequiredComponents;
     }
+
+    public Long getAllocatedServiceId() { return allocatedServiceId; }
+    public void setAllocatedServiceId(Long allocatedServiceId) { this.allocatedServiceId = allocatedServiceId; }
+
+    public Integer getComponentCount() { return componentCount; }
+    public void setComponentCount(Integer componentCount) { this.componentCount = componentCount; }
+
+    public Integer getReadyComponents() { return readyComponents; }
+    public void setReadyComponents(Integer readyComponents) { this.readyComponents = readyComponents; }
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.petri.statetransition.model.entity;
 import com.petri.statetransition.model.enums.ServiceState;
 import com.petri.statetransition.model.enums.ServiceType;
 import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.petri.StateNets;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.data.relational.core.mapping.Column;
 
@@ -43,6 +45,10 @@ public class Services {
     @Column("updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @Column("started_at")
     private LocalDateTime startedAt;
 
@@ -55,6 +61,9 @@ public class Services {
     @Column("auto_retry")
     private Boolean autoRetry;
 
+    @Column("demand")
+    private Integer demand;
+
     // Constructeurs
     public Services() {
         this.state = ServiceState.PLANIFIE;
@@ -71,20 +80,7 @@ public class Services {
 
     // Méthodes métier
     public boolean canTransitionTo(ServiceState newState) {
-        if (this.state == null) return false;
-
-        return switch (this.state) {
-            case PLANIFIE -> newState == ServiceState.PUBLIE || newState == ServiceState.ANNULE;
-            case PUBLIE -> newState == ServiceState.PRET || newState == ServiceState.ANNULE;
-            case PRET -> newState == ServiceState.EN_COURS || newState == ServiceState.BLOQUE ||
-                    newState == ServiceState.RETARDE || newState == ServiceState.ANNULE;
-            case BLOQUE -> newState == ServiceState.PRET || newState == ServiceState.ANNULE;
-            case RETARDE -> newState == ServiceState.PRET || newState == ServiceState.ANNULE;
-            case EN_PAUSE -> newState == ServiceState.EN_COURS || newState == ServiceState.ANNULE;
-            case EN_COURS -> newState == ServiceState.TERMINE || newState == ServiceState.ARRETE ||
-                    newState == ServiceState.EN_PAUSE || newState == ServiceState.BLOQUE;
-            case ARRETE, ANNULE, TERMINE -> false; // États finaux
-        };
+        return StateNets.SERVICE.canFire(this.state, newState);
     }
 
     public void transitionTo(ServiceState newState) {
@@ -145,6 +141,9 @@ public class Services {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public LocalDateTime getStartedAt() { return startedAt; }
     public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
 
@@ -158,4 +157,14 @@ public class Services {
 
     public Boolean getAutoRetry() { return autoRetry; }
     public void setAutoRetry(Boolean autoRetry) { this.autoRetry = autoRetry; }
+
+    public Integer getDemand() { return demand; }
+    public void setDemand(Integer demand) { this.demand = demand; }
+
+    /**
+     * Un service qui déclare une demande est placé sur une ressource partagée (allocation fractionnaire)
+     */
+    public boolean hasDemand() {
+        return demand != null;
+    }
 }
\ No newline at end of file
@@ -2,13 +2,17 @@ package com.petri.statetransition.model.entity;
 
 import com.petri.statetransition.model.enums.UnitResourceState;
 import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.petri.StateNets;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.data.relational.core.mapping.Column;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 /**
  * Entité UnitResource représentant une ressource unitaire
@@ -36,6 +40,10 @@ public class UnitResource {
     @Column("updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @Column("last_used_at")
     private LocalDateTime lastUsedAt;
 
@@ -48,6 +56,16 @@ public class UnitResource {
     @Column("current_load")
     private Integer currentLoad;
 
+    @Column("allocated_service_id")
+    private Long allocatedServiceId;
+
+    // Instantané (état, propriétaire) pris à la lecture : garde du compare-and-set sur le marquage en mémoire
+    @Transient
+    private UnitResourceState loadedState;
+
+    @Transient
+    private Long loadedAllocatedServiceId;
+
     // Constructeurs
     public UnitResource() {
         this.state = UnitResourceState.LIBRE;
@@ -62,22 +80,7 @@ public class UnitResource {
 
     // Méthodes métier
     public boolean canTransitionTo(UnitResourceState newState) {
-        if (this.state == null) return false;
-
-        return switch (this.state) {
-            case LIBRE -> newState == UnitResourceState.AFFECTE ||
-                    newState == UnitResourceState.INDISPONIBLE;
-            case AFFECTE -> newState == UnitResourceState.OCCUPE ||
-                    newState == UnitResourceState.LIBRE ||
-                    newState == UnitResourceState.BLOQUE;
-            case OCCUPE -> newState == UnitResourceState.LIBRE ||
-                    newState == UnitResourceState.BLOQUE ||
-                    newState == UnitResourceState.ZOMBIE;
-            case BLOQUE -> newState == UnitResourceState.LIBRE ||
-                    newState == UnitResourceState.INDISPONIBLE;
-            case INDISPONIBLE -> newState == UnitResourceState.LIBRE;
-            case ZOMBIE -> newState == UnitResourceState.LIBRE;
-        };
+        return StateNets.UNIT_RESOURCE.canFire(this.state, newState);
     }
 
     public void transitionTo(UnitResourceState newState) {
@@ -92,9 +95,30 @@ public class UnitResource {
 
         if (newState == UnitResourceState.OCCUPE) {
             this.lastUsedAt = LocalDateTime.now();
+        } else if (newState == UnitResourceState.LIBRE) {
+            this.allocatedServiceId = null;
         }
     }
 
+    /**
+     * Retient l'état et le propriétaire courants comme point de départ de la prochaine sauvegarde
+     */
+    public void rememberLoaded() {
+        this.loadedState = this.state;
+        this.loadedAllocatedServiceId = this.allocatedServiceId;
+    }
+
+    /**
+     * Vrai si l'état ou le propriétaire a changé depuis la lecture
+     */
+    public boolean isMarkingChanged() {
+        return state != loadedState || !Objects.equals(allocatedServiceId, loadedAllocatedServiceId);
+    }
+
+    public UnitResourceState getLoadedState() { return loadedState; }
+
+    public Long getLoadedAllocatedServiceId() { return loadedAllocatedServiceId; }
+
     // Getters et Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -114,6 +138,9 @@ public class UnitResource {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public LocalDateTime getLastUsedAt() { return lastUsedAt; }
     public void setLastUsedAt(LocalDateTime lastUsedAt) { this.lastUsedAt = lastUsedAt; }
 
@@ -125,4 +152,7 @@ public class UnitResource {
 
     public Integer getCurrentLoad() { return currentLoad; }
     public void setCurrentLoad(Integer currentLoad) { this.currentLoad = currentLoad; }
+
+    public Long getAllocatedServiceId() { return allocatedServiceId; }
+    public void setAllocatedServiceId(Long allocatedServiceId) { this.allocatedServiceId = allocatedServiceId; }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.petri.statetransition.model.entity;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Charge placée par un service sur une ressource unitaire partagée
+ */
+@Table("unit_resource_loads")
+public class UnitResourceLoad {
+
+    @Id
+    private Long id;
+
+    @Column("service_id")
+    private Long serviceId;
+
+    @Column("unit_resource_id")
+    private Long unitResourceId;
+
+    @Column("demand")
+    private Integer demand;
+
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    // Constructeurs
+    public UnitResourceLoad() {
+    }
+
+    public UnitResourceLoad(Long serviceId, Long unitResourceId, Integer demand) {
+        this.serviceId = serviceId;
+        this.unitResourceId = unitResourceId;
+        this.demand = demand;
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getServiceId() { return serviceId; }
+    public void setServiceId(Long serviceId) { this.serviceId = serviceId; }
+
+    public Long getUnitResourceId() { return unitResourceId; }
+    public void setUnitResourceId(Long unitResourceId) { this.unitResourceId = unitResourceId; }
+
+    public Integer getDemand() { return demand; }
+    public void setDemand(Integer demand) { this.demand = demand; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
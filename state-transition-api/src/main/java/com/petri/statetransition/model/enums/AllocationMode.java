@@ -0,0 +1,21 @@
+package com.petri.statetransition.model.enums;
+
+/**
+ * Stratégie d'allocation des ressources lors du démarrage d'un service
+ */
+public enum AllocationMode {
+    SEQUENTIELLE("SEQUENTIELLE", "Lecture puis sauvegarde ressource par ressource"),
+    CONDITIONNELLE("CONDITIONNELLE", "UPDATE conditionnel atomique par table avec compensation"),
+    EN_MEMOIRE("EN_MEMOIRE", "Marquage en mémoire faisant autorité, persistance différée");
+
+    private final String code;
+    private final String description;
+
+    AllocationMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,19 @@
+package com.petri.statetransition.model.enums;
+
+public enum BulkTransitionOutcome {
+    APPLIQUEE("APPLIQUÉE", "Transition appliquée"),
+    REJETEE("REJETÉE", "Transition refusée par le réseau d'états"),
+    INTROUVABLE("INTROUVABLE", "Entité inexistante"),
+    CONFLIT("CONFLIT", "État modifié par une opération concurrente");
+
+    private final String code;
+    private final String description;
+
+    BulkTransitionOutcome(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,18 @@
+package com.petri.statetransition.model.enums;
+
+public enum EntityKind {
+    SERVICE("SERVICE", "Service"),
+    UNITAIRE("UNITAIRE", "Ressource unitaire"),
+    COMPOSITE("COMPOSITE", "Ressource composite");
+
+    private final String code;
+    private final String description;
+
+    EntityKind(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+}
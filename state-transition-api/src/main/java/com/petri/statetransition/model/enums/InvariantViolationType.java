@@ -0,0 +1,32 @@
+package com.petri.statetransition.model.enums;
+
+/**
+ * Violations de l'invariant de conservation des jetons (une ressource détenue l'est par un service EN_COURS)
+ */
+public enum InvariantViolationType {
+    JETON_NON_RENDU("JETON_NON_RENDU", "Jeton encore détenu par un service après la libération de ses ressources", false),
+    UNITE_ORPHELINE("UNITE_ORPHELINE", "Ressource unitaire détenue par un service qui n'est pas en cours", true),
+    UNITE_SANS_DETENTEUR("UNITE_SANS_DETENTEUR", "Ressource unitaire affectée sans propriétaire ni charge", false),
+    PROPRIETAIRE_RESIDUEL("PROPRIETAIRE_RESIDUEL", "Ressource libre portant encore un propriétaire", true),
+    COMPOSITE_ORPHELINE("COMPOSITE_ORPHELINE", "Ressource composite détenue par un service qui n'est pas en cours", true),
+    COMPOSITE_SANS_DETENTEUR("COMPOSITE_SANS_DETENTEUR", "Ressource composite réservée ou affectée sans propriétaire", false),
+    COMPOSITE_INCOMPLETE("COMPOSITE_INCOMPLETE", "Ressource composite prête alors que ses composants requis sont libres", false);
+
+    private final String code;
+    private final String description;
+    private final boolean repairable;
+
+    InvariantViolationType(String code, String description, boolean repairable) {
+        this.code = code;
+        this.description = description;
+        this.repairable = repairable;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+
+    /**
+     * Vrai si le parcours complet peut réparer en rendant le jeton (ressource remise libre, sans propriétaire)
+     */
+    public boolean isRepairable() { return repairable; }
+}
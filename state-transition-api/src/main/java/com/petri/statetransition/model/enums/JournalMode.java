@@ -0,0 +1,18 @@
+package com.petri.statetransition.model.enums;
+
+public enum JournalMode {
+    DIRECT("DIRECT", "Insertion immédiate de chaque transition, attendue par l'appelant"),
+    ASYNCHRONE("ASYNCHRONE", "Mise en file puis insertion groupée en arrière-plan, sans attente de l'écriture"),
+    GROUPE("GROUPE", "Mise en file puis insertion groupée, l'appelant attend l'écriture de son lot");
+
+    private final String code;
+    private final String description;
+
+    JournalMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+}
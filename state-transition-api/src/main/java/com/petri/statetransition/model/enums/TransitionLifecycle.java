@@ -0,0 +1,18 @@
+package com.petri.statetransition.model.enums;
+
+public enum TransitionLifecycle {
+    COMPLET("COMPLET", "Insertion en attente, mise à jour au démarrage puis à la fin (trois écritures)"),
+    DEMARRE("DEMARRE", "Insertion à l'état démarré, mise à jour à la fin (deux écritures)"),
+    FINAL("FINAL", "Insertion unique à la fin de l'exécution (une écriture)");
+
+    private final String code;
+    private final String description;
+
+    TransitionLifecycle(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() { return code; }
+    public String getDescription() { return description; }
+}
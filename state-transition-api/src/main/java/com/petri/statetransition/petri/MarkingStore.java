@@ -0,0 +1,138 @@
+package com.petri.statetransition.petri;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensemble concurrent de marquages compactés (tableaux de mots de 64 bits de longueur fixe)
+ * Adressage ouvert à sondage linéaire dans des segments verrouillés séparément : le segment est choisi
+ * par les bits de poids fort du hachage, la case par les bits de poids faible. Aucun objet par marquage.
+ */
+final class MarkingStore {
+
+    private static final int SEGMENT_BITS = 8;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1 << 10;
+
+    private final int words;
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final AtomicInteger size = new AtomicInteger();
+
+    MarkingStore(int words) {
+        this.words = words;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(words);
+        }
+    }
+
+    /**
+     * Ajoute le marquage (copié) ; faux s'il était déjà connu
+     */
+    boolean add(long[] key) {
+        long hash = hash(key, 0, words);
+        Segment segment = segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        boolean added;
+        synchronized (segment) {
+            added = segment.add(key, hash);
+        }
+        if (added) {
+            size.incrementAndGet();
+        }
+        return added;
+    }
+
+    boolean contains(long[] key) {
+        long hash = hash(key, 0, words);
+        Segment segment = segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        synchronized (segment) {
+            return segment.contains(key, hash);
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    static long hash(long[] data, int offset, int length) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= data[i];
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+        }
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Segment {
+
+        private final int words;
+        private long[] keys;
+        private boolean[] used;
+        private int count;
+
+        private Segment(int words) {
+            this.words = words;
+            this.keys = new long[INITIAL_SEGMENT_CAPACITY * words];
+            this.used = new boolean[INITIAL_SEGMENT_CAPACITY];
+        }
+
+        private boolean add(long[] key, long hash) {
+            if ((count + 1) * 4L > used.length * 3L) {
+                grow();
+            }
+            int mask = used.length - 1;
+            int slot = (int) hash & mask;
+            while (used[slot]) {
+                if (matches(slot, key)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            store(slot, key, 0);
+            count++;
+            return true;
+        }
+
+        private boolean contains(long[] key, long hash) {
+            int mask = used.length - 1;
+            for (int slot = (int) hash & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (matches(slot, key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(int slot, long[] key) {
+            int base = slot * words;
+            for (int w = 0; w < words; w++) {
+                if (keys[base + w] != key[w]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void store(int slot, long[] source, int offset) {
+            used[slot] = true;
+            System.arraycopy(source, offset, keys, slot * words, words);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldUsed.length * 2];
+            int mask = used.length - 1;
+            for (int old = 0; old < oldUsed.length; old++) {
+                if (!oldUsed[old]) {
+                    continue;
+                }
+                int slot = (int) hash(oldKeys, old * words, words) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                store(slot, oldKeys, old * words);
+            }
+        }
+    }
+}
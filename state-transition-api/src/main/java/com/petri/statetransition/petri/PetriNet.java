@@ -0,0 +1,213 @@
+package com.petri.statetransition.petri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Réseau de Petri compilé d'une machine à états : une place par état, une transition par changement permis
+ * Les matrices d'incidence avant (pre) et arrière (post) sont des tableaux d'entiers aplatis
+ * [transition * nombre de places + place] ; une table (source, cible) -> transition rend le test
+ * de franchissement d'une entité à une lecture de tableau. Les mêmes matrices servent à l'analyse
+ * et à la simulation sur des marquages quelconques (plusieurs jetons par place).
+ */
+public final class PetriNet<S extends Enum<S>> {
+
+    private static final int NONE = -1;
+
+    private final String name;
+    private final S[] places;
+    private final int placeCount;
+    private final int transitionCount;
+    private final int[] source;
+    private final int[] target;
+    private final int[] pre;
+    private final int[] post;
+    private final int[] incidence;
+    private final int[] transitionByArc;
+
+    private PetriNet(String name, S[] places, List<int[]> arcs) {
+        this.name = name;
+        this.places = places;
+        this.placeCount = places.length;
+        this.transitionCount = arcs.size();
+        this.source = new int[transitionCount];
+        this.target = new int[transitionCount];
+        this.pre = new int[transitionCount * placeCount];
+        this.post = new int[transitionCount * placeCount];
+        this.incidence = new int[transitionCount * placeCount];
+        this.transitionByArc = new int[placeCount * placeCount];
+        Arrays.fill(transitionByArc, NONE);
+
+        for (int t = 0; t < transitionCount; t++) {
+            int from = arcs.get(t)[0];
+            int to = arcs.get(t)[1];
+            source[t] = from;
+            target[t] = to;
+            pre[t * placeCount + from] = 1;
+            post[t * placeCount + to] = 1;
+            incidence[t * placeCount + from] -= 1;
+            incidence[t * placeCount + to] += 1;
+            transitionByArc[from * placeCount + to] = t;
+        }
+    }
+
+    public static <S extends Enum<S>> Builder<S> builder(String name, Class<S> stateType) {
+        return new Builder<>(name, stateType);
+    }
+
+    /**
+     * Vrai si une entité dans l'état source peut passer à l'état cible
+     */
+    public boolean canFire(S from, S to) {
+        return from != null && to != null && transitionByArc[from.ordinal() * placeCount + to.ordinal()] != NONE;
+    }
+
+    /**
+     * Indice de la transition source -> cible, -1 si elle n'existe pas
+     */
+    public int transition(S from, S to) {
+        return transitionByArc[from.ordinal() * placeCount + to.ordinal()];
+    }
+
+    /**
+     * Vrai si le marquage contient les jetons requis par la transition
+     */
+    public boolean isEnabled(int transition, int[] marking) {
+        int row = transition * placeCount;
+        for (int p = 0; p < placeCount; p++) {
+            if (marking[p] < pre[row + p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Franchit la transition sur le marquage (modifié en place) : M' = M + C[t]
+     */
+    public void fire(int transition, int[] marking) {
+        if (!isEnabled(transition, marking)) {
+            throw new IllegalStateException(String.format("Transition %s non franchissable dans le réseau %s",
+                    transitionName(transition), name));
+        }
+        int row = transition * placeCount;
+        for (int p = 0; p < placeCount; p++) {
+            marking[p] += incidence[row + p];
+        }
+    }
+
+    /**
+     * Marquage d'une population d'entités : un jeton par entité dans la place de son état
+     */
+    public int[] marking(Map<S, Integer> tokens) {
+        int[] marking = new int[placeCount];
+        tokens.forEach((state, count) -> marking[state.ordinal()] = count);
+        return marking;
+    }
+
+    /**
+     * Réseau place/transition équivalent, marqué par une population d'entités (analyse d'accessibilité)
+     */
+    public PlaceTransitionNet toPlaceTransitionNet(Map<S, Integer> tokens) {
+        PlaceTransitionNet.Builder builder = PlaceTransitionNet.builder();
+        int[] initial = marking(tokens);
+        for (int p = 0; p < placeCount; p++) {
+            builder.place(name + ":" + places[p], initial[p]);
+        }
+        for (int t = 0; t < transitionCount; t++) {
+            builder.transition(transitionName(t), new int[]{source[t]}, new int[]{target[t]});
+        }
+        return builder.build();
+    }
+
+    /**
+     * États atteignables en une transition depuis l'état donné
+     */
+    public Set<S> successors(S from) {
+        Set<S> successors = EnumSet.noneOf(places[0].getDeclaringClass());
+        for (int t = 0; t < transitionCount; t++) {
+            if (source[t] == from.ordinal()) {
+                successors.add(places[target[t]]);
+            }
+        }
+        return successors;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int placeCount() {
+        return placeCount;
+    }
+
+    public int transitionCount() {
+        return transitionCount;
+    }
+
+    public S place(int index) {
+        return places[index];
+    }
+
+    public S source(int transition) {
+        return places[source[transition]];
+    }
+
+    public S target(int transition) {
+        return places[target[transition]];
+    }
+
+    public String transitionName(int transition) {
+        return source(transition) + "->" + target(transition);
+    }
+
+    public int pre(int transition, int place) {
+        return pre[transition * placeCount + place];
+    }
+
+    public int post(int transition, int place) {
+        return post[transition * placeCount + place];
+    }
+
+    public int incidence(int transition, int place) {
+        return incidence[transition * placeCount + place];
+    }
+
+    /**
+     * Construction déclarative : les arcs sont donnés état par état, dans l'ordre de déclaration
+     */
+    public static final class Builder<S extends Enum<S>> {
+
+        private final String name;
+        private final Class<S> stateType;
+        private final Map<S, Set<S>> arcs = new LinkedHashMap<>();
+
+        private Builder(String name, Class<S> stateType) {
+            this.name = name;
+            this.stateType = stateType;
+        }
+
+        @SafeVarargs
+        public final Builder<S> from(S source, S... targets) {
+            Set<S> successors = arcs.computeIfAbsent(source, state -> EnumSet.noneOf(stateType));
+            successors.addAll(Arrays.asList(targets));
+            return this;
+        }
+
+        public PetriNet<S> build() {
+            List<int[]> compiled = new ArrayList<>();
+            arcs.forEach((from, targets) -> targets.forEach(to -> {
+                if (from == to) {
+                    throw new IllegalArgumentException("Boucle sur l'état " + from + " dans le réseau " + name);
+                }
+                compiled.add(new int[]{from.ordinal(), to.ordinal()});
+            }));
+            return new PetriNet<>(name, stateType.getEnumConstants(), compiled);
+        }
+    }
+}
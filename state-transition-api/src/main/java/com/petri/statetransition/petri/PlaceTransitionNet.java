@@ -0,0 +1,129 @@
+package com.petri.statetransition.petri;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réseau place/transition marqué, à places et transitions nommées (réseau combiné d'une configuration)
+ * Les arcs sont stockés sous forme creuse par transition : places consommées avec leur poids,
+ * puis effet net (post - pre) sur les seules places modifiées.
+ */
+public final class PlaceTransitionNet {
+
+    private final String[] places;
+    private final String[] transitions;
+    private final int[] initialMarking;
+    private final int[][] inputPlaces;
+    private final int[][] inputWeights;
+    private final int[][] effectPlaces;
+    private final int[][] effectDeltas;
+
+    private PlaceTransitionNet(Builder builder) {
+        this.places = builder.places.toArray(String[]::new);
+        this.transitions = builder.transitions.toArray(String[]::new);
+        this.initialMarking = builder.initialMarking.stream().mapToInt(Integer::intValue).toArray();
+        int count = transitions.length;
+        this.inputPlaces = new int[count][];
+        this.inputWeights = new int[count][];
+        this.effectPlaces = new int[count][];
+        this.effectDeltas = new int[count][];
+
+        for (int t = 0; t < count; t++) {
+            Map<Integer, Integer> inputs = weights(builder.inputs.get(t));
+            Map<Integer, Integer> effect = new LinkedHashMap<>();
+            inputs.forEach((place, weight) -> effect.merge(place, -weight, Integer::sum));
+            weights(builder.outputs.get(t)).forEach((place, weight) -> effect.merge(place, weight, Integer::sum));
+            effect.values().removeIf(delta -> delta == 0);
+
+            inputPlaces[t] = inputs.keySet().stream().mapToInt(Integer::intValue).toArray();
+            inputWeights[t] = inputs.values().stream().mapToInt(Integer::intValue).toArray();
+            effectPlaces[t] = effect.keySet().stream().mapToInt(Integer::intValue).toArray();
+            effectDeltas[t] = effect.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int placeCount() {
+        return places.length;
+    }
+
+    public int transitionCount() {
+        return transitions.length;
+    }
+
+    public String place(int index) {
+        return places[index];
+    }
+
+    public String transition(int index) {
+        return transitions[index];
+    }
+
+    public int[] initialMarking() {
+        return initialMarking.clone();
+    }
+
+    int[] inputPlaces(int transition) {
+        return inputPlaces[transition];
+    }
+
+    int[] inputWeights(int transition) {
+        return inputWeights[transition];
+    }
+
+    int[] effectPlaces(int transition) {
+        return effectPlaces[transition];
+    }
+
+    int[] effectDeltas(int transition) {
+        return effectDeltas[transition];
+    }
+
+    private static Map<Integer, Integer> weights(int[] arcs) {
+        Map<Integer, Integer> weights = new LinkedHashMap<>();
+        for (int place : arcs) {
+            weights.merge(place, 1, Integer::sum);
+        }
+        return weights;
+    }
+
+    /**
+     * Construction incrémentale : une place répétée dans les entrées ou sorties d'une transition compte pour un poids
+     */
+    public static final class Builder {
+
+        private final List<String> places = new ArrayList<>();
+        private final List<Integer> initialMarking = new ArrayList<>();
+        private final List<String> transitions = new ArrayList<>();
+        private final List<int[]> inputs = new ArrayList<>();
+        private final List<int[]> outputs = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute une place avec son marquage initial et renvoie son indice
+         */
+        public int place(String name, int tokens) {
+            places.add(name);
+            initialMarking.add(tokens);
+            return places.size() - 1;
+        }
+
+        public Builder transition(String name, int[] inputPlaces, int[] outputPlaces) {
+            transitions.add(name);
+            inputs.add(inputPlaces.clone());
+            outputs.add(outputPlaces.clone());
+            return this;
+        }
+
+        public PlaceTransitionNet build() {
+            return new PlaceTransitionNet(this);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.petri.statetransition.petri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Exploration en largeur du graphe d'accessibilité d'un réseau place/transition, en parallèle
+ * Chaque niveau est découpé récursivement et développé par un pool fork/join (vol de tâches) ; les
+ * marquages sont compactés sur quelques bits par place et dédoublonnés dans un {@link MarkingStore}.
+ * Une place qui dépasse la borne de jetons passe à ω et y reste (abstraction de couverture : les
+ * transitions qui la consomment restent franchissables), ce qui garantit la terminaison sur un réseau
+ * non borné au prix d'une sur-approximation signalée dans le rapport.
+ */
+public final class ReachabilityAnalyzer {
+
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+    private static final int DEADLOCK_SAMPLES = 10;
+
+    private final int parallelism;
+    private final long maxMarkings;
+    private final int tokenBound;
+
+    public ReachabilityAnalyzer(int parallelism, long maxMarkings, int tokenBound) {
+        if (tokenBound < 1) {
+            throw new IllegalArgumentException("Borne de jetons invalide: " + tokenBound);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxMarkings = maxMarkings;
+        this.tokenBound = tokenBound;
+    }
+
+    /**
+     * Explore les marquages accessibles ; un marquage sans transition franchissable est un interblocage
+     * sauf s'il satisfait le prédicat de terminaison normale
+     */
+    public ReachabilityReport analyze(PlaceTransitionNet net, Predicate<int[]> properTermination) {
+        long start = System.nanoTime();
+        Exploration exploration = new Exploration(net, new MarkingCodec(net.placeCount(), tokenBound),
+                properTermination, maxMarkings);
+
+        long[] frontier = exploration.codec.encode(exploration.cap(net.initialMarking()));
+        exploration.store.add(frontier);
+        int frontierSize = 1;
+        int depth = 0;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (frontierSize > 0) {
+                LongList next = pool.invoke(new Expand(exploration, frontier, 0, frontierSize));
+                frontier = next.values;
+                frontierSize = next.size / exploration.codec.words;
+                if (frontierSize > 0) {
+                    depth++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return exploration.report(depth, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * État partagé d'une exploration
+     */
+    private static final class Exploration {
+
+        private final PlaceTransitionNet net;
+        private final MarkingCodec codec;
+        private final MarkingStore store;
+        private final Predicate<int[]> properTermination;
+        private final long maxMarkings;
+        private final AtomicIntegerArray fired;
+        private final AtomicIntegerArray unbounded;
+        private final LongAdder edges = new LongAdder();
+        private final AtomicLong deadlocks = new AtomicLong();
+        private final AtomicBoolean truncated = new AtomicBoolean();
+        private final List<Map<String, Integer>> deadlockSamples = new ArrayList<>();
+
+        private Exploration(PlaceTransitionNet net, MarkingCodec codec, Predicate<int[]> properTermination,
+                            long maxMarkings) {
+            this.net = net;
+            this.codec = codec;
+            this.store = new MarkingStore(codec.words);
+            this.properTermination = properTermination;
+            this.maxMarkings = maxMarkings;
+            this.fired = new AtomicIntegerArray(net.transitionCount());
+            this.unbounded = new AtomicIntegerArray(net.placeCount());
+        }
+
+        private int[] cap(int[] marking) {
+            for (int p = 0; p < marking.length; p++) {
+                if (marking[p] > codec.bound) {
+                    marking[p] = codec.omega;
+                    unbounded.set(p, 1);
+                }
+            }
+            return marking;
+        }
+
+        /**
+         * Développe les marquages [from, to) du niveau et renvoie les nouveaux
+         */
+        private LongList expand(long[] frontier, int from, int to) {
+            int places = net.placeCount();
+            int[] marking = new int[places];
+            int[] successor = new int[places];
+            long[] key = new long[codec.words];
+            LongList discovered = new LongList(codec.words * Math.max(16, to - from));
+
+            for (int i = from; i < to; i++) {
+                codec.decode(frontier, i * codec.words, marking);
+                boolean live = false;
+                for (int t = 0; t < net.transitionCount(); t++) {
+                    if (!isEnabled(t, marking)) {
+                        continue;
+                    }
+                    live = true;
+                    edges.increment();
+                    if (fired.get(t) == 0) {
+                        fired.set(t, 1);
+                    }
+                    System.arraycopy(marking, 0, successor, 0, places);
+                    fire(t, successor);
+                    codec.encode(successor, key);
+                    if (store.size() >= maxMarkings) {
+                        if (!store.contains(key)) {
+                            truncated.set(true);
+                        }
+                    } else if (store.add(key)) {
+                        discovered.add(key);
+                    }
+                }
+                if (!live && !properTermination.test(marking)) {
+                    recordDeadlock(marking);
+                }
+            }
+            return discovered;
+        }
+
+        private boolean isEnabled(int transition, int[] marking) {
+            int[] inputs = net.inputPlaces(transition);
+            int[] weights = net.inputWeights(transition);
+            for (int i = 0; i < inputs.length; i++) {
+                int tokens = marking[inputs[i]];
+                if (tokens != codec.omega && tokens < weights[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void fire(int transition, int[] marking) {
+            int[] places = net.effectPlaces(transition);
+            int[] deltas = net.effectDeltas(transition);
+            for (int i = 0; i < places.length; i++) {
+                int place = places[i];
+                if (marking[place] == codec.omega) {
+                    continue;
+                }
+                int tokens = marking[place] + deltas[i];
+                if (tokens > codec.bound) {
+                    marking[place] = codec.omega;
+                    if (unbounded.get(place) == 0) {
+                        unbounded.set(place, 1);
+                    }
+                } else {
+                    marking[place] = tokens;
+                }
+            }
+        }
+
+        private void recordDeadlock(int[] marking) {
+            if (deadlocks.incrementAndGet() > DEADLOCK_SAMPLES) {
+                return;
+            }
+            Map<String, Integer> sample = new LinkedHashMap<>();
+            for (int p = 0; p < marking.length; p++) {
+                if (marking[p] != 0) {
+                    sample.put(net.place(p), marking[p] == codec.omega ? -1 : marking[p]);
+                }
+            }
+            synchronized (deadlockSamples) {
+                deadlockSamples.add(sample);
+            }
+        }
+
+        private ReachabilityReport report(int depth, long elapsedMillis) {
+            List<String> deadTransitions = new ArrayList<>();
+            for (int t = 0; t < net.transitionCount(); t++) {
+                if (fired.get(t) == 0) {
+                    deadTransitions.add(net.transition(t));
+                }
+            }
+            List<String> unboundedPlaces = new ArrayList<>();
+            for (int p = 0; p < net.placeCount(); p++) {
+                if (unbounded.get(p) == 1) {
+                    unboundedPlaces.add(net.place(p));
+                }
+            }
+            List<Map<String, Integer>> samples;
+            synchronized (deadlockSamples) {
+                samples = List.copyOf(deadlockSamples);
+            }
+            return new ReachabilityReport(net.placeCount(), net.transitionCount(), store.size(), edges.sum(), depth,
+                    truncated.get(), deadlocks.get(), samples, deadTransitions, unboundedPlaces, elapsedMillis);
+        }
+    }
+
+    /**
+     * Développement récursif d'une tranche du niveau courant
+     */
+    private static final class Expand extends RecursiveTask<LongList> {
+
+        private final Exploration exploration;
+        private final long[] frontier;
+        private final int from;
+        private final int to;
+
+        private Expand(Exploration exploration, long[] frontier, int from, int to) {
+            this.exploration = exploration;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongList compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return exploration.expand(frontier, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Expand left = new Expand(exploration, frontier, from, middle);
+            left.fork();
+            LongList right = new Expand(exploration, frontier, middle, to).compute();
+            LongList discovered = left.join();
+            discovered.addAll(right);
+            return discovered;
+        }
+    }
+
+    /**
+     * Compactage d'un marquage : bits fixes par place, la valeur maximale codant ω
+     */
+    static final class MarkingCodec {
+
+        private final int bits;
+        private final int perWord;
+        private final int places;
+        private final int words;
+        private final int bound;
+        private final int omega;
+        private final long mask;
+
+        MarkingCodec(int places, int tokenBound) {
+            this.bits = 32 - Integer.numberOfLeadingZeros(tokenBound + 1);
+            this.perWord = 64 / bits;
+            this.places = places;
+            this.words = Math.max(1, (places + perWord - 1) / perWord);
+            this.omega = (1 << bits) - 1;
+            this.bound = omega - 1;
+            this.mask = omega;
+        }
+
+        long[] encode(int[] marking) {
+            long[] key = new long[words];
+            encode(marking, key);
+            return key;
+        }
+
+        void encode(int[] marking, long[] key) {
+            Arrays.fill(key, 0L);
+            for (int p = 0; p < places; p++) {
+                key[p / perWord] |= ((long) marking[p] & mask) << ((p % perWord) * bits);
+            }
+        }
+
+        void decode(long[] data, int offset, int[] marking) {
+            for (int p = 0; p < places; p++) {
+                marking[p] = (int) ((data[offset + p / perWord] >>> ((p % perWord) * bits)) & mask);
+            }
+        }
+    }
+
+    /**
+     * Tableau extensible de mots (marquages compactés à la suite)
+     */
+    private static final class LongList {
+
+        private long[] values;
+        private int size;
+
+        private LongList(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        private void add(long[] key) {
+            ensure(size + key.length);
+            System.arraycopy(key, 0, values, size, key.length);
+            size += key.length;
+        }
+
+        private void addAll(LongList other) {
+            ensure(size + other.size);
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.petri.statetransition.petri;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'une exploration : taille du graphe, marquages morts hors terminaison normale,
+ * transitions jamais franchissables et places non bornées (ω)
+ * Dans les échantillons, une place à -1 porte ω jetons.
+ */
+public record ReachabilityReport(
+        int places,
+        int transitions,
+        long markings,
+        long edges,
+        int depth,
+        boolean truncated,
+        long deadlocks,
+        List<Map<String, Integer>> deadlockSamples,
+        List<String> deadTransitions,
+        List<String> unboundedPlaces,
+        long elapsedMillis
+) {
+
+    public boolean isDeadlockFree() {
+        return deadlocks == 0 && !truncated;
+    }
+}
@@ -0,0 +1,163 @@
+package com.petri.statetransition.petri;
+
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.ServiceType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Réseau combiné services + ressources unitaires + ressources composites d'une configuration
+ * Chaque ressource est une place à un jeton quand elle est libre (LIBRE / VIDE). Chaque service a une place
+ * d'attente, une place TERMINE et une place EN_COURS par façon de démarrer : un service BLOQUANT prend
+ * d'un coup toutes ses unités, ses composites et leurs composants ; un NON_BLOQUANT une unité directe
+ * ou une composite avec ses composants. La fin d'exécution rend exactement ce qui a été pris.
+ * Une ressource indisponible ou détenue hors de la configuration n'a pas de jeton et n'en retrouve jamais.
+ */
+public final class ResourceNet {
+
+    private final PlaceTransitionNet net;
+    private final int[] donePlaces;
+
+    private ResourceNet(PlaceTransitionNet net, int[] donePlaces) {
+        this.net = net;
+        this.donePlaces = donePlaces;
+    }
+
+    /**
+     * Construit le réseau ; les ressources non référencées par un service sont ignorées
+     */
+    public static ResourceNet of(Collection<ServiceNode> services, Map<Long, ResourceNode> units,
+                                 Map<Long, ResourceNode> composites) {
+        PlaceTransitionNet.Builder builder = PlaceTransitionNet.builder();
+        Map<Long, Integer> unitPlaces = new LinkedHashMap<>();
+        Map<Long, Integer> compositePlaces = new LinkedHashMap<>();
+        for (ServiceNode service : services) {
+            service.unitResourceIds().forEach(id -> unitPlaces.computeIfAbsent(id,
+                    key -> builder.place("U" + key, isFree(units.get(key)))));
+            service.compositeComponents().forEach((compositeId, components) -> {
+                compositePlaces.computeIfAbsent(compositeId,
+                        key -> builder.place("C" + key, isFree(composites.get(key))));
+                components.forEach(id -> unitPlaces.computeIfAbsent(id,
+                        key -> builder.place("U" + key, isFree(units.get(key)))));
+            });
+        }
+
+        List<Integer> donePlaces = new ArrayList<>();
+        for (ServiceNode service : services) {
+            String prefix = "S" + service.id();
+            boolean running = service.state() == ServiceState.EN_COURS || service.state() == ServiceState.EN_PAUSE;
+            int waiting = builder.place(prefix + ":PRET", running ? 0 : 1);
+            int done = builder.place(prefix + ":TERMINE", 0);
+            donePlaces.add(done);
+
+            if (!running) {
+                for (Map.Entry<String, Set<Integer>> claim : claims(service, unitPlaces, compositePlaces).entrySet()) {
+                    int inProgress = builder.place(prefix + ":EN_COURS" + claim.getKey(), 0);
+                    int[] resources = claim.getValue().stream().mapToInt(Integer::intValue).toArray();
+                    builder.transition(prefix + ":démarrer" + claim.getKey(), concat(new int[]{waiting}, resources),
+                            new int[]{inProgress});
+                    builder.transition(prefix + ":terminer" + claim.getKey(), new int[]{inProgress},
+                            concat(new int[]{done}, resources));
+                }
+            } else {
+                Set<Integer> held = new LinkedHashSet<>();
+                unitPlaces.forEach((id, place) -> {
+                    if (isHeldBy(units.get(id), service.id())) {
+                        held.add(place);
+                    }
+                });
+                compositePlaces.forEach((id, place) -> {
+                    if (isHeldBy(composites.get(id), service.id())) {
+                        held.add(place);
+                    }
+                });
+                int inProgress = builder.place(prefix + ":EN_COURS[détenues]", 1);
+                builder.transition(prefix + ":terminer[détenues]", new int[]{inProgress},
+                        concat(new int[]{done}, held.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+
+        return new ResourceNet(builder.build(), donePlaces.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public PlaceTransitionNet net() {
+        return net;
+    }
+
+    /**
+     * Terminaison normale : tous les services terminés
+     */
+    public Predicate<int[]> allServicesDone() {
+        return marking -> {
+            for (int place : donePlaces) {
+                if (marking[place] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Façons de démarrer un service, libellé -> places consommées
+     */
+    private static Map<String, Set<Integer>> claims(ServiceNode service, Map<Long, Integer> unitPlaces,
+                                                    Map<Long, Integer> compositePlaces) {
+        Map<String, Set<Integer>> claims = new LinkedHashMap<>();
+        if (service.type() == ServiceType.BLOQUANT ||
+                service.unitResourceIds().isEmpty() && service.compositeComponents().isEmpty()) {
+            Set<Integer> all = new LinkedHashSet<>();
+            service.unitResourceIds().forEach(id -> all.add(unitPlaces.get(id)));
+            service.compositeComponents().forEach((compositeId, components) -> {
+                all.add(compositePlaces.get(compositeId));
+                components.forEach(id -> all.add(unitPlaces.get(id)));
+            });
+            claims.put("", all);
+            return claims;
+        }
+
+        service.unitResourceIds().forEach(id -> claims.put("[U" + id + "]", Set.of(unitPlaces.get(id))));
+        service.compositeComponents().forEach((compositeId, components) -> {
+            Set<Integer> composite = new LinkedHashSet<>();
+            composite.add(compositePlaces.get(compositeId));
+            components.forEach(id -> composite.add(unitPlaces.get(id)));
+            claims.put("[C" + compositeId + "]", composite);
+        });
+        return claims;
+    }
+
+    private static int isFree(ResourceNode resource) {
+        return resource != null && resource.free() ? 1 : 0;
+    }
+
+    private static boolean isHeldBy(ResourceNode resource, Long serviceId) {
+        return resource != null && !resource.free() && serviceId.equals(resource.ownerServiceId());
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Service non terminé de la configuration et ses exigences (composite -> composants)
+     */
+    public record ServiceNode(Long id, ServiceType type, ServiceState state, List<Long> unitResourceIds,
+                              Map<Long, List<Long>> compositeComponents) {
+    }
+
+    /**
+     * Ressource : libre, ou détenue par un service (null si indisponible)
+     */
+    public record ResourceNode(Long id, boolean free, Long ownerServiceId) {
+    }
+}
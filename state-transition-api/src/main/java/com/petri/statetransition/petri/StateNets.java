@@ -0,0 +1,47 @@
+package com.petri.statetransition.petri;
+
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+
+/**
+ * Réseaux de Petri des cycles de vie des services et des ressources
+ * Source unique des transitions permises, utilisée par les entités et par l'analyse
+ */
+public final class StateNets {
+
+    public static final PetriNet<ServiceState> SERVICE = PetriNet.builder("service", ServiceState.class)
+            .from(ServiceState.PLANIFIE, ServiceState.PUBLIE, ServiceState.ANNULE)
+            .from(ServiceState.PUBLIE, ServiceState.PRET, ServiceState.ANNULE)
+            .from(ServiceState.PRET, ServiceState.EN_COURS, ServiceState.BLOQUE, ServiceState.RETARDE, ServiceState.ANNULE)
+            .from(ServiceState.BLOQUE, ServiceState.PRET, ServiceState.ANNULE)
+            .from(ServiceState.RETARDE, ServiceState.PRET, ServiceState.ANNULE)
+            .from(ServiceState.EN_PAUSE, ServiceState.EN_COURS, ServiceState.ANNULE)
+            .from(ServiceState.EN_COURS, ServiceState.TERMINE, ServiceState.ARRETE, ServiceState.EN_PAUSE, ServiceState.BLOQUE)
+            .build(); // ARRETE, ANNULE, TERMINE : états finaux
+
+    public static final PetriNet<UnitResourceState> UNIT_RESOURCE = PetriNet.builder("unit-resource", UnitResourceState.class)
+            .from(UnitResourceState.LIBRE, UnitResourceState.AFFECTE, UnitResourceState.INDISPONIBLE)
+            .from(UnitResourceState.AFFECTE, UnitResourceState.OCCUPE, UnitResourceState.LIBRE, UnitResourceState.BLOQUE)
+            .from(UnitResourceState.OCCUPE, UnitResourceState.LIBRE, UnitResourceState.BLOQUE, UnitResourceState.ZOMBIE)
+            .from(UnitResourceState.BLOQUE, UnitResourceState.LIBRE, UnitResourceState.INDISPONIBLE)
+            .from(UnitResourceState.INDISPONIBLE, UnitResourceState.LIBRE)
+            .from(UnitResourceState.ZOMBIE, UnitResourceState.LIBRE)
+            .build();
+
+    public static final PetriNet<CompositeResourceState> COMPOSITE_RESOURCE =
+            PetriNet.builder("composite-resource", CompositeResourceState.class)
+                    .from(CompositeResourceState.VIDE, CompositeResourceState.EN_COURS_RESERVATION,
+                            CompositeResourceState.INDISPONIBLE)
+                    .from(CompositeResourceState.EN_COURS_RESERVATION, CompositeResourceState.PRET,
+                            CompositeResourceState.VIDE)
+                    .from(CompositeResourceState.PRET, CompositeResourceState.AFFECTE, CompositeResourceState.VIDE,
+                            CompositeResourceState.INDISPONIBLE)
+                    .from(CompositeResourceState.AFFECTE, CompositeResourceState.VIDE, CompositeResourceState.ZOMBIE)
+                    .from(CompositeResourceState.INDISPONIBLE, CompositeResourceState.VIDE)
+                    .from(CompositeResourceState.ZOMBIE, CompositeResourceState.VIDE)
+                    .build();
+
+    private StateNets() {
+    }
+}
@@ -2,6 +2,7 @@ package com.petri.statetransition.repository;
 
 import com.petri.statetransition.model.entity.CompositeResource;
 import com.petri.statetransition.model.enums.CompositeResourceState;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface CompositeResourceRepository extends R2dbcRepository<CompositeResource, Long> {
@@ -20,9 +22,13 @@ public interface CompositeResourceRepository extends R2dbcRepository<CompositeRe
     Flux<CompositeResource> findByState(CompositeResourceState state);
 
     /**
-     * Trouve les ressources composites disponibles pour réservation
+     * Trouve les ressources composites disponibles pour réservation (vides et assez de composants libres)
      */
-    @Query("SELECT * FROM composite_resources WHERE state = 'VIDE'")
+    @Query("""
+        SELECT * FROM composite_resources
+        WHERE state = 'VIDE'
+          AND ready_components >= LEAST(COALESCE(min_required_components, component_count), component_count)
+        """)
     Flux<CompositeResource> findAvailableResources();
 
     /**
@@ -68,6 +74,117 @@ public interface CompositeResourceRepository extends R2dbcRepository<CompositeRe
     @Query("SELECT * FROM composite_resources WHERE total_capacity >= :minCapacity AND state = 'VIDE'")
     Flux<CompositeResource> findAvailableWithMinCapacity(@Param("minCapacity") Integer minCapacity);
 
+    /**
+     * Réserve en une instruction les ressources composites encore vides et prêtes (VIDE -> EN_COURS_RÉSERVATION)
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = 'EN_COURS_RESERVATION', allocated_service_id = :serviceId, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = 'VIDE'
+          AND ready_components >= LEAST(COALESCE(min_required_components, component_count), component_count)
+        """)
+    Mono<Integer> reserveIfEmpty(@Param("ids") Collection<Long> ids, @Param("serviceId") Long serviceId);
+
+    /**
+     * Finalise la réservation des ressources composites d'un service (EN_COURS_RÉSERVATION -> PRÊT)
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = 'PRET', updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND allocated_service_id = :serviceId AND state = 'EN_COURS_RESERVATION'
+        """)
+    Mono<Integer> markReady(@Param("ids") Collection<Long> ids, @Param("serviceId") Long serviceId);
+
+    /**
+     * Annule une réservation partielle : seules les ressources réservées par ce service sont vidées
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = 'VIDE', allocated_service_id = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND allocated_service_id = :serviceId AND state IN ('EN_COURS_RESERVATION', 'PRET')
+        """)
+    Mono<Integer> revertReservation(@Param("ids") Collection<Long> ids, @Param("serviceId") Long serviceId);
+
+    /**
+     * Libère en une instruction toutes les ressources composites prêtes ou affectées à un service
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = 'VIDE', allocated_service_id = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE allocated_service_id = :serviceId AND state IN ('PRET', 'AFFECTE')
+        """)
+    Mono<Integer> releaseByService(@Param("serviceId") Long serviceId);
+
+    /**
+     * Identifiants des ressources que {@link #releaseByService} libérerait pour ce service
+     */
+    @Query("""
+        SELECT id FROM composite_resources
+        WHERE allocated_service_id = :serviceId AND state IN ('PRET', 'AFFECTE')
+        """)
+    Flux<Long> findIdsHeldByService(@Param("serviceId") Long serviceId);
+
+    /**
+     * Écriture différée du marquage en mémoire : état et propriétaire courants d'une ressource
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = :state, allocated_service_id = :serviceId, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id
+        """)
+    Mono<Integer> writeMarking(@Param("id") Long id, @Param("state") String state, @Param("serviceId") Long serviceId);
+
+    /**
+     * Lecture par tranches (pagination par clé) avec le nombre de composants requis et le nombre de composants
+     * effectivement détenus (AFFECTÉ ou OCCUPÉ) par le propriétaire de la composite
+     */
+    @Query("""
+        SELECT cr.id, cr.state, cr.allocated_service_id, cr.version, cr.updated_at,
+               LEAST(COALESCE(cr.min_required_components, cr.component_count), cr.component_count) AS required_components,
+               (SELECT COUNT(*) FROM composite_unit_resources cur
+                INNER JOIN unit_resources ur ON ur.id = cur.unit_resource_id
+                WHERE cur.composite_resource_id = cr.id AND ur.allocated_service_id = cr.allocated_service_id
+                  AND ur.state IN ('AFFECTE', 'OCCUPE')) AS held_components
+        FROM composite_resources cr
+        WHERE cr.id > :afterId
+        ORDER BY cr.id
+        LIMIT :limit
+        """)
+    Flux<CompositeHolding> findHoldingChunkAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * Rend un jeton perdu : la ressource composite repasse VIDE sans propriétaire,
+     * seulement si elle n'a pas changé depuis sa lecture (même version)
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = 'VIDE', allocated_service_id = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id AND version = :version
+        """)
+    Mono<Integer> repairToken(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Transition groupée des composites du lot encore dans l'état source
+     * Mêmes effets que CompositeResource#transitionTo : VIDE retire le propriétaire, AFFECTE date l'utilisation.
+     */
+    @Modifying
+    @Query("""
+        UPDATE composite_resources
+        SET state = :target,
+            allocated_service_id = CASE WHEN :target = 'VIDE' THEN NULL ELSE allocated_service_id END,
+            last_used_at = CASE WHEN :target = 'AFFECTE' THEN CURRENT_TIMESTAMP ELSE last_used_at END,
+            updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = :source
+        """)
+    Mono<Integer> transitionAll(@Param("ids") Collection<Long> ids, @Param("source") String source,
+                                @Param("target") String target);
+
     /**
      * Statistiques des ressources composites par état
      */
@@ -82,4 +199,14 @@ public interface CompositeResourceRepository extends R2dbcRepository<CompositeRe
         String getResourceState();
         Long getCountResources();
     }
-}
\ No newline at end of file
+
+    interface CompositeHolding {
+        Long getId();
+        String getState();
+        Long getAllocatedServiceId();
+        Long getVersion();
+        LocalDateTime getUpdatedAt();
+        Integer getRequiredComponents();
+        Long getHeldComponents();
+    }
+}
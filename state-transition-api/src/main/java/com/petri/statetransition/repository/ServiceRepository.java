@@ -4,6 +4,7 @@ import com.petri.statetransition.model.entity.Services;
 import com.petri.statetransition.model.enums.ServiceState;
 import com.petri.statetransition.model.enums.ServiceType;
 import com.petri.statetransition.model.enums.Priority;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * Repository pour l'entité Service
@@ -95,6 +97,105 @@ public interface ServiceRepository extends R2dbcRepository<Services, Long> {
         """)
     Flux<Services> findByRequiredCompositeResourceId(@Param("compositeResourceId") Long compositeResourceId);
 
+    /**
+     * Récupère en une seule requête l'état de toutes les ressources requises par un service :
+     * ressources unitaires directes, ressources composites et leurs composants unitaires
+     * Chaque ligne de composite porte le compteur de composants libres et le seuil requis.
+     */
+    @Query("""
+        SELECT ur.id AS unit_resource_id, ur.state AS unit_state,
+               NULL AS composite_resource_id, NULL AS composite_state,
+               NULL AS composite_ready_components, NULL AS composite_required_components
+        FROM service_unit_resources sur
+        INNER JOIN unit_resources ur ON ur.id = sur.unit_resource_id
+        WHERE sur.service_id = :serviceId
+        UNION ALL
+        SELECT ur.id, ur.state, cr.id, cr.state,
+               cr.ready_components, LEAST(COALESCE(cr.min_required_components, cr.component_count), cr.component_count)
+        FROM service_composite_resources scr
+        INNER JOIN composite_resources cr ON cr.id = scr.composite_resource_id
+        LEFT JOIN composite_unit_resources cur ON cur.composite_resource_id = cr.id
+        LEFT JOIN unit_resources ur ON ur.id = cur.unit_resource_id
+        WHERE scr.service_id = :serviceId
+        """)
+    Flux<ResourceRequirementState> findResourceRequirementStates(@Param("serviceId") Long serviceId);
+
+    /**
+     * Même lecture que findResourceRequirementStates pour un lot de services, en une seule requête
+     */
+    @Query("""
+        SELECT sur.service_id AS service_id, ur.id AS unit_resource_id, ur.state AS unit_state,
+               NULL AS composite_resource_id, NULL AS composite_state,
+               NULL AS composite_ready_components, NULL AS composite_required_components
+        FROM service_unit_resources sur
+        INNER JOIN unit_resources ur ON ur.id = sur.unit_resource_id
+        WHERE sur.service_id IN (:serviceIds)
+        UNION ALL
+        SELECT scr.service_id, ur.id, ur.state, cr.id, cr.state,
+               cr.ready_components, LEAST(COALESCE(cr.min_required_components, cr.component_count), cr.component_count)
+        FROM service_composite_resources scr
+        INNER JOIN composite_resources cr ON cr.id = scr.composite_resource_id
+        LEFT JOIN composite_unit_resources cur ON cur.composite_resource_id = cr.id
+        LEFT JOIN unit_resources ur ON ur.id = cur.unit_resource_id
+        WHERE scr.service_id IN (:serviceIds)
+        """)
+    Flux<ServiceRequirementState> findResourceRequirementStatesForServices(
+            @Param("serviceIds") Collection<Long> serviceIds);
+
+    /**
+     * Démarre en une instruction les services encore PRÊT du lot (PRÊT -> EN_COURS)
+     */
+    @Modifying
+    @Query("""
+        UPDATE services
+        SET state = 'EN_COURS', started_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = 'PRET'
+        """)
+    Mono<Integer> markStarted(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Identifiants des services du lot qui sont dans l'état donné (relecture après un UPDATE groupé partiel)
+     */
+    @Query("SELECT id FROM services WHERE id IN (:ids) AND state = :state")
+    Flux<Long> findIdsInState(@Param("ids") Collection<Long> ids, @Param("state") String state);
+
+    /**
+     * Bloque en une instruction les services encore PRÊT du lot (PRÊT -> BLOQUÉ)
+     */
+    @Modifying
+    @Query("""
+        UPDATE services
+        SET state = 'BLOQUE', updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = 'PRET'
+        """)
+    Mono<Integer> markBlocked(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Suspend en une instruction les services évincés par pré-emption (EN_COURS -> EN_PAUSE)
+     */
+    @Modifying
+    @Query("""
+        UPDATE services
+        SET state = 'EN_PAUSE', updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = 'EN_COURS'
+        """)
+    Mono<Integer> markPaused(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Transition groupée des services du lot encore dans l'état source
+     * Les états finaux reçoivent leur date de fin.
+     */
+    @Modifying
+    @Query("""
+        UPDATE services
+        SET state = :target,
+            completed_at = CASE WHEN :target IN ('TERMINE', 'ANNULE', 'ARRETE') THEN CURRENT_TIMESTAMP ELSE completed_at END,
+            updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = :source
+        """)
+    Mono<Integer> transitionAll(@Param("ids") Collection<Long> ids, @Param("source") String source,
+                                @Param("target") String target);
+
     /**
      * Trouve les services prêts à être démarrés selon leur priorité
      */
@@ -112,6 +213,17 @@ public interface ServiceRepository extends R2dbcRepository<Services, Long> {
         """)
     Flux<Services> findReadyServicesByPriority();
 
+    /**
+     * Services prêts d'une priorité donnée, les plus anciens d'abord (alimentation d'une file du répartiteur)
+     */
+    @Query("""
+        SELECT * FROM services
+        WHERE state = 'PRET' AND priority = :priority
+        ORDER BY updated_at ASC, id ASC
+        LIMIT :limit
+        """)
+    Flux<Services> findReadyServicesByPriority(@Param("priority") Priority priority, @Param("limit") int limit);
+
     /**
      * Recherche avancée avec filtres multiples
      */
@@ -151,4 +263,26 @@ public interface ServiceRepository extends R2dbcRepository<Services, Long> {
         String getServiceState();
         Long getCountServices();
     }
+
+    /**
+     * Ligne d'exigence de ressource : une ressource unitaire directe (composite nul)
+     * ou un composant d'une ressource composite requise (unité nulle si la composite est vide)
+     * Compteur et seuil de composants libres : nuls pour une unité directe, ou quand l'appelant
+     * doit recompter les composants (états modifiés en mémoire)
+     */
+    interface ResourceRequirementState {
+        Long getUnitResourceId();
+        String getUnitState();
+        Long getCompositeResourceId();
+        String getCompositeState();
+        Integer getCompositeReadyComponents();
+        Integer getCompositeRequiredComponents();
+    }
+
+    /**
+     * Ligne d'exigence rattachée à son service, pour les lectures par lot
+     */
+    interface ServiceRequirementState extends ResourceRequirementState {
+        Long getServiceId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.petri.statetransition.repository;
+
+import com.petri.statetransition.model.enums.EntityKind;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository des entités impliquées dans les transitions (table transition_participants)
+ * Insertions par INSERT multi-lignes, lectures groupées par lot de transitions.
+ */
+@Repository
+public class TransitionParticipantRepository {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    public TransitionParticipantRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Entité impliquée dans une transition
+     */
+    public record Participant(Long transitionId, EntityKind kind, Long entityId) {
+    }
+
+    /**
+     * Enregistre les participants ; retourne le nombre de lignes insérées
+     */
+    public Mono<Long> saveAll(List<Participant> participants) {
+        if (participants.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Flux.range(0, (participants.size() + INSERT_BATCH_SIZE - 1) / INSERT_BATCH_SIZE)
+                .concatMap(chunk -> insert(participants.subList(
+                        chunk * INSERT_BATCH_SIZE, Math.min(participants.size(), (chunk + 1) * INSERT_BATCH_SIZE))))
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Participants des transitions données
+     */
+    public Flux<Participant> findByTransitionIds(Collection<Long> transitionIds) {
+        if (transitionIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("""
+                        SELECT transition_id, entity_kind, entity_id FROM transition_participants
+                        WHERE transition_id IN (:transitionIds)
+                        """)
+                .bind("transitionIds", transitionIds)
+                .map((row, metadata) -> new Participant(
+                        row.get("transition_id", Long.class),
+                        EntityKind.valueOf(row.get("entity_kind", String.class)),
+                        row.get("entity_id", Long.class)))
+                .all();
+    }
+
+    private Mono<Long> insert(List<Participant> participants) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO transition_participants (transition_id, entity_kind, entity_id) VALUES ");
+        for (int i = 0; i < participants.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:transition").append(i).append(", :kind").append(i).append(", :entity").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < participants.size(); i++) {
+            Participant participant = participants.get(i);
+            spec = spec.bind("transition" + i, participant.transitionId())
+                    .bind("kind" + i, participant.kind().name())
+                    .bind("entity" + i, participant.entityId());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
@@ -3,6 +3,7 @@ package com.petri.statetransition.repository;
 import com.petri.statetransition.model.entity.Transition;
 import com.petri.statetransition.model.enums.TransitionType;
 import com.petri.statetransition.model.enums.TransitionStatus;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.query.Param;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * Repository pour l'entité Transition
@@ -65,6 +67,43 @@ public interface TransitionRepository extends R2dbcRepository<Transition, Long>
     @Query("SELECT * FROM transitions WHERE type = 'AUTOMATIQUE' AND status = 'EN_ATTENTE'")
     Flux<Transition> findPendingAutomaticTransitions();
 
+    /**
+     * Verrouille un lot de transitions automatiques en attente, en sautant celles verrouillées par un autre
+     * processus (à appeler dans une transaction, suivie de claimAutomaticTransitions)
+     */
+    @Query("""
+        SELECT id FROM transitions
+        WHERE type = 'AUTOMATIQUE' AND status = 'EN_ATTENTE'
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """)
+    Flux<Long> lockPendingAutomaticIds(@Param("limit") int limit);
+
+    /**
+     * Réserve les transitions verrouillées pour un processus (EN_ATTENTE -> EN_COURS)
+     */
+    @Modifying
+    @Query("""
+        UPDATE transitions
+        SET status = 'EN_COURS', started_at = CURRENT_TIMESTAMP, claimed_by = :workerId
+        WHERE id IN (:ids) AND status = 'EN_ATTENTE'
+        """)
+    Mono<Integer> claimAutomaticTransitions(@Param("ids") Collection<Long> ids, @Param("workerId") String workerId);
+
+    /**
+     * Remet en attente les transitions automatiques réservées depuis plus de X secondes et jamais terminées
+     * (processus arrêté pendant l'exécution) ; l'âge est calculé sur l'horloge de la base, comme started_at
+     */
+    @Modifying
+    @Query("""
+        UPDATE transitions
+        SET status = 'EN_ATTENTE', started_at = NULL, claimed_by = NULL
+        WHERE type = 'AUTOMATIQUE' AND status = 'EN_COURS'
+        AND started_at < CURRENT_TIMESTAMP - INTERVAL :seconds SECOND
+        """)
+    Mono<Integer> releaseStaleClaims(@Param("seconds") long seconds);
+
     /**
      * Compte les transitions par statut
      */
@@ -126,6 +165,20 @@ public interface TransitionRepository extends R2dbcRepository<Transition, Long>
     @Query("SELECT * FROM transitions WHERE name LIKE CONCAT('%', :name, '%')")
     Flux<Transition> findByNameContaining(@Param("name") String name);
 
+    /**
+     * Transitions impliquant une entité, antérieures au curseur, des plus récentes aux plus anciennes
+     * (pagination par curseur sur la clé primaire de transition_participants)
+     */
+    @Query("""
+        SELECT t.* FROM transition_participants p
+        INNER JOIN transitions t ON t.id = p.transition_id
+        WHERE p.entity_kind = :kind AND p.entity_id = :entityId AND p.transition_id < :before
+        ORDER BY p.transition_id DESC
+        LIMIT :limit
+        """)
+    Flux<Transition> findByParticipant(@Param("kind") String kind, @Param("entityId") Long entityId,
+                                       @Param("before") Long before, @Param("limit") int limit);
+
     /**
      * Supprime les anciennes transitions terminées
      */
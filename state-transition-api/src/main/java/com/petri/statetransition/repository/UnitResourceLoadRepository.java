@@ -0,0 +1,18 @@
+package com.petri.statetransition.repository;
+
+import com.petri.statetransition.model.entity.UnitResourceLoad;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository des charges placées sur les ressources unitaires partagées
+ */
+@Repository
+public interface UnitResourceLoadRepository extends R2dbcRepository<UnitResourceLoad, Long> {
+
+    Flux<UnitResourceLoad> findByServiceId(Long serviceId);
+    Flux<UnitResourceLoad> findByUnitResourceId(Long unitResourceId);
+    Mono<Void> deleteByServiceId(Long serviceId);
+}
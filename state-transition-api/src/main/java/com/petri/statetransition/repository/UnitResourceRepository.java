@@ -3,6 +3,7 @@ package com.petri.statetransition.repository;
 import com.petri.statetransition.model.entity.UnitResource;
 import com.petri.statetransition.model.enums.UnitResourceState;
 import com.petri.statetransition.model.enums.CompositeResourceState;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.query.Param;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * Repository pour l'entité UnitResource
@@ -77,6 +79,154 @@ public interface UnitResourceRepository extends R2dbcRepository<UnitResource, Lo
     @Query("SELECT * FROM unit_resources WHERE capacity >= :minCapacity AND state = 'LIBRE'")
     Flux<UnitResource> findAvailableWithMinCapacity(@Param("minCapacity") Integer minCapacity);
 
+    /**
+     * Affecte en une instruction les ressources encore libres au service (LIBRE -> AFFECTÉ).
+     * Le nombre de lignes modifiées indique combien de ressources ont effectivement été obtenues.
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = 'AFFECTE', allocated_service_id = :serviceId, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = 'LIBRE'
+        """)
+    Mono<Integer> allocateIfFree(@Param("ids") Collection<Long> ids, @Param("serviceId") Long serviceId);
+
+    /**
+     * Annule une affectation partielle : seules les ressources affectées à ce service sont rendues
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = 'LIBRE', allocated_service_id = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND allocated_service_id = :serviceId AND state = 'AFFECTE'
+        """)
+    Mono<Integer> revertAllocation(@Param("ids") Collection<Long> ids, @Param("serviceId") Long serviceId);
+
+    /**
+     * Libère en une instruction toutes les ressources affectées ou occupées par un service
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = 'LIBRE', allocated_service_id = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE allocated_service_id = :serviceId AND state IN ('AFFECTE', 'OCCUPE')
+        """)
+    Mono<Integer> releaseByService(@Param("serviceId") Long serviceId);
+
+    /**
+     * Identifiants des ressources que {@link #releaseByService} libérerait pour ce service
+     */
+    @Query("""
+        SELECT id FROM unit_resources
+        WHERE allocated_service_id = :serviceId AND state IN ('AFFECTE', 'OCCUPE')
+        """)
+    Flux<Long> findIdsHeldByService(@Param("serviceId") Long serviceId);
+
+    /**
+     * Écriture différée du marquage en mémoire : état et propriétaire courants d'une ressource
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = :state, allocated_service_id = :serviceId, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id
+        """)
+    Mono<Integer> writeMarking(@Param("id") Long id, @Param("state") String state, @Param("serviceId") Long serviceId);
+
+    /**
+     * Ressources partagées (capacité renseignée) ; une ressource AFFECTÉE sans propriétaire porte des charges
+     */
+    @Query("SELECT * FROM unit_resources WHERE capacity IS NOT NULL")
+    Flux<UnitResource> findShareable();
+
+    /**
+     * Ressources partagées pouvant encore accueillir la demande
+     */
+    @Query("""
+        SELECT * FROM unit_resources
+        WHERE capacity IS NOT NULL AND allocated_service_id IS NULL AND state IN ('LIBRE', 'AFFECTE')
+          AND capacity - COALESCE(current_load, 0) >= :demand
+        """)
+    Flux<UnitResource> findShareableFitting(@Param("demand") Integer demand);
+
+    /**
+     * Ressources partagées, parmi celles données, pouvant encore accueillir la demande
+     */
+    @Query("""
+        SELECT * FROM unit_resources
+        WHERE id IN (:ids) AND capacity IS NOT NULL AND allocated_service_id IS NULL
+          AND state IN ('LIBRE', 'AFFECTE') AND capacity - COALESCE(current_load, 0) >= :demand
+        """)
+    Flux<UnitResource> findShareableFittingAmong(@Param("ids") Collection<Long> ids, @Param("demand") Integer demand);
+
+    /**
+     * Ajoute la demande à la charge si elle tient encore dans la capacité (vérification et incrément atomiques)
+     * La ressource passe AFFECTÉ sans propriétaire, ce qui l'exclut des allocations exclusives.
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET current_load = COALESCE(current_load, 0) + :demand, state = 'AFFECTE', updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id AND capacity IS NOT NULL AND allocated_service_id IS NULL
+          AND state IN ('LIBRE', 'AFFECTE') AND capacity - COALESCE(current_load, 0) >= :demand
+        """)
+    Mono<Integer> addLoadIfFits(@Param("id") Long id, @Param("demand") Integer demand);
+
+    /**
+     * Retire une demande de la charge ; la ressource redevient LIBRE quand plus rien n'y est placé
+     * (MySQL évalue le SET de gauche à droite : l'état est calculé sur l'ancienne charge)
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = CASE WHEN state = 'AFFECTE' AND COALESCE(current_load, 0) <= :demand THEN 'LIBRE' ELSE state END,
+            current_load = GREATEST(COALESCE(current_load, 0) - :demand, 0),
+            updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id AND allocated_service_id IS NULL
+        """)
+    Mono<Integer> removeLoad(@Param("id") Long id, @Param("demand") Integer demand);
+
+    /**
+     * Écriture différée de la charge tenue en mémoire
+     */
+    @Modifying
+    @Query("UPDATE unit_resources SET current_load = :load, updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = :id")
+    Mono<Integer> writeLoad(@Param("id") Long id, @Param("load") Integer load);
+
+    /**
+     * Lecture par tranches (pagination par clé) pour les parcours complets de la table
+     */
+    @Query("SELECT * FROM unit_resources WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<UnitResource> findChunkAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * Rend un jeton perdu : la ressource repasse LIBRE sans propriétaire ni charge,
+     * seulement si elle n'a pas changé depuis sa lecture (même version)
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = 'LIBRE', allocated_service_id = NULL, current_load = 0, updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id = :id AND version = :version
+        """)
+    Mono<Integer> repairToken(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Transition groupée des ressources du lot encore dans l'état source
+     * Mêmes effets que UnitResource#transitionTo : LIBRE retire le propriétaire, OCCUPE date l'utilisation.
+     */
+    @Modifying
+    @Query("""
+        UPDATE unit_resources
+        SET state = :target,
+            allocated_service_id = CASE WHEN :target = 'LIBRE' THEN NULL ELSE allocated_service_id END,
+            last_used_at = CASE WHEN :target = 'OCCUPE' THEN CURRENT_TIMESTAMP ELSE last_used_at END,
+            updated_at = CURRENT_TIMESTAMP, version = version + 1
+        WHERE id IN (:ids) AND state = :source
+        """)
+    Mono<Integer> transitionAll(@Param("ids") Collection<Long> ids, @Param("source") String source,
+                                @Param("target") String target);
+
     /**
      * Statistiques des ressources unitaires par état
      */
@@ -0,0 +1,134 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.TransitionDTO;
+import com.petri.statetransition.repository.TransitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Traitement des transitions automatiques par réservation de lots, sûr entre plusieurs instances
+ * Chaque lot est verrouillé par SELECT ... FOR UPDATE SKIP LOCKED puis passé EN_COURS en un UPDATE,
+ * dans une transaction courte : deux instances (ou deux cycles) ne réservent jamais la même ligne et
+ * n'attendent pas les verrous l'une de l'autre. Les lots sont exécutés hors transaction, avec un
+ * parallélisme borné, et réservés l'un après l'autre jusqu'à épuisement des transitions en attente.
+ * Une réservation plus ancienne que reclaim-after (instance arrêtée en cours d'exécution) est remise
+ * en attente ; ce délai doit dépasser celui des exécuteurs.
+ */
+@Component
+public class AutomaticTransitionWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutomaticTransitionWorker.class);
+
+    private final TransitionRepository transitionRepository;
+    private final TransitionService transitionService;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration reclaimAfter;
+    private final String workerId;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AutomaticTransitionWorker(
+            TransitionRepository transitionRepository,
+            TransitionService transitionService,
+            @Nullable TransactionalOperator transactionalOperator,
+            @Value("${petri.automatic.enabled:true}") boolean enabled,
+            @Value("${petri.automatic.batch-size:50}") int batchSize,
+            @Value("${petri.automatic.parallelism:8}") int parallelism,
+            @Value("${petri.automatic.reclaim-after-seconds:600}") long reclaimAfterSeconds,
+            @Value("${petri.automatic.worker-id:}") String workerId) {
+        this(transitionRepository, transitionService, transactionalOperator, enabled, batchSize, parallelism,
+                Duration.ofSeconds(reclaimAfterSeconds),
+                workerId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : workerId);
+    }
+
+    AutomaticTransitionWorker(TransitionRepository transitionRepository, TransitionService transitionService,
+                              TransactionalOperator transactionalOperator, boolean enabled, int batchSize,
+                              int parallelism, Duration reclaimAfter, String workerId) {
+        this.transitionRepository = transitionRepository;
+        this.transitionService = transitionService;
+        this.transactionalOperator = transactionalOperator;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.reclaimAfter = reclaimAfter;
+        this.workerId = workerId;
+    }
+
+    @Scheduled(fixedDelayString = "${petri.automatic.poll-interval-ms:1000}")
+    public void scheduledDrain() {
+        if (!enabled) {
+            return;
+        }
+        drain().count().subscribe(
+                count -> {
+                    if (count > 0) {
+                        logger.debug("{} transitions automatiques traitées par {}", count, workerId);
+                    }
+                },
+                error -> logger.warn("Erreur lors du traitement des transitions automatiques", error)
+        );
+    }
+
+    /**
+     * Remet en attente les réservations abandonnées puis réserve et exécute des lots jusqu'à épuisement
+     * Vide si un cycle est déjà en cours sur cette instance.
+     */
+    public Flux<TransitionDTO> drain() {
+        return Flux.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Flux.empty();
+            }
+            // Un tour réserve puis exécute un lot ; le tour suivant ne commence qu'à la fin du précédent
+            AtomicBoolean exhausted = new AtomicBoolean();
+            return releaseStaleClaims()
+                    .thenMany(Flux.defer(() -> claimBatch()
+                                    .flatMapMany(batch -> {
+                                        if (batch.isEmpty()) {
+                                            exhausted.set(true);
+                                            return Flux.<TransitionDTO>empty();
+                                        }
+                                        return transitionRepository.findAllById(batch)
+                                                .flatMap(transitionService::executeClaimedTransition, parallelism);
+                                    }))
+                            .repeat(() -> !exhausted.get()))
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    /**
+     * Verrouille et réserve un lot dans une transaction courte ; liste vide s'il n'y a plus rien en attente
+     */
+    Mono<List<Long>> claimBatch() {
+        Mono<List<Long>> claim = transitionRepository.lockPendingAutomaticIds(batchSize)
+                .collectList()
+                .flatMap(ids -> ids.isEmpty() ? Mono.just(ids)
+                        : transitionRepository.claimAutomaticTransitions(ids, workerId)
+                                .doOnNext(count -> logger.debug("{} transitions automatiques réservées par {}",
+                                        count, workerId))
+                                .thenReturn(ids));
+        return transactionalOperator != null ? transactionalOperator.transactional(claim) : claim;
+    }
+
+    private Mono<Integer> releaseStaleClaims() {
+        return transitionRepository.releaseStaleClaims(reclaimAfter.toSeconds())
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        logger.warn("{} transitions automatiques abandonnées remises en attente", count);
+                    }
+                });
+    }
+}
@@ -0,0 +1,198 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.repository.ServiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Liste d'attente des services BLOQUÉS, indexée par identifiant de ressource
+ * Un service bloqué y est inscrit sur les ressources qui l'empêchent de démarrer ; la libération
+ * de l'une d'elles le fait réévaluer et démarrer (par ordre de priorité) sans interrogation côté client.
+ */
+@Component
+public class BlockedServiceWakeup {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockedServiceWakeup.class);
+
+    private final ServiceRepository serviceRepository;
+    private final ResourceAllocationService resourceAllocationService;
+    private final ServiceManager serviceManager;
+    private final DeadlockDetector deadlockDetector;
+    private final Map<Long, Set<Long>> unitWaiters = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> compositeWaiters = new ConcurrentHashMap<>();
+    private final Map<Long, ParkedService> parked = new ConcurrentHashMap<>();
+
+    public BlockedServiceWakeup(
+            ServiceRepository serviceRepository,
+            @Lazy ResourceAllocationService resourceAllocationService,
+            @Lazy ServiceManager serviceManager,
+            DeadlockDetector deadlockDetector) {
+        this.serviceRepository = serviceRepository;
+        this.resourceAllocationService = resourceAllocationService;
+        this.serviceManager = serviceManager;
+        this.deadlockDetector = deadlockDetector;
+    }
+
+    /**
+     * Inscrit un service bloqué sur ses ressources bloquantes
+     * Retourne faux si plus rien ne le bloque (il sera repris par le balayage de sécurité).
+     */
+    public Mono<Boolean> park(Long serviceId) {
+        return resourceAllocationService.evaluateAvailability(serviceId)
+                .map(report -> {
+                    if (report.isAvailable()) {
+                        unpark(serviceId);
+                        return false;
+                    }
+                    park(serviceId, report.getBlockingUnitResourceIds(), report.getBlockingCompositeResourceIds());
+                    return true;
+                })
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Inscrit un service sur des ressources données (ressources partagées candidates d'un service à demande)
+     */
+    public void park(Long serviceId, Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+        unpark(serviceId);
+        parked.put(serviceId, new ParkedService(List.copyOf(unitResourceIds), List.copyOf(compositeResourceIds)));
+        unitResourceIds.forEach(id -> addWaiter(unitWaiters, id, serviceId));
+        compositeResourceIds.forEach(id -> addWaiter(compositeWaiters, id, serviceId));
+        logger.debug("Service ID {} en attente de {} ressources unitaires et {} composites",
+                serviceId, unitResourceIds.size(), compositeResourceIds.size());
+        deadlockDetector.onBlocked(serviceId, unitResourceIds, compositeResourceIds);
+    }
+
+    /**
+     * Retire un service de la liste d'attente
+     */
+    public void unpark(Long serviceId) {
+        deadlockDetector.onUnblocked(serviceId);
+        ParkedService previous = parked.remove(serviceId);
+        if (previous == null) {
+            return;
+        }
+        previous.unitResourceIds().forEach(id -> removeWaiter(unitWaiters, id, serviceId));
+        previous.compositeResourceIds().forEach(id -> removeWaiter(compositeWaiters, id, serviceId));
+    }
+
+    /**
+     * Retire de la liste d'attente et renvoie les services qui attendaient l'une des ressources libérées
+     */
+    Set<Long> drainWaiters(Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+        Set<Long> waiting = new LinkedHashSet<>();
+        unitResourceIds.forEach(id -> waiting.addAll(unitWaiters.getOrDefault(id, Set.of())));
+        compositeResourceIds.forEach(id -> waiting.addAll(compositeWaiters.getOrDefault(id, Set.of())));
+        waiting.forEach(this::unpark);
+        return waiting;
+    }
+
+    public int waitingCount() {
+        return parked.size();
+    }
+
+    /**
+     * Réveille les services en attente des ressources libérées, une fois la libération validée
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResourcesReleased(ResourcesReleased event) {
+        Set<Long> waiting = drainWaiters(event.unitResourceIds(), event.compositeResourceIds());
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        logger.info("Ressources libérées: réévaluation de {} services bloqués", waiting.size());
+        serviceManager.resumeBlockedServices(waiting).subscribe(
+                service -> logger.info("Service débloqué et démarré: ID {}", service.id()),
+                error -> logger.warn("Erreur lors du réveil des services bloqués", error)
+        );
+    }
+
+    /**
+     * Reconstruit la liste d'attente au démarrage (reprise après arrêt)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        scheduledSweep();
+    }
+
+    /**
+     * Balayage de sécurité : un service bloqué ou suspendu par pré-emption absent de la liste d'attente
+     * (libération survenue entre son évaluation et son inscription) est inscrit, ou repris si plus rien ne le bloque
+     */
+    @Scheduled(fixedDelayString = "${petri.wakeup.sweep-interval-ms:30000}")
+    public void scheduledSweep() {
+        sweep().subscribe(
+                count -> {
+                    if (count > 0) {
+                        logger.info("Balayage des services bloqués: {} services repris", count);
+                    }
+                },
+                error -> logger.warn("Erreur lors du balayage des services bloqués", error)
+        );
+    }
+
+    public Mono<Long> sweep() {
+        return serviceRepository.findByState(ServiceState.BLOQUE)
+                .concatWith(serviceRepository.findByState(ServiceState.EN_PAUSE))
+                .map(Services::getId)
+                .filter(id -> !parked.containsKey(id))
+                .concatMap(id -> park(id).filter(waiting -> !waiting).map(waiting -> id))
+                .collectList()
+                .flatMap(ids -> ids.isEmpty() ? Mono.just(0L) : serviceManager.resumeBlockedServices(ids).count());
+    }
+
+    private static void addWaiter(Map<Long, Set<Long>> waiters, Long resourceId, Long serviceId) {
+        waiters.compute(resourceId, (id, services) -> {
+            Set<Long> waiting = services != null ? services : ConcurrentHashMap.newKeySet();
+            waiting.add(serviceId);
+            return waiting;
+        });
+    }
+
+    private static void removeWaiter(Map<Long, Set<Long>> waiters, Long resourceId, Long serviceId) {
+        waiters.computeIfPresent(resourceId, (id, services) -> {
+            services.remove(serviceId);
+            return services.isEmpty() ? null : services;
+        });
+    }
+
+    private record ParkedService(List<Long> unitResourceIds, List<Long> compositeResourceIds) {
+    }
+
+    /**
+     * Ressources rendues disponibles (libération d'un service ou d'une ressource)
+     */
+    public record ResourcesReleased(Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+
+        /**
+         * Publie l'événement à la validation de la transaction réactive courante, immédiatement hors transaction
+         */
+        public static Mono<Void> publish(ApplicationEventPublisher publisher,
+                                         Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+            ResourcesReleased event = new ResourcesReleased(List.copyOf(unitResourceIds), List.copyOf(compositeResourceIds));
+            return new TransactionalEventPublisher(publisher).publishEvent(event)
+                    .onErrorResume(NoTransactionException.class,
+                            error -> Mono.fromRunnable(() -> publisher.publishEvent(event)));
+        }
+    }
+}
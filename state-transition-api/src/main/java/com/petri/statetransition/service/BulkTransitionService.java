@@ -0,0 +1,374 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.BulkTransitionCommandDTO;
+import com.petri.statetransition.dto.BulkTransitionDTO;
+import com.petri.statetransition.dto.BulkTransitionItemDTO;
+import com.petri.statetransition.dto.BulkTransitionResultDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.BulkTransitionOutcome;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.EntityKind;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.TransitionType;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.petri.StateNets;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Application groupée de transitions d'état (services, ressources unitaires et composites)
+ * Les commandes sont validées en mémoire sur le réseau d'états de chaque entité, puis regroupées par
+ * (type, état source, état cible) : un UPDATE par groupe et par paquet d'identifiants, gardé par l'état
+ * source, et un seul enregistrement multi-lignes des transitions appliquées. En mode EN_MEMOIRE les
+ * ressources passent par le marquage, qui fait foi, et sont écrites en base par l'écriture différée.
+ */
+@Service
+@Transactional
+public class BulkTransitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkTransitionService.class);
+    static final int CHUNK_SIZE = 1000;
+
+    private final ServiceRepository serviceRepository;
+    private final UnitResourceRepository unitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final TransitionService transitionService;
+    private final ResourceMarking marking;
+    private final BlockedServiceWakeup blockedServiceWakeup;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AllocationMode allocationMode;
+
+    public BulkTransitionService(
+            ServiceRepository serviceRepository,
+            UnitResourceRepository unitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            TransitionService transitionService,
+            ResourceMarking marking,
+            BlockedServiceWakeup blockedServiceWakeup,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
+        this.serviceRepository = serviceRepository;
+        this.unitResourceRepository = unitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.transitionService = transitionService;
+        this.marking = marking;
+        this.blockedServiceWakeup = blockedServiceWakeup;
+        this.eventPublisher = eventPublisher;
+        this.allocationMode = allocationMode;
+    }
+
+    private record Command(int index, EntityKind kind, Long id, Enum<?> target) {
+    }
+
+    private record Snapshot(Long id, Enum<?> state, Long owner) {
+    }
+
+    private record Group(EntityKind kind, Enum<?> source, Enum<?> target) {
+    }
+
+    private record GroupOutcome(Group group, List<Command> commands, Set<Long> applied) {
+    }
+
+    /**
+     * Applique le lot ; chaque commande reçoit son résultat, dans l'ordre de la requête
+     */
+    public Mono<BulkTransitionResultDTO> applyAll(BulkTransitionDTO request) {
+        logger.info("Application groupée de {} transitions", request.commands().size());
+
+        BulkTransitionItemDTO[] results = new BulkTransitionItemDTO[request.commands().size()];
+        List<Command> commands = parse(request.commands(), results);
+        Mono<Void> ready = allocationMode == AllocationMode.EN_MEMOIRE ? marking.whenLoaded() : Mono.empty();
+
+        return ready.then(Flux.fromArray(EntityKind.values())
+                        .concatMap(kind -> snapshots(kind, commands.stream()
+                                .filter(command -> command.kind() == kind)
+                                .map(Command::id)
+                                .toList())
+                                .map(snapshots -> Map.entry(kind, snapshots)))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new EnumMap<>(EntityKind.class)))
+                .flatMap(snapshots -> {
+                    Map<Group, List<Command>> groups = validate(commands, snapshots, results);
+                    return Flux.fromIterable(groups.entrySet())
+                            .concatMap(group -> applyGroup(group.getKey(), group.getValue(), snapshots.get(group.getKey().kind()))
+                                    .map(applied -> new GroupOutcome(group.getKey(), group.getValue(), applied)))
+                            .collectList()
+                            .flatMap(outcomes -> complete(outcomes, snapshots, request.description(), results));
+                })
+                .doOnSuccess(result -> logger.info("Transitions groupées: {} appliquées, {} en échec sur {}",
+                        result.applied(), result.failed(), result.requested()));
+    }
+
+    /**
+     * Lit les états cibles ; les commandes illisibles ou en double sont refusées d'emblée
+     */
+    private List<Command> parse(List<BulkTransitionCommandDTO> requested, BulkTransitionItemDTO[] results) {
+        List<Command> commands = new ArrayList<>(requested.size());
+        Set<Map.Entry<EntityKind, Long>> seen = new HashSet<>();
+        for (int index = 0; index < requested.size(); index++) {
+            BulkTransitionCommandDTO command = requested.get(index);
+            Enum<?> target = targetState(command.kind(), command.targetState());
+            if (target == null) {
+                results[index] = rejected(command, "État cible inconnu: " + command.targetState());
+            } else if (!seen.add(Map.entry(command.kind(), command.id()))) {
+                results[index] = rejected(command, "Entité déjà présente dans le lot");
+            } else {
+                commands.add(new Command(index, command.kind(), command.id(), target));
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Valide chaque commande sur le réseau d'états et regroupe les transitions franchissables
+     */
+    private Map<Group, List<Command>> validate(List<Command> commands, Map<EntityKind, Map<Long, Snapshot>> snapshots,
+                                               BulkTransitionItemDTO[] results) {
+        Map<Group, List<Command>> groups = new LinkedHashMap<>();
+        for (Command command : commands) {
+            Snapshot snapshot = snapshots.get(command.kind()).get(command.id());
+            if (snapshot == null) {
+                results[command.index()] = item(command, null, BulkTransitionOutcome.INTROUVABLE,
+                        "Entité non trouvée avec l'ID: " + command.id());
+            } else if (command.kind() == EntityKind.SERVICE && bypassesAllocation(snapshot.state(), command.target())) {
+                results[command.index()] = item(command, snapshot.state(), BulkTransitionOutcome.REJETEE,
+                        "Transition soumise à l'allocation des ressources, à effectuer par l'API des services");
+            } else if (!canFire(command.kind(), snapshot.state(), command.target())) {
+                results[command.index()] = item(command, snapshot.state(), BulkTransitionOutcome.REJETEE,
+                        String.format("Transition impossible de %s vers %s", snapshot.state(), command.target()));
+            } else {
+                groups.computeIfAbsent(new Group(command.kind(), snapshot.state(), command.target()),
+                        group -> new ArrayList<>()).add(command);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Enregistre les transitions appliquées, signale les ressources rendues et construit le résultat
+     */
+    private Mono<BulkTransitionResultDTO> complete(List<GroupOutcome> outcomes,
+                                                   Map<EntityKind, Map<Long, Snapshot>> snapshots, String reason,
+                                                   BulkTransitionItemDTO[] results) {
+        List<TransitionService.NewTransition> transitions = new ArrayList<>();
+        List<Long> releasedUnits = new ArrayList<>();
+        List<Long> releasedComposites = new ArrayList<>();
+        List<Long> finishedServices = new ArrayList<>();
+
+        for (GroupOutcome outcome : outcomes) {
+            Group group = outcome.group();
+            for (Command command : outcome.commands()) {
+                if (!outcome.applied().contains(command.id())) {
+                    results[command.index()] = item(command, group.source(), BulkTransitionOutcome.CONFLIT,
+                            "État modifié par une opération concurrente");
+                    continue;
+                }
+                results[command.index()] = item(command, group.source(), BulkTransitionOutcome.APPLIQUEE, null);
+                Long owner = group.kind() == EntityKind.SERVICE ? command.id()
+                        : snapshots.get(group.kind()).get(command.id()).owner();
+                transitions.add(new TransitionService.NewTransition(TransitionType.NORMALE,
+                        describe(command, group.source(), reason), owner != null ? List.of(owner) : null,
+                        group.kind() == EntityKind.UNITAIRE ? List.of(command.id()) : null,
+                        group.kind() == EntityKind.COMPOSITE ? List.of(command.id()) : null));
+
+                if (group.target() == UnitResourceState.LIBRE) {
+                    releasedUnits.add(command.id());
+                } else if (group.target() == CompositeResourceState.VIDE) {
+                    releasedComposites.add(command.id());
+                } else if (group.source() == ServiceState.BLOQUE) {
+                    blockedServiceWakeup.unpark(command.id());
+                }
+                if (group.target() instanceof ServiceState target && target.isFinalState()) {
+                    finishedServices.add(command.id());
+                }
+            }
+        }
+
+        if (!finishedServices.isEmpty()) {
+            ResourceAllocationService.RequirementsChanged.publish(eventPublisher, finishedServices, List.of(), List.of());
+        }
+        int applied = transitions.size();
+        return transitionService.recordTransitions(transitions)
+                .flatMap(recorded -> (releasedUnits.isEmpty() && releasedComposites.isEmpty() ? Mono.<Void>empty()
+                        : BlockedServiceWakeup.ResourcesReleased.publish(eventPublisher, releasedUnits, releasedComposites))
+                        .thenReturn(new BulkTransitionResultDTO(results.length, applied, results.length - applied,
+                                recorded, Arrays.asList(results))));
+    }
+
+    /**
+     * États actuels des entités : marquage pour les ressources en mode EN_MEMOIRE, base sinon
+     */
+    private Mono<Map<Long, Snapshot>> snapshots(EntityKind kind, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        if (kind != EntityKind.SERVICE && allocationMode == AllocationMode.EN_MEMOIRE) {
+            return Mono.fromSupplier(() -> {
+                Map<Long, Snapshot> snapshots = new HashMap<>();
+                for (Long id : ids) {
+                    Enum<?> state = kind == EntityKind.UNITAIRE ? marking.units().state(id) : marking.composites().state(id);
+                    if (state != null) {
+                        Long owner = kind == EntityKind.UNITAIRE ? marking.units().owner(id) : marking.composites().owner(id);
+                        snapshots.put(id, new Snapshot(id, state, owner));
+                    }
+                }
+                return snapshots;
+            });
+        }
+        return Flux.fromIterable(chunks(ids))
+                .concatMap(chunk -> load(kind, chunk))
+                .collectMap(Snapshot::id);
+    }
+
+    private Flux<Snapshot> load(EntityKind kind, Collection<Long> ids) {
+        return switch (kind) {
+            case SERVICE -> serviceRepository.findAllById(ids)
+                    .map(service -> new Snapshot(service.getId(), service.getState(), null));
+            case UNITAIRE -> unitResourceRepository.findAllById(ids)
+                    .map(resource -> new Snapshot(resource.getId(), resource.getState(), resource.getAllocatedServiceId()));
+            case COMPOSITE -> compositeResourceRepository.findAllById(ids)
+                    .map(resource -> new Snapshot(resource.getId(), resource.getState(), resource.getAllocatedServiceId()));
+        };
+    }
+
+    /**
+     * Applique un groupe et renvoie les identifiants effectivement passés à l'état cible
+     */
+    private Mono<Set<Long>> applyGroup(Group group, List<Command> commands, Map<Long, Snapshot> snapshots) {
+        List<Long> ids = commands.stream().map(Command::id).toList();
+        if (group.kind() != EntityKind.SERVICE && allocationMode == AllocationMode.EN_MEMOIRE) {
+            return Mono.fromSupplier(() -> {
+                Set<Long> applied = new HashSet<>();
+                for (Long id : ids) {
+                    Long owner = snapshots.get(id).owner();
+                    if (transitionMarking(group, id, owner)) {
+                        applied.add(id);
+                    }
+                }
+                return applied;
+            });
+        }
+
+        return Flux.fromIterable(chunks(ids))
+                .concatMap(chunk -> update(group, chunk)
+                        .flatMapMany(updated -> updated == chunk.size() ? Flux.fromIterable(chunk)
+                                : load(group.kind(), chunk)
+                                        .filter(snapshot -> snapshot.state() == group.target())
+                                        .map(Snapshot::id)))
+                .collect(Collectors.toSet())
+                .doOnNext(applied -> applied.forEach(id -> mirror(group, id, snapshots.get(id).owner())));
+    }
+
+    private Mono<Integer> update(Group group, List<Long> ids) {
+        String source = group.source().name();
+        String target = group.target().name();
+        return switch (group.kind()) {
+            case SERVICE -> serviceRepository.transitionAll(ids, source, target);
+            case UNITAIRE -> unitResourceRepository.transitionAll(ids, source, target);
+            case COMPOSITE -> compositeResourceRepository.transitionAll(ids, source, target);
+        };
+    }
+
+    /**
+     * Transition sur le marquage, gardée par l'état et le propriétaire lus à la validation
+     */
+    private boolean transitionMarking(Group group, Long id, Long owner) {
+        Long nextOwner = releasesOwner(group.target()) ? null : owner;
+        if (group.kind() == EntityKind.UNITAIRE) {
+            return marking.units().transition(id, (state, current) -> state == group.source() && Objects.equals(current, owner),
+                    (UnitResourceState) group.target(), nextOwner);
+        }
+        return marking.composites().transition(id, (state, current) -> state == group.source() && Objects.equals(current, owner),
+                (CompositeResourceState) group.target(), nextOwner);
+    }
+
+    /**
+     * Reporte sur le marquage une ressource mise à jour en base, comme le fait l'enregistrement d'une entité
+     */
+    private void mirror(Group group, Long id, Long owner) {
+        Long nextOwner = releasesOwner(group.target()) ? null : owner;
+        if (group.kind() == EntityKind.UNITAIRE) {
+            marking.units().put(id, (UnitResourceState) group.target(), nextOwner);
+        } else if (group.kind() == EntityKind.COMPOSITE) {
+            marking.composites().put(id, (CompositeResourceState) group.target(), nextOwner);
+        }
+    }
+
+    private static Enum<?> targetState(EntityKind kind, String name) {
+        try {
+            return switch (kind) {
+                case SERVICE -> ServiceState.valueOf(name);
+                case UNITAIRE -> UnitResourceState.valueOf(name);
+                case COMPOSITE -> CompositeResourceState.valueOf(name);
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean canFire(EntityKind kind, Enum<?> source, Enum<?> target) {
+        return switch (kind) {
+            case SERVICE -> StateNets.SERVICE.canFire((ServiceState) source, (ServiceState) target);
+            case UNITAIRE -> StateNets.UNIT_RESOURCE.canFire((UnitResourceState) source, (UnitResourceState) target);
+            case COMPOSITE -> StateNets.COMPOSITE_RESOURCE.canFire((CompositeResourceState) source, (CompositeResourceState) target);
+        };
+    }
+
+    /**
+     * Démarrer un service ou faire sortir un service de l'exécution engage ses ressources :
+     * ces transitions restent réservées à l'API des services
+     */
+    private static boolean bypassesAllocation(Enum<?> source, Enum<?> target) {
+        return target == ServiceState.EN_COURS || source == ServiceState.EN_COURS || source == ServiceState.EN_PAUSE;
+    }
+
+    private static boolean releasesOwner(Enum<?> target) {
+        return target == UnitResourceState.LIBRE || target == CompositeResourceState.VIDE;
+    }
+
+    private static String describe(Command command, Enum<?> source, String reason) {
+        String description = String.format("Transition groupée - %s %d: %s -> %s",
+                command.kind().getDescription(), command.id(), source, command.target());
+        return reason != null ? description + " (" + reason + ")" : description;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static BulkTransitionItemDTO item(Command command, Enum<?> previous, BulkTransitionOutcome outcome, String message) {
+        return new BulkTransitionItemDTO(command.kind(), command.id(), previous != null ? previous.name() : null,
+                command.target().name(), outcome, message);
+    }
+
+    private static BulkTransitionItemDTO rejected(BulkTransitionCommandDTO command, String message) {
+        return new BulkTransitionItemDTO(command.kind(), command.id(), null, command.targetState(),
+                BulkTransitionOutcome.REJETEE, message);
+    }
+}
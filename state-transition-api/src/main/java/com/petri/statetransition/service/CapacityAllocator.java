@@ -0,0 +1,226 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.engine.CapacityPlacer;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.ServiceUnitResource;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.entity.UnitResourceLoad;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceUnitResourceRepository;
+import com.petri.statetransition.repository.UnitResourceLoadRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Allocation fractionnaire : un service qui déclare une demande est placé sur une ressource unitaire
+ * partagée (capacité renseignée) tant que la charge courante ne dépasse pas la capacité.
+ * Les candidates sont les ressources associées au service, ou à défaut toutes les ressources partagées.
+ * Avec l'affinité de localisation, les ressources situées là où se trouvent les ressources composites
+ * du service sont essayées en premier (en mémoire : file de la localisation, sans requête).
+ */
+@Service
+@Transactional
+public class CapacityAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacityAllocator.class);
+
+    private final UnitResourceRepository unitResourceRepository;
+    private final UnitResourceLoadRepository unitResourceLoadRepository;
+    private final ServiceUnitResourceRepository serviceUnitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final ResourceMarking marking;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AllocationMode allocationMode;
+    private final CapacityPlacer placer;
+    private final boolean locationAffinity;
+
+    public CapacityAllocator(
+            UnitResourceRepository unitResourceRepository,
+            UnitResourceLoadRepository unitResourceLoadRepository,
+            ServiceUnitResourceRepository serviceUnitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            ResourceMarking marking,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode,
+            @Value("${petri.capacity.placement:BEST_FIT}") CapacityPlacer.Strategy placement,
+            @Value("${petri.capacity.location-affinity:true}") boolean locationAffinity) {
+        this.unitResourceRepository = unitResourceRepository;
+        this.unitResourceLoadRepository = unitResourceLoadRepository;
+        this.serviceUnitResourceRepository = serviceUnitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.marking = marking;
+        this.eventPublisher = eventPublisher;
+        this.allocationMode = allocationMode;
+        this.placer = new CapacityPlacer(placement);
+        this.locationAffinity = locationAffinity;
+    }
+
+    /**
+     * Place la demande du service sur une ressource partagée et renvoie son identifiant ;
+     * vide si aucune ressource candidate n'a assez de capacité libre
+     */
+    public Mono<Long> place(Services service) {
+        Long serviceId = service.getId();
+        int demand = service.getDemand();
+
+        return associatedUnitIds(serviceId)
+                .zipWith(affinityLocation(serviceId))
+                .flatMap(candidates -> claim(candidates.getT1(), candidates.getT2().orElse(null), demand))
+                .flatMap(unitId -> unitResourceLoadRepository.save(new UnitResourceLoad(serviceId, unitId, demand))
+                        .thenReturn(unitId)
+                        .onErrorResume(error -> removeLoad(unitId, demand).then(Mono.error(error))))
+                .doOnNext(unitId -> logger.info("Service ID {} placé sur la ressource partagée ID {} (demande {})",
+                        serviceId, unitId, demand));
+    }
+
+    /**
+     * Vrai si une ressource candidate peut encore accueillir la demande du service
+     */
+    public Mono<Boolean> fits(Services service) {
+        return associatedUnitIds(service.getId())
+                .flatMap(ids -> fittingBins(ids, service.getDemand()))
+                .map(bins -> !placer.order(bins.bins(), service.getDemand()).isEmpty());
+    }
+
+    /**
+     * Ressources dont la libération peut débloquer le service (liste d'attente des services bloqués)
+     */
+    public Mono<List<Long>> candidates(Services service) {
+        return associatedUnitIds(service.getId())
+                .flatMap(ids -> {
+                    if (!ids.isEmpty()) {
+                        return Mono.just(ids);
+                    }
+                    if (allocationMode == AllocationMode.EN_MEMOIRE) {
+                        return marking.whenLoaded().then(Mono.fromSupplier(() -> List.copyOf(marking.loads().ids())));
+                    }
+                    return unitResourceRepository.findShareable().map(UnitResource::getId).collectList();
+                });
+    }
+
+    /**
+     * Retire les charges placées par le service et signale les ressources de nouveau disponibles
+     */
+    public Mono<List<Long>> release(Long serviceId) {
+        return unitResourceLoadRepository.findByServiceId(serviceId)
+                .concatMap(load -> removeLoad(load.getUnitResourceId(), load.getDemand())
+                        .thenReturn(load.getUnitResourceId()))
+                .collectList()
+                .flatMap(unitIds -> unitIds.isEmpty() ? Mono.just(unitIds)
+                        : unitResourceLoadRepository.deleteByServiceId(serviceId)
+                                .then(BlockedServiceWakeup.ResourcesReleased.publish(eventPublisher, unitIds, List.of()))
+                                .thenReturn(unitIds))
+                .doOnNext(unitIds -> {
+                    if (!unitIds.isEmpty()) {
+                        logger.info("Charges du service ID {} retirées de {} ressources partagées", serviceId, unitIds.size());
+                    }
+                });
+    }
+
+    private Mono<List<Long>> associatedUnitIds(Long serviceId) {
+        return serviceUnitResourceRepository.findByServiceId(serviceId)
+                .map(ServiceUnitResource::getUnitResourceId)
+                .collectList();
+    }
+
+    /**
+     * Localisation majoritaire des ressources composites du service ; vide sans affinité
+     */
+    private Mono<Optional<String>> affinityLocation(Long serviceId) {
+        if (!locationAffinity) {
+            return Mono.just(Optional.empty());
+        }
+        return compositeResourceRepository.findByServiceId(serviceId)
+                .mapNotNull(CompositeResource::getLocation)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .map(counts -> counts.entrySet().stream()
+                        .max(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                        .map(Map.Entry::getKey));
+    }
+
+    /**
+     * Ajoute la charge sur la première candidate qui l'accepte, ressources de la localisation d'affinité d'abord
+     */
+    private Mono<Long> claim(List<Long> unitIds, String location, int demand) {
+        Mono<Long> inLocation = Mono.empty();
+        if (location != null && unitIds.isEmpty() && allocationMode == AllocationMode.EN_MEMOIRE) {
+            inLocation = marking.whenLoaded().then(Mono.fromSupplier(() -> marking.placeInLocation(location, demand)));
+        }
+
+        return inLocation.switchIfEmpty(Mono.defer(() -> fittingBins(unitIds, demand)
+                .flatMap(candidates -> Flux.fromIterable(placer.order(candidates.bins(), demand,
+                                id -> location != null && location.equals(candidates.locations().get(id))))
+                        .concatMap(unitId -> addLoad(unitId, demand).filter(added -> added).map(added -> unitId))
+                        .next())));
+    }
+
+    private Mono<Candidates> fittingBins(Collection<Long> unitIds, int demand) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return marking.whenLoaded().then(Mono.fromSupplier(() -> {
+                List<CapacityPlacer.Bin> bins = marking.shareableBins(unitIds);
+                Map<Long, String> locations = new HashMap<>();
+                bins.forEach(bin -> {
+                    String location = marking.locations().location(bin.id());
+                    if (location != null) {
+                        locations.put(bin.id(), location);
+                    }
+                });
+                return new Candidates(bins, locations);
+            }));
+        }
+
+        Flux<UnitResource> candidates = unitIds.isEmpty()
+                ? unitResourceRepository.findShareableFitting(demand)
+                : unitResourceRepository.findShareableFittingAmong(unitIds, demand);
+        return candidates
+                .collectList()
+                .map(resources -> {
+                    List<CapacityPlacer.Bin> bins = new ArrayList<>(resources.size());
+                    Map<Long, String> locations = new HashMap<>();
+                    for (UnitResource resource : resources) {
+                        bins.add(new CapacityPlacer.Bin(resource.getId(), resource.getCapacity(),
+                                resource.getCurrentLoad() != null ? resource.getCurrentLoad() : 0));
+                        if (resource.getLocation() != null) {
+                            locations.put(resource.getId(), resource.getLocation());
+                        }
+                    }
+                    return new Candidates(bins, locations);
+                });
+    }
+
+    private Mono<Boolean> addLoad(Long unitId, int demand) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return Mono.fromSupplier(() -> marking.tryAddLoad(unitId, demand));
+        }
+        return unitResourceRepository.addLoadIfFits(unitId, demand).map(updated -> updated == 1);
+    }
+
+    private Mono<Void> removeLoad(Long unitId, int demand) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return Mono.fromRunnable(() -> marking.removeLoad(unitId, demand));
+        }
+        return unitResourceRepository.removeLoad(unitId, demand).then();
+    }
+
+    private record Candidates(List<CapacityPlacer.Bin> bins, Map<Long, String> locations) {
+    }
+}
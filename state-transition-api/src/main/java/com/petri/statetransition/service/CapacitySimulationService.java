@@ -0,0 +1,176 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.SimulationRequestDTO;
+import com.petri.statetransition.dto.SimulationResultDTO;
+import com.petri.statetransition.dto.SimulationRunDTO;
+import com.petri.statetransition.engine.CapacitySimulator;
+import com.petri.statetransition.exception.ValidationException;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.repository.TransitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Mode simulation : rejoue une charge ajustée sur l'historique des transitions (taux d'arrivée, durées
+ * observées, taux d'échec) contre les règles de placement en mémoire, sans toucher à la base ni au marquage réel
+ */
+@Service
+public class CapacitySimulationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacitySimulationService.class);
+    private static final int SYNTHETIC_SAMPLES = 4096;
+
+    private final TransitionRepository transitionRepository;
+    private final CapacitySimulator simulator = new CapacitySimulator();
+
+    public CapacitySimulationService(TransitionRepository transitionRepository) {
+        this.transitionRepository = transitionRepository;
+    }
+
+    /**
+     * Simule la localisation avec un nombre fixe de ressources, ou cherche le plus petit nombre
+     * qui garde le taux de services BLOQUÉS sous la cible
+     */
+    public Mono<SimulationResultDTO> simulate(SimulationRequestDTO request) {
+        LocalDateTime until = LocalDateTime.now();
+        LocalDateTime since = until.minusDays(request.historyDays() != null ? request.historyDays() : 7);
+        logger.info("Simulation de capacité pour la localisation {}", request.location());
+
+        return transitionRepository.findByCreatedAtBetween(since, until)
+                .collectList()
+                .map(history -> fit(request, history, Duration.between(since, until)))
+                .flatMap(workload -> Mono.fromCallable(() -> run(request, workload))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Charge de travail : paramètres imposés, sinon ajustement à l'historique
+     */
+    FittedWorkload fit(SimulationRequestDTO request, List<Transition> history, Duration window) {
+        long seed = request.seed() != null ? request.seed() : 42L;
+        boolean fromHistory = false;
+        boolean fromParameters = false;
+
+        double arrivalsPerSecond;
+        if (request.arrivalsPerSecond() != null) {
+            arrivalsPerSecond = request.arrivalsPerSecond();
+            fromParameters = true;
+        } else if (!history.isEmpty()) {
+            arrivalsPerSecond = history.size() / (double) Math.max(1, window.toSeconds());
+            fromHistory = true;
+        } else {
+            throw new ValidationException("Historique des transitions vide : taux d'arrivée à fournir");
+        }
+
+        long[] durations;
+        if (request.meanDurationMillis() != null) {
+            durations = exponentialSamples(request.meanDurationMillis(), seed);
+            fromParameters = true;
+        } else {
+            durations = history.stream()
+                    .filter(transition -> transition.getStartedAt() != null && transition.getCompletedAt() != null)
+                    .mapToLong(transition -> Math.max(1, Duration.between(transition.getStartedAt(),
+                            transition.getCompletedAt()).toMillis()))
+                    .toArray();
+            if (durations.length == 0) {
+                throw new ValidationException("Aucune durée d'exécution dans l'historique : durée moyenne à fournir");
+            }
+            fromHistory = true;
+        }
+
+        double failureRate;
+        if (request.failureRate() != null) {
+            failureRate = request.failureRate();
+            fromParameters = true;
+        } else {
+            long finished = history.stream().filter(transition -> transition.getStatus() == TransitionStatus.TERMINEE ||
+                    transition.getStatus() == TransitionStatus.ECHOUEE).count();
+            long failures = history.stream().filter(transition -> transition.getStatus() == TransitionStatus.ECHOUEE).count();
+            failureRate = finished == 0 ? 0.0 : (double) failures / finished;
+            fromHistory |= finished > 0;
+        }
+
+        String source = fromHistory && fromParameters ? "MIXTE" : fromHistory ? "HISTORIQUE" : "PARAMETRES";
+        return new FittedWorkload(new CapacitySimulator.Workload(arrivalsPerSecond, durations, failureRate), source);
+    }
+
+    private SimulationResultDTO run(SimulationRequestDTO request, FittedWorkload fitted) {
+        CapacitySimulator.Workload workload = fitted.workload();
+        double target = request.targetBlockedRatio() != null ? request.targetBlockedRatio() : 0.01;
+        CapacitySimulator.Scenario scenario = new CapacitySimulator.Scenario(request.location(),
+                request.units() != null ? request.units() : 1,
+                request.unitCapacity() != null ? request.unitCapacity() : 1,
+                request.demand() != null ? request.demand() : 1,
+                request.arrivals() != null ? request.arrivals() : 1_000_000L,
+                request.seed() != null ? request.seed() : 42L);
+
+        List<CapacitySimulator.Result> results;
+        Integer recommended;
+        if (request.units() != null) {
+            CapacitySimulator.Result result = simulator.run(workload, scenario);
+            results = List.of(result);
+            recommended = result.blockedRatio() <= target ? result.units() : null;
+        } else {
+            CapacitySimulator.Sizing sizing = simulator.size(workload, scenario,
+                    request.maxUnits() != null ? request.maxUnits() : 1000, target);
+            results = sizing.runs();
+            recommended = sizing.recommended() != null ? sizing.recommended().units() : null;
+        }
+        logger.info("Simulation de {} terminée: {} passages, ressources recommandées: {}",
+                request.location(), results.size(), recommended);
+
+        return new SimulationResultDTO(request.location(), fitted.source(), workload.arrivalsPerSecond(),
+                Arrays.stream(workload.durationSamplesMillis()).average().orElse(0), workload.durationSamplesMillis().length,
+                workload.failureRate(), target, recommended, results.stream().map(CapacitySimulationService::toDTO).toList(),
+                LocalDateTime.now());
+    }
+
+    private static SimulationRunDTO toDTO(CapacitySimulator.Result result) {
+        double[] utilization = result.unitUtilization();
+        return new SimulationRunDTO(result.units(), result.arrivals(), result.blocked(), result.failed(),
+                result.blockedRatio(), result.utilization(),
+                Arrays.stream(utilization).min().orElse(0), Arrays.stream(utilization).max().orElse(0),
+                utilizationHistogram(utilization), result.waitTimes().average(), result.waitTimes().max(),
+                result.waitTimes().snapshot(), result.firings(), Math.round(result.firingsPerSecond()),
+                result.simulatedMillis());
+    }
+
+    /**
+     * Nombre de ressources par tranche d'utilisation de 10 %
+     */
+    private static Map<String, Long> utilizationHistogram(double[] utilization) {
+        long[] counts = new long[10];
+        for (double value : utilization) {
+            counts[Math.min(9, (int) (value * 10))]++;
+        }
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int decile = 0; decile < 10; decile++) {
+            histogram.put((decile * 10) + "-" + (decile * 10 + 10) + "%", counts[decile]);
+        }
+        return histogram;
+    }
+
+    private static long[] exponentialSamples(long meanMillis, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] samples = new long[SYNTHETIC_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = Math.max(1, Math.round(-Math.log(1.0 - random.nextDouble()) * meanMillis));
+        }
+        return samples;
+    }
+
+    record FittedWorkload(CapacitySimulator.Workload workload, String source) {
+    }
+}
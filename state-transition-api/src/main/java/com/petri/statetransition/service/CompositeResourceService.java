@@ -2,6 +2,9 @@ package com.petri.statetransition.service;
 
 import com.petri.statetransition.dto.CompositeResourceDTO;
 import com.petri.statetransition.dto.CreateCompositeResourceDTO;
+import com.petri.statetransition.dto.ReservationLeaseDTO;
+import com.petri.statetransition.dto.UnitResourceDTO;
+import com.petri.statetransition.exception.BusinessLogicException;
 import com.petri.statetransition.exception.InvalidStateTransitionException;
 import com.petri.statetransition.exception.ResourceNotFoundException;
 import com.petri.statetransition.model.entity.CompositeResource;
@@ -12,12 +15,19 @@ import com.petri.statetransition.repository.CompositeUnitResourceRepository;
 import com.petri.statetransition.repository.ServiceCompositeResourceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service pour la gestion des ressources composites
@@ -32,16 +42,25 @@ public class CompositeResourceService {
     private final CompositeUnitResourceRepository compositeUnitResourceRepository;
     private final ServiceCompositeResourceRepository serviceCompositeResourceRepository;
     private final UnitResourceService unitResourceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationLeases reservationLeases;
+    private final ConcurrencyRetry concurrencyRetry;
 
     public CompositeResourceService(
             CompositeResourceRepository compositeResourceRepository,
             CompositeUnitResourceRepository compositeUnitResourceRepository,
             ServiceCompositeResourceRepository serviceCompositeResourceRepository,
-            UnitResourceService unitResourceService) {
+            UnitResourceService unitResourceService,
+            ApplicationEventPublisher eventPublisher,
+            ReservationLeases reservationLeases,
+            ConcurrencyRetry concurrencyRetry) {
         this.compositeResourceRepository = compositeResourceRepository;
         this.compositeUnitResourceRepository = compositeUnitResourceRepository;
         this.serviceCompositeResourceRepository = serviceCompositeResourceRepository;
         this.unitResourceService = unitResourceService;
+        this.eventPublisher = eventPublisher;
+        this.reservationLeases = reservationLeases;
+        this.concurrencyRetry = concurrencyRetry;
     }
 
     /**
@@ -86,6 +105,8 @@ public class CompositeResourceService {
 
     /**
      * Réserve une ressource composite (VIDE -> EN_COURS_RÉSERVATION -> PRÊT)
+     * La réservation est couverte par un bail : sans utilisation ni renouvellement avant l'échéance,
+     * elle est annulée et ses composants libérés.
      */
     public Mono<CompositeResourceDTO> reserveResource(Long id) {
         logger.info("Réservation de la ressource composite ID: {}", id);
@@ -99,10 +120,17 @@ public class CompositeResourceService {
                                         resource.getState())
                         ));
                     }
+                    if (!resource.isReady()) {
+                        return Mono.error(new InvalidStateTransitionException(
+                                String.format("Composants libres insuffisants pour réserver la ressource: %d/%d",
+                                        resource.getReadyComponents(), resource.requiredComponents())
+                        ));
+                    }
 
                     // Démarrer la réservation
                     resource.transitionTo(CompositeResourceState.EN_COURS_RESERVATION);
                     return compositeResourceRepository.save(resource)
+                            .doOnNext(reserved -> reservationLeases.grant(reserved.getId()))
                             .flatMap(this::allocateComponents);
                 })
                 .map(this::convertToDTO)
@@ -112,23 +140,25 @@ public class CompositeResourceService {
     /**
      * Utilise une ressource composite (PRÊT -> AFFECTÉ)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<CompositeResourceDTO> useResource(Long id) {
         logger.info("Utilisation de la ressource composite ID: {}", id);
 
-        return compositeResourceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource composite non trouvée avec l'ID: " + id)))
-                .flatMap(resource -> {
-                    if (resource.getState() != CompositeResourceState.PRET) {
-                        return Mono.error(new InvalidStateTransitionException(
-                                String.format("La ressource doit être prête pour être utilisée. État actuel: %s",
-                                        resource.getState())
-                        ));
-                    }
+        return concurrencyRetry.execute("CompositeResource", id, () -> compositeResourceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource composite non trouvée avec l'ID: " + id)))
+                        .flatMap(resource -> {
+                            if (resource.getState() != CompositeResourceState.PRET) {
+                                return Mono.error(new InvalidStateTransitionException(
+                                        String.format("La ressource doit être prête pour être utilisée. État actuel: %s",
+                                                resource.getState())
+                                ));
+                            }
 
-                    resource.transitionTo(CompositeResourceState.AFFECTE);
-                    return compositeResourceRepository.save(resource)
-                            .flatMap(this::useComponents);
-                })
+                            resource.transitionTo(CompositeResourceState.AFFECTE);
+                            return compositeResourceRepository.save(resource)
+                                    .flatMap(this::useComponents)
+                                    .doOnNext(used -> reservationLeases.close(used.getId()));
+                        }))
                 .map(this::convertToDTO)
                 .doOnSuccess(dto -> logger.info("Ressource composite utilisée avec succès: ID {}", dto.id()));
     }
@@ -136,32 +166,93 @@ public class CompositeResourceService {
     /**
      * Libère une ressource composite (AFFECTÉ -> VIDE)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<CompositeResourceDTO> releaseResource(Long id) {
         logger.info("Libération de la ressource composite ID: {}", id);
 
+        return concurrencyRetry.execute("CompositeResource", id, () -> compositeResourceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource composite non trouvée avec l'ID: " + id)))
+                        .flatMap(resource -> {
+                            if (resource.getState() != CompositeResourceState.AFFECTE) {
+                                return Mono.error(new InvalidStateTransitionException(
+                                        String.format("La ressource doit être affectée pour être libérée. État actuel: %s",
+                                                resource.getState())
+                                ));
+                            }
+
+                            return releaseComponents(resource)
+                                    .then(Mono.defer(() -> {
+                                        resource.transitionTo(CompositeResourceState.VIDE);
+                                        return compositeResourceRepository.save(resource);
+                                    }));
+                        }))
+                .doOnNext(released -> reservationLeases.close(released.getId()))
+                .flatMap(released -> BlockedServiceWakeup.ResourcesReleased
+                        .publish(eventPublisher, List.of(), List.of(released.getId()))
+                        .thenReturn(released))
+                .map(this::convertToDTO)
+                .doOnSuccess(dto -> logger.info("Ressource composite libérée avec succès: ID {}", dto.id()));
+    }
+
+    /**
+     * Prolonge le bail d'une réservation en cours (EN_COURS_RÉSERVATION ou PRÊT non utilisée)
+     */
+    public Mono<ReservationLeaseDTO> renewReservationLease(Long id, Long ttlSeconds) {
+        logger.info("Renouvellement du bail de réservation de la ressource composite ID: {}", id);
+
+        return Mono.defer(() -> {
+                    Long deadline = reservationLeases.renew(id,
+                            ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null);
+                    if (deadline == null) {
+                        return Mono.error(new BusinessLogicException(
+                                "Aucune réservation sous bail pour la ressource composite ID: " + id));
+                    }
+                    return Mono.just(new ReservationLeaseDTO(id, LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(deadline), ZoneId.systemDefault())));
+                })
+                .doOnSuccess(lease -> logger.info("Bail de la ressource composite ID {} prolongé jusqu'à {}",
+                        id, lease.expiresAt()));
+    }
+
+    /**
+     * Annule une réservation dont le bail a expiré : composants affectés par la réservation libérés,
+     * composite remise à VIDE. Sans effet si la réservation a été utilisée ou libérée entre-temps.
+     * Sans liste de composants (bail rétabli au redémarrage), tous les composants sont examinés.
+     */
+    public Mono<CompositeResourceDTO> expireReservation(Long id, Set<Long> reservedComponentIds) {
         return compositeResourceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource composite non trouvée avec l'ID: " + id)))
+                .filter(resource -> resource.getState() == CompositeResourceState.EN_COURS_RESERVATION ||
+                        (resource.getState() == CompositeResourceState.PRET && resource.getAllocatedServiceId() == null))
                 .flatMap(resource -> {
-                    if (resource.getState() != CompositeResourceState.AFFECTE) {
-                        return Mono.error(new InvalidStateTransitionException(
-                                String.format("La ressource doit être affectée pour être libérée. État actuel: %s",
-                                        resource.getState())
-                        ));
-                    }
+                    Flux<Long> candidates = reservedComponentIds != null
+                            ? Flux.fromIterable(reservedComponentIds)
+                            : compositeUnitResourceRepository.findByCompositeResourceId(id)
+                                    .map(CompositeUnitResource::getUnitResourceId);
 
-                    return releaseComponents(resource)
-                            .then(Mono.defer(() -> {
+                    return candidates
+                            .concatMap(unitResourceService::releaseReservedComponent)
+                            .map(UnitResourceDTO::id)
+                            .collectList()
+                            .flatMap(releasedUnits -> {
                                 resource.transitionTo(CompositeResourceState.VIDE);
-                                return compositeResourceRepository.save(resource);
-                            }));
+                                return compositeResourceRepository.save(resource)
+                                        .flatMap(expired -> BlockedServiceWakeup.ResourcesReleased
+                                                .publish(eventPublisher, releasedUnits, List.of(expired.getId()))
+                                                .thenReturn(expired));
+                            });
                 })
                 .map(this::convertToDTO)
-                .doOnSuccess(dto -> logger.info("Ressource composite libérée avec succès: ID {}", dto.id()));
+                .doOnNext(dto -> logger.warn("Bail expiré: réservation de la ressource composite ID {} annulée", dto.id()));
     }
 
+    /**
+     * Affecte les composants libres ; ceux qui ne le sont pas (composite partielle) restent hors de la réservation
+     */
     private Mono<CompositeResource> allocateComponents(CompositeResource resource) {
         return compositeUnitResourceRepository.findByCompositeResourceId(resource.getId())
-                .flatMap(association -> unitResourceService.allocateResource(association.getUnitResourceId()))
+                .flatMap(association -> unitResourceService.allocateResource(association.getUnitResourceId())
+                        .onErrorResume(InvalidStateTransitionException.class, error -> Mono.empty()))
+                .doOnNext(component -> reservationLeases.recordComponent(resource.getId(), component.id()))
                 .then(Mono.defer(() -> {
                     resource.transitionTo(CompositeResourceState.PRET);
                     return compositeResourceRepository.save(resource);
@@ -170,13 +261,15 @@ public class CompositeResourceService {
 
     private Mono<CompositeResource> useComponents(CompositeResource resource) {
         return compositeUnitResourceRepository.findByCompositeResourceId(resource.getId())
-                .flatMap(association -> unitResourceService.useResource(association.getUnitResourceId()))
+                .flatMap(association -> unitResourceService.useResource(association.getUnitResourceId())
+                        .onErrorResume(InvalidStateTransitionException.class, error -> Mono.empty()))
                 .then(Mono.just(resource));
     }
 
     private Mono<Void> releaseComponents(CompositeResource resource) {
         return compositeUnitResourceRepository.findByCompositeResourceId(resource.getId())
-                .flatMap(association -> unitResourceService.releaseResource(association.getUnitResourceId()))
+                .flatMap(association -> unitResourceService.releaseResource(association.getUnitResourceId())
+                        .onErrorResume(InvalidStateTransitionException.class, error -> Mono.empty()))
                 .then();
     }
 
@@ -184,7 +277,9 @@ public class CompositeResourceService {
         return Flux.fromIterable(unitResourceIds != null ? unitResourceIds : List.of())
                 .map(unitId -> new CompositeUnitResource(compositeId, unitId, true))
                 .flatMap(compositeUnitResourceRepository::save)
-                .then();
+                .then()
+                .doOnSuccess(v -> ResourceAllocationService.RequirementsChanged.publish(eventPublisher,
+                        List.of(), List.of(), List.of(compositeId)));
     }
 
     private Mono<CompositeResourceDTO> convertToDTOWithComponents(CompositeResource resource) {
@@ -202,7 +297,9 @@ public class CompositeResourceService {
                         componentIds,
                         resource.getLocation(),
                         resource.getTotalCapacity(),
-                        resource.getMinRequiredComponents()
+                        resource.getMinRequiredComponents(),
+                        resource.getComponentCount(),
+                        resource.getReadyComponents()
                 ));
     }
 
@@ -218,7 +315,9 @@ public class CompositeResourceService {
                 null, // Les composants seraient récupérés par une autre requête si nécessaire
                 resource.getLocation(),
                 resource.getTotalCapacity(),
-                resource.getMinRequiredComponents()
+                resource.getMinRequiredComponents(),
+                resource.getComponentCount(),
+                resource.getReadyComponents()
         );
     }
 }
\ No newline at end of file
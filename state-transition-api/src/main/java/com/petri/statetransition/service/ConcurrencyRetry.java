@@ -0,0 +1,74 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.exception.ConcurrencyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Reprise des mises à jour perdues sur conflit de version (verrouillage optimiste, colonne version)
+ * Chaque tentative relit l'entité et s'exécute dans sa propre transaction, avec un délai exponentiel
+ * aléatoire pour désynchroniser les concurrents. Appelée dans une transaction déjà ouverte, l'opération
+ * n'est pas rejouée (la relecture verrait la même version) : le conflit remonte à l'appelant.
+ */
+@Component
+public class ConcurrencyRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyRetry.class);
+
+    private final TransactionalOperator transactionalOperator;
+    private final RetryBackoffSpec retry;
+
+    public ConcurrencyRetry(
+            @Nullable TransactionalOperator transactionalOperator,
+            @Value("${petri.retry.max-retries:3}") int maxRetries,
+            @Value("${petri.retry.min-backoff-ms:20}") long minBackoffMillis,
+            @Value("${petri.retry.max-backoff-ms:500}") long maxBackoffMillis,
+            @Value("${petri.retry.jitter:0.5}") double jitter) {
+        this.transactionalOperator = transactionalOperator;
+        this.retry = Retry.backoff(maxRetries, Duration.ofMillis(minBackoffMillis))
+                .maxBackoff(Duration.ofMillis(maxBackoffMillis))
+                .jitter(jitter)
+                .filter(ConcurrencyException.class::isInstance)
+                .doBeforeRetry(signal -> logger.debug("Conflit de version ({}), nouvelle tentative {}",
+                        signal.failure().getMessage(), signal.totalRetries() + 1))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Exécute l'opération (lecture puis sauvegarde) en la rejouant sur conflit de version
+     * Le conflit persistant est remonté en {@link ConcurrencyException}.
+     */
+    public <T> Mono<T> execute(String resourceType, Long id, Supplier<Mono<T>> operation) {
+        Mono<T> attempt = Mono.defer(operation)
+                .onErrorMap(OptimisticLockingFailureException.class, error -> new ConcurrencyException(
+                        String.format("Modification concurrente de %s ID %d, veuillez réessayer", resourceType, id),
+                        resourceType, id, null, null));
+
+        return inTransaction().flatMap(inTransaction -> {
+            if (inTransaction) {
+                return attempt;
+            }
+            Mono<T> transactional = transactionalOperator != null ? transactionalOperator.transactional(attempt) : attempt;
+            return transactional.retryWhen(retry);
+        });
+    }
+
+    private static Mono<Boolean> inTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(TransactionSynchronizationManager::isActualTransactionActive)
+                .onErrorReturn(NoTransactionException.class, false);
+    }
+}
@@ -0,0 +1,173 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.DeadlockCycleDTO;
+import com.petri.statetransition.dto.DeadlockReportDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.engine.WaitForGraph;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Détection des interblocages entre services bloqués (graphe d'attente)
+ * À chaque blocage, les détenteurs des ressources attendues deviennent les successeurs du service ;
+ * un cycle est résolu en libérant les ressources du service le moins prioritaire, puis le plus récent,
+ * qui reste en attente. Les autres membres du cycle sont réveillés par la libération.
+ */
+@Component
+public class DeadlockDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlockDetector.class);
+    private static final int RECENT_CYCLES = 20;
+
+    /**
+     * Victime : priorité la plus basse, puis service le plus récent
+     */
+    static final Comparator<Services> VICTIM_ORDER = Comparator
+            .comparingInt((Services service) -> service.getPriority() != null ? service.getPriority().getLevel() : 0)
+            .thenComparing(Services::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Services::getId);
+
+    private final ServiceRepository serviceRepository;
+    private final UnitResourceRepository unitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final ResourceMarking marking;
+    private final ResourceAllocationService resourceAllocationService;
+    private final AllocationMode allocationMode;
+    private final boolean autoResolve;
+    private final WaitForGraph graph = new WaitForGraph();
+    private final AtomicLong detected = new AtomicLong();
+    private final AtomicLong resolved = new AtomicLong();
+    private final ArrayDeque<DeadlockCycleDTO> recentCycles = new ArrayDeque<>();
+
+    public DeadlockDetector(
+            ServiceRepository serviceRepository,
+            UnitResourceRepository unitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            ResourceMarking marking,
+            @Lazy ResourceAllocationService resourceAllocationService,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode,
+            @Value("${petri.deadlock.auto-resolve:false}") boolean autoResolve) {
+        this.serviceRepository = serviceRepository;
+        this.unitResourceRepository = unitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.marking = marking;
+        this.resourceAllocationService = resourceAllocationService;
+        this.allocationMode = allocationMode;
+        this.autoResolve = autoResolve;
+    }
+
+    /**
+     * Événement de blocage : met à jour le graphe et résout le cycle éventuel, sans bloquer l'appelant
+     */
+    public void onBlocked(Long serviceId, Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+        detect(serviceId, unitResourceIds, compositeResourceIds).subscribe(
+                cycle -> { },
+                error -> logger.warn("Erreur lors de la détection d'interblocage pour le service ID {}", serviceId, error));
+    }
+
+    /**
+     * Le service n'attend plus (démarré, annulé ou réévalué)
+     */
+    public void onUnblocked(Long serviceId) {
+        graph.remove(serviceId);
+    }
+
+    /**
+     * Pose les arcs d'attente du service ; renvoie le cycle détecté (résolu si la résolution automatique
+     * est active), vide s'il n'y en a pas
+     */
+    public Mono<DeadlockCycleDTO> detect(Long serviceId, Collection<Long> unitResourceIds,
+                                         Collection<Long> compositeResourceIds) {
+        return holdersOf(unitResourceIds, compositeResourceIds)
+                .flatMap(holders -> {
+                    List<Long> cycle = graph.waitFor(serviceId, holders);
+                    if (cycle.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    detected.incrementAndGet();
+                    logger.warn("Interblocage détecté entre les services {}", cycle);
+                    return autoResolve ? resolve(cycle) : Mono.just(record(new DeadlockCycleDTO(cycle, null, LocalDateTime.now())));
+                });
+    }
+
+    /**
+     * Compteurs et derniers cycles détectés
+     */
+    public DeadlockReportDTO report() {
+        List<DeadlockCycleDTO> recent;
+        synchronized (recentCycles) {
+            recent = List.copyOf(recentCycles);
+        }
+        return new DeadlockReportDTO(detected.get(), resolved.get(), graph.waitingCount(), graph.edgeCount(), recent);
+    }
+
+    /**
+     * Libère les ressources de la victime du cycle ; elle reste bloquée en attente des siennes
+     */
+    private Mono<DeadlockCycleDTO> resolve(List<Long> cycle) {
+        return serviceRepository.findAllById(cycle)
+                .collectList()
+                .flatMap(members -> members.stream().max(VICTIM_ORDER)
+                        .map(victim -> resourceAllocationService.forceReleaseResources(victim.getId())
+                                .then(Mono.fromSupplier(() -> {
+                                    graph.released(victim.getId());
+                                    resolved.incrementAndGet();
+                                    logger.warn("Interblocage résolu: ressources du service ID {} (priorité {}) libérées",
+                                            victim.getId(), victim.getPriority());
+                                    return record(new DeadlockCycleDTO(cycle, victim.getId(), LocalDateTime.now()));
+                                })))
+                        .orElseGet(Mono::empty));
+    }
+
+    /**
+     * Services détenant les ressources attendues : marquage en mémoire ou lecture des deux tables
+     */
+    private Mono<List<Long>> holdersOf(Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE && marking.isLoaded()) {
+            return Mono.fromSupplier(() -> {
+                Set<Long> holders = new LinkedHashSet<>();
+                unitResourceIds.forEach(id -> holders.add(marking.units().owner(id)));
+                compositeResourceIds.forEach(id -> holders.add(marking.composites().owner(id)));
+                holders.remove(null);
+                return List.copyOf(holders);
+            });
+        }
+
+        Flux<Long> unitHolders = unitResourceIds.isEmpty() ? Flux.empty()
+                : unitResourceRepository.findAllById(unitResourceIds).mapNotNull(UnitResource::getAllocatedServiceId);
+        Flux<Long> compositeHolders = compositeResourceIds.isEmpty() ? Flux.empty()
+                : compositeResourceRepository.findAllById(compositeResourceIds).mapNotNull(CompositeResource::getAllocatedServiceId);
+        return Flux.concat(unitHolders, compositeHolders).distinct().collectList();
+    }
+
+    private DeadlockCycleDTO record(DeadlockCycleDTO cycle) {
+        synchronized (recentCycles) {
+            if (recentCycles.size() == RECENT_CYCLES) {
+                recentCycles.pollFirst();
+            }
+            recentCycles.addLast(cycle);
+        }
+        return cycle;
+    }
+}
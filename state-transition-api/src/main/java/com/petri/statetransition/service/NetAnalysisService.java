@@ -0,0 +1,150 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.NetAnalysisDTO;
+import com.petri.statetransition.exception.ValidationException;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.petri.ReachabilityAnalyzer;
+import com.petri.statetransition.petri.ReachabilityReport;
+import com.petri.statetransition.petri.ResourceNet;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Analyse d'accessibilité de la configuration courante : les services non terminés et les ressources
+ * qu'ils requièrent sont compilés en réseau combiné, puis explorés hors des threads réactifs
+ */
+@Service
+public class NetAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetAnalysisService.class);
+
+    private final ServiceRepository serviceRepository;
+    private final UnitResourceRepository unitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final int parallelism;
+    private final long maxMarkings;
+    private final int tokenBound;
+
+    public NetAnalysisService(
+            ServiceRepository serviceRepository,
+            UnitResourceRepository unitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            @Value("${petri.analysis.parallelism:0}") int parallelism,
+            @Value("${petri.analysis.max-markings:5000000}") long maxMarkings,
+            @Value("${petri.analysis.token-bound:2}") int tokenBound) {
+        this.serviceRepository = serviceRepository;
+        this.unitResourceRepository = unitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.parallelism = parallelism;
+        this.maxMarkings = maxMarkings;
+        this.tokenBound = tokenBound;
+    }
+
+    /**
+     * Marquages morts (interblocages) et transitions mortes de la configuration chargée depuis la base
+     * La limite demandée ne peut que réduire petri.analysis.max-markings ; une limite non positive est refusée.
+     */
+    public Mono<NetAnalysisDTO> analyzeConfiguration(Long markingLimit) {
+        if (markingLimit != null && markingLimit <= 0) {
+            return Mono.error(new ValidationException(
+                    "La limite de marquages doit être strictement positive: " + markingLimit));
+        }
+        long limit = markingLimit != null ? Math.min(markingLimit, maxMarkings) : maxMarkings;
+        logger.info("Analyse d'accessibilité de la configuration (limite {} marquages)", limit);
+
+        return loadConfiguration()
+                .flatMap(configuration -> Mono.fromCallable(() -> new ReachabilityAnalyzer(parallelism, limit, tokenBound)
+                                .analyze(configuration.net().net(), configuration.net().allServicesDone()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(report -> toDTO(configuration.services(), report)))
+                .doOnSuccess(result -> logger.info("Analyse terminée: {} marquages, {} interblocages en {} ms",
+                        result.reachableMarkings(), result.deadlocks(), result.elapsedMillis()));
+    }
+
+    private Mono<Configuration> loadConfiguration() {
+        return serviceRepository.findAll()
+                .filter(service -> service.getState() != null && !service.getState().isFinalState())
+                .collectList()
+                .flatMap(services -> {
+                    if (services.isEmpty()) {
+                        return Mono.just(new Configuration(0, ResourceNet.of(List.of(), Map.of(), Map.of())));
+                    }
+                    List<Long> serviceIds = services.stream().map(Services::getId).toList();
+                    return serviceRepository.findResourceRequirementStatesForServices(serviceIds)
+                            .collectList()
+                            .flatMap(rows -> buildNet(services, rows));
+                });
+    }
+
+    private Mono<Configuration> buildNet(List<Services> services,
+                                         List<ServiceRepository.ServiceRequirementState> rows) {
+        Map<Long, List<Long>> directUnits = new LinkedHashMap<>();
+        Map<Long, Map<Long, List<Long>>> composites = new LinkedHashMap<>();
+        Set<Long> unitIds = new LinkedHashSet<>();
+        Set<Long> compositeIds = new LinkedHashSet<>();
+        for (ServiceRepository.ServiceRequirementState row : rows) {
+            if (row.getCompositeResourceId() == null) {
+                directUnits.computeIfAbsent(row.getServiceId(), id -> new ArrayList<>()).add(row.getUnitResourceId());
+            } else {
+                compositeIds.add(row.getCompositeResourceId());
+                List<Long> components = composites.computeIfAbsent(row.getServiceId(), id -> new LinkedHashMap<>())
+                        .computeIfAbsent(row.getCompositeResourceId(), id -> new ArrayList<>());
+                if (row.getUnitResourceId() != null) {
+                    components.add(row.getUnitResourceId());
+                }
+            }
+            if (row.getUnitResourceId() != null) {
+                unitIds.add(row.getUnitResourceId());
+            }
+        }
+
+        Mono<Map<Long, ResourceNet.ResourceNode>> units = unitIds.isEmpty() ? Mono.just(Map.of())
+                : unitResourceRepository.findAllById(unitIds)
+                .map(unit -> new ResourceNet.ResourceNode(unit.getId(), unit.getState() == UnitResourceState.LIBRE,
+                        unit.getAllocatedServiceId()))
+                .collectMap(ResourceNet.ResourceNode::id, Function.identity());
+        Mono<Map<Long, ResourceNet.ResourceNode>> compositeNodes = compositeIds.isEmpty() ? Mono.just(Map.of())
+                : compositeResourceRepository.findAllById(compositeIds)
+                .map(composite -> new ResourceNet.ResourceNode(composite.getId(),
+                        composite.getState() == CompositeResourceState.VIDE, composite.getAllocatedServiceId()))
+                .collectMap(ResourceNet.ResourceNode::id, Function.identity());
+
+        List<ResourceNet.ServiceNode> nodes = services.stream()
+                .map(service -> new ResourceNet.ServiceNode(service.getId(), service.getType(), service.getState(),
+                        directUnits.getOrDefault(service.getId(), List.of()),
+                        composites.getOrDefault(service.getId(), Map.of())))
+                .collect(Collectors.toList());
+
+        return Mono.zip(units, compositeNodes)
+                .map(tuple -> new Configuration(nodes.size(), ResourceNet.of(nodes, tuple.getT1(), tuple.getT2())));
+    }
+
+    private static NetAnalysisDTO toDTO(int services, ReachabilityReport report) {
+        return new NetAnalysisDTO(services, report.places(), report.transitions(), report.markings(), report.edges(),
+                report.depth(), report.truncated(), report.isDeadlockFree(), report.deadlocks(),
+                report.deadlockSamples(), report.deadTransitions(), report.unboundedPlaces(), report.elapsedMillis(),
+                LocalDateTime.now());
+    }
+
+    private record Configuration(int services, ResourceNet net) {
+    }
+}
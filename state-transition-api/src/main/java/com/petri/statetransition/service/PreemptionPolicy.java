@@ -0,0 +1,87 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.model.enums.ServiceState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+
+/**
+ * Règles de pré-emption : quels services peuvent en évincer d'autres, lesquels peuvent l'être,
+ * et quota glissant de services évincés par minute pour qu'une rafale prioritaire ne vide pas le réseau
+ */
+@Component
+public class PreemptionPolicy {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    private final boolean enabled;
+    private final Priority minimumPriority;
+    private final int maxPerMinute;
+    private final Clock clock;
+    private final ArrayDeque<Long> grants = new ArrayDeque<>();
+
+    public PreemptionPolicy(
+            @Value("${petri.preemption.enabled:false}") boolean enabled,
+            @Value("${petri.preemption.min-priority:HAUTE}") Priority minimumPriority,
+            @Value("${petri.preemption.max-per-minute:10}") int maxPerMinute) {
+        this(enabled, minimumPriority, maxPerMinute, Clock.systemUTC());
+    }
+
+    PreemptionPolicy(boolean enabled, Priority minimumPriority, int maxPerMinute, Clock clock) {
+        this.enabled = enabled;
+        this.minimumPriority = minimumPriority;
+        this.maxPerMinute = maxPerMinute;
+        this.clock = clock;
+    }
+
+    public static PreemptionPolicy disabled() {
+        return new PreemptionPolicy(false, Priority.CRITIQUE, 0, Clock.systemUTC());
+    }
+
+    /**
+     * Vrai si le service peut évincer : mode actif, priorité au moins égale au seuil, pas de demande partagée
+     */
+    public boolean mayPreempt(Services service) {
+        return enabled && service.getPriority() != null && !service.hasDemand() &&
+                service.getPriority().getLevel() <= minimumPriority.getLevel();
+    }
+
+    /**
+     * Vrai si le détenteur peut être évincé au profit du service : EN_COURS, strictement moins prioritaire,
+     * ressources exclusives
+     */
+    public boolean mayEvict(Services preemptor, Services holder) {
+        return holder.getState() == ServiceState.EN_COURS && !holder.hasDemand() && holder.getPriority() != null &&
+                holder.getPriority().getLevel() > preemptor.getPriority().getLevel();
+    }
+
+    /**
+     * Réserve le quota pour le nombre de services à évincer ; faux si la minute glissante est épuisée
+     */
+    public synchronized boolean tryAcquire(int victims) {
+        long now = clock.millis();
+        while (!grants.isEmpty() && grants.peekFirst() <= now - WINDOW_MILLIS) {
+            grants.pollFirst();
+        }
+        if (grants.size() + victims > maxPerMinute) {
+            return false;
+        }
+        for (int i = 0; i < victims; i++) {
+            grants.addLast(now);
+        }
+        return true;
+    }
+
+    /**
+     * Évictions encore permises dans la minute glissante
+     */
+    public synchronized int remaining() {
+        long now = clock.millis();
+        long recent = grants.stream().filter(grant -> grant > now - WINDOW_MILLIS).count();
+        return (int) Math.max(0, maxPerMinute - recent);
+    }
+}
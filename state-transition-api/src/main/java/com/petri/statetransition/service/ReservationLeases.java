@@ -0,0 +1,175 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.engine.LeaseWheel;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Baux des réservations de ressources composites (EN_COURS_RÉSERVATION puis PRÊT)
+ * Une réservation non utilisée ni renouvelée avant l'échéance est annulée : composite remise à VIDE
+ * et composants affectés par la réservation libérés. Les échéances sont suivies par une roue temporelle.
+ */
+@Component
+public class ReservationLeases {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLeases.class);
+    private static final int WHEEL_SIZE = 512;
+
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final CompositeResourceService compositeResourceService;
+    private final Duration defaultTtl;
+    private final Clock clock;
+    private final LeaseWheel<Long> wheel;
+    private final Map<Long, Set<Long>> components = new ConcurrentHashMap<>();
+
+    public ReservationLeases(
+            CompositeResourceRepository compositeResourceRepository,
+            @Lazy CompositeResourceService compositeResourceService,
+            @Value("${petri.lease.ttl-seconds:120}") long ttlSeconds,
+            @Value("${petri.lease.tick-ms:250}") long tickMillis) {
+        this(compositeResourceRepository, compositeResourceService, Duration.ofSeconds(ttlSeconds), tickMillis,
+                Clock.systemUTC());
+    }
+
+    ReservationLeases(CompositeResourceRepository compositeResourceRepository,
+                      CompositeResourceService compositeResourceService,
+                      Duration defaultTtl, long tickMillis, Clock clock) {
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.compositeResourceService = compositeResourceService;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+        this.wheel = new LeaseWheel<>(WHEEL_SIZE, tickMillis, clock.millis());
+    }
+
+    /**
+     * Ouvre le bail d'une réservation pour la durée par défaut
+     */
+    public long grant(Long compositeId) {
+        components.put(compositeId, ConcurrentHashMap.newKeySet());
+        long deadline = clock.millis() + defaultTtl.toMillis();
+        wheel.schedule(compositeId, deadline);
+        return deadline;
+    }
+
+    /**
+     * Note un composant affecté au titre de la réservation (libéré si le bail expire)
+     */
+    public void recordComponent(Long compositeId, Long unitId) {
+        Set<Long> reserved = components.get(compositeId);
+        if (reserved != null) {
+            reserved.add(unitId);
+        }
+    }
+
+    /**
+     * Prolonge le bail ; null si la réservation n'a pas de bail actif
+     */
+    public Long renew(Long compositeId, Duration ttl) {
+        long deadline = clock.millis() + (ttl != null ? ttl : defaultTtl).toMillis();
+        return wheel.renew(compositeId, deadline) ? deadline : null;
+    }
+
+    /**
+     * Clôt le bail (réservation utilisée ou libérée)
+     */
+    public void close(Long compositeId) {
+        wheel.cancel(compositeId);
+        components.remove(compositeId);
+    }
+
+    public Long deadline(Long compositeId) {
+        return wheel.deadline(compositeId);
+    }
+
+    /**
+     * Composants affectés au titre des réservations dont le bail est encore ouvert
+     */
+    public Set<Long> leasedComponents() {
+        Set<Long> leased = new HashSet<>();
+        components.forEach((compositeId, reserved) -> {
+            if (wheel.deadline(compositeId) != null) {
+                leased.addAll(reserved);
+            }
+        });
+        return leased;
+    }
+
+    public int activeLeases() {
+        return wheel.size();
+    }
+
+    /**
+     * Composants affectés par la réservation ; null si inconnus (bail reconstruit au redémarrage)
+     */
+    Set<Long> components(Long compositeId) {
+        return components.get(compositeId);
+    }
+
+    /**
+     * Fait tourner la roue et annule les réservations échues
+     */
+    @Scheduled(fixedDelayString = "${petri.lease.tick-ms:250}")
+    public void tick() {
+        List<Long> expired = wheel.advance(clock.millis());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        logger.warn("{} baux de réservation expirés: {}", expired.size(), expired);
+        Flux.fromIterable(expired)
+                .concatMap(compositeId -> {
+                    Set<Long> reserved = components.remove(compositeId);
+                    return compositeResourceService.expireReservation(compositeId, reserved)
+                            .onErrorResume(error -> {
+                                logger.error("Erreur lors de l'annulation de la réservation de la composite ID: {}",
+                                        compositeId, error);
+                                return Mono.empty();
+                            });
+                })
+                .subscribe();
+    }
+
+    /**
+     * Redonne un bail aux réservations trouvées en cours au démarrage (baux perdus à l'arrêt)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Flux.merge(
+                        compositeResourceRepository.findByState(CompositeResourceState.EN_COURS_RESERVATION),
+                        compositeResourceRepository.findByState(CompositeResourceState.PRET)
+                                .filter(resource -> resource.getAllocatedServiceId() == null))
+                .map(CompositeResource::getId)
+                .doOnNext(compositeId -> {
+                    wheel.schedule(compositeId, clock.millis() + defaultTtl.toMillis());
+                    components.remove(compositeId);
+                })
+                .count()
+                .subscribe(
+                        count -> {
+                            if (count > 0) {
+                                logger.info("{} baux de réservation rétablis au démarrage", count);
+                            }
+                        },
+                        error -> logger.warn("Erreur lors du rétablissement des baux de réservation", error)
+                );
+    }
+}
@@ -1,5 +1,11 @@
 package com.petri.statetransition.service;
 
+import com.petri.statetransition.engine.MarkingTable;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
 import com.petri.statetransition.model.enums.ServiceType;
 import com.petri.statetransition.model.enums.UnitResourceState;
 import com.petri.statetransition.model.enums.CompositeResourceState;
@@ -7,11 +13,29 @@ import com.petri.statetransition.repository.*;
 import com.petri.statetransition.exception.ResourceAllocationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * Service pour la gestion de l'allocation des ressources selon le modèle de réseaux de Petri
  */
@@ -27,6 +51,11 @@ public class ResourceAllocationService {
     private final ServiceUnitResourceRepository serviceUnitResourceRepository;
     private final ServiceCompositeResourceRepository serviceCompositeResourceRepository;
     private final CompositeUnitResourceRepository compositeUnitResourceRepository;
+    private final ResourceMarking marking;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PreemptionPolicy preemptionPolicy;
+    private final AllocationMode allocationMode;
+    private final Map<Long, ServiceRequirements> requirementsCache = new ConcurrentHashMap<>();
 
     public ResourceAllocationService(
             ServiceRepository serviceRepository,
@@ -34,37 +63,73 @@ public class ResourceAllocationService {
             CompositeResourceRepository compositeResourceRepository,
             ServiceUnitResourceRepository serviceUnitResourceRepository,
             ServiceCompositeResourceRepository serviceCompositeResourceRepository,
-            CompositeUnitResourceRepository compositeUnitResourceRepository) {
+            CompositeUnitResourceRepository compositeUnitResourceRepository,
+            ResourceMarking marking,
+            ApplicationEventPublisher eventPublisher,
+            PreemptionPolicy preemptionPolicy,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode) {
         this.serviceRepository = serviceRepository;
         this.unitResourceRepository = unitResourceRepository;
         this.compositeResourceRepository = compositeResourceRepository;
         this.serviceUnitResourceRepository = serviceUnitResourceRepository;
         this.serviceCompositeResourceRepository = serviceCompositeResourceRepository;
         this.compositeUnitResourceRepository = compositeUnitResourceRepository;
+        this.marking = marking;
+        this.eventPublisher = eventPublisher;
+        this.preemptionPolicy = preemptionPolicy;
+        this.allocationMode = allocationMode;
     }
 
     /**
      * Vérifie la disponibilité des ressources pour un service selon son type
      */
     public Mono<Boolean> checkResourceAvailability(Long serviceId) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return marking.whenLoaded()
+                    .then(requirementsOf(serviceId))
+                    .map(requirements -> requirements.isSatisfiedBy(marking))
+                    .defaultIfEmpty(false);
+        }
+
+        return evaluateAvailability(serviceId)
+                .map(AvailabilityReport::isAvailable)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Évalue la disponibilité des ressources d'un service et identifie les ressources bloquantes.
+     * Le nombre d'allers-retours est constant (service + exigences) quel que soit le nombre de ressources.
+     */
+    public Mono<AvailabilityReport> evaluateAvailability(Long serviceId) {
         logger.debug("Vérification de la disponibilité des ressources pour le service ID: {}", serviceId);
 
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return marking.whenLoaded()
+                    .then(requirementsOf(serviceId))
+                    .map(requirements -> AvailabilityReport.evaluate(serviceId, requirements.type(), requirements.mark(marking)));
+        }
+
         return serviceRepository.findById(serviceId)
-                .flatMap(service -> {
-                    if (service.getType() == ServiceType.BLOQUANT) {
-                        return checkAllResourcesAvailable(serviceId);
-                    } else {
-                        return checkAtLeastOneResourceAvailable(serviceId);
-                    }
-                })
-                .defaultIfEmpty(false);
+                .flatMap(service -> serviceRepository.findResourceRequirementStates(serviceId)
+                        .collectList()
+                        .map(rows -> AvailabilityReport.evaluate(serviceId, service.getType(), rows)));
     }
 
     /**
      * Alloue toutes les ressources requises pour un service
      */
     public Mono<Void> allocateResources(Long serviceId) {
-        logger.info("Allocation des ressources pour le service ID: {}", serviceId);
+        logger.info("Allocation des ressources pour le service ID: {} (mode {})", serviceId, allocationMode);
+
+        if (allocationMode != AllocationMode.SEQUENTIELLE) {
+            Mono<Void> allocation = allocationMode == AllocationMode.EN_MEMOIRE
+                    ? allocateResourcesInMemory(serviceId)
+                    : allocateResourcesConditionally(serviceId);
+            return allocation
+                    .then(TokenInvariantChecker.TokensSettled.publish(eventPublisher, serviceId, false))
+                    .doOnSuccess(v -> logger.info("Ressources allouées avec succès pour le service ID: {}", serviceId))
+                    .doOnError(error -> logger.error("Erreur lors de l'allocation des ressources pour le service ID: {}", serviceId, error));
+        }
 
         return checkResourceAvailability(serviceId)
                 .flatMap(available -> {
@@ -75,7 +140,8 @@ public class ResourceAllocationService {
                     }
 
                     return allocateUnitResources(serviceId)
-                            .then(allocateCompositeResources(serviceId));
+                            .then(allocateCompositeResources(serviceId))
+                            .then(TokenInvariantChecker.TokensSettled.publish(eventPublisher, serviceId, false));
                 })
                 .doOnSuccess(v -> logger.info("Ressources allouées avec succès pour le service ID: {}", serviceId))
                 .doOnError(error -> logger.error("Erreur lors de l'allocation des ressources pour le service ID: {}", serviceId, error));
@@ -87,99 +153,422 @@ public class ResourceAllocationService {
     public Mono<Void> releaseResources(Long serviceId) {
         logger.info("Libération des ressources pour le service ID: {}", serviceId);
 
-        return releaseUnitResources(serviceId)
-                .then(releaseCompositeResources(serviceId))
+        // Seules les ressources dont la libération a modifié le marquage ou une ligne sont signalées
+        Mono<BlockedServiceWakeup.ResourcesReleased> release = switch (allocationMode) {
+            case EN_MEMOIRE -> marking.whenLoaded()
+                    .then(requirementsOf(serviceId))
+                    .map(requirements -> marking.release(serviceId,
+                            requirements.unitResourceIds(), requirements.compositeResourceIds()))
+                    .map(released -> new BlockedServiceWakeup.ResourcesReleased(
+                            released.unitResourceIds(), released.compositeResourceIds()));
+            case CONDITIONNELLE -> releaseHeld(unitResourceRepository.findIdsHeldByService(serviceId),
+                            unitResourceRepository.releaseByService(serviceId))
+                    .flatMap(units -> releaseHeld(compositeResourceRepository.findIdsHeldByService(serviceId),
+                                    compositeResourceRepository.releaseByService(serviceId))
+                            .map(composites -> new BlockedServiceWakeup.ResourcesReleased(units, composites)));
+            case SEQUENTIELLE -> {
+                Set<Long> units = ConcurrentHashMap.newKeySet();
+                Set<Long> composites = ConcurrentHashMap.newKeySet();
+                yield releaseUnitResources(serviceId, units)
+                        .then(releaseCompositeResources(serviceId, units, composites))
+                        .then(Mono.fromSupplier(() -> new BlockedServiceWakeup.ResourcesReleased(units, composites)));
+            }
+        };
+
+        return release
+                .filter(released -> !released.unitResourceIds().isEmpty() || !released.compositeResourceIds().isEmpty())
+                .flatMap(released -> BlockedServiceWakeup.ResourcesReleased.publish(eventPublisher,
+                        released.unitResourceIds(), released.compositeResourceIds()))
+                .then(TokenInvariantChecker.TokensSettled.publish(eventPublisher, serviceId, true))
                 .doOnSuccess(v -> logger.info("Ressources libérées avec succès pour le service ID: {}", serviceId))
                 .doOnError(error -> logger.error("Erreur lors de la libération des ressources pour le service ID: {}", serviceId, error));
     }
 
     /**
-     * Vérifie si toutes les ressources requises sont disponibles (pour services BLOQUANT)
+     * Alloue les ressources d'un lot de services déjà triés par priorité.
+     * Les exigences du lot sont lues en une requête, les conflits arbitrés en mémoire dans l'ordre du lot,
+     * puis chaque gagnant obtient ses ressources (marquage ou UPDATE conditionnels selon le mode).
      */
-    private Mono<Boolean> checkAllResourcesAvailable(Long serviceId) {
-        return Mono.zip(
-                checkAllUnitResourcesAvailable(serviceId),
-                checkAllCompositeResourcesAvailable(serviceId)
-        ).map(tuple -> tuple.getT1() && tuple.getT2());
+    public Mono<BatchAllocation> allocateBatch(List<Services> orderedServices) {
+        if (orderedServices.isEmpty()) {
+            return Mono.just(new BatchAllocation(List.of(), List.of()));
+        }
+
+        return requirementStatesSnapshot(orderedServices)
+                .map(rows -> BatchPlan.resolve(orderedServices, rows))
+                .flatMap(plan -> Flux.fromIterable(plan.winners().entrySet())
+                        .concatMap(winner -> claimForBatch(winner.getKey(), winner.getValue())
+                                .map(claimed -> Map.entry(winner.getKey(), claimed)))
+                        .concatMap(outcome -> outcome.getValue()
+                                ? TokenInvariantChecker.TokensSettled.publish(eventPublisher, outcome.getKey(), false)
+                                        .thenReturn(outcome)
+                                : Mono.just(outcome))
+                        .collectList()
+                        .map(outcomes -> {
+                            List<Long> allocated = new ArrayList<>();
+                            List<Long> refused = new ArrayList<>(plan.losers());
+                            outcomes.forEach(outcome -> (outcome.getValue() ? allocated : refused).add(outcome.getKey()));
+                            return new BatchAllocation(allocated, refused);
+                        }))
+                .doOnSuccess(allocation -> logger.info("Allocation groupée: {} services servis, {} refusés",
+                        allocation.allocatedServiceIds().size(), allocation.refusedServiceIds().size()));
     }
 
     /**
-     * Vérifie si au moins une ressource est disponible (pour services NON_BLOQUANT)
+     * Plan d'allocation à blanc d'un lot déjà trié par priorité : même arbitrage que {@link #allocateBatch},
+     * sans aucune écriture. Pour chaque service : ressources qu'il obtiendrait, ou première ressource
+     * bloquante et, si elle reviendrait à un service placé avant lui dans le lot, ce service.
      */
-    private Mono<Boolean> checkAtLeastOneResourceAvailable(Long serviceId) {
-        return Mono.zip(
-                checkAnyUnitResourceAvailable(serviceId),
-                checkAnyCompositeResourceAvailable(serviceId)
-        ).map(tuple -> tuple.getT1() || tuple.getT2());
+    public Mono<List<PlannedAllocation>> plan(List<Services> orderedServices) {
+        if (orderedServices.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return requirementStatesSnapshot(orderedServices)
+                .map(rows -> {
+                    BatchPlan plan = BatchPlan.resolve(orderedServices, rows);
+                    List<PlannedAllocation> planned = new ArrayList<>(orderedServices.size());
+                    for (Services service : orderedServices) {
+                        ResourceClaim claim = plan.winners().get(service.getId());
+                        planned.add(claim != null
+                                ? PlannedAllocation.allocatable(service.getId(), claim)
+                                : PlannedAllocation.blocked(service.getId(), plan.refusals().get(service.getId()),
+                                        plan.unitHolders(), plan.compositeHolders()));
+                    }
+                    return planned;
+                });
     }
 
     /**
-     * Vérifie si toutes les ressources unitaires requises sont disponibles
+     * Lignes d'exigence d'un lot lues en une requête ; en mode EN_MEMOIRE, structure mise en cache
+     * et états copiés du marquage, ce qui donne un instantané cohérent sans relire les ressources
      */
-    private Mono<Boolean> checkAllUnitResourcesAvailable(Long serviceId) {
-        return serviceUnitResourceRepository.findByServiceId(serviceId)
-                .flatMap(association ->
-                        unitResourceRepository.findById(association.getUnitResourceId())
-                                .map(resource -> resource.getState() == UnitResourceState.LIBRE)
-                )
-                .all(available -> available)
-                .defaultIfEmpty(true); // Si aucune ressource unitaire requise, considérer comme disponible
+    private Mono<Map<Long, List<ServiceRepository.ResourceRequirementState>>> requirementStatesSnapshot(
+            List<Services> orderedServices) {
+        List<Long> serviceIds = orderedServices.stream().map(Services::getId).toList();
+        Map<Long, ServiceType> types = new HashMap<>();
+        orderedServices.forEach(service -> types.put(service.getId(), service.getType()));
+
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            List<Long> uncached = serviceIds.stream().filter(id -> !requirementsCache.containsKey(id)).toList();
+            Mono<Map<Long, List<ServiceRepository.ResourceRequirementState>>> rows = uncached.isEmpty()
+                    ? Mono.just(Map.of())
+                    : groupedRequirementStates(uncached);
+            return marking.whenLoaded().then(rows).map(uncachedRows -> {
+                Map<Long, List<ServiceRepository.ResourceRequirementState>> marked = new HashMap<>();
+                for (Long serviceId : serviceIds) {
+                    ServiceRequirements requirements = requirementsCache.computeIfAbsent(serviceId, id ->
+                            ServiceRequirements.from(types.get(id), uncachedRows.getOrDefault(id, List.of())));
+                    marked.put(serviceId, requirements.mark(marking));
+                }
+                return marked;
+            });
+        }
+        return groupedRequirementStates(serviceIds);
+    }
+
+    private Mono<Map<Long, List<ServiceRepository.ResourceRequirementState>>> groupedRequirementStates(
+            List<Long> serviceIds) {
+        return serviceRepository.findResourceRequirementStatesForServices(serviceIds)
+                .collect(Collectors.groupingBy(
+                        ServiceRepository.ServiceRequirementState::getServiceId,
+                        Collectors.<ServiceRepository.ResourceRequirementState>toList()));
     }
 
     /**
-     * Vérifie si toutes les ressources composites requises sont disponibles
+     * Obtient les ressources d'un gagnant du lot ; faux si un autre appelant les a prises entre-temps
      */
-    private Mono<Boolean> checkAllCompositeResourcesAvailable(Long serviceId) {
-        return serviceCompositeResourceRepository.findByServiceId(serviceId)
-                .flatMap(association ->
-                        compositeResourceRepository.findById(association.getCompositeResourceId())
-                                .flatMap(this::checkCompositeResourceAvailable)
-                )
-                .all(available -> available)
-                .defaultIfEmpty(true); // Si aucune ressource composite requise, considérer comme disponible
+    private Mono<Boolean> claimForBatch(Long serviceId, ResourceClaim claim) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            return Mono.fromSupplier(() ->
+                    marking.tryClaim(serviceId, claim.unitResourceIds(), claim.compositeResourceIds()));
+        }
+
+        return claimResources(serviceId, claim)
+                .thenReturn(true)
+                .onErrorResume(ResourceAllocationException.class, error -> Mono.just(false));
     }
 
     /**
-     * Vérifie si au moins une ressource unitaire est disponible
+     * Oublie les exigences mises en cache d'un service (associations modifiées, service terminé ou supprimé)
      */
-    private Mono<Boolean> checkAnyUnitResourceAvailable(Long serviceId) {
-        return serviceUnitResourceRepository.findByServiceId(serviceId)
-                .flatMap(association ->
-                        unitResourceRepository.findById(association.getUnitResourceId())
-                                .map(resource -> resource.getState() == UnitResourceState.LIBRE)
-                )
-                .any(available -> available)
-                .defaultIfEmpty(false);
+    public void invalidateRequirements(Long serviceId) {
+        requirementsCache.remove(serviceId);
     }
 
     /**
-     * Vérifie si au moins une ressource composite est disponible
+     * Oublie les exigences en cache touchées par le changement : services nommés, et services dont une
+     * ressource (directe ou composant) a été supprimée ou dont une composite a changé de composition
      */
-    private Mono<Boolean> checkAnyCompositeResourceAvailable(Long serviceId) {
-        return serviceCompositeResourceRepository.findByServiceId(serviceId)
-                .flatMap(association ->
-                        compositeResourceRepository.findById(association.getCompositeResourceId())
-                                .flatMap(this::checkCompositeResourceAvailable)
-                )
-                .any(available -> available)
-                .defaultIfEmpty(false);
+    @EventListener
+    public void onRequirementsChanged(RequirementsChanged event) {
+        event.serviceIds().forEach(requirementsCache::remove);
+        if (event.unitResourceIds().isEmpty() && event.compositeResourceIds().isEmpty()) {
+            return;
+        }
+        requirementsCache.values().removeIf(requirements ->
+                event.unitResourceIds().stream().anyMatch(requirements.unitResourceIds()::contains) ||
+                event.compositeResourceIds().stream().anyMatch(requirements.compositeResourceIds()::contains));
     }
 
     /**
-     * Vérifie si une ressource composite est disponible (elle et tous ses composants)
+     * Exigences de services devenues caduques (service terminé, ressource supprimée, composition modifiée)
      */
-    private Mono<Boolean> checkCompositeResourceAvailable(com.petri.statetransition.model.entity.CompositeResource compositeResource) {
-        if (compositeResource.getState() != CompositeResourceState.VIDE) {
-            return Mono.just(false);
+    public record RequirementsChanged(Collection<Long> serviceIds, Collection<Long> unitResourceIds,
+                                      Collection<Long> compositeResourceIds) {
+
+        public static void publish(ApplicationEventPublisher publisher, Collection<Long> serviceIds,
+                                   Collection<Long> unitResourceIds, Collection<Long> compositeResourceIds) {
+            publisher.publishEvent(new RequirementsChanged(List.copyOf(serviceIds), List.copyOf(unitResourceIds),
+                    List.copyOf(compositeResourceIds)));
         }
+    }
 
-        return compositeUnitResourceRepository.findByCompositeResourceId(compositeResource.getId())
-                .flatMap(association ->
-                        unitResourceRepository.findById(association.getUnitResourceId())
-                                .map(resource -> resource.getState() == UnitResourceState.LIBRE)
-                )
-                .all(available -> available)
-                .defaultIfEmpty(true);
+    /**
+     * Pré-emption pour un service prioritaire qui serait bloqué : les services EN_COURS moins prioritaires
+     * détenant ses ressources passent EN_PAUSE, leurs ressources sont libérées et le service obtient les siennes
+     * en une seule étape (transfert par compare-and-set en mémoire, même transaction sinon).
+     * Renvoie les services évincés ; vide si la pré-emption n'est pas permise, qu'une ressource est tenue
+     * par un service non évinçable ou que le quota par minute est atteint.
+     */
+    public Mono<List<Long>> preempt(Services service) {
+        if (!preemptionPolicy.mayPreempt(service) || preemptionPolicy.remaining() == 0) {
+            return Mono.empty();
+        }
+
+        Long serviceId = service.getId();
+        Mono<Void> loaded = allocationMode == AllocationMode.EN_MEMOIRE ? marking.whenLoaded() : Mono.empty();
+        return loaded.then(requirementsOf(serviceId))
+                .flatMap(requirements -> holdingsOf(requirements)
+                        .flatMap(holdings -> evictableHolders(service, holdings)
+                                .flatMap(evictable -> {
+                                    PreemptionPlan plan = PreemptionPlan.choose(requirements, holdings, evictable);
+                                    if (plan == null) {
+                                        return Mono.empty();
+                                    }
+                                    if (!preemptionPolicy.tryAcquire(plan.victims().size())) {
+                                        logger.warn("Pré-emption refusée pour le service ID {} : quota par minute atteint", serviceId);
+                                        return Mono.empty();
+                                    }
+                                    return evict(serviceId, plan);
+                                })));
+    }
+
+    /**
+     * État libre / détenteur des ressources requises : marquage en mémoire ou lecture des deux tables
+     */
+    private Mono<Holdings> holdingsOf(ServiceRequirements requirements) {
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            Map<Long, Holding> units = new HashMap<>();
+            Map<Long, Holding> composites = new HashMap<>();
+            requirements.unitResourceIds().forEach(id -> units.put(id, new Holding(
+                    marking.units().state(id) == UnitResourceState.LIBRE, marking.units().owner(id))));
+            requirements.compositeResourceIds().forEach(id -> composites.put(id, new Holding(
+                    marking.composites().state(id) == CompositeResourceState.VIDE, marking.composites().owner(id))));
+            return Mono.just(new Holdings(units, composites));
+        }
+
+        return unitResourceRepository.findAllById(requirements.unitResourceIds())
+                .collectMap(UnitResource::getId, unit -> new Holding(
+                        unit.getState() == UnitResourceState.LIBRE, unit.getAllocatedServiceId()))
+                .zipWith(compositeResourceRepository.findAllById(requirements.compositeResourceIds())
+                        .collectMap(CompositeResource::getId, composite -> new Holding(
+                                composite.getState() == CompositeResourceState.VIDE, composite.getAllocatedServiceId())))
+                .map(tuple -> new Holdings(tuple.getT1(), tuple.getT2()));
+    }
+
+    /**
+     * Détenteurs des ressources requises que la politique permet d'évincer au profit du service
+     */
+    private Mono<Set<Long>> evictableHolders(Services service, Holdings holdings) {
+        Set<Long> owners = holdings.owners();
+        owners.remove(service.getId());
+        if (owners.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        return serviceRepository.findAllById(owners)
+                .filter(holder -> preemptionPolicy.mayEvict(service, holder))
+                .map(Services::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Évince les services du plan et attribue les ressources au service prioritaire
+     * Hors mémoire, un échec après les premières écritures est propagé pour que la transaction appelante
+     * annule l'ensemble (services évincés remis EN_COURS avec leurs ressources).
+     */
+    private Mono<List<Long>> evict(Long serviceId, PreemptionPlan plan) {
+        List<Long> victims = List.copyOf(plan.victims());
+        ResourceClaim claim = plan.claim();
+
+        Mono<Boolean> transfer;
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            transfer = Mono.defer(() -> {
+                if (!marking.tryClaimFrom(serviceId, claim.unitResourceIds(), claim.compositeResourceIds(), plan.victims())) {
+                    return Mono.just(false);
+                }
+                return Flux.fromIterable(victims)
+                        .concatMap(victim -> requirementsOf(victim).doOnNext(requirements -> marking.release(victim,
+                                requirements.unitResourceIds(), requirements.compositeResourceIds())))
+                        .then(serviceRepository.markPaused(victims))
+                        .doOnNext(paused -> {
+                            if (paused != victims.size()) {
+                                logger.warn("Pré-emption: {} services sur {} encore EN_COURS au moment de la suspension",
+                                        paused, victims.size());
+                            }
+                        })
+                        .thenReturn(true);
+            });
+        } else {
+            transfer = serviceRepository.markPaused(victims)
+                    .flatMap(paused -> paused != victims.size()
+                            ? Mono.<Void>error(new ResourceAllocationException(
+                                    "Services évincés terminés ou suspendus entre-temps: " + victims))
+                            : Mono.<Void>empty())
+                    .thenMany(Flux.fromIterable(victims)
+                            .concatMap(victim -> unitResourceRepository.releaseByService(victim)
+                                    .then(compositeResourceRepository.releaseByService(victim))))
+                    .then(claimResources(serviceId, claim))
+                    .thenReturn(true);
+        }
+
+        return transfer
+                .filter(Boolean::booleanValue)
+                .flatMap(transferred -> publishVictimReleases(victims, claim))
+                .doOnNext(evicted -> logger.warn("Pré-emption: le service ID {} suspend les services {}", serviceId, evicted));
+    }
+
+    /**
+     * Signale les ressources des services évincés que le service prioritaire n'a pas reprises
+     */
+    private Mono<List<Long>> publishVictimReleases(List<Long> victims, ResourceClaim claim) {
+        return Flux.fromIterable(victims)
+                .concatMap(this::requirementsOf)
+                .collectList()
+                .flatMap(requirements -> {
+                    Set<Long> units = new LinkedHashSet<>();
+                    Set<Long> composites = new LinkedHashSet<>();
+                    requirements.forEach(victim -> {
+                        units.addAll(victim.unitResourceIds());
+                        composites.addAll(victim.compositeResourceIds());
+                    });
+                    units.removeAll(claim.unitResourceIds());
+                    composites.removeAll(claim.compositeResourceIds());
+                    return BlockedServiceWakeup.ResourcesReleased.publish(eventPublisher, units, composites);
+                })
+                .thenMany(Flux.fromIterable(victims)
+                        .concatMap(victim -> TokenInvariantChecker.TokensSettled.publish(eventPublisher, victim, true)))
+                .then(Mono.just(victims));
+    }
+
+    /**
+     * Alloue les ressources d'un service dans le marquage en mémoire, sans aller-retour base
+     * une fois les exigences du service en cache ; la persistance est assurée en écriture différée.
+     */
+    private Mono<Void> allocateResourcesInMemory(Long serviceId) {
+        return marking.whenLoaded()
+                .then(requirementsOf(serviceId))
+                .switchIfEmpty(Mono.error(new ResourceAllocationException(
+                        "Ressources insuffisantes pour allouer au service ID: " + serviceId
+                )))
+                .flatMap(requirements -> {
+                    if (!requirements.isSatisfiedBy(marking)) {
+                        return Mono.error(new ResourceAllocationException(
+                                "Ressources insuffisantes pour allouer au service ID: " + serviceId
+                        ));
+                    }
+
+                    ResourceClaim claim = ResourceClaim.from(requirements.type(), requirements.mark(marking));
+                    if (!marking.tryClaim(serviceId, claim.unitResourceIds(), claim.compositeResourceIds())) {
+                        return Mono.error(new ResourceAllocationException(
+                                "Ressources obtenues par un autre service pendant l'allocation du service ID: " + serviceId
+                        ));
+                    }
+                    return Mono.<Void>empty();
+                });
+    }
+
+    /**
+     * Exigences d'un service (identifiants seulement), chargées une fois puis conservées en cache
+     */
+    private Mono<ServiceRequirements> requirementsOf(Long serviceId) {
+        return Mono.defer(() -> {
+            ServiceRequirements cached = requirementsCache.get(serviceId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            return serviceRepository.findById(serviceId)
+                    .flatMap(service -> serviceRepository.findResourceRequirementStates(serviceId)
+                            .collectList()
+                            .map(rows -> ServiceRequirements.from(service.getType(), rows)))
+                    .doOnNext(requirements -> requirementsCache.put(serviceId, requirements));
+        });
+    }
+
+    /**
+     * Alloue les ressources d'un service par UPDATE conditionnels : une instruction par table,
+     * vérification du nombre de lignes modifiées et compensation en cas d'obtention partielle
+     */
+    private Mono<Void> allocateResourcesConditionally(Long serviceId) {
+        return serviceRepository.findById(serviceId)
+                .switchIfEmpty(Mono.error(new ResourceAllocationException(
+                        "Ressources insuffisantes pour allouer au service ID: " + serviceId
+                )))
+                .flatMap(service -> serviceRepository.findResourceRequirementStates(serviceId)
+                        .collectList()
+                        .flatMap(rows -> {
+                            if (!AvailabilityReport.evaluate(serviceId, service.getType(), rows).isAvailable()) {
+                                return Mono.error(new ResourceAllocationException(
+                                        "Ressources insuffisantes pour allouer au service ID: " + serviceId
+                                ));
+                            }
+                            return claimResources(serviceId, ResourceClaim.from(service.getType(), rows));
+                        }));
+    }
+
+    /**
+     * Obtient l'ensemble des ressources : composites réservées, unités affectées, puis composites prêtes
+     */
+    private Mono<Void> claimResources(Long serviceId, ResourceClaim claim) {
+        return expectAffected(serviceId, "Ressources composites réservées", claim.compositeResourceIds(),
+                ids -> compositeResourceRepository.reserveIfEmpty(ids, serviceId))
+                .then(expectAffected(serviceId, "Ressources unitaires affectées", claim.unitResourceIds(),
+                        ids -> unitResourceRepository.allocateIfFree(ids, serviceId)))
+                .then(expectAffected(serviceId, "Ressources composites prêtes", claim.compositeResourceIds(),
+                        ids -> compositeResourceRepository.markReady(ids, serviceId)))
+                .onErrorResume(ResourceAllocationException.class, error ->
+                        compensateClaim(serviceId, claim).then(Mono.error(error)));
+    }
+
+    /**
+     * Exécute un UPDATE conditionnel et vérifie qu'il a modifié exactement les lignes attendues
+     */
+    private Mono<Void> expectAffected(Long serviceId, String label, Set<Long> ids,
+                                      Function<Set<Long>, Mono<Integer>> update) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> update.apply(ids))
+                .flatMap(affected -> affected == ids.size()
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResourceAllocationException(String.format(
+                                "%s: %d/%d pour le service ID: %d", label, affected, ids.size(), serviceId))));
+    }
+
+    /**
+     * Rend les ressources obtenues par une allocation partielle (seulement celles marquées pour ce service)
+     */
+    private Mono<Void> compensateClaim(Long serviceId, ResourceClaim claim) {
+        logger.warn("Compensation de l'allocation partielle du service ID: {}", serviceId);
+
+        Mono<Integer> units = claim.unitResourceIds().isEmpty() ? Mono.just(0)
+                : Mono.defer(() -> unitResourceRepository.revertAllocation(claim.unitResourceIds(), serviceId));
+        Mono<Integer> composites = claim.compositeResourceIds().isEmpty() ? Mono.just(0)
+                : Mono.defer(() -> compositeResourceRepository.revertReservation(claim.compositeResourceIds(), serviceId));
+
+        return units.then(composites).then();
     }
 
     /**
@@ -197,6 +586,7 @@ public class ResourceAllocationService {
                                     }
 
                                     resource.transitionTo(UnitResourceState.AFFECTE);
+                                    resource.setAllocatedServiceId(serviceId);
                                     return unitResourceRepository.save(resource);
                                 })
                 )
@@ -210,7 +600,7 @@ public class ResourceAllocationService {
         return serviceCompositeResourceRepository.findByServiceId(serviceId)
                 .flatMap(association ->
                         compositeResourceRepository.findById(association.getCompositeResourceId())
-                                .flatMap(this::allocateCompositeResource)
+                                .flatMap(compositeResource -> allocateCompositeResource(compositeResource, serviceId))
                 )
                 .then();
     }
@@ -219,9 +609,9 @@ public class ResourceAllocationService {
      * Alloue une ressource composite (réservation en cours puis prêt)
      */
     private Mono<com.petri.statetransition.model.entity.CompositeResource> allocateCompositeResource(
-            com.petri.statetransition.model.entity.CompositeResource compositeResource) {
+            CompositeResource compositeResource, Long serviceId) {
 
-        if (compositeResource.getState() != CompositeResourceState.VIDE) {
+        if (compositeResource.getState() != CompositeResourceState.VIDE || !compositeResource.isReady()) {
             return Mono.error(new ResourceAllocationException(
                     "Ressource composite ID " + compositeResource.getId() + " n'est pas disponible"
             ));
@@ -229,20 +619,20 @@ public class ResourceAllocationService {
 
         // Transition VIDE -> EN_COURS_RESERVATION
         compositeResource.transitionTo(CompositeResourceState.EN_COURS_RESERVATION);
+        compositeResource.setAllocatedServiceId(serviceId);
         return compositeResourceRepository.save(compositeResource)
                 .flatMap(savedResource ->
-                        // Allouer tous les composants unitaires
+                        // Allouer les composants unitaires libres (le seuil requis est atteint)
                         compositeUnitResourceRepository.findByCompositeResourceId(savedResource.getId())
                                 .flatMap(association ->
                                         unitResourceRepository.findById(association.getUnitResourceId())
                                                 .flatMap(unitResource -> {
                                                     if (unitResource.getState() != UnitResourceState.LIBRE) {
-                                                        return Mono.error(new ResourceAllocationException(
-                                                                "Composant unitaire ID " + unitResource.getId() + " n'est pas disponible"
-                                                        ));
+                                                        return Mono.empty();
                                                     }
 
                                                     unitResource.transitionTo(UnitResourceState.AFFECTE);
+                                                    unitResource.setAllocatedServiceId(serviceId);
                                                     return unitResourceRepository.save(unitResource);
                                                 })
                                 )
@@ -257,14 +647,15 @@ public class ResourceAllocationService {
     /**
      * Libère toutes les ressources unitaires allouées à un service
      */
-    private Mono<Void> releaseUnitResources(Long serviceId) {
+    private Mono<Void> releaseUnitResources(Long serviceId, Set<Long> released) {
         return serviceUnitResourceRepository.findByServiceId(serviceId)
                 .flatMap(association ->
                         unitResourceRepository.findById(association.getUnitResourceId())
                                 .flatMap(resource -> {
                                     if (resource.getState().canBeReleased()) {
                                         resource.transitionTo(UnitResourceState.LIBRE);
-                                        return unitResourceRepository.save(resource);
+                                        return unitResourceRepository.save(resource)
+                                                .doOnNext(saved -> released.add(resource.getId()));
                                     }
                                     return Mono.just(resource);
                                 })
@@ -275,11 +666,11 @@ public class ResourceAllocationService {
     /**
      * Libère toutes les ressources composites allouées à un service
      */
-    private Mono<Void> releaseCompositeResources(Long serviceId) {
+    private Mono<Void> releaseCompositeResources(Long serviceId, Set<Long> releasedUnits, Set<Long> releasedComposites) {
         return serviceCompositeResourceRepository.findByServiceId(serviceId)
                 .flatMap(association ->
                         compositeResourceRepository.findById(association.getCompositeResourceId())
-                                .flatMap(this::releaseCompositeResource)
+                                .flatMap(composite -> releaseCompositeResource(composite, releasedUnits, releasedComposites))
                 )
                 .then();
     }
@@ -287,17 +678,21 @@ public class ResourceAllocationService {
     /**
      * Libère une ressource composite et tous ses composants
      */
-    private Mono<com.petri.statetransition.model.entity.CompositeResource> releaseCompositeResource(
-            com.petri.statetransition.model.entity.CompositeResource compositeResource) {
+    private Mono<CompositeResource> releaseCompositeResource(CompositeResource compositeResource,
+                                                             Set<Long> releasedUnits, Set<Long> releasedComposites) {
 
-        // Libérer tous les composants unitaires d'abord
+        // Libérer d'abord les composants, sauf ceux tenus par un autre service (composite partielle)
+        Long owner = compositeResource.getAllocatedServiceId();
         return compositeUnitResourceRepository.findByCompositeResourceId(compositeResource.getId())
                 .flatMap(association ->
                         unitResourceRepository.findById(association.getUnitResourceId())
                                 .flatMap(unitResource -> {
-                                    if (unitResource.getState().canBeReleased()) {
+                                    if (unitResource.getState().canBeReleased() && (owner == null ||
+                                            unitResource.getAllocatedServiceId() == null ||
+                                            owner.equals(unitResource.getAllocatedServiceId()))) {
                                         unitResource.transitionTo(UnitResourceState.LIBRE);
-                                        return unitResourceRepository.save(unitResource);
+                                        return unitResourceRepository.save(unitResource)
+                                                .doOnNext(saved -> releasedUnits.add(unitResource.getId()));
                                     }
                                     return Mono.just(unitResource);
                                 })
@@ -307,12 +702,24 @@ public class ResourceAllocationService {
                     if (compositeResource.getState() == CompositeResourceState.PRET ||
                             compositeResource.getState() == CompositeResourceState.AFFECTE) {
                         compositeResource.transitionTo(CompositeResourceState.VIDE);
-                        return compositeResourceRepository.save(compositeResource);
+                        return compositeResourceRepository.save(compositeResource)
+                                .doOnNext(saved -> releasedComposites.add(compositeResource.getId()));
                     }
                     return Mono.just(compositeResource);
                 }));
     }
 
+    /**
+     * Libération en une instruction des ressources détenues, précédée de la lecture de leurs identifiants ;
+     * aucun identifiant n'est retourné si l'instruction n'a modifié aucune ligne (libération concurrente)
+     */
+    private static Mono<List<Long>> releaseHeld(Flux<Long> heldIds, Mono<Integer> releaseByService) {
+        return heldIds.collectList()
+                .flatMap(ids -> ids.isEmpty()
+                        ? Mono.just(ids)
+                        : releaseByService.map(released -> released > 0 ? ids : List.<Long>of()));
+    }
+
     /**
      * Force la libération de toutes les ressources d'un service (pour nettoyage)
      */
@@ -330,12 +737,519 @@ public class ResourceAllocationService {
      * Obtient un rapport sur l'utilisation des ressources
      */
     public Mono<ResourceUtilizationReport> getResourceUtilizationReport() {
+        if (allocationMode == AllocationMode.EN_MEMOIRE && marking.isLoaded()) {
+            return Mono.fromSupplier(this::markedUtilizationReport);
+        }
+
         return Mono.zip(
                 unitResourceRepository.getResourceCountByState().collectList(),
                 compositeResourceRepository.getResourceCountByState().collectList()
         ).map(tuple -> new ResourceUtilizationReport(tuple.getT1(), tuple.getT2()));
     }
 
+    /**
+     * Comptage par état à partir des bitsets du marquage, sans GROUP BY en base
+     */
+    private ResourceUtilizationReport markedUtilizationReport() {
+        List<UnitResourceRepository.UnitResourceStateCount> unitCounts = new ArrayList<>();
+        for (UnitResourceState state : UnitResourceState.values()) {
+            long count = marking.units().count(state);
+            if (count > 0) {
+                unitCounts.add(new MarkedStateCount(state.name(), count));
+            }
+        }
+
+        List<CompositeResourceRepository.CompositeResourceStateCount> compositeCounts = new ArrayList<>();
+        for (CompositeResourceState state : CompositeResourceState.values()) {
+            long count = marking.composites().count(state);
+            if (count > 0) {
+                compositeCounts.add(new MarkedStateCount(state.name(), count));
+            }
+        }
+        return new ResourceUtilizationReport(unitCounts, compositeCounts);
+    }
+
+    private record MarkedStateCount(String resourceState, Long countResources)
+            implements UnitResourceRepository.UnitResourceStateCount, CompositeResourceRepository.CompositeResourceStateCount {
+
+        @Override
+        public String getResourceState() { return resourceState; }
+
+        @Override
+        public Long getCountResources() { return countResources; }
+    }
+
+    /**
+     * Structure des exigences d'un service, indépendante de l'état des ressources
+     * Les masques de bitset sont précalculés pour évaluer la disponibilité contre le marquage.
+     */
+    record ServiceRequirements(ServiceType type,
+                               List<Requirement> requirements,
+                               Set<Long> unitResourceIds,
+                               Set<Long> compositeResourceIds,
+                               MarkingTable.Mask directUnitMask,
+                               MarkingTable.Mask compositeMask,
+                               Map<Long, MarkingTable.Mask> componentMasks) {
+
+        record Requirement(Long unitResourceId, Long compositeResourceId) {
+        }
+
+        /**
+         * Disponibilité contre le marquage : BLOQUANT exige toutes les unités directes LIBRE et toutes les
+         * composites disponibles, NON_BLOQUANT une unité directe libre ou une composite disponible
+         */
+        boolean isSatisfiedBy(ResourceMarking marking) {
+            if (type == ServiceType.BLOQUANT) {
+                if (!marking.units().containsAll(UnitResourceState.LIBRE, directUnitMask) ||
+                        !marking.composites().containsAll(CompositeResourceState.VIDE, compositeMask)) {
+                    return false;
+                }
+                for (Map.Entry<Long, MarkingTable.Mask> composite : componentMasks.entrySet()) {
+                    if (!isCompositeAvailable(marking, composite.getKey(), composite.getValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            if (marking.units().containsAny(UnitResourceState.LIBRE, directUnitMask)) {
+                return true;
+            }
+            for (Map.Entry<Long, MarkingTable.Mask> composite : componentMasks.entrySet()) {
+                if (isCompositeAvailable(marking, composite.getKey(), composite.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Composite VIDE ayant assez de composants libres : lecture du compteur maintenu par le marquage,
+         * ou ET bit à bit sur tous les composants si la composition n'y est pas enregistrée
+         */
+        private static boolean isCompositeAvailable(ResourceMarking marking, Long compositeId, MarkingTable.Mask members) {
+            Boolean available = marking.isCompositeAvailable(compositeId);
+            if (available != null) {
+                return available;
+            }
+            return marking.composites().state(compositeId) == CompositeResourceState.VIDE &&
+                    marking.units().containsAll(UnitResourceState.LIBRE, members);
+        }
+
+        static ServiceRequirements from(ServiceType type, List<ServiceRepository.ResourceRequirementState> rows) {
+            List<Requirement> requirements = new ArrayList<>(rows.size());
+            Set<Long> units = new LinkedHashSet<>();
+            Set<Long> composites = new LinkedHashSet<>();
+            Set<Long> directUnits = new HashSet<>();
+            Map<Long, List<Long>> components = new LinkedHashMap<>();
+            for (ServiceRepository.ResourceRequirementState row : rows) {
+                requirements.add(new Requirement(row.getUnitResourceId(), row.getCompositeResourceId()));
+                if (row.getUnitResourceId() != null) {
+                    units.add(row.getUnitResourceId());
+                }
+                if (row.getCompositeResourceId() == null) {
+                    directUnits.add(row.getUnitResourceId());
+                    continue;
+                }
+                composites.add(row.getCompositeResourceId());
+                List<Long> members = components.computeIfAbsent(
+                        row.getCompositeResourceId(), id -> new ArrayList<>());
+                if (row.getUnitResourceId() != null) {
+                    members.add(row.getUnitResourceId());
+                }
+            }
+
+            Map<Long, MarkingTable.Mask> componentMasks = new LinkedHashMap<>();
+            components.forEach((compositeId, members) -> componentMasks.put(compositeId, MarkingTable.Mask.of(members)));
+
+            return new ServiceRequirements(type, List.copyOf(requirements),
+                    Collections.unmodifiableSet(units), Collections.unmodifiableSet(composites),
+                    MarkingTable.Mask.of(directUnits), MarkingTable.Mask.of(composites),
+                    Collections.unmodifiableMap(componentMasks));
+        }
+
+        /**
+         * Lignes d'exigence portant l'état courant du marquage en mémoire
+         */
+        List<ServiceRepository.ResourceRequirementState> mark(ResourceMarking marking) {
+            List<ServiceRepository.ResourceRequirementState> rows = new ArrayList<>(requirements.size());
+            for (Requirement requirement : requirements) {
+                UnitResourceState unitState = requirement.unitResourceId() == null ? null
+                        : marking.units().state(requirement.unitResourceId());
+                Long compositeId = requirement.compositeResourceId();
+                CompositeResourceState compositeState = compositeId == null ? null : marking.composites().state(compositeId);
+                rows.add(new MarkedRequirementState(requirement.unitResourceId(),
+                        unitState != null ? unitState.name() : null,
+                        compositeId,
+                        compositeState != null ? compositeState.name() : null,
+                        compositeId != null ? marking.components().ready(compositeId) : null,
+                        compositeId != null ? marking.components().required(compositeId) : null));
+            }
+            return rows;
+        }
+    }
+
+    private record MarkedRequirementState(Long unitResourceId, String unitState,
+                                          Long compositeResourceId, String compositeState,
+                                          Integer compositeReadyComponents, Integer compositeRequiredComponents)
+            implements ServiceRepository.ResourceRequirementState {
+
+        @Override
+        public Long getUnitResourceId() { return unitResourceId; }
+
+        @Override
+        public String getUnitState() { return unitState; }
+
+        @Override
+        public Long getCompositeResourceId() { return compositeResourceId; }
+
+        @Override
+        public String getCompositeState() { return compositeState; }
+
+        @Override
+        public Integer getCompositeReadyComponents() { return compositeReadyComponents; }
+
+        @Override
+        public Integer getCompositeRequiredComponents() { return compositeRequiredComponents; }
+    }
+
+    /**
+     * Résultat d'une allocation groupée : services servis et services refusés, dans l'ordre du lot
+     */
+    public record BatchAllocation(List<Long> allocatedServiceIds, List<Long> refusedServiceIds) {
+    }
+
+    /**
+     * Issue prévue pour un service d'un plan d'allocation à blanc
+     */
+    public record PlannedAllocation(Long serviceId,
+                                    boolean allocatable,
+                                    Set<Long> unitResourceIds,
+                                    Set<Long> compositeResourceIds,
+                                    Long blockingUnitResourceId,
+                                    Long blockingCompositeResourceId,
+                                    Long conflictingServiceId) {
+
+        static PlannedAllocation allocatable(Long serviceId, ResourceClaim claim) {
+            return new PlannedAllocation(serviceId, true, claim.unitResourceIds(), claim.compositeResourceIds(),
+                    null, null, null);
+        }
+
+        static PlannedAllocation blocked(Long serviceId, AvailabilityReport report,
+                                         Map<Long, Long> unitHolders, Map<Long, Long> compositeHolders) {
+            Long blockingUnit = report.getBlockingUnitResourceIds().stream().findFirst().orElse(null);
+            Long blockingComposite = report.getBlockingCompositeResourceIds().stream().findFirst().orElse(null);
+            Long conflicting = blockingUnit != null ? unitHolders.get(blockingUnit)
+                    : blockingComposite != null ? compositeHolders.get(blockingComposite) : null;
+            return new PlannedAllocation(serviceId, false, Set.of(), Set.of(),
+                    blockingUnit, blockingComposite, conflicting);
+        }
+    }
+
+    /**
+     * Ressource requise vue par la pré-emption : libre, ou service qui la détient (null si aucun)
+     */
+    record Holding(boolean free, Long owner) {
+    }
+
+    record Holdings(Map<Long, Holding> units, Map<Long, Holding> composites) {
+
+        Set<Long> owners() {
+            Set<Long> owners = new HashSet<>();
+            Stream.concat(units.values().stream(), composites.values().stream())
+                    .filter(holding -> !holding.free() && holding.owner() != null)
+                    .forEach(holding -> owners.add(holding.owner()));
+            return owners;
+        }
+    }
+
+    /**
+     * Ressources à prendre par pré-emption et services à évincer pour cela
+     * BLOQUANT prend toutes ses ressources ; NON_BLOQUANT retient l'option (unité directe ou composite avec
+     * ses composants) qui évince le moins de services. Une option dont une ressource occupée n'a pas de
+     * détenteur évinçable (charge partagée, service prioritaire, composant tenu ailleurs) est écartée.
+     */
+    record PreemptionPlan(ResourceClaim claim, Set<Long> victims) {
+
+        static PreemptionPlan choose(ServiceRequirements requirements, Holdings holdings, Set<Long> evictable) {
+            List<ResourceClaim> options = new ArrayList<>();
+            if (requirements.type() == ServiceType.BLOQUANT) {
+                options.add(new ResourceClaim(requirements.unitResourceIds(), requirements.compositeResourceIds()));
+            } else {
+                Map<Long, Set<Long>> components = new LinkedHashMap<>();
+                for (ServiceRequirements.Requirement requirement : requirements.requirements()) {
+                    if (requirement.compositeResourceId() == null) {
+                        options.add(new ResourceClaim(Set.of(requirement.unitResourceId()), Set.of()));
+                        continue;
+                    }
+                    Set<Long> members = components.computeIfAbsent(
+                            requirement.compositeResourceId(), id -> new LinkedHashSet<>());
+                    if (requirement.unitResourceId() != null) {
+                        members.add(requirement.unitResourceId());
+                    }
+                }
+                components.forEach((compositeId, members) ->
+                        options.add(new ResourceClaim(members, Set.of(compositeId))));
+            }
+
+            PreemptionPlan best = null;
+            for (ResourceClaim option : options) {
+                Set<Long> victims = victimsOf(option, holdings, evictable);
+                if (victims != null && (best == null || victims.size() < best.victims().size())) {
+                    best = new PreemptionPlan(option, victims);
+                }
+            }
+            return best != null && !best.victims().isEmpty() ? best : null;
+        }
+
+        private static Set<Long> victimsOf(ResourceClaim option, Holdings holdings, Set<Long> evictable) {
+            List<Holding> held = new ArrayList<>();
+            option.unitResourceIds().forEach(id -> held.add(holdings.units().get(id)));
+            option.compositeResourceIds().forEach(id -> held.add(holdings.composites().get(id)));
+
+            Set<Long> victims = new LinkedHashSet<>();
+            for (Holding holding : held) {
+                if (holding == null) {
+                    return null;
+                }
+                if (holding.free()) {
+                    continue;
+                }
+                if (holding.owner() == null || !evictable.contains(holding.owner())) {
+                    return null;
+                }
+                victims.add(holding.owner());
+            }
+            return victims;
+        }
+    }
+
+    /**
+     * Arbitrage d'un lot ordonné : chaque service est évalué contre l'état laissé par les services
+     * qui le précèdent ; les ressources qu'il obtient deviennent indisponibles pour les suivants.
+     * Les refus et le service du lot qui obtient chaque ressource sont conservés pour le plan à blanc.
+     */
+    record BatchPlan(Map<Long, ResourceClaim> winners,
+                     List<Long> losers,
+                     Map<Long, AvailabilityReport> refusals,
+                     Map<Long, Long> unitHolders,
+                     Map<Long, Long> compositeHolders) {
+
+        static BatchPlan resolve(List<Services> orderedServices,
+                                 Map<Long, List<ServiceRepository.ResourceRequirementState>> rowsByService) {
+            Map<Long, String> unitStates = new HashMap<>();
+            Map<Long, String> compositeStates = new HashMap<>();
+            rowsByService.values().forEach(rows -> rows.forEach(row -> {
+                if (row.getUnitResourceId() != null) {
+                    unitStates.putIfAbsent(row.getUnitResourceId(), row.getUnitState());
+                }
+                if (row.getCompositeResourceId() != null) {
+                    compositeStates.putIfAbsent(row.getCompositeResourceId(), row.getCompositeState());
+                }
+            }));
+
+            Map<Long, ResourceClaim> winners = new LinkedHashMap<>();
+            List<Long> losers = new ArrayList<>();
+            Map<Long, AvailabilityReport> refusals = new HashMap<>();
+            Map<Long, Long> unitHolders = new HashMap<>();
+            Map<Long, Long> compositeHolders = new HashMap<>();
+            for (Services service : orderedServices) {
+                List<ServiceRepository.ResourceRequirementState> rows = new ArrayList<>();
+                for (ServiceRepository.ResourceRequirementState row : rowsByService.getOrDefault(service.getId(), List.of())) {
+                    rows.add(new MarkedRequirementState(row.getUnitResourceId(),
+                            row.getUnitResourceId() != null ? unitStates.get(row.getUnitResourceId()) : null,
+                            row.getCompositeResourceId(),
+                            row.getCompositeResourceId() != null ? compositeStates.get(row.getCompositeResourceId()) : null,
+                            null, // Compteur périmé dès qu'un service du lot a pris des composants : recompte
+                            row.getCompositeRequiredComponents()));
+                }
+
+                AvailabilityReport report = AvailabilityReport.evaluate(service.getId(), service.getType(), rows);
+                if (!report.isAvailable()) {
+                    losers.add(service.getId());
+                    refusals.put(service.getId(), report);
+                    continue;
+                }
+
+                ResourceClaim claim = ResourceClaim.from(service.getType(), rows);
+                claim.unitResourceIds().forEach(id -> {
+                    unitStates.put(id, UnitResourceState.AFFECTE.name());
+                    unitHolders.put(id, service.getId());
+                });
+                claim.compositeResourceIds().forEach(id -> {
+                    compositeStates.put(id, CompositeResourceState.PRET.name());
+                    compositeHolders.put(id, service.getId());
+                });
+                winners.put(service.getId(), claim);
+            }
+            return new BatchPlan(winners, losers, refusals, unitHolders, compositeHolders);
+        }
+    }
+
+    /**
+     * Composites dont le nombre de composants LIBRE atteint le seuil requis : lecture du compteur porté
+     * par la ligne, ou recomptage des lignes de composants quand il est absent (états modifiés en mémoire)
+     */
+    private static Map<Long, Boolean> readyComposites(
+            List<ServiceRepository.ResourceRequirementState> rows) {
+        Map<Long, ServiceRepository.ResourceRequirementState> firstRows = new LinkedHashMap<>();
+        Map<Long, int[]> memberCounts = new HashMap<>();
+        for (ServiceRepository.ResourceRequirementState row : rows) {
+            if (row.getCompositeResourceId() == null) {
+                continue;
+            }
+            firstRows.putIfAbsent(row.getCompositeResourceId(), row);
+            int[] counts = memberCounts.computeIfAbsent(row.getCompositeResourceId(), id -> new int[2]);
+            if (row.getUnitResourceId() != null) {
+                counts[0]++;
+                if (UnitResourceState.LIBRE.name().equals(row.getUnitState())) {
+                    counts[1]++;
+                }
+            }
+        }
+
+        Map<Long, Boolean> ready = new HashMap<>();
+        firstRows.forEach((compositeId, row) -> {
+            int[] counts = memberCounts.get(compositeId);
+            Integer required = row.getCompositeRequiredComponents();
+            int threshold = required != null ? Math.min(required, counts[0]) : counts[0];
+            Integer readyComponents = row.getCompositeReadyComponents();
+            ready.put(compositeId, (readyComponents != null ? readyComponents : counts[1]) >= threshold);
+        });
+        return ready;
+    }
+
+    /**
+     * Ressources à obtenir pour un service : unités (directes et composants libres) et composites.
+     * Un service BLOQUANT réclame tout ; un service NON_BLOQUANT seulement ce qui est disponible.
+     * Une composite partielle (seuil atteint sans que tous ses composants soient libres) n'emporte que ses
+     * composants libres.
+     */
+    record ResourceClaim(Set<Long> unitResourceIds, Set<Long> compositeResourceIds) {
+
+        static ResourceClaim from(ServiceType type, List<ServiceRepository.ResourceRequirementState> rows) {
+            boolean all = type == ServiceType.BLOQUANT;
+            Set<Long> units = new LinkedHashSet<>();
+            Map<Long, List<Long>> components = new LinkedHashMap<>();
+            Map<Long, Boolean> compositeAvailability = new HashMap<>();
+            Map<Long, Boolean> ready = readyComposites(rows);
+
+            for (ServiceRepository.ResourceRequirementState row : rows) {
+                boolean unitFree = row.getUnitResourceId() == null ||
+                        UnitResourceState.LIBRE.name().equals(row.getUnitState());
+
+                if (row.getCompositeResourceId() == null) {
+                    if (all || unitFree) {
+                        units.add(row.getUnitResourceId());
+                    }
+                    continue;
+                }
+
+                List<Long> members = components.computeIfAbsent(
+                        row.getCompositeResourceId(), id -> new ArrayList<>());
+                if (row.getUnitResourceId() != null && unitFree) {
+                    members.add(row.getUnitResourceId());
+                }
+                compositeAvailability.put(row.getCompositeResourceId(),
+                        CompositeResourceState.VIDE.name().equals(row.getCompositeState()) &&
+                                ready.get(row.getCompositeResourceId()));
+            }
+
+            Set<Long> composites = new LinkedHashSet<>();
+            components.forEach((compositeId, members) -> {
+                if (all || compositeAvailability.get(compositeId)) {
+                    composites.add(compositeId);
+                    units.addAll(members);
+                }
+            });
+            return new ResourceClaim(units, composites);
+        }
+    }
+
+    /**
+     * Verdict de disponibilité d'un service avec les ressources qui l'empêchent de démarrer
+     */
+    public static class AvailabilityReport {
+        private final Long serviceId;
+        private final boolean available;
+        private final List<Long> blockingUnitResourceIds;
+        private final List<Long> blockingCompositeResourceIds;
+
+        public AvailabilityReport(Long serviceId, boolean available,
+                                  List<Long> blockingUnitResourceIds,
+                                  List<Long> blockingCompositeResourceIds) {
+            this.serviceId = serviceId;
+            this.available = available;
+            this.blockingUnitResourceIds = blockingUnitResourceIds;
+            this.blockingCompositeResourceIds = blockingCompositeResourceIds;
+        }
+
+        /**
+         * Applique les règles BLOQUANT (toutes les ressources) / NON_BLOQUANT (au moins une)
+         * aux lignes d'exigence d'un service ; une composite est disponible si elle est VIDE et que
+         * son nombre de composants libres atteint le seuil requis
+         */
+        static AvailabilityReport evaluate(Long serviceId, ServiceType type,
+                                           List<ServiceRepository.ResourceRequirementState> rows) {
+            Set<Long> blockingUnits = new LinkedHashSet<>();
+            Set<Long> blockingComposites = new LinkedHashSet<>();
+            Map<Long, Boolean> compositeAvailability = new LinkedHashMap<>();
+            Map<Long, Boolean> ready = readyComposites(rows);
+            boolean anyUnitFree = false;
+            boolean allUnitsFree = true;
+
+            for (ServiceRepository.ResourceRequirementState row : rows) {
+                boolean unitFree = row.getUnitResourceId() == null ||
+                        UnitResourceState.LIBRE.name().equals(row.getUnitState());
+
+                if (row.getCompositeResourceId() == null) {
+                    if (!unitFree) {
+                        blockingUnits.add(row.getUnitResourceId());
+                    }
+                    anyUnitFree |= unitFree;
+                    allUnitsFree &= unitFree;
+                    continue;
+                }
+
+                boolean compositeReady = ready.get(row.getCompositeResourceId());
+                if (!unitFree && !compositeReady) {
+                    blockingUnits.add(row.getUnitResourceId());
+                }
+                boolean compositeEmpty = CompositeResourceState.VIDE.name().equals(row.getCompositeState());
+                if (!compositeEmpty) {
+                    blockingComposites.add(row.getCompositeResourceId());
+                }
+                compositeAvailability.put(row.getCompositeResourceId(), compositeEmpty && compositeReady);
+            }
+
+            boolean available = type == ServiceType.BLOQUANT
+                    ? allUnitsFree && !compositeAvailability.containsValue(false)
+                    : anyUnitFree || compositeAvailability.containsValue(true);
+
+            if (available) {
+                return new AvailabilityReport(serviceId, true, List.of(), List.of());
+            }
+            return new AvailabilityReport(serviceId, false,
+                    List.copyOf(blockingUnits), List.copyOf(blockingComposites));
+        }
+
+        public Long getServiceId() {
+            return serviceId;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public List<Long> getBlockingUnitResourceIds() {
+            return blockingUnitResourceIds;
+        }
+
+        public List<Long> getBlockingCompositeResourceIds() {
+            return blockingCompositeResourceIds;
+        }
+    }
+
     /**
      * Classe pour le rapport d'utilisation des ressources
      */
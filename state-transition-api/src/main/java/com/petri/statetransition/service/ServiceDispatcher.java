@@ -0,0 +1,197 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.DispatcherStatsDTO;
+import com.petri.statetransition.dto.PriorityQueueStatsDTO;
+import com.petri.statetransition.engine.FairShareQueue;
+import com.petri.statetransition.engine.LatencyHistogram;
+import com.petri.statetransition.exception.ConfigurationException;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.repository.ServiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Répartiteur des services PRÊTS : démarrage continu en partage pondéré entre priorités
+ * Le tri strict par priorité affame les priorités basses sous une rafale de services HAUTE ; ici chaque
+ * priorité a sa file et son poids, et au plus max-concurrency démarrages sont en cours à la fois
+ * (le service suivant n'est retiré de sa file qu'à la fin d'un démarrage).
+ */
+@Component
+public class ServiceDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceDispatcher.class);
+
+    private final ServiceRepository serviceRepository;
+    private final ServiceManager serviceManager;
+    private final boolean enabled;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Clock clock;
+    private final FairShareQueue queue;
+    private final Map<Priority, LatencyHistogram> waitTimes = new EnumMap<>(Priority.class);
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ServiceDispatcher(
+            ServiceRepository serviceRepository,
+            @Lazy ServiceManager serviceManager,
+            @Value("${petri.dispatcher.enabled:false}") boolean enabled,
+            @Value("${petri.dispatcher.max-concurrency:8}") int maxConcurrency,
+            @Value("${petri.dispatcher.queue-capacity:256}") int queueCapacity,
+            @Value("${petri.dispatcher.weights:CRITIQUE=8,HAUTE=4,NORMALE=2,BASSE=1}") String weights) {
+        this(serviceRepository, serviceManager, enabled, maxConcurrency, queueCapacity, parseWeights(weights),
+                Clock.systemDefaultZone());
+    }
+
+    ServiceDispatcher(ServiceRepository serviceRepository, ServiceManager serviceManager, boolean enabled,
+                      int maxConcurrency, int queueCapacity, Map<Priority, Integer> weights, Clock clock) {
+        this.serviceRepository = serviceRepository;
+        this.serviceManager = serviceManager;
+        this.enabled = enabled;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.clock = clock;
+        this.queue = new FairShareQueue(weights, queueCapacity);
+        for (Priority priority : Priority.values()) {
+            waitTimes.put(priority, new LatencyHistogram());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${petri.dispatcher.poll-interval-ms:500}")
+    public void scheduledDispatch() {
+        if (!enabled) {
+            return;
+        }
+        dispatch().subscribe(
+                count -> {
+                    if (count > 0) {
+                        logger.debug("Répartiteur: {} services démarrés", count);
+                    }
+                },
+                error -> logger.warn("Erreur lors de la répartition des services prêts", error)
+        );
+    }
+
+    /**
+     * Complète les files depuis la base puis démarre les services jusqu'à les vider
+     * Sans effet (0) si un cycle de répartition est déjà en cours.
+     */
+    public Mono<Long> dispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return Mono.just(0L);
+        }
+        return refill()
+                .then(Mono.defer(this::drain))
+                .doFinally(signal -> running.set(false));
+    }
+
+    /**
+     * Files d'attente, démarrages en cours et histogrammes des temps d'attente par priorité
+     */
+    public DispatcherStatsDTO stats() {
+        List<PriorityQueueStatsDTO> priorities = Arrays.stream(Priority.values())
+                .map(priority -> {
+                    LatencyHistogram waitTime = waitTimes.get(priority);
+                    return new PriorityQueueStatsDTO(priority.name(), queue.weight(priority), queue.depth(priority),
+                            waitTime.count(), waitTime.average(), waitTime.max(), waitTime.snapshot());
+                })
+                .toList();
+        return new DispatcherStatsDTO(enabled, maxConcurrency, inFlight.size(), dispatched.get(), failed.get(), priorities);
+    }
+
+    /**
+     * Lit les services PRÊTS de chaque priorité dans la limite des places libres de sa file
+     */
+    private Mono<Long> refill() {
+        return Flux.fromArray(Priority.values())
+                .concatMap(priority -> {
+                    if (queue.remainingCapacity(priority) <= 0) {
+                        return Flux.empty();
+                    }
+                    return serviceRepository.findReadyServicesByPriority(priority, queueCapacity + inFlight.size())
+                            .filter(service -> !inFlight.contains(service.getId()))
+                            .filter(service -> queue.offer(service.getId(), priority, readySince(service)));
+                })
+                .count();
+    }
+
+    /**
+     * Retire les services au rythme des démarrages : la demande de flatMap borne les démarrages simultanés
+     */
+    private Mono<Long> drain() {
+        return Flux.<FairShareQueue.Entry>generate(sink -> {
+                    FairShareQueue.Entry entry = queue.poll();
+                    if (entry == null) {
+                        sink.complete();
+                    } else {
+                        inFlight.add(entry.serviceId());
+                        sink.next(entry);
+                    }
+                })
+                .flatMap(this::start, maxConcurrency)
+                .count();
+    }
+
+    private Mono<Long> start(FairShareQueue.Entry entry) {
+        Long serviceId = entry.serviceId();
+        waitTimes.get(entry.priority()).record(Duration.between(entry.readySince(), LocalDateTime.now(clock)).toMillis());
+
+        return serviceManager.startService(serviceId)
+                .then(Mono.fromSupplier(() -> {
+                    dispatched.incrementAndGet();
+                    return serviceId;
+                }))
+                .onErrorResume(error -> {
+                    failed.incrementAndGet();
+                    logger.debug("Démarrage du service ID {} par le répartiteur refusé: {}", serviceId, error.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.remove(serviceId));
+    }
+
+    private LocalDateTime readySince(Services service) {
+        return service.getUpdatedAt() != null ? service.getUpdatedAt() : LocalDateTime.now(clock);
+    }
+
+    /**
+     * Lit les poids "CRITIQUE=8,HAUTE=4,..." (priorité absente : poids 1)
+     */
+    static Map<Priority, Integer> parseWeights(String weights) {
+        Map<Priority, Integer> parsed = new EnumMap<>(Priority.class);
+        for (String pair : weights.split(",")) {
+            String[] parts = pair.split("=");
+            try {
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Poids non positif");
+                }
+                parsed.put(Priority.valueOf(parts[0].trim()), weight);
+            } catch (RuntimeException e) {
+                throw new ConfigurationException("Poids de répartition invalide: " + pair.trim(),
+                        "petri.dispatcher.weights", weights);
+            }
+        }
+        return parsed;
+    }
+}
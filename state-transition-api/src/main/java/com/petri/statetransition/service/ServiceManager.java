@@ -1,10 +1,12 @@
 package com.petri.statetransition.service;
 
 import com.petri.statetransition.dto.*;
+import com.petri.statetransition.exception.ResourceAllocationException;
 import com.petri.statetransition.model.entity.Services;
 import com.petri.statetransition.model.entity.ServiceUnitResource;
 import com.petri.statetransition.model.entity.ServiceCompositeResource;
 import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.TransitionType;
 import com.petri.statetransition.repository.ServiceRepository;
 import com.petri.statetransition.repository.ServiceUnitResourceRepository;
 import com.petri.statetransition.repository.ServiceCompositeResourceRepository;
@@ -13,12 +15,21 @@ import com.petri.statetransition.exception.InvalidStateTransitionException;
 import com.petri.statetransition.exception.BusinessLogicException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service pour la gestion des services dans le système de réseaux de Petri
@@ -29,23 +40,43 @@ public class ServiceManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ServiceManager.class);
 
+    /**
+     * Ordre d'arbitrage d'un lot : priorité, puis date de création, puis identifiant
+     */
+    private static final Comparator<Services> BATCH_START_ORDER = Comparator
+            .comparingInt((Services service) -> service.getPriority().getLevel())
+            .thenComparing(Services::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Services::getId);
+
     private final ServiceRepository serviceRepository;
     private final ServiceUnitResourceRepository serviceUnitResourceRepository;
     private final ServiceCompositeResourceRepository serviceCompositeResourceRepository;
     private final ResourceAllocationService resourceAllocationService;
     private final TransitionService transitionService;
+    private final TransitionJournal transitionJournal;
+    private final BlockedServiceWakeup blockedServiceWakeup;
+    private final CapacityAllocator capacityAllocator;
+    private final ConcurrencyRetry concurrencyRetry;
 
     public ServiceManager(
             ServiceRepository serviceRepository,
             ServiceUnitResourceRepository serviceUnitResourceRepository,
             ServiceCompositeResourceRepository serviceCompositeResourceRepository,
             @org.springframework.context.annotation.Lazy ResourceAllocationService resourceAllocationService,
-            @org.springframework.context.annotation.Lazy TransitionService transitionService) {
+            @Lazy TransitionService transitionService,
+            TransitionJournal transitionJournal,
+            @Lazy BlockedServiceWakeup blockedServiceWakeup,
+            @Lazy CapacityAllocator capacityAllocator,
+            ConcurrencyRetry concurrencyRetry) {
         this.serviceRepository = serviceRepository;
         this.serviceUnitResourceRepository = serviceUnitResourceRepository;
         this.serviceCompositeResourceRepository = serviceCompositeResourceRepository;
         this.resourceAllocationService = resourceAllocationService;
         this.transitionService = transitionService;
+        this.transitionJournal = transitionJournal;
+        this.blockedServiceWakeup = blockedServiceWakeup;
+        this.capacityAllocator = capacityAllocator;
+        this.concurrencyRetry = concurrencyRetry;
     }
 
     /**
@@ -63,6 +94,7 @@ public class ServiceManager {
 
         service.setMaxExecutionTimeMinutes(createServiceDTO.maxExecutionTimeMinutes());
         service.setAutoRetry(createServiceDTO.autoRetry() != null ? createServiceDTO.autoRetry() : false);
+        service.setDemand(createServiceDTO.demand());
 
         return serviceRepository.save(service)
                 .flatMap(savedService -> {
@@ -80,42 +112,43 @@ public class ServiceManager {
     /**
      * Met à jour un service existant
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<ServiceDTO> updateService(Long id, UpdateServiceDTO updateServiceDTO) {
         logger.info("Mise à jour du service ID: {}", id);
 
-        return serviceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Service non trouvé avec l'ID: " + id)))
-                .flatMap(service -> {
-                    // Mise à jour des champs modifiables
-                    if (updateServiceDTO.name() != null) {
-                        service.setName(updateServiceDTO.name());
-                    }
-                    if (updateServiceDTO.description() != null) {
-                        service.setDescription(updateServiceDTO.description());
-                    }
-                    if (updateServiceDTO.priority() != null) {
-                        service.setPriority(updateServiceDTO.priority());
-                    }
-                    if (updateServiceDTO.maxExecutionTimeMinutes() != null) {
-                        service.setMaxExecutionTimeMinutes(updateServiceDTO.maxExecutionTimeMinutes());
-                    }
-                    if (updateServiceDTO.autoRetry() != null) {
-                        service.setAutoRetry(updateServiceDTO.autoRetry());
-                    }
-
-                    return serviceRepository.save(service);
-                })
-                .flatMap(savedService -> {
-                    // Mise à jour des associations de ressources si nécessaire
-                    if (updateServiceDTO.requiredUnitResourceIds() != null ||
-                            updateServiceDTO.requiredCompositeResourceIds() != null) {
-                        return updateResourceAssociations(savedService.getId(),
-                                updateServiceDTO.requiredUnitResourceIds(),
-                                updateServiceDTO.requiredCompositeResourceIds())
-                                .then(Mono.just(savedService));
-                    }
-                    return Mono.just(savedService);
-                })
+        return concurrencyRetry.execute("Service", id, () -> serviceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Service non trouvé avec l'ID: " + id)))
+                        .flatMap(service -> {
+                            // Mise à jour des champs modifiables
+                            if (updateServiceDTO.name() != null) {
+                                service.setName(updateServiceDTO.name());
+                            }
+                            if (updateServiceDTO.description() != null) {
+                                service.setDescription(updateServiceDTO.description());
+                            }
+                            if (updateServiceDTO.priority() != null) {
+                                service.setPriority(updateServiceDTO.priority());
+                            }
+                            if (updateServiceDTO.maxExecutionTimeMinutes() != null) {
+                                service.setMaxExecutionTimeMinutes(updateServiceDTO.maxExecutionTimeMinutes());
+                            }
+                            if (updateServiceDTO.autoRetry() != null) {
+                                service.setAutoRetry(updateServiceDTO.autoRetry());
+                            }
+
+                            return serviceRepository.save(service);
+                        })
+                        .flatMap(savedService -> {
+                            // Mise à jour des associations de ressources si nécessaire
+                            if (updateServiceDTO.requiredUnitResourceIds() != null ||
+                                    updateServiceDTO.requiredCompositeResourceIds() != null) {
+                                return updateResourceAssociations(savedService.getId(),
+                                        updateServiceDTO.requiredUnitResourceIds(),
+                                        updateServiceDTO.requiredCompositeResourceIds())
+                                        .then(Mono.just(savedService));
+                            }
+                            return Mono.just(savedService);
+                        }))
                 .map(this::convertToDTO)
                 .doOnSuccess(dto -> logger.info("Service mis à jour avec succès: ID {}", dto.id()))
                 .doOnError(error -> logger.error("Erreur lors de la mise à jour du service ID: {}", id, error));
@@ -179,11 +212,18 @@ public class ServiceManager {
                         ));
                     }
 
+                    // Service à demande : placement sur une ressource partagée
+                    if (service.hasDemand()) {
+                        return capacityAllocator.place(service)
+                                .flatMap(unitId -> transitionToInProgress(service))
+                                .switchIfEmpty(Mono.defer(() -> transitionToBlocked(service)));
+                    }
+
                     // Vérifier la disponibilité des ressources
                     return resourceAllocationService.checkResourceAvailability(service.getId())
                             .flatMap(available -> {
                                 if (!available) {
-                                    return transitionToBlocked(service);
+                                    return preemptOrBlock(service);
                                 } else {
                                     // Allouer les ressources et démarrer
                                     return resourceAllocationService.allocateResources(service.getId())
@@ -196,6 +236,110 @@ public class ServiceManager {
                 .doOnError(error -> logger.error("Erreur lors du démarrage du service ID: {}", id, error));
     }
 
+    /**
+     * Démarre un lot de services : les conflits de ressources sont arbitrés par priorité (CRITIQUE d'abord,
+     * puis ancienneté), les gagnants passent EN_COURS et les perdants BLOQUÉ en une instruction chacun,
+     * et toutes les transitions sont enregistrées par INSERT multi-lignes
+     */
+    public Mono<BatchStartResultDTO> startServices(List<Long> ids) {
+        logger.info("Démarrage groupé de {} services", ids.size());
+
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        return serviceRepository.findAllById(requestedIds)
+                .collectList()
+                .flatMap(services -> {
+                    List<Services> ready = services.stream()
+                            .filter(service -> service.getState() == ServiceState.PRET)
+                            .sorted(BATCH_START_ORDER)
+                            .toList();
+                    Set<Long> readyIds = ready.stream().map(Services::getId)
+                            .collect(Collectors.toSet());
+                    List<Long> rejected = requestedIds.stream().filter(id -> !readyIds.contains(id)).toList();
+
+                    Map<Long, Services> readyById = ready.stream()
+                            .collect(Collectors.toMap(Services::getId, service -> service));
+                    List<Services> exclusive = ready.stream().filter(service -> !service.hasDemand()).toList();
+                    List<Services> shared = ready.stream().filter(Services::hasDemand).toList();
+
+                    return resourceAllocationService.allocateBatch(exclusive)
+                            .flatMap(exclusiveAllocation -> placeShared(shared)
+                                    .map(sharedAllocation -> merge(exclusiveAllocation, sharedAllocation)))
+                            .flatMap(allocation -> applyBatchOutcome(allocation, readyById, rejected));
+                })
+                .doOnSuccess(result -> logger.info("Démarrage groupé terminé: {} démarrés, {} bloqués, {} rejetés",
+                        result.startedServiceIds().size(), result.blockedServiceIds().size(),
+                        result.rejectedServiceIds().size()))
+                .doOnError(error -> logger.error("Erreur lors du démarrage groupé des services", error));
+    }
+
+    /**
+     * Plan d'allocation à blanc d'un lot : ce que donnerait startServices maintenant, sans aucune écriture
+     * Les services exclusifs sont arbitrés contre un même instantané des ressources ; un service à demande
+     * est évalué seul contre la capacité libre courante.
+     */
+    public Mono<AllocationPlanDTO> planServices(List<Long> ids) {
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        return serviceRepository.findAllById(requestedIds)
+                .collectList()
+                .flatMap(services -> {
+                    List<Services> ready = services.stream()
+                            .filter(service -> service.getState() == ServiceState.PRET)
+                            .sorted(BATCH_START_ORDER)
+                            .toList();
+                    Set<Long> readyIds = ready.stream().map(Services::getId)
+                            .collect(Collectors.toSet());
+                    List<Long> rejected = requestedIds.stream().filter(id -> !readyIds.contains(id)).toList();
+                    Map<Long, Services> readyById = ready.stream()
+                            .collect(Collectors.toMap(Services::getId, service -> service));
+
+                    Mono<Map<Long, ServicePlanDTO>> exclusive = resourceAllocationService
+                            .plan(ready.stream().filter(service -> !service.hasDemand()).toList())
+                            .map(planned -> planned.stream().collect(Collectors.toMap(
+                                    ResourceAllocationService.PlannedAllocation::serviceId,
+                                    allocation -> toPlanDTO(allocation, readyById.get(allocation.serviceId())))));
+                    Mono<Map<Long, ServicePlanDTO>> shared = Flux.fromIterable(ready)
+                            .filter(Services::hasDemand)
+                            .concatMap(service -> capacityAllocator.fits(service)
+                                    .map(fits -> new ServicePlanDTO(service.getId(), service.getPriority(), fits,
+                                            List.of(), List.of(), null, null, null)))
+                            .collectMap(ServicePlanDTO::serviceId);
+
+                    return Mono.zip(exclusive, shared, (first, second) -> {
+                        List<ServicePlanDTO> plans = ready.stream()
+                                .map(service -> first.getOrDefault(service.getId(), second.get(service.getId())))
+                                .toList();
+                        List<Long> allocatable = plans.stream().filter(ServicePlanDTO::allocatable)
+                                .map(ServicePlanDTO::serviceId).toList();
+                        List<Long> blocked = plans.stream().filter(plan -> !plan.allocatable())
+                                .map(ServicePlanDTO::serviceId).toList();
+                        int conflicts = (int) plans.stream().filter(plan -> plan.conflictingServiceId() != null).count();
+                        return new AllocationPlanDTO(plans, allocatable, blocked, rejected, conflicts);
+                    });
+                })
+                .doOnSuccess(plan -> logger.debug("Plan d'allocation: {} allouables, {} bloqués, {} conflits",
+                        plan.allocatableServiceIds().size(), plan.blockedServiceIds().size(), plan.conflicts()));
+    }
+
+    private static ServicePlanDTO toPlanDTO(ResourceAllocationService.PlannedAllocation allocation, Services service) {
+        return new ServicePlanDTO(allocation.serviceId(), service.getPriority(), allocation.allocatable(),
+                List.copyOf(allocation.unitResourceIds()), List.copyOf(allocation.compositeResourceIds()),
+                allocation.blockingUnitResourceId(), allocation.blockingCompositeResourceId(),
+                allocation.conflictingServiceId());
+    }
+
+    /**
+     * Réévalue des services BLOQUÉS ou suspendus par pré-emption par ordre de priorité et démarre ceux dont
+     * les ressources sont de nouveau disponibles (BLOQUÉ -> PRÊT -> EN_COURS, EN_PAUSE -> EN_COURS) ;
+     * les autres retournent en liste d'attente
+     */
+    public Flux<ServiceDTO> resumeBlockedServices(Collection<Long> ids) {
+        return serviceRepository.findAllById(ids)
+                .filter(service -> service.getState() == ServiceState.BLOQUE || service.getState() == ServiceState.EN_PAUSE)
+                .sort(BATCH_START_ORDER)
+                .concatMap(this::resumeBlockedService)
+                .map(this::convertToDTO);
+    }
+
     /**
      * Termine un service (transition EN_COURS -> TERMINÉ)
      */
@@ -213,7 +357,7 @@ public class ServiceManager {
                     }
 
                     // Libérer les ressources et terminer
-                    return resourceAllocationService.releaseResources(service.getId())
+                    return releaseResources(service)
                             .then(transitionToCompleted(service));
                 })
                 .map(this::convertToDTO)
@@ -237,7 +381,7 @@ public class ServiceManager {
                     }
 
                     // Libérer les ressources si allouées et annuler
-                    return resourceAllocationService.releaseResources(service.getId())
+                    return releaseResources(service)
                             .then(transitionToCancelled(service));
                 })
                 .map(this::convertToDTO)
@@ -270,11 +414,166 @@ public class ServiceManager {
 
     // Méthodes privées pour les transitions d'état
 
+    /**
+     * Passe EN_COURS les services alloués et BLOQUÉ les refusés, puis enregistre leurs transitions
+     * Un service alloué qui n'était plus PRÊT au passage EN_COURS (annulé, démarré ailleurs entre-temps)
+     * rend les ressources réservées pour lui et compte parmi les rejetés.
+     */
+    private Mono<BatchStartResultDTO> applyBatchOutcome(ResourceAllocationService.BatchAllocation allocation,
+                                                        Map<Long, Services> servicesById,
+                                                        List<Long> rejected) {
+        List<Long> allocated = allocation.allocatedServiceIds();
+        List<Long> blocked = allocation.refusedServiceIds();
+
+        Mono<List<Long>> startUpdate = allocated.isEmpty() ? Mono.just(List.of())
+                : serviceRepository.markStarted(allocated)
+                        .flatMap(count -> count == allocated.size() ? Mono.just(allocated)
+                                : releaseNotStarted(allocated, servicesById));
+        Mono<Integer> blockUpdate = blocked.isEmpty() ? Mono.just(0) : serviceRepository.markBlocked(blocked);
+
+        return startUpdate.flatMap(started -> {
+            List<TransitionService.NewTransition> transitions = new ArrayList<>(started.size() + blocked.size());
+            started.forEach(id -> transitions.add(new TransitionService.NewTransition(TransitionType.NORMALE, "Service démarré", List.of(id))));
+            blocked.forEach(id -> transitions.add(new TransitionService.NewTransition(TransitionType.NORMALE, "Service bloqué", List.of(id))));
+
+            List<Long> notStarted = new ArrayList<>(rejected);
+            allocated.stream().filter(id -> !started.contains(id)).forEach(notStarted::add);
+
+            return blockUpdate
+                    .then(transitionService.recordTransitions(transitions))
+                    .flatMap(recorded -> Flux.fromIterable(blocked)
+                            .concatMap(id -> park(servicesById.get(id)))
+                            .then(Mono.just(new BatchStartResultDTO(started, blocked, notStarted, recorded))));
+        });
+    }
+
+    /**
+     * Relit les services réellement passés EN_COURS par markStarted et libère les ressources réservées des autres
+     */
+    private Mono<List<Long>> releaseNotStarted(List<Long> allocated, Map<Long, Services> servicesById) {
+        return serviceRepository.findIdsInState(allocated, ServiceState.EN_COURS.name())
+                .collect(Collectors.toSet())
+                .flatMap(running -> {
+                    List<Long> started = allocated.stream().filter(running::contains).toList();
+                    List<Long> lost = allocated.stream().filter(id -> !running.contains(id)).toList();
+                    logger.warn("Démarrage groupé: {}/{} services encore PRÊT au moment du passage EN_COURS, " +
+                            "ressources rendues pour {}", started.size(), allocated.size(), lost);
+                    return Flux.fromIterable(lost)
+                            .concatMap(id -> releaseResources(servicesById.get(id)))
+                            .then(Mono.just(started));
+                });
+    }
+
+    /**
+     * Place les services à demande d'un lot, dans l'ordre d'arbitrage
+     */
+    private Mono<ResourceAllocationService.BatchAllocation> placeShared(List<Services> shared) {
+        return Flux.fromIterable(shared)
+                .concatMap(service -> capacityAllocator.place(service)
+                        .map(unitId -> Map.entry(service.getId(), true))
+                        .defaultIfEmpty(Map.entry(service.getId(), false)))
+                .collect(Collectors.partitioningBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .map(outcome -> new ResourceAllocationService.BatchAllocation(outcome.get(true), outcome.get(false)));
+    }
+
+    private static ResourceAllocationService.BatchAllocation merge(ResourceAllocationService.BatchAllocation first,
+                                                                   ResourceAllocationService.BatchAllocation second) {
+        if (second.allocatedServiceIds().isEmpty() && second.refusedServiceIds().isEmpty()) {
+            return first;
+        }
+        List<Long> allocated = new ArrayList<>(first.allocatedServiceIds());
+        allocated.addAll(second.allocatedServiceIds());
+        List<Long> refused = new ArrayList<>(first.refusedServiceIds());
+        refused.addAll(second.refusedServiceIds());
+        return new ResourceAllocationService.BatchAllocation(allocated, refused);
+    }
+
+    /**
+     * Libère les ressources du service : charges partagées pour un service à demande, jetons exclusifs sinon
+     */
+    private Mono<Void> releaseResources(Services service) {
+        return service.hasDemand()
+                ? capacityAllocator.release(service.getId()).then()
+                : resourceAllocationService.releaseResources(service.getId());
+    }
+
+    /**
+     * Inscrit un service bloqué en liste d'attente ; un service à demande attend ses ressources partagées candidates
+     */
+    private Mono<Boolean> park(Services service) {
+        if (!service.hasDemand()) {
+            return blockedServiceWakeup.park(service.getId());
+        }
+        return capacityAllocator.candidates(service)
+                .map(unitIds -> {
+                    blockedServiceWakeup.park(service.getId(), unitIds, List.of());
+                    return true;
+                });
+    }
+
+    private Mono<Services> resumeBlockedService(Services service) {
+        Long id = service.getId();
+        if (service.hasDemand()) {
+            return capacityAllocator.place(service)
+                    .flatMap(unitId -> {
+                        resumeToReady(service);
+                        return transitionToInProgress(service);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> park(service).then(Mono.<Services>empty())));
+        }
+
+        return resourceAllocationService.checkResourceAvailability(id)
+                .flatMap(available -> {
+                    if (!available) {
+                        return blockedServiceWakeup.park(id).then(Mono.<Services>empty());
+                    }
+
+                    resumeToReady(service);
+                    return resourceAllocationService.allocateResources(id)
+                            .then(Mono.defer(() -> transitionToInProgress(service)));
+                })
+                .onErrorResume(ResourceAllocationException.class, error -> {
+                    logger.debug("Service ID {} devancé pendant son réveil, retour en attente", id);
+                    return blockedServiceWakeup.park(id).then(Mono.empty());
+                });
+    }
+
+    /**
+     * Un service BLOQUÉ repasse PRÊT avant de démarrer ; un service suspendu repart directement d'EN_PAUSE
+     */
+    private static void resumeToReady(Services service) {
+        if (service.getState() == ServiceState.BLOQUE) {
+            service.transitionTo(ServiceState.PRET);
+        }
+    }
+
+    /**
+     * Service sans ressources : pré-emption des services moins prioritaires qui les détiennent si la politique
+     * le permet (démarrage immédiat), sinon BLOQUÉ
+     */
+    private Mono<Services> preemptOrBlock(Services service) {
+        return resourceAllocationService.preempt(service)
+                .flatMap(victims -> suspendPreempted(service, victims)
+                        .then(Mono.defer(() -> transitionToInProgress(service))))
+                .switchIfEmpty(Mono.defer(() -> transitionToBlocked(service)));
+    }
+
+    /**
+     * Enregistre la suspension des services évincés et les inscrit en attente de leurs ressources
+     */
+    private Mono<Void> suspendPreempted(Services service, List<Long> victims) {
+        return transitionService.recordTransition(TransitionType.NORMALE, "Services suspendus par pré-emption",
+                        victims, null, null, Map.of("preemptedBy", service.getId()))
+                .thenMany(Flux.fromIterable(victims).concatMap(blockedServiceWakeup::park))
+                .then();
+    }
+
     private Mono<Services> transitionToInProgress(Services service) {
         service.transitionTo(ServiceState.EN_COURS);
         return serviceRepository.save(service)
                 .flatMap(savedService ->
-                        transitionService.recordTransition("Service démarré", List.of(savedService.getId()), null, null)
+                        transitionJournal.record("Service démarré", List.of(savedService.getId()), null, null)
                                 .then(Mono.just(savedService))
                 );
     }
@@ -283,27 +582,31 @@ public class ServiceManager {
         service.transitionTo(ServiceState.TERMINE);
         return serviceRepository.save(service)
                 .flatMap(savedService ->
-                        transitionService.recordTransition("Service terminé", List.of(savedService.getId()), null, null)
+                        transitionJournal.record("Service terminé", List.of(savedService.getId()), null, null)
                                 .then(Mono.just(savedService))
-                );
+                )
+                .doOnSuccess(savedService -> resourceAllocationService.invalidateRequirements(service.getId()));
     }
 
     private Mono<Services> transitionToBlocked(Services service) {
         service.transitionTo(ServiceState.BLOQUE);
         return serviceRepository.save(service)
                 .flatMap(savedService ->
-                        transitionService.recordTransition("Service bloqué", List.of(savedService.getId()), null, null)
+                        transitionJournal.record("Service bloqué", List.of(savedService.getId()), null, null)
+                                .then(park(savedService))
                                 .then(Mono.just(savedService))
                 );
     }
 
     private Mono<Services> transitionToCancelled(Services service) {
         service.transitionTo(ServiceState.ANNULE);
+        blockedServiceWakeup.unpark(service.getId());
         return serviceRepository.save(service)
                 .flatMap(savedService ->
-                        transitionService.recordTransition("Service annulé", List.of(savedService.getId()), null, null)
+                        transitionJournal.record("Service annulé", List.of(savedService.getId()), null, null)
                                 .then(Mono.just(savedService))
-                );
+                )
+                .doOnSuccess(savedService -> resourceAllocationService.invalidateRequirements(service.getId()));
     }
 
     // Méthodes utilitaires
@@ -323,7 +626,8 @@ public class ServiceManager {
 
     private Mono<Void> updateResourceAssociations(Long serviceId, List<Long> unitResourceIds, List<Long> compositeResourceIds) {
         return deleteResourceAssociations(serviceId)
-                .then(associateResources(serviceId, unitResourceIds, compositeResourceIds));
+                .then(associateResources(serviceId, unitResourceIds, compositeResourceIds))
+                .doOnSuccess(v -> resourceAllocationService.invalidateRequirements(serviceId));
     }
 
     private Mono<Void> deleteResourceAssociations(Long serviceId) {
@@ -331,7 +635,8 @@ public class ServiceManager {
                 .flatMap(serviceUnitResourceRepository::delete)
                 .then(serviceCompositeResourceRepository.findByServiceId(serviceId)
                         .flatMap(serviceCompositeResourceRepository::delete)
-                        .then());
+                        .then())
+                .doOnSuccess(v -> resourceAllocationService.invalidateRequirements(serviceId));
     }
 
     private ServiceDTO convertToDTO(Services service) {
@@ -349,7 +654,8 @@ public class ServiceManager {
                 null, // Les IDs des ressources requises seraient récupérés par une autre requête si nécessaire
                 null,
                 service.getMaxExecutionTimeMinutes(),
-                service.getAutoRetry()
+                service.getAutoRetry(),
+                service.getDemand()
         );
     }
 }
\ No newline at end of file
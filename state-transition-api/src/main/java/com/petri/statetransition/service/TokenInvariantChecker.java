@@ -0,0 +1,450 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.InvariantReportDTO;
+import com.petri.statetransition.dto.InvariantScanDTO;
+import com.petri.statetransition.dto.InvariantViolationDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.engine.TokenLedger;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.InvariantViolationType;
+import com.petri.statetransition.model.enums.ResourceType;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Contrôle de l'invariant de conservation des jetons : une ressource détenue l'est par un service EN_COURS,
+ * et un service qui a rendu ses ressources n'en détient plus aucune
+ * En mode EN_MEMOIRE, le registre des jetons suit chaque changement de propriétaire du marquage et la
+ * vérification a lieu dès qu'un service a obtenu ou rendu ses ressources. Le parcours complet lit les tables
+ * par tranches (pagination par clé) et peut rendre les jetons perdus, chaque réparation étant conditionnée
+ * à la version lue pour ne jamais écraser une allocation survenue entre-temps.
+ */
+@Component
+public class TokenInvariantChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenInvariantChecker.class);
+    private static final int RECENT_VIOLATIONS = 50;
+    private static final int MAX_REPORTED = 1000;
+
+    private final ServiceRepository serviceRepository;
+    private final UnitResourceRepository unitResourceRepository;
+    private final CompositeResourceRepository compositeResourceRepository;
+    private final ResourceMarking marking;
+    private final ReservationLeases reservationLeases;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AllocationMode allocationMode;
+    private final int chunkSize;
+    private final Duration grace;
+    private final Clock clock;
+    private final TokenLedger ledger = new TokenLedger();
+    private final Map<InvariantViolationType, AtomicLong> detected = new EnumMap<>(InvariantViolationType.class);
+    private final AtomicLong repaired = new AtomicLong();
+    private final ArrayDeque<InvariantViolationDTO> recentViolations = new ArrayDeque<>();
+    private volatile InvariantScanDTO lastScan;
+
+    public TokenInvariantChecker(
+            ServiceRepository serviceRepository,
+            UnitResourceRepository unitResourceRepository,
+            CompositeResourceRepository compositeResourceRepository,
+            ResourceMarking marking,
+            ReservationLeases reservationLeases,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${petri.allocation.mode:CONDITIONNELLE}") AllocationMode allocationMode,
+            @Value("${petri.invariants.scan-chunk-size:500}") int chunkSize,
+            @Value("${petri.invariants.grace-seconds:30}") long graceSeconds) {
+        this(serviceRepository, unitResourceRepository, compositeResourceRepository, marking, reservationLeases,
+                eventPublisher, allocationMode, chunkSize, Duration.ofSeconds(graceSeconds), Clock.systemDefaultZone());
+    }
+
+    TokenInvariantChecker(ServiceRepository serviceRepository, UnitResourceRepository unitResourceRepository,
+                          CompositeResourceRepository compositeResourceRepository, ResourceMarking marking,
+                          ReservationLeases reservationLeases, ApplicationEventPublisher eventPublisher, AllocationMode allocationMode, int chunkSize,
+                          Duration grace, Clock clock) {
+        this.serviceRepository = serviceRepository;
+        this.unitResourceRepository = unitResourceRepository;
+        this.compositeResourceRepository = compositeResourceRepository;
+        this.marking = marking;
+        this.reservationLeases = reservationLeases;
+        this.eventPublisher = eventPublisher;
+        this.allocationMode = allocationMode;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.grace = grace;
+        this.clock = clock;
+        for (InvariantViolationType type : InvariantViolationType.values()) {
+            detected.put(type, new AtomicLong());
+        }
+
+        // Hors EN_MEMOIRE, le marquage ne voit pas les UPDATE conditionnels : seul le parcours complet fait foi
+        if (allocationMode == AllocationMode.EN_MEMOIRE) {
+            marking.units().setOwnerListener(ledger::unitOwnerChanged);
+            marking.composites().setOwnerListener(ledger::compositeOwnerChanged);
+        }
+    }
+
+    /**
+     * Événement : le service vient d'obtenir (released = faux) ou de rendre (released = vrai) ses ressources
+     */
+    public record TokensSettled(Long serviceId, boolean released) {
+
+        /**
+         * Publie l'événement à la validation de la transaction réactive courante, immédiatement hors transaction
+         */
+        public static Mono<Void> publish(ApplicationEventPublisher publisher, Long serviceId, boolean released) {
+            TokensSettled event = new TokensSettled(serviceId, released);
+            return new TransactionalEventPublisher(publisher).publishEvent(event)
+                    .onErrorResume(NoTransactionException.class,
+                            error -> Mono.fromRunnable(() -> publisher.publishEvent(event)));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokensSettled(TokensSettled event) {
+        check(event.serviceId(), event.released());
+    }
+
+    /**
+     * Vérification incrémentale des jetons du service ; renvoie les violations détectées
+     */
+    List<InvariantViolationDTO> check(Long serviceId, boolean released) {
+        if (!isIncremental()) {
+            return List.of();
+        }
+
+        TokenLedger.Holdings holdings = ledger.holdings(serviceId);
+        List<InvariantViolationDTO> violations = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (released) {
+            holdings.unitResourceIds().forEach(id -> violations.add(new InvariantViolationDTO(
+                    InvariantViolationType.JETON_NON_RENDU, ResourceType.UNITAIRE, id,
+                    String.valueOf(marking.units().state(id)), serviceId, null, now)));
+            holdings.compositeResourceIds().forEach(id -> violations.add(new InvariantViolationDTO(
+                    InvariantViolationType.JETON_NON_RENDU, ResourceType.COMPOSITE, id,
+                    String.valueOf(marking.composites().state(id)), serviceId, null, now)));
+        } else {
+            for (Long compositeId : holdings.compositeResourceIds()) {
+                CompositeResourceState state = marking.composites().state(compositeId);
+                if (state == CompositeResourceState.PRET || state == CompositeResourceState.AFFECTE) {
+                    Integer size = marking.components().size(compositeId);
+                    Integer ready = marking.components().ready(compositeId);
+                    Integer required = marking.components().required(compositeId);
+                    // Composants non LIBRE moins nombreux que le seuil : le propriétaire ne les détient pas
+                    if (size != null && size - ready < required) {
+                        violations.add(new InvariantViolationDTO(InvariantViolationType.COMPOSITE_INCOMPLETE,
+                                ResourceType.COMPOSITE, compositeId, state.name(), serviceId, null, now));
+                    }
+                }
+            }
+        }
+
+        violations.forEach(this::record);
+        if (!violations.isEmpty()) {
+            logger.error("Invariant de conservation des jetons violé pour le service ID {}: {} violations",
+                    serviceId, violations.size());
+        }
+        return violations;
+    }
+
+    /**
+     * Compteurs, registre des jetons et dernières violations
+     */
+    public InvariantReportDTO report() {
+        List<InvariantViolationDTO> recent;
+        synchronized (recentViolations) {
+            recent = List.copyOf(recentViolations);
+        }
+        Map<InvariantViolationType, Long> byType = new EnumMap<>(InvariantViolationType.class);
+        detected.forEach((type, count) -> byType.put(type, count.get()));
+        return new InvariantReportDTO(isIncremental(), ledger.heldTokens(), ledger.holders(), byType,
+                repaired.get(), lastScan, recent);
+    }
+
+    /**
+     * Parcours complet des ressources unitaires puis composites par tranches ; avec repair, rend aussitôt
+     * les jetons perdus de chaque tranche et réveille les services en attente des ressources rendues.
+     * Les ressources modifiées depuis moins que le délai de grâce sont ignorées (allocation ou libération en cours),
+     * de même que les composites dont le bail de réservation est ouvert et les composants affectés par ce bail.
+     * Une ressource tenue sans propriétaire (allocation directe par un client) est signalée sans être rendue.
+     */
+    public Mono<InvariantScanDTO> scan(boolean repair) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            LocalDateTime startedAt = LocalDateTime.now(clock);
+            ScanTally tally = new ScanTally(startedAt.minus(grace), repair, reservationLeases.leasedComponents());
+
+            Flux<Void> units = chunks(afterId -> unitResourceRepository.findChunkAfter(afterId, chunkSize).collectList(),
+                    UnitResource::getId)
+                    .concatMap(chunk -> ownerStates(chunk.stream().map(UnitResource::getAllocatedServiceId).toList())
+                            .flatMapMany(owners -> Flux.fromIterable(chunk)
+                                    .concatMap(unit -> inspectUnit(unit, owners, tally))), 1);
+            Flux<Void> composites = chunks(afterId -> compositeResourceRepository.findHoldingChunkAfter(afterId, chunkSize)
+                            .collectList(), CompositeResourceRepository.CompositeHolding::getId)
+                    .concatMap(chunk -> ownerStates(chunk.stream()
+                                    .map(CompositeResourceRepository.CompositeHolding::getAllocatedServiceId).toList())
+                            .flatMapMany(owners -> Flux.fromIterable(chunk)
+                                    .concatMap(composite -> inspectComposite(composite, owners, tally))), 1);
+
+            return units.thenMany(composites)
+                    .then(Mono.defer(() -> tally.unitsReleased.isEmpty() && tally.compositesReleased.isEmpty()
+                            ? Mono.<Void>empty()
+                            : BlockedServiceWakeup.ResourcesReleased.publish(eventPublisher,
+                                    tally.unitsReleased, tally.compositesReleased)))
+                    .then(Mono.fromSupplier(() -> tally.toDTO(startedAt, (System.nanoTime() - started) / 1_000_000)))
+                    .doOnNext(result -> {
+                        lastScan = result;
+                        logger.info("Contrôle des invariants: {} ressources unitaires, {} composites, {} violations, {} jetons rendus",
+                                result.scannedUnitResources(), result.scannedCompositeResources(),
+                                result.violationsByType().values().stream().mapToLong(Long::longValue).sum(),
+                                result.repairedTokens());
+                    });
+        });
+    }
+
+    private Mono<Void> inspectUnit(UnitResource unit, Map<Long, ServiceState> owners, ScanTally tally) {
+        tally.scannedUnits++;
+        UnitResourceState state = unit.getState();
+        Long owner = unit.getAllocatedServiceId();
+        if (state == null || !tally.isSettled(unit.getUpdatedAt()) || tally.leasedComponents.contains(unit.getId())) {
+            return Mono.empty();
+        }
+
+        InvariantViolationType type = null;
+        if (state == UnitResourceState.LIBRE) {
+            if (owner != null) {
+                type = InvariantViolationType.PROPRIETAIRE_RESIDUEL;
+            }
+        } else if (state.canBeReleased()) {
+            if (owner == null) {
+                if (unit.getCapacity() == null || unit.getCurrentLoad() == null || unit.getCurrentLoad() <= 0) {
+                    type = InvariantViolationType.UNITE_SANS_DETENTEUR;
+                }
+            } else if (owners.get(owner) != ServiceState.EN_COURS) {
+                type = InvariantViolationType.UNITE_ORPHELINE;
+            }
+        }
+        if (type == null || !confirmedByMarking(ResourceType.UNITAIRE, unit.getId(), state, owner)) {
+            return Mono.empty();
+        }
+
+        InvariantViolationType violation = type;
+        return repairUnit(unit, tally.repair && violation.isRepairable())
+                .map(done -> {
+                    if (done) {
+                        tally.unitsReleased.add(unit.getId());
+                    }
+                    InvariantViolationDTO dto = new InvariantViolationDTO(violation, ResourceType.UNITAIRE, unit.getId(),
+                            state.name(), owner, tally.repair ? done : null, LocalDateTime.now(clock));
+                    tally.add(dto, done);
+                    record(dto);
+                    return done;
+                })
+                .then();
+    }
+
+    private Mono<Void> inspectComposite(CompositeResourceRepository.CompositeHolding composite,
+                                        Map<Long, ServiceState> owners, ScanTally tally) {
+        tally.scannedComposites++;
+        CompositeResourceState state = composite.getState() != null
+                ? CompositeResourceState.valueOf(composite.getState()) : null;
+        Long owner = composite.getAllocatedServiceId();
+        if (state == null || !tally.isSettled(composite.getUpdatedAt())
+                || reservationLeases.deadline(composite.getId()) != null) {
+            return Mono.empty();
+        }
+
+        InvariantViolationType type = null;
+        if (state == CompositeResourceState.VIDE) {
+            if (owner != null) {
+                type = InvariantViolationType.PROPRIETAIRE_RESIDUEL;
+            }
+        } else if (state == CompositeResourceState.PRET || state == CompositeResourceState.AFFECTE || state.isAllocating()) {
+            if (owner == null) {
+                type = InvariantViolationType.COMPOSITE_SANS_DETENTEUR;
+            } else if (owners.get(owner) != ServiceState.EN_COURS) {
+                type = InvariantViolationType.COMPOSITE_ORPHELINE;
+            } else if (!state.isAllocating() && composite.getRequiredComponents() != null &&
+                    composite.getHeldComponents() < composite.getRequiredComponents()) {
+                type = InvariantViolationType.COMPOSITE_INCOMPLETE;
+            }
+        }
+        if (type == null || !confirmedByMarking(ResourceType.COMPOSITE, composite.getId(), state, owner)) {
+            return Mono.empty();
+        }
+
+        InvariantViolationType violation = type;
+        return repairComposite(composite, state, owner, tally.repair && violation.isRepairable())
+                .map(done -> {
+                    if (done) {
+                        tally.compositesReleased.add(composite.getId());
+                    }
+                    InvariantViolationDTO dto = new InvariantViolationDTO(violation, ResourceType.COMPOSITE,
+                            composite.getId(), state.name(), owner, tally.repair ? done : null, LocalDateTime.now(clock));
+                    tally.add(dto, done);
+                    record(dto);
+                    return done;
+                })
+                .then();
+    }
+
+    /**
+     * Rend le jeton d'une ressource unitaire : par le marquage en mode EN_MEMOIRE (persisté en écriture
+     * différée), sinon par UPDATE conditionné à la version lue
+     */
+    private Mono<Boolean> repairUnit(UnitResource unit, boolean repair) {
+        if (!repair) {
+            return Mono.just(false);
+        }
+        if (isIncremental()) {
+            return Mono.fromSupplier(() -> {
+                boolean done = marking.units().transition(unit.getId(), (state, owner) -> state == unit.getState() &&
+                        Objects.equals(owner, unit.getAllocatedServiceId()), UnitResourceState.LIBRE, null);
+                if (done) {
+                    marking.locations().offer(unit.getId());
+                }
+                return done;
+            });
+        }
+        return unitResourceRepository.repairToken(unit.getId(), unit.getVersion()).map(updated -> updated == 1);
+    }
+
+    private Mono<Boolean> repairComposite(CompositeResourceRepository.CompositeHolding composite,
+                                          CompositeResourceState state, Long owner, boolean repair) {
+        if (!repair) {
+            return Mono.just(false);
+        }
+        if (isIncremental()) {
+            return Mono.fromSupplier(() -> marking.composites().transition(composite.getId(),
+                    (current, currentOwner) -> current == state && Objects.equals(currentOwner, owner),
+                    CompositeResourceState.VIDE, null));
+        }
+        return compositeResourceRepository.repairToken(composite.getId(), composite.getVersion())
+                .map(updated -> updated == 1);
+    }
+
+    /**
+     * En mode EN_MEMOIRE la base peut être en retard sur le marquage (écriture différée) : la violation
+     * n'est retenue que si le marquage porte le même état et le même propriétaire
+     */
+    private boolean confirmedByMarking(ResourceType resourceType, Long id, Enum<?> state, Long owner) {
+        if (!isIncremental()) {
+            return true;
+        }
+        return resourceType == ResourceType.UNITAIRE
+                ? marking.units().state(id) == state && Objects.equals(marking.units().owner(id), owner)
+                : marking.composites().state(id) == state && Objects.equals(marking.composites().owner(id), owner);
+    }
+
+    /**
+     * État des propriétaires d'une tranche, en une requête
+     */
+    private Mono<Map<Long, ServiceState>> ownerStates(List<Long> ownerIds) {
+        Set<Long> ids = new LinkedHashSet<>(ownerIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return serviceRepository.findAllById(ids).collectMap(Services::getId, Services::getState);
+    }
+
+    /**
+     * Tranches successives d'une table, chacune lue après le dernier identifiant de la précédente
+     */
+    private <T> Flux<List<T>> chunks(Function<Long, Mono<List<T>>> reader, ToLongFunction<T> idOf) {
+        return reader.apply(0L)
+                .expand(chunk -> chunk.size() < chunkSize ? Mono.empty()
+                        : reader.apply(idOf.applyAsLong(chunk.get(chunk.size() - 1))))
+                .filter(chunk -> !chunk.isEmpty());
+    }
+
+    private boolean isIncremental() {
+        return allocationMode == AllocationMode.EN_MEMOIRE && marking.isLoaded();
+    }
+
+    private void record(InvariantViolationDTO violation) {
+        detected.get(violation.type()).incrementAndGet();
+        if (Boolean.TRUE.equals(violation.repaired())) {
+            repaired.incrementAndGet();
+        }
+        synchronized (recentViolations) {
+            if (recentViolations.size() == RECENT_VIOLATIONS) {
+                recentViolations.pollFirst();
+            }
+            recentViolations.addLast(violation);
+        }
+    }
+
+    /**
+     * Cumul d'un parcours (tranches traitées l'une après l'autre)
+     */
+    private static final class ScanTally {
+
+        private final LocalDateTime settledBefore;
+        private final boolean repair;
+        private final Set<Long> leasedComponents;
+        private final Map<InvariantViolationType, Long> byType = new EnumMap<>(InvariantViolationType.class);
+        private final List<InvariantViolationDTO> violations = new ArrayList<>();
+        private final Set<Long> unitsReleased = new LinkedHashSet<>();
+        private final Set<Long> compositesReleased = new LinkedHashSet<>();
+        private long scannedUnits;
+        private long scannedComposites;
+        private long repairedTokens;
+        private boolean truncated;
+
+        private ScanTally(LocalDateTime settledBefore, boolean repair, Set<Long> leasedComponents) {
+            this.settledBefore = settledBefore;
+            this.repair = repair;
+            this.leasedComponents = leasedComponents;
+        }
+
+        private boolean isSettled(LocalDateTime updatedAt) {
+            return updatedAt == null || updatedAt.isBefore(settledBefore);
+        }
+
+        private void add(InvariantViolationDTO violation, boolean repaired) {
+            byType.merge(violation.type(), 1L, Long::sum);
+            if (repaired) {
+                repairedTokens++;
+            }
+            if (violations.size() < MAX_REPORTED) {
+                violations.add(violation);
+            } else {
+                truncated = true;
+            }
+        }
+
+        private InvariantScanDTO toDTO(LocalDateTime startedAt, long durationMillis) {
+            return new InvariantScanDTO(scannedUnits, scannedComposites, new EnumMap<>(byType), repairedTokens,
+                    List.copyOf(violations), truncated, startedAt, durationMillis);
+        }
+    }
+}
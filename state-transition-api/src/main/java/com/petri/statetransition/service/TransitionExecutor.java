@@ -0,0 +1,64 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionType;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Logique métier d'une transition, enregistrée comme bean Spring
+ * Un exécuteur est choisi par type de transition et, s'il en déclare un, par nom exact de transition ;
+ * l'exécuteur nommé l'emporte sur celui du type. Chaque exécuteur a sa propre cloison (concurrence et file
+ * d'attente bornées) et son délai : un exécuteur lent ne consomme que ses propres places.
+ * Le Mono rendu ne doit pas bloquer le thread appelant ; un exécuteur bloquant le déclare et est alors
+ * exécuté sur le planificateur élastique. Une erreur, un dépassement de délai ou une annulation font échouer
+ * la transition (Transition#fail) ; l'annulation se propage à l'abonnement de l'exécuteur.
+ */
+public interface TransitionExecutor {
+
+    /**
+     * Type de transition pris en charge
+     */
+    TransitionType type();
+
+    /**
+     * Nom exact de transition pris en charge ; null pour toutes les transitions du type
+     */
+    default String name() {
+        return null;
+    }
+
+    /**
+     * Exécute la transition ; la fin du Mono vaut succès
+     */
+    Mono<Void> execute(Transition transition);
+
+    /**
+     * L'exécution bloque-t-elle le thread (JDBC, fichiers, client HTTP synchrone) ?
+     */
+    default boolean blocking() {
+        return false;
+    }
+
+    /**
+     * Exécutions simultanées ; null pour la valeur par défaut (petri.executor.max-concurrency)
+     */
+    default Integer maxConcurrency() {
+        return null;
+    }
+
+    /**
+     * Exécutions en attente d'une place ; null pour la valeur par défaut (petri.executor.queue-capacity)
+     */
+    default Integer queueCapacity() {
+        return null;
+    }
+
+    /**
+     * Délai maximal d'une exécution ; null pour la valeur par défaut (petri.executor.timeout-ms)
+     */
+    default Duration timeout() {
+        return null;
+    }
+}
@@ -0,0 +1,202 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.TransitionExecutorStatsDTO;
+import com.petri.statetransition.engine.Bulkhead;
+import com.petri.statetransition.exception.ConfigurationException;
+import com.petri.statetransition.exception.TransitionException;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aiguillage des transitions vers leurs exécuteurs, chacun derrière sa cloison et son délai
+ * Une transition sans exécuteur n'a pas de logique métier associée et réussit immédiatement.
+ * Les exécutions en cours sont indexées par transition pour pouvoir être annulées.
+ */
+@Component
+public class TransitionExecutorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransitionExecutorRegistry.class);
+
+    private final Map<Key, Lane> lanes = new HashMap<>();
+    private final Map<Long, Sinks.One<String>> inFlight = new ConcurrentHashMap<>();
+
+    public TransitionExecutorRegistry(
+            List<TransitionExecutor> executors,
+            @Value("${petri.executor.max-concurrency:16}") int maxConcurrency,
+            @Value("${petri.executor.queue-capacity:64}") int queueCapacity,
+            @Value("${petri.executor.timeout-ms:30000}") long timeoutMillis) {
+        this(executors, maxConcurrency, queueCapacity, Duration.ofMillis(timeoutMillis));
+    }
+
+    TransitionExecutorRegistry(List<TransitionExecutor> executors, int maxConcurrency, int queueCapacity,
+                               Duration timeout) {
+        for (TransitionExecutor executor : executors) {
+            Key key = new Key(executor.type(), executor.name());
+            Lane lane = new Lane(executor,
+                    valueOr(executor.maxConcurrency(), maxConcurrency),
+                    valueOr(executor.queueCapacity(), queueCapacity),
+                    executor.timeout() != null ? executor.timeout() : timeout);
+            Lane existing = lanes.putIfAbsent(key, lane);
+            if (existing != null) {
+                throw new ConfigurationException(String.format("Exécuteurs %s et %s déclarés pour la même transition %s%s",
+                        existing.label(), lane.label(), key.type(), key.name() != null ? " " + key.name() : ""));
+            }
+            logger.info("Exécuteur de transition {} enregistré pour {}{} ({} simultanées, {} en attente, délai {} ms)",
+                    lane.label(), key.type(), key.name() != null ? " " + key.name() : "",
+                    lane.bulkhead.maxConcurrent(), lane.bulkhead.maxWaiting(), lane.timeout.toMillis());
+        }
+    }
+
+    private record Key(TransitionType type, String name) {
+    }
+
+    /**
+     * Exécuteur, cloison, délai et compteurs
+     */
+    private static final class Lane {
+
+        private final TransitionExecutor executor;
+        private final Bulkhead bulkhead;
+        private final Duration timeout;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+
+        private Lane(TransitionExecutor executor, int maxConcurrency, int queueCapacity, Duration timeout) {
+            if (maxConcurrency <= 0 || queueCapacity < 0 || timeout.isNegative() || timeout.isZero()) {
+                throw new ConfigurationException(String.format(
+                        "Limites invalides pour l'exécuteur %s: concurrence %d, file %d, délai %s",
+                        executor.getClass().getSimpleName(), maxConcurrency, queueCapacity, timeout));
+            }
+            this.executor = executor;
+            this.bulkhead = new Bulkhead(maxConcurrency, queueCapacity);
+            this.timeout = timeout;
+        }
+
+        private String label() {
+            return executor.getClass().getSimpleName();
+        }
+
+        private Mono<Void> run(Transition transition) {
+            Mono<Void> work = Mono.defer(() -> executor.execute(transition));
+            if (executor.blocking()) {
+                work = work.subscribeOn(Schedulers.boundedElastic());
+            }
+            return bulkhead.execute(work.timeout(timeout));
+        }
+
+        /**
+         * Compte l'échec et le traduit en motif lisible pour Transition#fail
+         */
+        private Throwable failure(Throwable error) {
+            if (error instanceof TimeoutException) {
+                timedOut.incrementAndGet();
+                return new TransitionException(String.format("Délai d'exécution dépassé (%d ms) pour l'exécuteur %s",
+                        timeout.toMillis(), label()), error);
+            }
+            if (error instanceof Bulkhead.FullException) {
+                return new TransitionException(String.format("Capacité de l'exécuteur %s saturée", label()), error);
+            }
+            if (error instanceof CancellationException) {
+                cancelled.incrementAndGet();
+                return error;
+            }
+            failed.incrementAndGet();
+            return error;
+        }
+
+        private TransitionExecutorStatsDTO stats(Key key) {
+            return new TransitionExecutorStatsDTO(key.type(), key.name(), label(),
+                    bulkhead.maxConcurrent(), bulkhead.maxWaiting(), timeout.toMillis(),
+                    bulkhead.active(), bulkhead.waiting(), completed.get(), failed.get(), timedOut.get(),
+                    bulkhead.rejected(), cancelled.get());
+        }
+    }
+
+    /**
+     * Exécute la transition sur son exécuteur ; termine vide en cas de succès, en erreur sinon
+     * (le message de l'erreur est le motif d'échec de la transition)
+     */
+    public Mono<Void> execute(Transition transition) {
+        Lane lane = laneFor(transition);
+        if (lane == null) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+            Sinks.One<String> cancellation = Sinks.one();
+            Long id = transition.getId();
+            if (id != null) {
+                inFlight.put(id, cancellation);
+            }
+            Mono<Void> cancelled = cancellation.asMono()
+                    .flatMap(reason -> Mono.error(new CancellationException(reason)));
+            return Mono.firstWithSignal(lane.run(transition), cancelled)
+                    .doOnSuccess(done -> lane.completed.incrementAndGet())
+                    .onErrorMap(lane::failure)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            lane.cancelled.incrementAndGet();
+                        }
+                        if (id != null) {
+                            inFlight.remove(id, cancellation);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Annule l'exécution en cours de la transition ; faux si elle n'est pas en cours d'exécution ici
+     */
+    public boolean cancel(Long transitionId, String reason) {
+        Sinks.One<String> cancellation = inFlight.get(transitionId);
+        return cancellation != null && cancellation.tryEmitValue(reason).isSuccess();
+    }
+
+    /**
+     * Limites et compteurs de chaque exécuteur
+     */
+    public List<TransitionExecutorStatsDTO> stats() {
+        return lanes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(Key::type)
+                        .thenComparing(Key::name, Comparator.nullsFirst(Comparator.naturalOrder()))))
+                .map(entry -> entry.getValue().stats(entry.getKey()))
+                .toList();
+    }
+
+    /**
+     * Exécuteur nommé de la transition, sinon celui de son type
+     */
+    private Lane laneFor(Transition transition) {
+        if (transition.getName() != null) {
+            Lane named = lanes.get(new Key(transition.getType(), transition.getName()));
+            if (named != null) {
+                return named;
+            }
+        }
+        return lanes.get(new Key(transition.getType(), null));
+    }
+
+    private static int valueOr(Integer value, int fallback) {
+        return value != null ? value : fallback;
+    }
+}
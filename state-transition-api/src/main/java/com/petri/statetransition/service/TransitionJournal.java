@@ -0,0 +1,263 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.TransitionJournalStatsDTO;
+import com.petri.statetransition.engine.RingBuffer;
+import com.petri.statetransition.exception.ConfigurationException;
+import com.petri.statetransition.exception.TransitionException;
+import com.petri.statetransition.model.enums.JournalMode;
+import com.petri.statetransition.model.enums.TransitionType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal des changements d'état des services (démarré, terminé, bloqué, annulé)
+ * En mode DIRECT chaque transition est insérée avant de rendre la main : un aller-retour base par changement
+ * d'état. En modes ASYNCHRONE et GROUPE elle est placée dans une file circulaire bornée, vidée par INSERT
+ * multi-lignes dès qu'un lot est plein et au plus tard toutes les flush-interval ms :
+ * ASYNCHRONE rend la main dès la mise en file (un lot en échec est rejoué au vidage suivant, au plus max-retries
+ * fois avant d'être journalisé puis abandonné ; la file est perdue si l'instance s'arrête brutalement) ; GROUPE rend la main une fois le lot écrit et en propage l'échec.
+ * Les transitions mises en file sont écrites hors de la transaction de l'appelant. File pleine : l'appelant
+ * attend qu'un vidage libère une place, au plus offer-timeout, puis reçoit une TransitionException.
+ */
+@Component
+public class TransitionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransitionJournal.class);
+
+    private final TransitionService transitionService;
+    private final JournalMode mode;
+    private final RingBuffer<Entry> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final int maxOfferAttempts;
+    private final int maxRetries;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Lot asynchrone en échec, rejoué en tête du vidage suivant, et ses échecs successifs (modifiés sous flushing)
+    private volatile List<Entry> retry = List.of();
+    private volatile int retryFailures;
+
+    public TransitionJournal(
+            TransitionService transitionService,
+            @Value("${petri.journal.mode:DIRECT}") JournalMode mode,
+            @Value("${petri.journal.capacity:8192}") int capacity,
+            @Value("${petri.journal.batch-size:500}") int batchSize,
+            @Value("${petri.journal.flush-interval-ms:5}") long flushIntervalMillis,
+            @Value("${petri.journal.offer-timeout-ms:1000}") long offerTimeoutMillis,
+            @Value("${petri.journal.max-retries:5}") int maxRetries) {
+        this(transitionService, mode, capacity, batchSize, Duration.ofMillis(flushIntervalMillis),
+                Duration.ofMillis(offerTimeoutMillis), maxRetries);
+    }
+
+    TransitionJournal(TransitionService transitionService, JournalMode mode, int capacity, int batchSize,
+                      Duration flushInterval, Duration offerTimeout, int maxRetries) {
+        if (mode != JournalMode.DIRECT && (capacity <= 0 || batchSize <= 0 || flushInterval.isZero()
+                || flushInterval.isNegative() || offerTimeout.isNegative() || maxRetries < 0)) {
+            throw new ConfigurationException(String.format(
+                    "Paramètres invalides pour le journal des transitions: capacité %d, lot %d, vidage %s, attente %s, " +
+                            "nouvels essais %d", capacity, batchSize, flushInterval, offerTimeout, maxRetries));
+        }
+        this.transitionService = transitionService;
+        this.mode = mode;
+        this.buffer = mode == JournalMode.DIRECT ? null : new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxOfferAttempts = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, offerTimeout.toMillis() / Math.max(1, flushInterval.toMillis())));
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Transition en file et, en mode GROUPE, signal de son écriture
+     */
+    private record Entry(TransitionService.NewTransition transition, Sinks.Empty<Void> done) {
+    }
+
+    /**
+     * Journalise une transition normale ; en mode DIRECT équivaut à TransitionService#recordTransition
+     */
+    public Mono<Void> record(String description, List<Long> serviceIds, List<Long> unitResourceIds,
+                             List<Long> compositeResourceIds) {
+        if (buffer == null) {
+            return transitionService.recordTransition(description, serviceIds, unitResourceIds, compositeResourceIds)
+                    .then();
+        }
+        return Mono.defer(() -> {
+            Entry entry = new Entry(new TransitionService.NewTransition(TransitionType.NORMALE, description,
+                    serviceIds, unitResourceIds, compositeResourceIds),
+                    mode == JournalMode.GROUPE ? Sinks.empty() : null);
+            Mono<Void> enqueued = enqueue(entry);
+            return entry.done() != null ? enqueued.then(entry.done().asMono()) : enqueued;
+        });
+    }
+
+    /**
+     * Écrit les transitions en file par lots jusqu'à épuisement ; retourne le nombre de transitions écrites
+     * Vide si un vidage est déjà en cours.
+     */
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            if (buffer == null || !flushing.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+            // Sans préchargement : le lot suivant n'est prélevé qu'une fois le précédent écrit
+            return Mono.fromSupplier(this::nextBatch)
+                    .repeat()
+                    .takeWhile(batch -> !batch.isEmpty())
+                    .concatMap(this::write, 0)
+                    .reduce(0L, Long::sum)
+                    .doFinally(signal -> flushing.set(false));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${petri.journal.flush-interval-ms:5}")
+    public void scheduledFlush() {
+        if (buffered() > 0) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Dernière écriture avant l'arrêt de l'application
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            // Un vidage déjà en cours rend 0 : on attend sa fin avant de réessayer
+            Long count = flush()
+                    .flatMap(flushed -> flushed > 0 ? Mono.just(flushed) : Mono.delay(flushInterval).thenReturn(flushed))
+                    .repeat(() -> buffered() > 0)
+                    .reduce(0L, Long::sum)
+                    .block(Duration.ofSeconds(10));
+            logger.info("Journal des transitions vidé à l'arrêt: {} transitions écrites", count);
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors du vidage du journal des transitions à l'arrêt ({} transitions perdues)",
+                    buffered(), e);
+        }
+    }
+
+    /**
+     * Mode, occupation et compteurs du journal
+     */
+    public TransitionJournalStatsDTO stats() {
+        return new TransitionJournalStatsDTO(mode, buffer != null ? buffer.capacity() : null, buffered(),
+                appended.get(), written.get(), batches.get(), failedBatches.get(), throttled.get(), rejected.get(),
+                dropped.get());
+    }
+
+    /**
+     * Met en file ; file pleine, relance un vidage et réessaie à chaque intervalle jusqu'au délai d'attente
+     */
+    private Mono<Void> enqueue(Entry entry) {
+        if (offer(entry)) {
+            return Mono.empty();
+        }
+        throttled.incrementAndGet();
+        return Mono.fromSupplier(() -> offer(entry))
+                .filter(Boolean::booleanValue)
+                .repeatWhenEmpty(maxOfferAttempts,
+                        attempts -> attempts.concatMap(attempt -> Mono.delay(flushInterval)))
+                .onErrorMap(IllegalStateException.class, error -> {
+                    rejected.incrementAndGet();
+                    return new TransitionException(String.format(
+                            "Journal des transitions saturé (%d transitions en file)", buffer.capacity()), error);
+                })
+                .then();
+    }
+
+    private boolean offer(Entry entry) {
+        if (!buffer.offer(entry)) {
+            requestFlush();
+            return false;
+        }
+        appended.incrementAndGet();
+        if (buffer.size() >= batchSize) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        flush().subscribe(
+                count -> {
+                    if (count > 0) {
+                        logger.debug("Journal des transitions: {} transitions écrites", count);
+                    }
+                },
+                error -> logger.warn("Erreur lors de l'écriture du journal des transitions", error)
+        );
+    }
+
+    private List<Entry> nextBatch() {
+        if (!retry.isEmpty()) {
+            return retry;
+        }
+        List<Entry> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+        buffer.drainTo(batch, batchSize);
+        return batch;
+    }
+
+    private Mono<Long> write(List<Entry> batch) {
+        return transitionService.recordTransitions(batch.stream().map(Entry::transition).toList())
+                .doOnSuccess(count -> {
+                    retry = List.of();
+                    retryFailures = 0;
+                    written.addAndGet(batch.size());
+                    batches.incrementAndGet();
+                    batch.stream().filter(entry -> entry.done() != null).forEach(entry -> entry.done().tryEmitEmpty());
+                })
+                .doOnError(error -> {
+                    failedBatches.incrementAndGet();
+                    batch.stream().filter(entry -> entry.done() != null)
+                            .forEach(entry -> entry.done().tryEmitError(error));
+                    // Une transition asynchrone n'a personne à qui signaler l'échec : elle est rejouée
+                    List<Entry> pending = batch.stream().filter(entry -> entry.done() == null).toList();
+                    int failures = batch == retry ? retryFailures + 1 : 0;
+                    if (!pending.isEmpty() && failures >= maxRetries) {
+                        drop(pending, error);
+                        pending = List.of();
+                        failures = 0;
+                    }
+                    retry = pending;
+                    retryFailures = failures;
+                });
+    }
+
+    /**
+     * Abandonne un lot asynchrone après max-retries nouveaux essais : chaque transition est journalisée
+     * pour pouvoir être reprise à la main, et la file se remet à avancer
+     */
+    private void drop(List<Entry> batch, Throwable error) {
+        dropped.addAndGet(batch.size());
+        logger.error("Journal des transitions: lot de {} transitions abandonné après {} nouveaux essais",
+                batch.size(), maxRetries, error);
+        batch.forEach(entry -> logger.error("Transition abandonnée: {} (services {}, unitaires {}, composites {})",
+                entry.transition().description(), entry.transition().serviceIds(),
+                entry.transition().unitResourceIds(), entry.transition().compositeResourceIds()));
+    }
+
+    private int buffered() {
+        return buffer == null ? 0 : buffer.size() + retry.size();
+    }
+}
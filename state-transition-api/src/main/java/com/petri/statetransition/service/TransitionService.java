@@ -6,24 +6,37 @@ package com.petri.statetransition.service;
 
 import com.petri.statetransition.dto.*;
 import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.EntityKind;
+import com.petri.statetransition.model.enums.TransitionLifecycle;
 import com.petri.statetransition.model.enums.TransitionType;
 import com.petri.statetransition.model.enums.TransitionStatus;
 import com.petri.statetransition.repository.*;
+import com.petri.statetransition.repository.TransitionParticipantRepository.Participant;
 import com.petri.statetransition.exception.ResourceNotFoundException;
 import com.petri.statetransition.exception.TransitionException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -31,13 +44,29 @@ import java.util.HashMap;
 public class TransitionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransitionService.class);
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 500;
 
     private final TransitionRepository transitionRepository;
+    private final TransitionParticipantRepository participantRepository;
     private final ObjectMapper objectMapper;
-
-    public TransitionService(TransitionRepository transitionRepository, ObjectMapper objectMapper) {
+    private final DatabaseClient databaseClient;
+    private final TransitionExecutorRegistry executorRegistry;
+    private final TransactionalOperator transactionalOperator;
+    private final TransitionLifecycle lifecycle;
+
+    public TransitionService(TransitionRepository transitionRepository,
+                             TransitionParticipantRepository participantRepository, ObjectMapper objectMapper,
+                             DatabaseClient databaseClient, TransitionExecutorRegistry executorRegistry,
+                             @Nullable TransactionalOperator transactionalOperator,
+                             @Value("${petri.transitions.lifecycle:DEMARRE}") TransitionLifecycle lifecycle) {
         this.transitionRepository = transitionRepository;
+        this.participantRepository = participantRepository;
         this.objectMapper = objectMapper;
+        this.databaseClient = databaseClient;
+        this.executorRegistry = executorRegistry;
+        this.transactionalOperator = transactionalOperator;
+        this.lifecycle = lifecycle;
     }
 
     /**
@@ -69,13 +98,101 @@ public class TransitionService {
         }
 
         return transitionRepository.save(transition)
-                .map(this::convertToDTO)
+                .flatMap(savedTransition -> {
+                    List<Participant> participants = participants(savedTransition.getId(),
+                            serviceIds, unitResourceIds, compositeResourceIds);
+                    return participantRepository.saveAll(participants)
+                            .thenReturn(convertToDTO(savedTransition, byKind(participants)));
+                })
                 .doOnSuccess(dto -> logger.debug("Transition enregistrée avec succès: ID {}", dto.id()));
     }
 
+    /**
+     * Enregistre plusieurs transitions et leurs participants par INSERT multi-lignes (paquets de 500 lignes)
+     * Retourne le nombre de transitions insérées.
+     */
+    public Mono<Long> recordTransitions(List<NewTransition> newTransitions) {
+        if (newTransitions.isEmpty()) {
+            return Mono.just(0L);
+        }
+        logger.debug("Enregistrement groupé de {} transitions", newTransitions.size());
+
+        return Flux.range(0, (newTransitions.size() + INSERT_BATCH_SIZE - 1) / INSERT_BATCH_SIZE)
+                .concatMap(chunk -> {
+                    List<NewTransition> slice = newTransitions.subList(
+                            chunk * INSERT_BATCH_SIZE, Math.min(newTransitions.size(), (chunk + 1) * INSERT_BATCH_SIZE));
+                    List<Transition> transitions = slice.stream()
+                            .map(newTransition -> new Transition(newTransition.type(),
+                                    generateTransitionName(newTransition.type()), newTransition.description()))
+                            .toList();
+                    return insertTransitions(transitions)
+                            .flatMap(firstId -> {
+                                List<Participant> participants = new ArrayList<>();
+                                for (int i = 0; i < slice.size(); i++) {
+                                    NewTransition newTransition = slice.get(i);
+                                    participants.addAll(participants(firstId + i, newTransition.serviceIds(),
+                                            newTransition.unitResourceIds(), newTransition.compositeResourceIds()));
+                                }
+                                return participantRepository.saveAll(participants);
+                            })
+                            .thenReturn((long) transitions.size());
+                })
+                .reduce(0L, Long::sum)
+                .doOnSuccess(count -> logger.debug("{} transitions enregistrées", count));
+    }
+
+    /**
+     * INSERT multi-lignes ; retourne l'identifiant de la première ligne
+     * MySQL attribue des identifiants consécutifs aux lignes d'un même INSERT ... VALUES (insertion simple,
+     * nombre de lignes connu d'avance) : la ligne i reçoit le premier identifiant + i.
+     */
+    private Mono<Long> insertTransitions(List<Transition> transitions) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO transitions (type, status, name, description, metadata_json) VALUES ");
+        for (int i = 0; i < transitions.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:type").append(i).append(", :status").append(i).append(", :name").append(i)
+                    .append(", :description").append(i).append(", :metadata").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < transitions.size(); i++) {
+            Transition transition = transitions.get(i);
+            spec = spec.bind("type" + i, transition.getType().name())
+                    .bind("status" + i, transition.getStatus().name())
+                    .bind("name" + i, transition.getName());
+            spec = transition.getDescription() != null
+                    ? spec.bind("description" + i, transition.getDescription())
+                    : spec.bindNull("description" + i, String.class);
+            spec = transition.getMetadataJson() != null
+                    ? spec.bind("metadata" + i, transition.getMetadataJson())
+                    : spec.bindNull("metadata" + i, String.class);
+        }
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> row.get("id", Long.class))
+                .first();
+    }
+
+    /**
+     * Transition à enregistrer en lot
+     */
+    public record NewTransition(TransitionType type, String description, List<Long> serviceIds,
+                                List<Long> unitResourceIds, List<Long> compositeResourceIds) {
+
+        public NewTransition(TransitionType type, String description, List<Long> serviceIds) {
+            this(type, description, serviceIds, null, null);
+        }
+    }
+
     /**
      * Déclenche une transition synchrone
+     * Écritures selon le cycle de vie configuré : COMPLET (insertion, démarrage, issue), DEMARRE (insertion
+     * déjà démarrée puis issue) ou FINAL (une seule insertion de l'issue ; la transition n'est alors ni
+     * visible ni annulable pendant son exécution, à réserver aux transitions courtes).
+     * Hors transaction comme executeClaimedTransition : le démarrage est validé avant l'exécution, pour que la
+     * transition EN_COURS soit visible et annulable, et aucune connexion n'est tenue pendant l'exécution.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<TransitionDTO> triggerSynchronousTransition(TriggerTransitionDTO triggerDTO) {
         logger.info("Déclenchement d'une transition synchrone: {}", triggerDTO.name());
 
@@ -94,14 +211,38 @@ public class TransitionService {
             }
         }
 
-        return transitionRepository.save(transition)
-                .flatMap(savedTransition -> {
-                    // Démarrer la transition
-                    savedTransition.start();
-                    return transitionRepository.save(savedTransition);
-                })
-                .flatMap(this::executeTransition)
-                .map(this::convertToDTO)
+        // Participants enregistrés dès que la transition a un identifiant (à la fin en cycle FINAL)
+        List<Long> serviceIds = triggerDTO.serviceIds();
+        List<Long> unitResourceIds = triggerDTO.unitResourceIds();
+        List<Long> compositeResourceIds = triggerDTO.compositeResourceIds();
+        Mono<Transition> started = switch (lifecycle) {
+            case COMPLET -> transitionRepository.save(transition)
+                    .flatMap(savedTransition -> saveParticipants(savedTransition,
+                            serviceIds, unitResourceIds, compositeResourceIds))
+                    .flatMap(savedTransition -> {
+                        // Démarrer la transition
+                        savedTransition.start();
+                        return transitionRepository.save(savedTransition);
+                    });
+            case DEMARRE -> Mono.defer(() -> {
+                transition.start();
+                return transitionRepository.save(transition);
+            }).flatMap(savedTransition -> saveParticipants(savedTransition,
+                    serviceIds, unitResourceIds, compositeResourceIds));
+            case FINAL -> Mono.fromSupplier(() -> {
+                transition.start();
+                return transition;
+            });
+        };
+        Mono<Transition> executed = transactional(started).flatMap(this::executeTransition);
+        if (lifecycle == TransitionLifecycle.FINAL) {
+            executed = executed.flatMap(savedTransition -> transactional(saveParticipants(savedTransition,
+                    serviceIds, unitResourceIds, compositeResourceIds)));
+        }
+
+        return executed
+                .map(savedTransition -> convertToDTO(savedTransition,
+                        byKind(participants(savedTransition.getId(), serviceIds, unitResourceIds, compositeResourceIds))))
                 .doOnSuccess(dto -> logger.info("Transition synchrone exécutée avec succès: ID {}", dto.id()))
                 .doOnError(error -> logger.error("Erreur lors de l'exécution de la transition synchrone", error));
     }
@@ -110,61 +251,75 @@ public class TransitionService {
      * Trouve une transition par ID
      */
     public Mono<TransitionDTO> findById(Long id) {
-        return transitionRepository.findById(id)
+        return toDTOs(transitionRepository.findById(id)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Transition non trouvée avec l'ID: " + id)))
-                .map(this::convertToDTO);
+                .flux())
+                .single();
     }
 
     /**
      * Trouve toutes les transitions
      */
     public Flux<TransitionDTO> findAll() {
-        return transitionRepository.findAll()
-                .map(this::convertToDTO);
+        return toDTOs(transitionRepository.findAll());
     }
 
     /**
      * Trouve les transitions par type
      */
     public Flux<TransitionDTO> findByType(TransitionType type) {
-        return transitionRepository.findByType(type)
-                .map(this::convertToDTO);
+        return toDTOs(transitionRepository.findByType(type));
     }
 
     /**
      * Trouve les transitions par statut
      */
     public Flux<TransitionDTO> findByStatus(TransitionStatus status) {
-        return transitionRepository.findByStatus(status)
-                .map(this::convertToDTO);
+        return toDTOs(transitionRepository.findByStatus(status));
     }
 
     /**
      * Trouve les transitions actives
      */
     public Flux<TransitionDTO> findActiveTransitions() {
-        return transitionRepository.findActiveTransitions()
-                .map(this::convertToDTO);
+        return toDTOs(transitionRepository.findActiveTransitions());
     }
 
     /**
      * Trouve les transitions qui prennent trop de temps
      */
     public Flux<TransitionDTO> findLongRunningTransitions(Integer maxMinutes) {
-        return transitionRepository.findLongRunningTransitions(maxMinutes)
-                .map(this::convertToDTO);
+        return toDTOs(transitionRepository.findLongRunningTransitions(maxMinutes));
     }
 
     /**
-     * Traite les transitions automatiques en attente
+     * Historique des transitions d'une entité, des plus récentes aux plus anciennes
+     * Pagination par curseur : before est le nextCursor de la page précédente (absent pour la première page) ;
+     * chaque page est un parcours de l'index des participants, quelle que soit sa profondeur dans l'historique.
      */
-    public Flux<TransitionDTO> processAutomaticTransitions() {
-        logger.info("Traitement des transitions automatiques en attente");
+    public Mono<TransitionPageDTO> findByParticipant(EntityKind kind, Long entityId, Long before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Une ligne de plus que la page indique s'il reste un historique au-delà
+        return transitionRepository.findByParticipant(kind.name(), entityId,
+                        before != null ? before : Long.MAX_VALUE, pageSize + 1)
+                .collectList()
+                .flatMap(transitions -> {
+                    boolean more = transitions.size() > pageSize;
+                    List<Transition> page = more ? transitions.subList(0, pageSize) : transitions;
+                    Long nextCursor = more ? page.get(page.size() - 1).getId() : null;
+                    return toDTOs(Flux.fromIterable(page)).collectList()
+                            .map(dtos -> new TransitionPageDTO(dtos, nextCursor));
+                });
+    }
 
-        return transitionRepository.findPendingAutomaticTransitions()
-                .flatMap(this::processAutomaticTransition)
-                .map(this::convertToDTO)
-                .doOnComplete(() -> logger.info("Traitement des transitions automatiques terminé"));
+    /**
+     * Exécute une transition déjà réservée et passée EN_COURS (AutomaticTransitionWorker)
+     * Hors transaction : l'exécution peut être longue, seule l'issue est enregistrée.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<TransitionDTO> executeClaimedTransition(Transition transition) {
+        return executeTransition(transition)
+                .map(this::convertToDTO);
     }
 
     /**
@@ -183,9 +338,15 @@ public class TransitionService {
                     }
 
                     transition.fail("Annulée: " + reason);
+                    if (executorRegistry.cancel(id, "Annulée: " + reason)) {
+                        // L'exécution interrompue enregistre elle-même l'échec avec ce motif
+                        return Mono.just(transition);
+                    }
                     return transitionRepository.save(transition);
                 })
-                .map(this::convertToDTO)
+                .flux()
+                .as(this::toDTOs)
+                .single()
                 .doOnSuccess(dto -> logger.info("Transition annulée avec succès: ID {}", dto.id()));
     }
 
@@ -202,33 +363,82 @@ public class TransitionService {
 
     // Méthodes privées
 
+    /**
+     * Exécute la transition sur son exécuteur (TransitionExecutor) puis enregistre son issue
+     */
     private Mono<Transition> executeTransition(Transition transition) {
-        // Simulation de l'exécution d'une transition
-        // Dans un vrai système, ici on exécuterait la logique métier spécifique
-        return Mono.delay(java.time.Duration.ofMillis(100)) // Simulation d'un traitement
-                .then(Mono.defer(() -> {
-                    if (Math.random() > 0.9) { // 10% de chance d'échec pour simulation
-                        transition.fail("Échec simulé de la transition");
-                    } else {
-                        transition.complete();
-                    }
-                    return transitionRepository.save(transition);
-                }));
+        return executorRegistry.execute(transition)
+                .then(Mono.fromSupplier(() -> {
+                    transition.complete();
+                    return transition;
+                }))
+                .onErrorResume(error -> Mono.fromSupplier(() -> {
+                    logger.warn("Échec de la transition ID {}: {}", transition.getId(), error.getMessage());
+                    transition.fail(error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+                    return transition;
+                }))
+                .flatMap(transitionRepository::save);
     }
 
-    private Mono<Transition> processAutomaticTransition(Transition transition) {
-        logger.debug("Traitement de la transition automatique ID: {}", transition.getId());
-
-        transition.start();
-        return transitionRepository.save(transition)
-                .flatMap(this::executeTransition);
+    private <T> Mono<T> transactional(Mono<T> writes) {
+        return transactionalOperator != null ? transactionalOperator.transactional(writes) : writes;
     }
 
     private String generateTransitionName(TransitionType type) {
         return type.getCode() + "_" + System.currentTimeMillis();
     }
 
+    private Mono<Transition> saveParticipants(Transition transition, List<Long> serviceIds,
+                                              List<Long> unitResourceIds, List<Long> compositeResourceIds) {
+        return participantRepository.saveAll(participants(transition.getId(), serviceIds, unitResourceIds,
+                        compositeResourceIds))
+                .thenReturn(transition);
+    }
+
+    private static List<Participant> participants(Long transitionId, List<Long> serviceIds,
+                                                  List<Long> unitResourceIds, List<Long> compositeResourceIds) {
+        List<Participant> participants = new ArrayList<>();
+        addParticipants(participants, transitionId, EntityKind.SERVICE, serviceIds);
+        addParticipants(participants, transitionId, EntityKind.UNITAIRE, unitResourceIds);
+        addParticipants(participants, transitionId, EntityKind.COMPOSITE, compositeResourceIds);
+        return participants;
+    }
+
+    private static void addParticipants(List<Participant> participants, Long transitionId, EntityKind kind,
+                                        List<Long> entityIds) {
+        if (entityIds != null) {
+            entityIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(entityId -> participants.add(new Participant(transitionId, kind, entityId)));
+        }
+    }
+
+    private static Map<EntityKind, List<Long>> byKind(Collection<Participant> participants) {
+        return participants.stream().collect(Collectors.groupingBy(Participant::kind,
+                () -> new EnumMap<>(EntityKind.class),
+                Collectors.mapping(Participant::entityId, Collectors.toList())));
+    }
+
+    /**
+     * Convertit les transitions par lots, avec une lecture des participants par lot
+     */
+    private Flux<TransitionDTO> toDTOs(Flux<Transition> transitions) {
+        return transitions.buffer(INSERT_BATCH_SIZE)
+                .concatMap(batch -> participantRepository.findByTransitionIds(
+                                batch.stream().map(Transition::getId).toList())
+                        .collect(Collectors.groupingBy(Participant::transitionId))
+                        .flatMapIterable(participants -> batch.stream()
+                                .map(transition -> convertToDTO(transition,
+                                        byKind(participants.getOrDefault(transition.getId(), List.of()))))
+                                .toList()));
+    }
+
     private TransitionDTO convertToDTO(Transition transition) {
+        return convertToDTO(transition, Map.of());
+    }
+
+    private TransitionDTO convertToDTO(Transition transition, Map<EntityKind, List<Long>> participants) {
         Map<String, Object> metadata = null;
         if (transition.getMetadataJson() != null) {
             try {
@@ -248,9 +458,9 @@ public class TransitionService {
                 transition.getCreatedAt(),
                 transition.getStartedAt(),
                 transition.getCompletedAt(),
-                null, // Les IDs seraient récupérés par des requêtes séparées si nécessaire
-                null,
-                null,
+                participants.get(EntityKind.SERVICE),
+                participants.get(EntityKind.UNITAIRE),
+                participants.get(EntityKind.COMPOSITE),
                 metadata,
                 transition.getErrorMessage()
         );
@@ -1,6 +1,7 @@
 package com.petri.statetransition.service;
 
 import com.petri.statetransition.dto.*;
+import com.petri.statetransition.engine.ResourceMarking;
 import com.petri.statetransition.model.entity.UnitResource;
 import com.petri.statetransition.model.entity.CompositeResource;
 import com.petri.statetransition.model.entity.CompositeUnitResource;
@@ -12,7 +13,9 @@ import com.petri.statetransition.exception.InvalidStateTransitionException;
 import com.petri.statetransition.exception.BusinessLogicException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -31,14 +34,23 @@ public class UnitResourceService {
     private final UnitResourceRepository unitResourceRepository;
     private final CompositeUnitResourceRepository compositeUnitResourceRepository;
     private final ServiceUnitResourceRepository serviceUnitResourceRepository;
+    private final ResourceMarking marking;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConcurrencyRetry concurrencyRetry;
 
     public UnitResourceService(
             UnitResourceRepository unitResourceRepository,
             CompositeUnitResourceRepository compositeUnitResourceRepository,
-            ServiceUnitResourceRepository serviceUnitResourceRepository) {
+            ServiceUnitResourceRepository serviceUnitResourceRepository,
+            ResourceMarking marking,
+            ApplicationEventPublisher eventPublisher,
+            ConcurrencyRetry concurrencyRetry) {
         this.unitResourceRepository = unitResourceRepository;
         this.compositeUnitResourceRepository = compositeUnitResourceRepository;
         this.serviceUnitResourceRepository = serviceUnitResourceRepository;
+        this.marking = marking;
+        this.eventPublisher = eventPublisher;
+        this.concurrencyRetry = concurrencyRetry;
     }
 
     /**
@@ -124,22 +136,23 @@ public class UnitResourceService {
     /**
      * Alloue une ressource unitaire (LIBRE -> AFFECTÉ)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<UnitResourceDTO> allocateResource(Long id) {
         logger.info("Allocation de la ressource unitaire ID: {}", id);
 
-        return unitResourceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
-                .flatMap(resource -> {
-                    if (resource.getState() != UnitResourceState.LIBRE) {
-                        return Mono.error(new InvalidStateTransitionException(
-                                String.format("La ressource doit être libre pour être allouée. État actuel: %s",
-                                        resource.getState())
-                        ));
-                    }
+        return concurrencyRetry.execute("UnitResource", id, () -> unitResourceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
+                        .flatMap(resource -> {
+                            if (resource.getState() != UnitResourceState.LIBRE) {
+                                return Mono.error(new InvalidStateTransitionException(
+                                        String.format("La ressource doit être libre pour être allouée. État actuel: %s",
+                                                resource.getState())
+                                ));
+                            }
 
-                    resource.transitionTo(UnitResourceState.AFFECTE);
-                    return unitResourceRepository.save(resource);
-                })
+                            resource.transitionTo(UnitResourceState.AFFECTE);
+                            return unitResourceRepository.save(resource);
+                        }))
                 .map(this::convertToDTO)
                 .doOnSuccess(dto -> logger.info("Ressource unitaire allouée avec succès: ID {}", dto.id()));
     }
@@ -147,22 +160,23 @@ public class UnitResourceService {
     /**
      * Utilise une ressource unitaire (AFFECTÉ -> OCCUPÉ)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<UnitResourceDTO> useResource(Long id) {
         logger.info("Utilisation de la ressource unitaire ID: {}", id);
 
-        return unitResourceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
-                .flatMap(resource -> {
-                    if (resource.getState() != UnitResourceState.AFFECTE) {
-                        return Mono.error(new InvalidStateTransitionException(
-                                String.format("La ressource doit être affectée pour être utilisée. État actuel: %s",
-                                        resource.getState())
-                        ));
-                    }
+        return concurrencyRetry.execute("UnitResource", id, () -> unitResourceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
+                        .flatMap(resource -> {
+                            if (resource.getState() != UnitResourceState.AFFECTE) {
+                                return Mono.error(new InvalidStateTransitionException(
+                                        String.format("La ressource doit être affectée pour être utilisée. État actuel: %s",
+                                                resource.getState())
+                                ));
+                            }
 
-                    resource.transitionTo(UnitResourceState.OCCUPE);
-                    return unitResourceRepository.save(resource);
-                })
+                            resource.transitionTo(UnitResourceState.OCCUPE);
+                            return unitResourceRepository.save(resource);
+                        }))
                 .map(this::convertToDTO)
                 .doOnSuccess(dto -> logger.info("Ressource unitaire utilisée avec succès: ID {}", dto.id()));
     }
@@ -170,24 +184,43 @@ public class UnitResourceService {
     /**
      * Libère une ressource unitaire (OCCUPÉ/AFFECTÉ -> LIBRE)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<UnitResourceDTO> releaseResource(Long id) {
         logger.info("Libération de la ressource unitaire ID: {}", id);
 
+        return concurrencyRetry.execute("UnitResource", id, () -> unitResourceRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
+                        .flatMap(resource -> {
+                            if (!resource.getState().canBeReleased()) {
+                                return Mono.error(new InvalidStateTransitionException(
+                                        String.format("La ressource ne peut pas être libérée dans l'état: %s",
+                                                resource.getState())
+                                ));
+                            }
+
+                            resource.transitionTo(UnitResourceState.LIBRE);
+                            return unitResourceRepository.save(resource);
+                        }))
+                .flatMap(released -> BlockedServiceWakeup.ResourcesReleased
+                        .publish(eventPublisher, List.of(released.getId()), List.of())
+                        .thenReturn(released))
+                .map(this::convertToDTO)
+                .doOnSuccess(dto -> logger.info("Ressource unitaire libérée avec succès: ID {}", dto.id()));
+    }
+
+    /**
+     * Libère un composant affecté par la réservation d'une composite (AFFECTÉ sans service propriétaire)
+     * Vide si la ressource a été utilisée, libérée ou affectée entre-temps à un service.
+     */
+    public Mono<UnitResourceDTO> releaseReservedComponent(Long id) {
         return unitResourceRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Ressource unitaire non trouvée avec l'ID: " + id)))
+                .filter(resource -> resource.getState() == UnitResourceState.AFFECTE &&
+                        resource.getAllocatedServiceId() == null)
                 .flatMap(resource -> {
-                    if (!resource.getState().canBeReleased()) {
-                        return Mono.error(new InvalidStateTransitionException(
-                                String.format("La ressource ne peut pas être libérée dans l'état: %s",
-                                        resource.getState())
-                        ));
-                    }
-
                     resource.transitionTo(UnitResourceState.LIBRE);
                     return unitResourceRepository.save(resource);
                 })
-                .map(this::convertToDTO)
-                .doOnSuccess(dto -> logger.info("Ressource unitaire libérée avec succès: ID {}", dto.id()));
+                .map(this::convertToDTO);
     }
 
     /**
@@ -207,7 +240,12 @@ public class UnitResourceService {
 
                     // Supprimer les associations et la ressource
                     return deleteResourceAssociations(id)
-                            .then(unitResourceRepository.deleteById(id));
+                            .then(unitResourceRepository.deleteById(id))
+                            .doOnSuccess(v -> {
+                                marking.units().remove(id);
+                                ResourceAllocationService.RequirementsChanged.publish(eventPublisher,
+                                        List.of(), List.of(id), List.of());
+                            });
                 })
                 .doOnSuccess(v -> logger.info("Ressource unitaire supprimée avec succès: ID {}", id));
     }
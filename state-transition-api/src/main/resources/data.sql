@@ -6,6 +6,7 @@
 DELETE FROM service_composite_resources;
 DELETE FROM service_unit_resources;
 DELETE FROM composite_unit_resources;
+DELETE FROM transition_participants;
 DELETE FROM transitions;
 DELETE FROM composite_resources;
 DELETE FROM unit_resources;
@@ -2,9 +2,11 @@
 -- SCHEMA DE BASE DE DONNÉES POUR L'API PETRI STATE TRANSITION (R2DBC-compatible)
 -- ================================
 
+DROP TABLE IF EXISTS unit_resource_loads;
 DROP TABLE IF EXISTS service_composite_resources;
 DROP TABLE IF EXISTS service_unit_resources;
 DROP TABLE IF EXISTS composite_unit_resources;
+DROP TABLE IF EXISTS transition_participants;
 DROP TABLE IF EXISTS transitions;
 DROP TABLE IF EXISTS composite_resources;
 DROP TABLE IF EXISTS unit_resources;
@@ -26,6 +28,8 @@ CREATE TABLE services (
     completed_at TIMESTAMP NULL,
     max_execution_time_minutes INT DEFAULT NULL,
     auto_retry BOOLEAN DEFAULT FALSE,
+    demand INT DEFAULT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
 
     INDEX idx_services_state (state),
     INDEX idx_services_type (type),
@@ -47,8 +51,11 @@ CREATE TABLE unit_resources (
     location VARCHAR(200),
     capacity INT DEFAULT NULL,
     current_load INT DEFAULT 0,
+    allocated_service_id BIGINT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
 
     INDEX idx_unit_resources_state (state),
+    INDEX idx_unit_resources_allocated_service (allocated_service_id),
     INDEX idx_unit_resources_location (location),
     INDEX idx_unit_resources_created_at (created_at)
 );
@@ -66,9 +73,14 @@ CREATE TABLE composite_resources (
     last_used_at TIMESTAMP NULL,
     location VARCHAR(200),
     total_capacity INT DEFAULT NULL,
-    min_required_components INT DEFAULT 1,
+    min_required_components INT DEFAULT NULL,
+    component_count INT NOT NULL DEFAULT 0,
+    ready_components INT NOT NULL DEFAULT 0,
+    allocated_service_id BIGINT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
 
     INDEX idx_composite_resources_state (state),
+    INDEX idx_composite_resources_allocated_service (allocated_service_id),
     INDEX idx_composite_resources_location (location),
     INDEX idx_composite_resources_created_at (created_at)
 );
@@ -87,10 +99,25 @@ CREATE TABLE transitions (
     completed_at TIMESTAMP NULL,
     error_message TEXT,
     metadata_json JSON,
+    claimed_by VARCHAR(100) NULL,
 
     INDEX idx_transitions_type (type),
     INDEX idx_transitions_status (status),
-    INDEX idx_transitions_created_at (created_at)
+    INDEX idx_transitions_created_at (created_at),
+    INDEX idx_transitions_claim (type, status, id)
+);
+
+-- Entités impliquées dans chaque transition (SERVICE, UNITAIRE, COMPOSITE)
+-- La clé primaire sert l'historique d'une entité par parcours d'index, des transitions les plus récentes
+-- aux plus anciennes ; pas de clé étrangère vers les entités, l'historique survit à leur suppression.
+CREATE TABLE transition_participants (
+    transition_id BIGINT NOT NULL,
+    entity_kind VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+
+    PRIMARY KEY (entity_kind, entity_id, transition_id),
+    CONSTRAINT fk_tp_transition FOREIGN KEY (transition_id) REFERENCES transitions(id) ON DELETE CASCADE,
+    INDEX idx_transition_participants_transition (transition_id)
 );
 
 -- ================================
@@ -125,6 +152,21 @@ CREATE TABLE service_composite_resources (
     INDEX idx_service_composite_resources_composite_resource (composite_resource_id)
 );
 
+-- Charge placée par un service sur une ressource unitaire partagée (allocation fractionnaire)
+CREATE TABLE unit_resource_loads (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    service_id BIGINT NOT NULL,
+    unit_resource_id BIGINT NOT NULL,
+    demand INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_url_service FOREIGN KEY (service_id) REFERENCES services(id) ON DELETE CASCADE,
+    CONSTRAINT fk_url_unit FOREIGN KEY (unit_resource_id) REFERENCES unit_resources(id) ON DELETE CASCADE,
+    CONSTRAINT unique_unit_resource_load UNIQUE (service_id, unit_resource_id),
+    INDEX idx_unit_resource_loads_service (service_id),
+    INDEX idx_unit_resource_loads_unit_resource (unit_resource_id)
+);
+
 CREATE TABLE composite_unit_resources (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
     composite_resource_id BIGINT NOT NULL,
@@ -138,3 +180,37 @@ CREATE TABLE composite_unit_resources (
     INDEX idx_composite_unit_resources_composite (composite_resource_id),
     INDEX idx_composite_unit_resources_unit (unit_resource_id)
 );
+
+-- ================================
+-- COMPTEURS DE COMPOSANTS DES RESSOURCES COMPOSITES
+-- ================================
+-- component_count / ready_components (composants LIBRE) sont tenus à jour à chaque changement d'état
+-- d'une ressource unitaire ou de la composition : la disponibilité d'une composite se lit sans relire ses composants.
+-- (Les suppressions en cascade ne déclenchant pas de trigger, la suppression d'une unité est traitée avant.)
+
+CREATE TRIGGER trg_unit_resources_ready_components AFTER UPDATE ON unit_resources FOR EACH ROW
+    UPDATE composite_resources cr
+    INNER JOIN composite_unit_resources cur ON cur.composite_resource_id = cr.id
+    SET cr.ready_components = cr.ready_components + (NEW.state = 'LIBRE') - (OLD.state = 'LIBRE')
+    WHERE cur.unit_resource_id = NEW.id AND (NEW.state = 'LIBRE') <> (OLD.state = 'LIBRE');
+
+CREATE TRIGGER trg_unit_resources_delete_components BEFORE DELETE ON unit_resources FOR EACH ROW
+    UPDATE composite_resources cr
+    INNER JOIN composite_unit_resources cur ON cur.composite_resource_id = cr.id
+    SET cr.component_count = cr.component_count - 1,
+        cr.ready_components = cr.ready_components - (OLD.state = 'LIBRE')
+    WHERE cur.unit_resource_id = OLD.id;
+
+CREATE TRIGGER trg_composite_unit_resources_insert AFTER INSERT ON composite_unit_resources FOR EACH ROW
+    UPDATE composite_resources
+    SET component_count = component_count + 1,
+        ready_components = ready_components +
+            (SELECT COUNT(*) FROM unit_resources WHERE id = NEW.unit_resource_id AND state = 'LIBRE')
+    WHERE id = NEW.composite_resource_id;
+
+CREATE TRIGGER trg_composite_unit_resources_delete AFTER DELETE ON composite_unit_resources FOR EACH ROW
+    UPDATE composite_resources
+    SET component_count = component_count - 1,
+        ready_components = ready_components -
+            (SELECT COUNT(*) FROM unit_resources WHERE id = OLD.unit_resource_id AND state = 'LIBRE')
+    WHERE id = OLD.composite_resource_id;
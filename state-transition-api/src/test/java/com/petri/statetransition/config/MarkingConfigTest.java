@@ -0,0 +1,86 @@
+package com.petri.statetransition.config;
+
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.exception.ConcurrencyException;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterConvertCallback;
+import org.springframework.data.r2dbc.mapping.event.BeforeSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MarkingConfigTest {
+
+    private static final SqlIdentifier TABLE = SqlIdentifier.unquoted("unit_resources");
+
+    private final MarkingConfig config = new MarkingConfig();
+
+    private ResourceMarking marking;
+    private AfterConvertCallback<UnitResource> snapshot;
+    private BeforeSaveCallback<UnitResource> guard;
+
+    @BeforeEach
+    void setUp() {
+        marking = new ResourceMarking();
+        marking.markLoaded();
+        snapshot = config.unitResourceSnapshotCallback(marking, AllocationMode.EN_MEMOIRE);
+        guard = config.unitResourceMarkingGuard(marking, AllocationMode.EN_MEMOIRE);
+    }
+
+    @Test
+    void save_ShouldFailWithoutWriting_WhenTheMarkingMovedSinceTheRead() {
+        // Given - deux lectures de la même ressource libre
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        UnitResource first = read(1L, UnitResourceState.LIBRE);
+        UnitResource second = read(1L, UnitResourceState.LIBRE);
+
+        // When - chacune tente de l'affecter à un service différent
+        first.transitionTo(UnitResourceState.AFFECTE);
+        first.setAllocatedServiceId(10L);
+        second.transitionTo(UnitResourceState.AFFECTE);
+        second.setAllocatedServiceId(20L);
+
+        // Then - seule la première passe, le marquage garde son propriétaire
+        StepVerifier.create(Mono.from(guard.onBeforeSave(first, new OutboundRow(), TABLE)))
+                .expectNext(first)
+                .verifyComplete();
+        StepVerifier.create(Mono.from(guard.onBeforeSave(second, new OutboundRow(), TABLE)))
+                .expectError(ConcurrencyException.class)
+                .verify();
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(1L));
+        assertEquals(10L, marking.units().owner(1L));
+    }
+
+    @Test
+    void read_ShouldTakeStateAndOwnerFromTheMarking_WhenTheRowIsBehind() {
+        // Given - libérée dans le marquage, pas encore écrite en base
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+
+        // When
+        UnitResource resource = new UnitResource("r1", null);
+        resource.setId(1L);
+        resource.setState(UnitResourceState.AFFECTE);
+        resource.setAllocatedServiceId(10L);
+        Mono.from(snapshot.onAfterConvert(resource, TABLE)).block();
+
+        // Then
+        assertEquals(UnitResourceState.LIBRE, resource.getState());
+        assertNull(resource.getAllocatedServiceId());
+        assertEquals(UnitResourceState.LIBRE, resource.getLoadedState());
+    }
+
+    private UnitResource read(Long id, UnitResourceState state) {
+        UnitResource resource = new UnitResource("r" + id, null);
+        resource.setId(id);
+        resource.setState(state);
+        return Mono.from(snapshot.onAfterConvert(resource, TABLE)).block();
+    }
+}
@@ -1,8 +1,12 @@
 package com.petri.statetransition.controller;
 
+import com.petri.statetransition.dto.AllocationPlanDTO;
+import com.petri.statetransition.dto.BatchStartResultDTO;
 import com.petri.statetransition.dto.CreateServiceDTO;
 import com.petri.statetransition.dto.ServiceDTO;
 import com.petri.statetransition.dto.ApiResponse;
+import com.petri.statetransition.dto.ServicePlanDTO;
+import com.petri.statetransition.dto.StartBatchDTO;
 import com.petri.statetransition.model.enums.ServiceState;
 import com.petri.statetransition.model.enums.ServiceType;
 import com.petri.statetransition.model.enums.Priority;
@@ -10,6 +14,7 @@ import com.petri.statetransition.service.ServiceManager;
 import com.petri.statetransition.exception.ResourceNotFoundException;
 import com.petri.statetransition.exception.InvalidStateTransitionException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petri.statetransition.service.TransitionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +32,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -42,6 +49,9 @@ class ServiceControllerTest {
     @MockBean
     private ServiceManager serviceService;
 
+    @MockBean
+    private TransitionService transitionService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -64,7 +74,8 @@ class ServiceControllerTest {
                 List.of(1L, 2L),
                 List.of(1L),
                 30,
-                false
+                false,
+                null
         );
 
         createServiceDTO = new CreateServiceDTO(
@@ -75,7 +86,8 @@ class ServiceControllerTest {
                 List.of(1L, 2L),
                 List.of(1L),
                 30,
-                false
+                false,
+                null
         );
     }
 
@@ -207,7 +219,8 @@ class ServiceControllerTest {
                 testServiceDTO.requiredUnitResourceIds(),
                 testServiceDTO.requiredCompositeResourceIds(),
                 testServiceDTO.maxExecutionTimeMinutes(),
-                testServiceDTO.autoRetry()
+                testServiceDTO.autoRetry(),
+                testServiceDTO.demand()
         );
 
         when(serviceService.startService(1L)).thenReturn(Mono.just(startedService));
@@ -222,6 +235,56 @@ class ServiceControllerTest {
                 .jsonPath("$.data.state").isEqualTo("EN_COURS");
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void startServices_ShouldReturnBatchOutcome() throws Exception {
+        // Given
+        when(serviceService.startServices(List.of(1L, 2L, 3L)))
+                .thenReturn(Mono.just(new BatchStartResultDTO(
+                        List.of(2L, 1L), List.of(3L), List.of(), 3L)));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/api/v1/services/start-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(objectMapper.writeValueAsString(
+                        new StartBatchDTO(List.of(1L, 2L, 3L))))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(true)
+                .jsonPath("$.data.startedServiceIds[0]").isEqualTo(2)
+                .jsonPath("$.data.blockedServiceIds[0]").isEqualTo(3);
+    }
+
+    @Test
+    @WithMockUser(roles = "VIEWER")
+    void planServices_ShouldReturnPlanWithoutStartingAnything() throws Exception {
+        // Given
+        when(serviceService.planServices(List.of(1L, 2L)))
+                .thenReturn(Mono.just(new AllocationPlanDTO(
+                        List.of(new ServicePlanDTO(1L, Priority.HAUTE, true,
+                                        List.of(10L), List.of(), null, null, null),
+                                new ServicePlanDTO(2L, Priority.NORMALE, false,
+                                        List.of(), List.of(), 10L, null, 1L)),
+                        List.of(1L), List.of(2L), List.of(), 1)));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/api/v1/services/plan")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(objectMapper.writeValueAsString(
+                        new StartBatchDTO(List.of(1L, 2L))))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.services[1].blockingUnitResourceId").isEqualTo(10)
+                .jsonPath("$.data.services[1].conflictingServiceId").isEqualTo(1)
+                .jsonPath("$.data.conflicts").isEqualTo(1);
+
+        verify(serviceService, never()).startServices(any());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void startService_ShouldReturnBadRequest_WhenInvalidStateTransition() {
@@ -1,6 +1,12 @@
 package com.petri.statetransition.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petri.statetransition.dto.TransitionDTO;
+import com.petri.statetransition.dto.TransitionPageDTO;
+import com.petri.statetransition.model.enums.EntityKind;
+import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.model.enums.TransitionType;
+import com.petri.statetransition.service.TransitionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +20,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -31,6 +38,9 @@ class UnitResourceControllerTest {
     @MockBean
     private com.petri.statetransition.service.UnitResourceService unitResourceService;
 
+    @MockBean
+    private TransitionService transitionService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -137,4 +147,26 @@ class UnitResourceControllerTest {
                 .jsonPath("$.success").isEqualTo(true)
                 .jsonPath("$.data.state").isEqualTo("AFFECTE");
     }
+
+    @Test
+    @WithMockUser(roles = "VIEWER")
+    void getUnitResourceTransitions_ShouldReturnPage_WithNextCursor() {
+        // Given
+        TransitionDTO transition = new TransitionDTO(
+                42L, TransitionType.NORMALE,
+                TransitionStatus.TERMINEE, "NORMALE_1", "Ressource allouée",
+                LocalDateTime.now(), null, null, List.of(5L), List.of(1L), null, null, null);
+        when(transitionService.findByParticipant(EntityKind.UNITAIRE, 1L, 100L, 1))
+                .thenReturn(Mono.just(new TransitionPageDTO(List.of(transition), 42L)));
+
+        // When & Then
+        webTestClient.get()
+                .uri("/api/v1/unit-resources/1/transitions?before=100&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.transitions[0].id").isEqualTo(42)
+                .jsonPath("$.data.transitions[0].unitResourceIds[0]").isEqualTo(1)
+                .jsonPath("$.data.nextCursor").isEqualTo(42);
+    }
 }
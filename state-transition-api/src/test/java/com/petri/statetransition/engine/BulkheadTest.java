@@ -0,0 +1,74 @@
+package com.petri.statetransition.engine;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void execute_ShouldQueueBeyondConcurrency_AndRejectBeyondQueue() {
+        // Given: une place active, une place d'attente
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        Sinks.Empty<Void> first = Sinks.empty();
+        Sinks.Empty<Void> second = Sinks.empty();
+
+        // When
+        Disposable running = bulkhead.execute(first.asMono()).subscribe();
+        Disposable queued = bulkhead.execute(second.asMono()).subscribe();
+
+        // Then
+        assertEquals(1, bulkhead.active());
+        assertEquals(1, bulkhead.waiting());
+        StepVerifier.create(bulkhead.execute(Mono.empty()))
+                .expectError(Bulkhead.FullException.class)
+                .verify();
+        assertEquals(1L, bulkhead.rejected());
+
+        // La fin de la première tâche passe sa place à la tâche en attente
+        first.tryEmitEmpty();
+        assertEquals(1, bulkhead.active());
+        assertEquals(0, bulkhead.waiting());
+        second.tryEmitEmpty();
+        assertEquals(0, bulkhead.active());
+        assertTrue(running.isDisposed());
+        assertTrue(queued.isDisposed());
+    }
+
+    @Test
+    void execute_ShouldGiveBackPlaces_OnCancellationWhileRunningOrWaiting() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead(1, 2);
+        Disposable running = bulkhead.execute(Mono.never()).subscribe();
+        Disposable waiting = bulkhead.execute(Mono.never()).subscribe();
+        assertEquals(1, bulkhead.waiting());
+
+        // When: annulation d'une tâche en attente puis de la tâche active
+        waiting.dispose();
+        assertEquals(0, bulkhead.waiting());
+        running.dispose();
+
+        // Then
+        assertEquals(0, bulkhead.active());
+        StepVerifier.create(bulkhead.execute(Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(0, bulkhead.active());
+    }
+
+    @Test
+    void execute_ShouldReleasePlace_WhenTaskFails() {
+        // Given
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+
+        // When / Then
+        StepVerifier.create(bulkhead.execute(Mono.error(new IllegalStateException("échec"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(0, bulkhead.active());
+    }
+}
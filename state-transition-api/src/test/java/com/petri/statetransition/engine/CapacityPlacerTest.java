@@ -0,0 +1,132 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.UnitResourceState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityPlacerTest {
+
+    private final List<CapacityPlacer.Bin> bins = List.of(
+            new CapacityPlacer.Bin(1L, 10, 2),  // 8 libres
+            new CapacityPlacer.Bin(2L, 10, 7),  // 3 libres
+            new CapacityPlacer.Bin(3L, 10, 5),  // 5 libres
+            new CapacityPlacer.Bin(4L, 4, 2));  // 2 libres
+
+    @Test
+    void firstFit_ShouldKeepIdentifierOrder_AmongBinsThatFit() {
+        assertEquals(List.of(1L, 2L, 3L), new CapacityPlacer(CapacityPlacer.Strategy.FIRST_FIT).order(bins, 3));
+    }
+
+    @Test
+    void bestFit_ShouldPreferTightestBin() {
+        assertEquals(List.of(2L, 3L, 1L), new CapacityPlacer(CapacityPlacer.Strategy.BEST_FIT).order(bins, 3));
+        assertEquals(List.of(), new CapacityPlacer(CapacityPlacer.Strategy.BEST_FIT).order(bins, 9));
+    }
+
+    @Test
+    void order_ShouldPutPreferredBinsFirst_ThenApplyStrategy() {
+        assertEquals(List.of(3L, 1L, 2L),
+                new CapacityPlacer(CapacityPlacer.Strategy.BEST_FIT).order(bins, 3, id -> id == 1L || id == 3L));
+    }
+
+    @Test
+    void placeInLocation_ShouldSkipAndDropUnitsThatNoLongerAcceptLoad() {
+        // Given: trois ressources partagées à Paris, une pleine et une tenue en exclusif
+        ResourceMarking marking = new ResourceMarking();
+        for (long id = 1; id <= 3; id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+            marking.trackShared(id, 4, 0, "Paris");
+        }
+        marking.trackShared(4L, 4, 0, "Lyon");
+        marking.tryAddLoad(1L, 4);
+        marking.tryClaim(42L, List.of(2L), List.of());
+
+        // When
+        Long placed = marking.placeInLocation("Paris", 3);
+
+        // Then
+        assertEquals(3L, placed);
+        assertEquals(1, marking.locations().queuedCount("Paris"), "Les ressources indisponibles sont retirées de la file");
+        assertNull(marking.placeInLocation("Paris", 3));
+        assertNull(marking.placeInLocation("Marseille", 1));
+
+        // When: libérations -> remise en file
+        marking.removeLoad(1L, 4);
+        marking.release(42L, List.of(2L), List.of());
+
+        // Then
+        assertEquals(1L, marking.placeInLocation("Paris", 4));
+        assertEquals(2L, marking.placeInLocation("Paris", 4));
+    }
+
+    @Test
+    void tryAddLoad_ShouldNeverExceedCapacity_WhenServicesRace() throws Exception {
+        // Given: capacité 10, 32 services de demande 3 en concurrence
+        ResourceMarking marking = new ResourceMarking();
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.loads().track(1L, 10, 0);
+        int contenders = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < contenders; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (marking.tryAddLoad(1L, 3)) {
+                    placed.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(3, placed.get());
+        assertEquals(9, marking.loads().load(1L));
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(1L));
+        assertEquals(Set.of(1L), marking.loads().drainDirty());
+    }
+
+    @Test
+    void removeLoad_ShouldReturnUnitToFreeState_OnlyWhenEmpty() {
+        // Given
+        ResourceMarking marking = new ResourceMarking();
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.loads().track(1L, 10, 0);
+        marking.tryAddLoad(1L, 4);
+        marking.tryAddLoad(1L, 2);
+
+        // When / Then
+        marking.removeLoad(1L, 4);
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(1L));
+        marking.removeLoad(1L, 2);
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertEquals(0, marking.loads().load(1L));
+    }
+
+    @Test
+    void tryAddLoad_ShouldRefuseUnitHeldExclusively() {
+        // Given
+        ResourceMarking marking = new ResourceMarking();
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.loads().track(1L, 10, 0);
+        marking.tryClaim(42L, List.of(1L), List.of());
+
+        // Then
+        assertFalse(marking.tryAddLoad(1L, 1));
+        assertEquals(List.of(), marking.shareableBins(List.of()));
+    }
+}
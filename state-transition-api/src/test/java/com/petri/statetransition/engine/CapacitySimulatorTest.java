@@ -0,0 +1,85 @@
+package com.petri.statetransition.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacitySimulatorTest {
+
+    private final CapacitySimulator simulator = new CapacitySimulator();
+
+    @Test
+    void run_ShouldMatchErlangC_ForExponentialServiceTimes() {
+        // Given: 10 arrivées/s, 1 s en moyenne -> 10 Erlangs sur 12 ressources exclusives
+        CapacitySimulator.Workload workload = new CapacitySimulator.Workload(10, exponential(1_000, 8192), 0.0);
+
+        // When
+        CapacitySimulator.Result result = simulator.run(workload,
+                new CapacitySimulator.Scenario("zone-a", 12, 1, 1, 200_000, 7));
+
+        // Then: probabilité d'attente d'Erlang C = 0,449
+        assertEquals(0.449, result.blockedRatio(), 0.03);
+        assertEquals(10.0 / 12, result.utilization(), 0.03);
+        assertEquals(200_000, result.arrivals());
+        assertEquals(200_000, result.waitTimes().count());
+        assertEquals(0, result.failed());
+        assertTrue(result.firings() >= 3 * 200_000L);
+    }
+
+    @Test
+    void run_ShouldShareCapacityAndReleaseFailedServicesEarly() {
+        // Given: ressources de capacité 4, demande 2 -> deux services par ressource
+        CapacitySimulator.Workload workload = new CapacitySimulator.Workload(1, new long[]{100}, 1.0);
+
+        // When
+        CapacitySimulator.Result result = simulator.run(workload,
+                new CapacitySimulator.Scenario("zone-a", 1, 4, 2, 1_000, 3));
+
+        // Then: charge faible, tous échouent avant la fin de leur durée
+        assertEquals(0, result.blocked());
+        assertEquals(1_000, result.failed());
+        assertTrue(result.utilization() < 0.05);
+        assertEquals(1, result.unitUtilization().length);
+    }
+
+    @Test
+    void size_ShouldReturnSmallestUnitCountUnderTarget() {
+        // Given
+        CapacitySimulator.Workload workload = new CapacitySimulator.Workload(10, exponential(1_000, 8192), 0.0);
+        CapacitySimulator.Scenario scenario = new CapacitySimulator.Scenario("zone-a", 1, 1, 1, 50_000, 11);
+
+        // When
+        CapacitySimulator.Sizing sizing = simulator.size(workload, scenario, 64, 0.01);
+
+        // Then
+        CapacitySimulator.Result recommended = sizing.recommended();
+        assertNotNull(recommended);
+        assertTrue(recommended.blockedRatio() <= 0.01);
+        assertTrue(recommended.units() > 10 && recommended.units() < 30, "ressources: " + recommended.units());
+        sizing.runs().stream()
+                .filter(run -> run.units() == recommended.units() - 1)
+                .forEach(run -> assertTrue(run.blockedRatio() > 0.01));
+    }
+
+    @Test
+    void size_ShouldReturnNoRecommendation_WhenMaximumIsTooSmall() {
+        CapacitySimulator.Workload workload = new CapacitySimulator.Workload(10, new long[]{1_000}, 0.0);
+
+        CapacitySimulator.Sizing sizing = simulator.size(workload,
+                new CapacitySimulator.Scenario("zone-a", 1, 1, 1, 5_000, 1), 4, 0.01);
+
+        assertNull(sizing.recommended());
+        assertEquals(3, sizing.runs().size());
+    }
+
+    /**
+     * Quantiles réguliers d'une loi exponentielle : moyenne exacte, sans bruit d'échantillonnage
+     */
+    private static long[] exponential(long mean, int count) {
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = Math.max(1, Math.round(-Math.log(1.0 - (i + 0.5) / count) * mean));
+        }
+        return samples;
+    }
+}
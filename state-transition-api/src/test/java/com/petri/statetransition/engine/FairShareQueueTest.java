@@ -0,0 +1,81 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.enums.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairShareQueueTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void poll_ShouldServeLanesInProportionToWeights() {
+        // Given: HAUTE pèse deux fois NORMALE
+        FairShareQueue queue = new FairShareQueue(Map.of(Priority.HAUTE, 2, Priority.NORMALE, 1), 100);
+        for (long id = 1; id <= 6; id++) {
+            queue.offer(id, Priority.HAUTE, NOW);
+            queue.offer(100 + id, Priority.NORMALE, NOW);
+        }
+
+        // When
+        List<Priority> served = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            served.add(queue.poll().priority());
+        }
+
+        // Then: NORMALE n'est pas affamée, HAUTE obtient deux tours sur trois
+        assertEquals(6, served.stream().filter(Priority.HAUTE::equals).count());
+        assertEquals(3, served.stream().filter(Priority.NORMALE::equals).count());
+        assertEquals(List.of(Priority.HAUTE, Priority.NORMALE, Priority.HAUTE), served.subList(0, 3));
+    }
+
+    @Test
+    void offer_ShouldNotLetIdleLaneBankCredit() {
+        // Given: HAUTE servie seule longtemps
+        FairShareQueue queue = new FairShareQueue(Map.of(Priority.HAUTE, 1, Priority.NORMALE, 1), 100);
+        for (long id = 1; id <= 10; id++) {
+            queue.offer(id, Priority.HAUTE, NOW);
+        }
+        for (int i = 0; i < 5; i++) {
+            queue.poll();
+        }
+
+        // When: NORMALE devient active
+        queue.offer(100L, Priority.NORMALE, NOW);
+        queue.offer(101L, Priority.NORMALE, NOW);
+
+        // Then: alternance avec HAUTE, pas de rafale NORMALE
+        List<Long> served = List.of(queue.poll().serviceId(), queue.poll().serviceId(), queue.poll().serviceId());
+        assertEquals(List.of(100L, 6L, 101L), served);
+    }
+
+    @Test
+    void offer_ShouldRejectDuplicatesAndFullLanes() {
+        // Given
+        FairShareQueue queue = new FairShareQueue(Map.of(), 2);
+
+        // When & Then
+        assertTrue(queue.offer(1L, Priority.BASSE, NOW));
+        assertFalse(queue.offer(1L, Priority.BASSE, NOW));
+        assertTrue(queue.offer(2L, Priority.BASSE, NOW));
+        assertFalse(queue.offer(3L, Priority.BASSE, NOW));
+        assertEquals(0, queue.remainingCapacity(Priority.BASSE));
+        assertEquals(2, queue.size());
+
+        assertEquals(1L, queue.poll().serviceId());
+        assertFalse(queue.contains(1L));
+        assertTrue(queue.offer(1L, Priority.BASSE, NOW));
+    }
+
+    @Test
+    void constructor_ShouldRejectNonPositiveWeight() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FairShareQueue(Map.of(Priority.CRITIQUE, 0), 10));
+    }
+}
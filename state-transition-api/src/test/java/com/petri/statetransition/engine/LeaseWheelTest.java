@@ -0,0 +1,83 @@
+package com.petri.statetransition.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaseWheelTest {
+
+    @Test
+    void advance_ShouldExpireLeaseOnlyOnceDeadlineIsReached() {
+        // Given: roue de 8 cases de 100 ms
+        LeaseWheel<Long> wheel = new LeaseWheel<>(8, 100, 0);
+        wheel.schedule(1L, 250);
+
+        // Then
+        assertEquals(List.of(), wheel.advance(200));
+        assertEquals(List.of(1L), wheel.advance(300));
+        assertEquals(0, wheel.size());
+        assertEquals(List.of(), wheel.advance(1_000));
+    }
+
+    @Test
+    void advance_ShouldKeepLeasesBeyondOneRevolution() {
+        // Given: échéance à 2,5 tours de roue
+        LeaseWheel<Long> wheel = new LeaseWheel<>(4, 100, 0);
+        wheel.schedule(1L, 1_000);
+
+        // Then
+        assertEquals(List.of(), wheel.advance(500));
+        assertEquals(List.of(), wheel.advance(900));
+        assertEquals(List.of(1L), wheel.advance(1_000));
+    }
+
+    @Test
+    void renew_ShouldMoveDeadline_AndCancelShouldDropLease() {
+        // Given
+        LeaseWheel<Long> wheel = new LeaseWheel<>(16, 100, 0);
+        wheel.schedule(1L, 300);
+        wheel.schedule(2L, 300);
+
+        // When
+        assertTrue(wheel.renew(1L, 900));
+        assertTrue(wheel.cancel(2L));
+        assertFalse(wheel.renew(3L, 900));
+
+        // Then
+        assertEquals(List.of(), wheel.advance(800));
+        assertEquals(900L, wheel.deadline(1L));
+        assertEquals(List.of(1L), wheel.advance(900));
+        assertNull(wheel.deadline(2L));
+    }
+
+    @Test
+    void schedule_ShouldExpireOnNextStep_WhenDeadlineAlreadyPassed() {
+        // Given
+        LeaseWheel<Long> wheel = new LeaseWheel<>(8, 100, 0);
+        wheel.advance(500);
+
+        // When
+        wheel.schedule(1L, 200);
+
+        // Then
+        assertEquals(List.of(1L), wheel.advance(600));
+    }
+
+    @Test
+    void advance_ShouldOnlyVisitDueBuckets_WithManyOutstandingLeases() {
+        // Given: 100 000 baux répartis sur 100 s, pas de 100 ms
+        LeaseWheel<Long> wheel = new LeaseWheel<>(1024, 100, 0);
+        for (long id = 0; id < 100_000; id++) {
+            wheel.schedule(id, 1_000 + id);
+        }
+
+        // When
+        List<Long> expired = wheel.advance(1_100);
+
+        // Then
+        assertEquals(101, expired.size());
+        assertEquals(99_899, wheel.size());
+    }
+}
@@ -0,0 +1,411 @@
+package com.petri.statetransition.engine;
+
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.CompositeUnitResource;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.CompositeUnitResourceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResourceMarkingTest {
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private CompositeUnitResourceRepository compositeUnitResourceRepository;
+
+    private ResourceMarking marking;
+
+    @BeforeEach
+    void setUp() {
+        marking = new ResourceMarking();
+    }
+
+    @Test
+    void tryClaim_ShouldTakeAllTokens_WhenEveryResourceIsFree() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(5_000L, UnitResourceState.LIBRE, null); // Second segment
+        marking.composites().put(7L, CompositeResourceState.VIDE, null);
+
+        // When
+        boolean claimed = marking.tryClaim(42L, List.of(1L, 5_000L), List.of(7L));
+
+        // Then
+        assertTrue(claimed);
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(5_000L));
+        assertEquals(42L, marking.units().owner(1L));
+        assertEquals(CompositeResourceState.PRET, marking.composites().state(7L));
+        assertEquals(Set.of(1L, 5_000L), marking.units().drainDirty());
+        assertEquals(0, marking.units().dirtyCount());
+    }
+
+    @Test
+    void tryClaim_ShouldRollBack_WhenOneTokenIsMissing() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.BLOQUE, null);
+        marking.composites().put(7L, CompositeResourceState.VIDE, null);
+
+        // When
+        boolean claimed = marking.tryClaim(42L, List.of(1L, 2L), List.of(7L));
+
+        // Then
+        assertFalse(claimed);
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertNull(marking.units().owner(1L));
+        assertEquals(CompositeResourceState.VIDE, marking.composites().state(7L));
+        assertEquals(UnitResourceState.BLOQUE, marking.units().state(2L));
+    }
+
+    @Test
+    void tryClaimFrom_ShouldRestoreVictimTokens_WhenOneResourceIsHeldElsewhere() {
+        // Given: 1 tenue par le service évincé 7, 2 libre, 3 tenue par le service 8 non évincé
+        marking.units().put(1L, UnitResourceState.OCCUPE, 7L);
+        marking.units().put(2L, UnitResourceState.LIBRE, null);
+        marking.units().put(3L, UnitResourceState.AFFECTE, 8L);
+        marking.composites().put(1L, CompositeResourceState.PRET, 7L);
+
+        // When / Then
+        assertFalse(marking.tryClaimFrom(42L, List.of(1L, 2L, 3L), List.of(1L), Set.of(7L)));
+        assertEquals(UnitResourceState.OCCUPE, marking.units().state(1L));
+        assertEquals(7L, marking.units().owner(1L));
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(2L));
+        assertEquals(CompositeResourceState.PRET, marking.composites().state(1L));
+        assertEquals(7L, marking.composites().owner(1L));
+
+        // When: 8 évincé aussi
+        assertTrue(marking.tryClaimFrom(42L, List.of(1L, 2L, 3L), List.of(1L), Set.of(7L, 8L)));
+        assertEquals(42L, marking.units().owner(3L));
+        assertEquals(CompositeResourceState.PRET, marking.composites().state(1L));
+        assertEquals(42L, marking.composites().owner(1L));
+    }
+
+    @Test
+    void tryClaim_ShouldRefuseUnknownResource() {
+        assertFalse(marking.tryClaim(42L, List.of(123L), List.of()));
+        assertNull(marking.units().state(123L));
+    }
+
+    @Test
+    void release_ShouldOnlyFreeTokensOwnedByService() {
+        // Given
+        marking.units().put(1L, UnitResourceState.OCCUPE, 42L);
+        marking.units().put(2L, UnitResourceState.AFFECTE, 99L);
+        marking.composites().put(7L, CompositeResourceState.PRET, 42L);
+
+        // When
+        ResourceMarking.Released released = marking.release(42L, List.of(1L, 2L), List.of(7L));
+
+        // Then
+        assertEquals(2, released.size());
+        assertEquals(List.of(1L), released.unitResourceIds());
+        assertEquals(List.of(7L), released.compositeResourceIds());
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(2L));
+        assertEquals(CompositeResourceState.VIDE, marking.composites().state(7L));
+        assertNull(marking.composites().owner(7L));
+    }
+
+    @Test
+    void tryClaim_ShouldGrantEachTokenOnce_WhenServicesRaceForSameResources() throws Exception {
+        // Given: 16 services se disputent les mêmes 4 ressources
+        for (long id = 1; id <= 4; id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+        }
+        int contenders = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(contenders);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        // When
+        for (long serviceId = 1; serviceId <= contenders; serviceId++) {
+            long owner = serviceId;
+            executor.submit(() -> {
+                start.await();
+                if (marking.tryClaim(owner, List.of(1L, 2L, 3L, 4L), List.of())) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then: un seul gagnant, et toutes les ressources lui appartiennent
+        assertEquals(1, winners.get());
+        Long owner = marking.units().owner(1L);
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(UnitResourceState.AFFECTE, marking.units().state(id));
+            assertEquals(owner, marking.units().owner(id));
+        }
+    }
+
+    @Test
+    void tryClaim_ShouldLeaveEveryResourceFree_AfterRepeatedClaimAndReleaseCycles() {
+        // Given
+        for (long id = 1; id <= 8; id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+        }
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+
+        // When: cycles allocation / libération d'un service à 8 ressources
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(marking.tryClaim(1L, ids, List.of()));
+            marking.release(1L, ids, List.of());
+        }
+
+        // Then
+        assertEquals(8, marking.units().count(UnitResourceState.LIBRE));
+        for (Long id : ids) {
+            assertNull(marking.units().owner(id));
+        }
+    }
+
+    @Test
+    void stateBitsets_ShouldFollowEveryTransition() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.LIBRE, null);
+        marking.units().put(4_100L, UnitResourceState.LIBRE, null);
+        MarkingTable.Mask mask = MarkingTable.Mask.of(List.of(1L, 2L, 4_100L));
+
+        // Then
+        assertTrue(marking.units().containsAll(UnitResourceState.LIBRE, mask));
+        assertEquals(3, marking.units().count(UnitResourceState.LIBRE));
+
+        // When
+        marking.tryClaim(42L, List.of(2L), List.of());
+        marking.units().put(4_100L, UnitResourceState.BLOQUE, null);
+        marking.units().remove(1L);
+
+        // Then
+        assertFalse(marking.units().containsAll(UnitResourceState.LIBRE, mask));
+        assertFalse(marking.units().containsAny(UnitResourceState.LIBRE, mask));
+        assertTrue(marking.units().containsAny(UnitResourceState.AFFECTE, mask));
+        assertEquals(List.of(2L), marking.units().idsIn(UnitResourceState.AFFECTE));
+        assertEquals(List.of(4_100L), marking.units().idsIn(UnitResourceState.BLOQUE));
+        assertEquals(0, marking.units().count(UnitResourceState.LIBRE));
+        assertTrue(marking.units().containsAll(UnitResourceState.LIBRE, MarkingTable.Mask.of(List.of())));
+    }
+
+    @Test
+    void containsAll_ShouldAgreeWithPerRowReactiveCheck_ForFiftyResources() {
+        // Given: 50 ressources requises réparties sur 5 000 identifiants
+        List<Long> required = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+            if (id % 100 == 0) {
+                required.add(id);
+            }
+        }
+        MarkingTable.Mask mask = MarkingTable.Mask.of(required);
+        assertEquals(50, mask.size());
+
+        // When / Then: même réponse que la vérification ressource par ressource, toutes libres puis une prise
+        assertTrue(marking.units().containsAll(UnitResourceState.LIBRE, mask));
+        assertEquals(perRowCheck(required), marking.units().containsAll(UnitResourceState.LIBRE, mask));
+
+        marking.tryClaim(42L, List.of(2_500L), List.of());
+        assertFalse(marking.units().containsAll(UnitResourceState.LIBRE, mask));
+        assertEquals(perRowCheck(required), marking.units().containsAll(UnitResourceState.LIBRE, mask));
+
+        // Une ressource hors masque ne change pas la réponse
+        marking.release(42L, List.of(2_500L), List.of());
+        marking.tryClaim(42L, List.of(2_501L), List.of());
+        assertTrue(marking.units().containsAll(UnitResourceState.LIBRE, mask));
+        assertEquals(perRowCheck(required), marking.units().containsAll(UnitResourceState.LIBRE, mask));
+    }
+
+    private boolean perRowCheck(List<Long> ids) {
+        return Boolean.TRUE.equals(Flux.fromIterable(ids)
+                .map(id -> marking.units().state(id))
+                .all(UnitResourceState::isAvailableForAllocation)
+                .block());
+    }
+
+    @Test
+    void components_ShouldTrackFreeComponentsOnEveryUnitTransition() {
+        // Given: composite 1 à trois composants dont deux suffisent
+        for (long id = 1; id <= 3; id++) {
+            marking.units().put(id, UnitResourceState.LIBRE, null);
+            marking.trackComponent(1L, id);
+        }
+        marking.trackComponent(1L, 3L); // Déjà enregistré : sans effet
+        marking.composites().put(1L, CompositeResourceState.VIDE, null);
+        marking.components().setMinimum(1L, 2);
+
+        // When / Then
+        assertEquals(3, marking.components().ready(1L));
+        assertEquals(2, marking.components().required(1L));
+
+        assertTrue(marking.tryClaim(42L, List.of(1L), List.of()));
+        assertEquals(2, marking.components().ready(1L));
+        assertEquals(Boolean.TRUE, marking.isCompositeAvailable(1L), "Composite partielle encore allouable");
+
+        marking.units().put(2L, UnitResourceState.BLOQUE, null);
+        assertEquals(1, marking.components().ready(1L));
+        assertEquals(Boolean.FALSE, marking.isCompositeAvailable(1L));
+
+        marking.release(42L, List.of(1L), List.of());
+        assertEquals(2, marking.components().ready(1L));
+        assertEquals(Boolean.TRUE, marking.isCompositeAvailable(1L));
+        marking.composites().put(9L, CompositeResourceState.VIDE, null);
+        assertNull(marking.isCompositeAvailable(9L), "Composition inconnue du marquage");
+    }
+
+    @Test
+    void load_ShouldRestoreMarkingFromDatabase() {
+        // Given
+        UnitResource unit = new UnitResource("CPU-01", "Processeur");
+        unit.setId(1L);
+        unit.setState(UnitResourceState.AFFECTE);
+        unit.setAllocatedServiceId(42L);
+        CompositeResource composite = new CompositeResource("Server-01", "Serveur");
+        composite.setId(2L);
+        composite.setState(CompositeResourceState.VIDE);
+
+        when(unitResourceRepository.findAll()).thenReturn(Flux.just(unit));
+        when(compositeResourceRepository.findAll()).thenReturn(Flux.just(composite));
+        when(compositeUnitResourceRepository.findAll()).thenReturn(Flux.just(new CompositeUnitResource(2L, 1L, true)));
+
+        // When
+        StepVerifier.create(writeBehind().load())
+                .expectNext(2L)
+                .verifyComplete();
+
+        // Then
+        assertTrue(marking.isLoaded());
+        assertEquals(42L, marking.units().owner(1L));
+        assertEquals(CompositeResourceState.VIDE, marking.composites().state(2L));
+        assertEquals(0, marking.units().dirtyCount());
+        assertEquals(0, marking.components().ready(2L));
+        assertEquals(Boolean.FALSE, marking.isCompositeAvailable(2L), "Son unique composant est affecté");
+    }
+
+    @Test
+    void load_ShouldRetryFailedAttempt_WithoutCountingComponentsTwice() {
+        // Given: la première lecture de la composition échoue après un premier composant
+        UnitResource first = new UnitResource("CPU-01", "Processeur");
+        first.setId(1L);
+        first.setState(UnitResourceState.LIBRE);
+        UnitResource second = new UnitResource("CPU-02", "Processeur");
+        second.setId(3L);
+        second.setState(UnitResourceState.LIBRE);
+        CompositeResource composite = new CompositeResource("Server-01", "Serveur");
+        composite.setId(2L);
+        composite.setState(CompositeResourceState.VIDE);
+
+        when(unitResourceRepository.findAll()).thenReturn(Flux.just(first, second));
+        when(compositeResourceRepository.findAll()).thenReturn(Flux.just(composite));
+        when(compositeUnitResourceRepository.findAll())
+                .thenReturn(Flux.concat(Flux.just(new CompositeUnitResource(2L, 1L, true)),
+                        Flux.error(new RuntimeException("Connexion perdue"))))
+                .thenReturn(Flux.just(new CompositeUnitResource(2L, 1L, true), new CompositeUnitResource(2L, 3L, true)));
+
+        // When
+        StepVerifier.create(writeBehind().load())
+                .expectNext(3L)
+                .verifyComplete();
+
+        // Then
+        assertTrue(marking.isLoaded());
+        assertEquals(2, marking.components().size(2L));
+        assertEquals(2, marking.components().ready(2L));
+        verify(compositeUnitResourceRepository, times(2)).findAll();
+    }
+
+    @Test
+    void load_ShouldFailMarking_OnlyOnceRetriesAreExhausted() {
+        // Given
+        when(unitResourceRepository.findAll()).thenReturn(Flux.error(new RuntimeException("Base indisponible")));
+        when(compositeResourceRepository.findAll()).thenReturn(Flux.empty());
+        when(compositeUnitResourceRepository.findAll()).thenReturn(Flux.empty());
+
+        // When
+        StepVerifier.create(writeBehind().load())
+                .expectErrorMessage("Base indisponible")
+                .verify();
+
+        // Then
+        verify(unitResourceRepository, times(3)).findAll();
+        assertFalse(marking.isLoaded());
+        StepVerifier.create(marking.whenLoaded())
+                .expectError(RuntimeException.class)
+                .verify();
+    }
+
+    @Test
+    void flush_ShouldWriteCurrentStateOfDirtyResources() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.composites().put(7L, CompositeResourceState.VIDE, null);
+        marking.tryClaim(42L, List.of(1L), List.of(7L));
+
+        when(unitResourceRepository.writeMarking(1L, "AFFECTE", 42L)).thenReturn(Mono.just(1));
+        when(compositeResourceRepository.writeMarking(7L, "PRET", 42L)).thenReturn(Mono.just(1));
+
+        // When
+        StepVerifier.create(writeBehind().flush())
+                .expectNext(2L)
+                .verifyComplete();
+
+        // Then
+        assertEquals(0, marking.units().dirtyCount());
+        assertEquals(0, marking.composites().dirtyCount());
+    }
+
+    @Test
+    void flush_ShouldKeepResourcesDirty_WhenWriteFails() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.tryClaim(42L, List.of(1L), List.of());
+
+        when(unitResourceRepository.writeMarking(any(), any(), any()))
+                .thenReturn(Mono.error(new RuntimeException("Connexion perdue")));
+
+        // When
+        StepVerifier.create(writeBehind().flush())
+                .expectError(RuntimeException.class)
+                .verify();
+
+        // Then
+        assertEquals(1, marking.units().dirtyCount());
+    }
+
+    private MarkingWriteBehind writeBehind() {
+        return new MarkingWriteBehind(marking, unitResourceRepository, compositeResourceRepository,
+                compositeUnitResourceRepository, AllocationMode.EN_MEMOIRE, 2, Duration.ofMillis(1));
+    }
+}
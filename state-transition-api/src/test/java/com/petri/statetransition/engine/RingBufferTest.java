@@ -0,0 +1,85 @@
+package com.petri.statetransition.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void offer_ShouldRefuseWhenFull_AndDrainInArrivalOrderAcrossWrapAround() {
+        // Given: capacité arrondie à 4
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        // When / Then
+        assertFalse(buffer.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+
+        // Les cases libérées sont réutilisées au tour suivant
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertTrue(buffer.offer(6));
+        assertFalse(buffer.offer(7));
+        drained.clear();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(3, 4, 5, 6), drained);
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, new RingBuffer<>(1).capacity());
+    }
+
+    @Test
+    void offer_ShouldDeliverEveryElementOnce_WithConcurrentProducers() throws InterruptedException {
+        // Given
+        int producers = 4;
+        int perProducer = 20_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When: chaque producteur réessaie tant que la file est pleine
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(producer * perProducer + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        List<Long> received = new ArrayList<>(producers * perProducer);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+            buffer.drainTo(received, 64);
+        }
+        executor.shutdown();
+
+        // Then: tout est reçu une fois, et l'ordre de chaque producteur est conservé
+        assertEquals(producers * perProducer, received.size());
+        long[] last = new long[producers];
+        Arrays.fill(last, -1);
+        for (long value : received) {
+            int producer = (int) (value / perProducer);
+            assertTrue(value > last[producer]);
+            last[producer] = value;
+        }
+        assertEquals(producers * perProducer, received.stream().distinct().count());
+    }
+}
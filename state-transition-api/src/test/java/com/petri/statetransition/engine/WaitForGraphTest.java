@@ -0,0 +1,43 @@
+package com.petri.statetransition.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitForGraphTest {
+
+    private final WaitForGraph graph = new WaitForGraph();
+
+    @Test
+    void waitFor_ShouldReportCycleClosedByNewEdges_StartingFromBlockedService() {
+        // Given: 1 attend 2, 2 attend 3
+        assertEquals(List.of(), graph.waitFor(1L, List.of(2L)));
+        assertEquals(List.of(), graph.waitFor(2L, List.of(3L)));
+
+        // When: 3 se bloque sur une ressource de 1
+        List<Long> cycle = graph.waitFor(3L, List.of(1L, 4L));
+
+        // Then
+        assertEquals(List.of(3L, 1L, 2L), cycle);
+        assertEquals(3, graph.waitingCount());
+        assertEquals(4, graph.edgeCount());
+    }
+
+    @Test
+    void removeAndReleased_ShouldBreakCycles() {
+        // Given: 1 -> 2 -> 3
+        graph.waitFor(1L, List.of(2L));
+        graph.waitFor(2L, List.of(3L, 2L));
+
+        // When: 2 ne détient plus rien, 1 n'attend plus
+        graph.released(2L);
+        graph.remove(1L);
+
+        // Then
+        assertEquals(List.of(), graph.waitFor(3L, List.of(1L)));
+        assertEquals(2, graph.edgeCount()); // 2 -> 3, 3 -> 1
+        assertEquals(List.of(1L, 3L), graph.waitFor(1L, List.of(3L)));
+    }
+}
@@ -63,7 +63,7 @@ class PerformanceIntegrationTest {
         // Test pour vérifier que les opérations sont bien réactives
         CreateServiceDTO serviceDTO = new CreateServiceDTO(
                 "Reactive-Test", "Test réactivité", ServiceType.NON_BLOQUANT,
-                Priority.NORMALE, List.of(), List.of(), 30, false
+                Priority.NORMALE, List.of(), List.of(), 30, false, null
         );
 
         // Créer plusieurs services en parallèle
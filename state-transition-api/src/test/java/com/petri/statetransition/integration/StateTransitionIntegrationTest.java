@@ -105,7 +105,8 @@ class StateTransitionIntegrationTest {
 				List.of(1L, 2L), // IDs des ressources créées
 				List.of(),       // Pas de ressources composites
 				60,              // 60 minutes max
-				false
+				false,
+				null
 		);
 
 		webTestClient.post()
@@ -174,7 +175,7 @@ class StateTransitionIntegrationTest {
 		// Mais ne peut pas créer
 		CreateServiceDTO serviceDTO = new CreateServiceDTO(
 				"Test", "Test", ServiceType.NON_BLOQUANT, Priority.NORMALE,
-				List.of(), List.of(), 30, false
+				List.of(), List.of(), 30, false, null
 		);
 
 		webTestClient.post()
@@ -251,7 +252,8 @@ class StateTransitionIntegrationTest {
 				List.of(),
 				List.of(),
 				30,
-				false
+				false,
+				null
 		);
 
 		webTestClient.post()
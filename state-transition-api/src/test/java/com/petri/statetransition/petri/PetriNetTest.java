@@ -0,0 +1,100 @@
+package com.petri.statetransition.petri;
+
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PetriNetTest {
+
+    @Test
+    void serviceNet_ShouldAllowExactlyTheLifecycleTransitions() {
+        Map<ServiceState, Set<ServiceState>> expected = Map.of(
+                ServiceState.PLANIFIE, EnumSet.of(ServiceState.PUBLIE, ServiceState.ANNULE),
+                ServiceState.PUBLIE, EnumSet.of(ServiceState.PRET, ServiceState.ANNULE),
+                ServiceState.PRET, EnumSet.of(ServiceState.EN_COURS, ServiceState.BLOQUE, ServiceState.RETARDE,
+                        ServiceState.ANNULE),
+                ServiceState.BLOQUE, EnumSet.of(ServiceState.PRET, ServiceState.ANNULE),
+                ServiceState.RETARDE, EnumSet.of(ServiceState.PRET, ServiceState.ANNULE),
+                ServiceState.EN_PAUSE, EnumSet.of(ServiceState.EN_COURS, ServiceState.ANNULE),
+                ServiceState.EN_COURS, EnumSet.of(ServiceState.TERMINE, ServiceState.ARRETE, ServiceState.EN_PAUSE,
+                        ServiceState.BLOQUE));
+
+        for (ServiceState from : ServiceState.values()) {
+            for (ServiceState to : ServiceState.values()) {
+                boolean allowed = expected.getOrDefault(from, Set.of()).contains(to);
+                assertEquals(allowed, StateNets.SERVICE.canFire(from, to), from + " -> " + to);
+            }
+        }
+        assertEquals(18, StateNets.SERVICE.transitionCount());
+    }
+
+    @Test
+    void resourceNets_ShouldMatchLifecycles() {
+        assertEquals(EnumSet.of(UnitResourceState.LIBRE, UnitResourceState.BLOQUE, UnitResourceState.ZOMBIE),
+                StateNets.UNIT_RESOURCE.successors(UnitResourceState.OCCUPE));
+        assertEquals(EnumSet.of(UnitResourceState.LIBRE), StateNets.UNIT_RESOURCE.successors(UnitResourceState.ZOMBIE));
+        assertFalse(StateNets.UNIT_RESOURCE.canFire(UnitResourceState.LIBRE, UnitResourceState.OCCUPE));
+
+        assertEquals(EnumSet.of(CompositeResourceState.AFFECTE, CompositeResourceState.VIDE,
+                        CompositeResourceState.INDISPONIBLE),
+                StateNets.COMPOSITE_RESOURCE.successors(CompositeResourceState.PRET));
+        assertFalse(StateNets.COMPOSITE_RESOURCE.canFire(CompositeResourceState.VIDE, CompositeResourceState.AFFECTE));
+        assertFalse(StateNets.COMPOSITE_RESOURCE.canFire(null, CompositeResourceState.VIDE));
+    }
+
+    @Test
+    void incidence_ShouldMoveOneTokenPerTransition() {
+        PetriNet<ServiceState> net = StateNets.SERVICE;
+        for (int t = 0; t < net.transitionCount(); t++) {
+            int sum = 0;
+            for (int p = 0; p < net.placeCount(); p++) {
+                assertEquals(net.post(t, p) - net.pre(t, p), net.incidence(t, p));
+                sum += net.incidence(t, p);
+            }
+            assertEquals(0, sum, net.transitionName(t));
+        }
+    }
+
+    @Test
+    void fire_ShouldUpdateMarking_AndRejectDisabledTransition() {
+        // Given: deux services PRÊTS
+        PetriNet<ServiceState> net = StateNets.SERVICE;
+        int[] marking = net.marking(Map.of(ServiceState.PRET, 2));
+        int start = net.transition(ServiceState.PRET, ServiceState.EN_COURS);
+
+        // When
+        net.fire(start, marking);
+        net.fire(start, marking);
+
+        // Then
+        assertEquals(0, marking[ServiceState.PRET.ordinal()]);
+        assertEquals(2, marking[ServiceState.EN_COURS.ordinal()]);
+        assertFalse(net.isEnabled(start, marking));
+        assertThrows(IllegalStateException.class, () -> net.fire(start, marking));
+        assertEquals(-1, net.transition(ServiceState.TERMINE, ServiceState.PRET));
+    }
+
+    @Test
+    void entities_ShouldDelegateToNets() {
+        Services service = new Services();
+        service.setState(ServiceState.PLANIFIE);
+
+        assertTrue(service.canTransitionTo(ServiceState.PUBLIE));
+        assertThrows(IllegalStateException.class, () -> service.transitionTo(ServiceState.EN_COURS));
+    }
+
+    @Test
+    void builder_ShouldRejectSelfLoop() {
+        assertThrows(IllegalArgumentException.class, () -> PetriNet.builder("test", ServiceState.class)
+                .from(ServiceState.PRET, ServiceState.PRET)
+                .build());
+    }
+}
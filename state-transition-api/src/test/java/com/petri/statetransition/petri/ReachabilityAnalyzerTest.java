@@ -0,0 +1,136 @@
+package com.petri.statetransition.petri;
+
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityAnalyzerTest {
+
+    @Test
+    void analyze_ShouldExploreIndependentServicesInParallel_WithoutDeadlock() {
+        // Given: 10 services, chacun sa ressource libre -> 3^10 marquages
+        List<ResourceNet.ServiceNode> services = new ArrayList<>();
+        Map<Long, ResourceNet.ResourceNode> units = new HashMap<>();
+        for (long id = 1; id <= 10; id++) {
+            services.add(blocking(id, ServiceState.PRET, List.of(100 + id)));
+            units.put(100 + id, free(100 + id));
+        }
+        ResourceNet resourceNet = ResourceNet.of(services, units, Map.of());
+
+        // When
+        ReachabilityReport parallel = new ReachabilityAnalyzer(4, 1_000_000, 2)
+                .analyze(resourceNet.net(), resourceNet.allServicesDone());
+        ReachabilityReport sequential = new ReachabilityAnalyzer(1, 1_000_000, 2)
+                .analyze(resourceNet.net(), resourceNet.allServicesDone());
+
+        // Then
+        assertEquals(59_049, parallel.markings());
+        assertEquals(sequential.markings(), parallel.markings());
+        assertEquals(sequential.edges(), parallel.edges());
+        assertEquals(20, parallel.depth());
+        assertTrue(parallel.isDeadlockFree());
+        assertEquals(List.of(), parallel.deadTransitions());
+        assertEquals(List.of(), parallel.unboundedPlaces());
+    }
+
+    @Test
+    void analyze_ShouldSerializeServicesSharingAResource() {
+        // Given
+        ResourceNet resourceNet = ResourceNet.of(
+                List.of(blocking(1L, ServiceState.PRET, List.of(10L)), blocking(2L, ServiceState.BLOQUE, List.of(10L))),
+                Map.of(10L, free(10L)), Map.of());
+
+        // When
+        ReachabilityReport report = new ReachabilityAnalyzer(2, 1_000, 2)
+                .analyze(resourceNet.net(), resourceNet.allServicesDone());
+
+        // Then: jamais les deux EN_COURS à la fois
+        assertEquals(8, report.markings());
+        assertEquals(0, report.deadlocks());
+    }
+
+    @Test
+    void analyze_ShouldReportDeadlockAndDeadTransitions_WhenResourceNeverComesBack() {
+        // Given: S1 attend U10 indisponible et U11 ; S2 (NON_BLOQUANT) peut passer par U11 ou U10
+        ResourceNet resourceNet = ResourceNet.of(
+                List.of(blocking(1L, ServiceState.PRET, List.of(10L, 11L)),
+                        new ResourceNet.ServiceNode(2L, ServiceType.NON_BLOQUANT, ServiceState.PRET,
+                                List.of(10L, 11L), Map.of())),
+                Map.of(10L, new ResourceNet.ResourceNode(10L, false, null), 11L, free(11L)), Map.of());
+
+        // When
+        ReachabilityReport report = new ReachabilityAnalyzer(2, 1_000, 2)
+                .analyze(resourceNet.net(), resourceNet.allServicesDone());
+
+        // Then
+        assertFalse(report.isDeadlockFree());
+        assertEquals(1, report.deadlocks());
+        Map<String, Integer> deadlock = report.deadlockSamples().get(0);
+        assertEquals(1, deadlock.get("S1:PRET"));
+        assertEquals(1, deadlock.get("S2:TERMINE"));
+        assertEquals(List.of("S1:démarrer", "S1:terminer", "S2:démarrer[U10]", "S2:terminer[U10]"),
+                report.deadTransitions());
+    }
+
+    @Test
+    void analyze_ShouldReturnHeldResources_WhenRunningServiceCompletes() {
+        // Given: S1 EN_COURS détient U10 que S2 attend
+        ResourceNet resourceNet = ResourceNet.of(
+                List.of(blocking(1L, ServiceState.EN_COURS, List.of(10L)), blocking(2L, ServiceState.BLOQUE, List.of(10L))),
+                Map.of(10L, new ResourceNet.ResourceNode(10L, false, 1L)), Map.of());
+
+        // When
+        ReachabilityReport report = new ReachabilityAnalyzer(1, 1_000, 2)
+                .analyze(resourceNet.net(), resourceNet.allServicesDone());
+
+        // Then
+        assertTrue(report.isDeadlockFree());
+        assertEquals(4, report.markings());
+    }
+
+    @Test
+    void analyze_ShouldAbstractUnboundedPlacesWithOmega() {
+        // Given: une transition produit sans fin dans b
+        PlaceTransitionNet.Builder builder = PlaceTransitionNet.builder();
+        int a = builder.place("a", 1);
+        int b = builder.place("b", 0);
+        PlaceTransitionNet net = builder.transition("produire", new int[]{a}, new int[]{a, b}).build();
+
+        // When
+        ReachabilityReport report = new ReachabilityAnalyzer(1, 1_000, 2).analyze(net, marking -> false);
+
+        // Then: 0, 1, 2 puis ω
+        assertEquals(4, report.markings());
+        assertEquals(List.of("b"), report.unboundedPlaces());
+        assertFalse(report.truncated());
+    }
+
+    @Test
+    void analyze_ShouldFlagTruncation_WhenMarkingLimitIsReached() {
+        // Given: cycle de vie de 3 services
+        PlaceTransitionNet net = StateNets.SERVICE.toPlaceTransitionNet(Map.of(ServiceState.PLANIFIE, 3));
+
+        // When
+        ReachabilityReport report = new ReachabilityAnalyzer(2, 10, 3).analyze(net, marking -> true);
+
+        // Then
+        assertTrue(report.truncated());
+        assertEquals(10, report.markings());
+        assertFalse(report.isDeadlockFree());
+    }
+
+    private static ResourceNet.ServiceNode blocking(Long id, ServiceState state, List<Long> units) {
+        return new ResourceNet.ServiceNode(id, ServiceType.BLOQUANT, state, units, Map.of());
+    }
+
+    private static ResourceNet.ResourceNode free(Long id) {
+        return new ResourceNet.ResourceNode(id, true, null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.TransitionDTO;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.model.enums.TransitionType;
+import com.petri.statetransition.repository.TransitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la réservation par lots des transitions automatiques
+ */
+@ExtendWith(MockitoExtension.class)
+class AutomaticTransitionWorkerTest {
+
+    @Mock
+    private TransitionRepository transitionRepository;
+
+    @Mock
+    private TransitionService transitionService;
+
+    @Test
+    void drain_ShouldClaimBatchesUntilNothingIsPending_AndExecuteClaimedTransitions() {
+        // Given: lots de deux transitions
+        AutomaticTransitionWorker worker = worker();
+        when(transitionRepository.releaseStaleClaims(600L)).thenReturn(Mono.just(0));
+        when(transitionRepository.lockPendingAutomaticIds(2))
+                .thenReturn(Flux.just(1L, 2L), Flux.just(3L), Flux.empty());
+        when(transitionRepository.claimAutomaticTransitions(List.of(1L, 2L), "worker-1")).thenReturn(Mono.just(2));
+        when(transitionRepository.claimAutomaticTransitions(List.of(3L), "worker-1")).thenReturn(Mono.just(1));
+        when(transitionRepository.findAllById(List.of(1L, 2L))).thenReturn(Flux.just(claimed(1L), claimed(2L)));
+        when(transitionRepository.findAllById(List.of(3L))).thenReturn(Flux.just(claimed(3L)));
+        when(transitionService.executeClaimedTransition(any())).thenAnswer(invocation ->
+                Mono.just(completed(invocation.getArgument(0, Transition.class).getId())));
+
+        // When / Then
+        StepVerifier.create(worker.drain().map(TransitionDTO::id))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+        verify(transitionRepository, times(3)).lockPendingAutomaticIds(2);
+        verify(transitionService, times(3)).executeClaimedTransition(any());
+    }
+
+    @Test
+    void drain_ShouldNotClaimTheNextBatch_UntilTheCurrentOneIsExecuted() {
+        // Given: exécution du premier lot suspendue
+        AutomaticTransitionWorker worker = worker();
+        when(transitionRepository.releaseStaleClaims(anyLong())).thenReturn(Mono.just(0));
+        when(transitionRepository.lockPendingAutomaticIds(2)).thenReturn(Flux.just(1L), Flux.empty());
+        when(transitionRepository.claimAutomaticTransitions(List.of(1L), "worker-1")).thenReturn(Mono.just(1));
+        when(transitionRepository.findAllById(List.of(1L))).thenReturn(Flux.just(claimed(1L)));
+        Sinks.One<TransitionDTO> execution = Sinks.one();
+        when(transitionService.executeClaimedTransition(any())).thenReturn(execution.asMono());
+
+        // When
+        Disposable running = worker.drain().subscribe();
+
+        // Then
+        verify(transitionRepository, times(1)).lockPendingAutomaticIds(2);
+        execution.tryEmitValue(completed(1L));
+        verify(transitionRepository, times(2)).lockPendingAutomaticIds(2);
+        assertTrue(running.isDisposed());
+    }
+
+    @Test
+    void drain_ShouldDoNothing_WhileAnotherCycleIsRunningOnThisInstance() {
+        // Given: premier cycle suspendu
+        AutomaticTransitionWorker worker = worker();
+        when(transitionRepository.releaseStaleClaims(anyLong())).thenReturn(Mono.never());
+        Disposable running = worker.drain().subscribe();
+
+        // When / Then
+        StepVerifier.create(worker.drain()).verifyComplete();
+        verify(transitionRepository, times(1)).releaseStaleClaims(anyLong());
+        verify(transitionRepository, never()).lockPendingAutomaticIds(anyInt());
+
+        running.dispose();
+        worker.drain().subscribe();
+        verify(transitionRepository, times(2)).releaseStaleClaims(anyLong());
+    }
+
+    private AutomaticTransitionWorker worker() {
+        return new AutomaticTransitionWorker(transitionRepository, transitionService, null, true, 2, 4,
+                Duration.ofMinutes(10), "worker-1");
+    }
+
+    private static Transition claimed(Long id) {
+        Transition transition = new Transition(TransitionType.AUTOMATIQUE, "AUTOMATIQUE_" + id, null);
+        transition.setId(id);
+        transition.setStatus(TransitionStatus.EN_COURS);
+        return transition;
+    }
+
+    private static TransitionDTO completed(Long id) {
+        return new TransitionDTO(id, TransitionType.AUTOMATIQUE, TransitionStatus.TERMINEE, "AUTOMATIQUE_" + id,
+                null, null, null, null, null, null, null, null, null);
+    }
+}
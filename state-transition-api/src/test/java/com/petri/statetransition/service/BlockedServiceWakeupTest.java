@@ -0,0 +1,141 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.ServiceType;
+import com.petri.statetransition.repository.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour la liste d'attente des services bloqués
+ */
+@ExtendWith(MockitoExtension.class)
+class BlockedServiceWakeupTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private ResourceAllocationService resourceAllocationService;
+
+    @Mock
+    private ServiceManager serviceManager;
+
+    @Mock
+    private DeadlockDetector deadlockDetector;
+
+    private BlockedServiceWakeup wakeup;
+
+    @BeforeEach
+    void setUp() {
+        wakeup = new BlockedServiceWakeup(serviceRepository, resourceAllocationService, serviceManager, deadlockDetector);
+    }
+
+    @Test
+    void park_ShouldRegisterServiceOnBlockingResourcesOnly() {
+        // Given
+        when(resourceAllocationService.evaluateAvailability(1L)).thenReturn(Mono.just(
+                new ResourceAllocationService.AvailabilityReport(1L, false, List.of(10L), List.of(20L))));
+
+        // When
+        StepVerifier.create(wakeup.park(1L))
+                .expectNext(true)
+                .verifyComplete();
+
+        // Then
+        assertEquals(1, wakeup.waitingCount());
+        assertEquals(Set.of(), wakeup.drainWaiters(List.of(11L), List.of()));
+        assertEquals(Set.of(1L), wakeup.drainWaiters(List.of(), List.of(20L)));
+        assertEquals(0, wakeup.waitingCount());
+        assertEquals(Set.of(), wakeup.drainWaiters(List.of(10L), List.of()));
+    }
+
+    @Test
+    void onResourcesReleased_ShouldResumeOnlyServicesWaitingOnReleasedResources() {
+        // Given
+        wakeup.park(1L, List.of(10L), List.of());
+        wakeup.park(2L, List.of(10L, 11L), List.of());
+        wakeup.park(3L, List.of(12L), List.of());
+        when(serviceManager.resumeBlockedServices(Set.of(1L, 2L))).thenReturn(Flux.empty());
+
+        // When
+        wakeup.onResourcesReleased(new BlockedServiceWakeup.ResourcesReleased(List.of(10L), List.of()));
+
+        // Then
+        verify(serviceManager).resumeBlockedServices(Set.of(1L, 2L));
+        assertEquals(1, wakeup.waitingCount());
+        assertEquals(Set.of(), wakeup.drainWaiters(List.of(11L), List.of()));
+    }
+
+    @Test
+    void onResourcesReleased_ShouldDoNothing_WhenNobodyWaits() {
+        // When
+        wakeup.onResourcesReleased(new BlockedServiceWakeup.ResourcesReleased(List.of(10L), List.of(20L)));
+
+        // Then
+        verifyNoInteractions(serviceManager, serviceRepository, resourceAllocationService);
+    }
+
+    @Test
+    void sweep_ShouldParkUnlistedBlockedServices_AndResumeThoseNoLongerBlocked() {
+        // Given: 1 déjà en attente, 2 encore bloqué, 3 débloqué entre son évaluation et son inscription
+        wakeup.park(1L, List.of(10L), List.of());
+        when(serviceRepository.findByState(ServiceState.BLOQUE))
+                .thenReturn(Flux.just(blocked(1L), blocked(2L), blocked(3L)));
+        when(serviceRepository.findByState(ServiceState.EN_PAUSE)).thenReturn(Flux.empty());
+        when(resourceAllocationService.evaluateAvailability(2L)).thenReturn(Mono.just(
+                new ResourceAllocationService.AvailabilityReport(2L, false, List.of(11L), List.of())));
+        when(resourceAllocationService.evaluateAvailability(3L)).thenReturn(Mono.just(
+                new ResourceAllocationService.AvailabilityReport(3L, true, List.of(), List.of())));
+        when(serviceManager.resumeBlockedServices(List.of(3L))).thenReturn(Flux.empty());
+
+        // When
+        StepVerifier.create(wakeup.sweep())
+                .expectNext(0L)
+                .verifyComplete();
+
+        // Then
+        verify(resourceAllocationService, never()).evaluateAvailability(1L);
+        verify(serviceManager).resumeBlockedServices(List.of(3L));
+        assertEquals(2, wakeup.waitingCount());
+    }
+
+    @Test
+    void publish_ShouldFallBackToImmediateEvent_OutsideTransaction() {
+        // Given
+        ApplicationEventPublisher publisher =
+                mock(ApplicationEventPublisher.class);
+
+        // When
+        StepVerifier.create(BlockedServiceWakeup.ResourcesReleased.publish(publisher, Set.of(10L), List.of()))
+                .verifyComplete();
+
+        // Then
+        verify(publisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(10L), List.of()));
+        verify(publisher, never()).publishEvent(any(ApplicationEvent.class));
+    }
+
+    private Services blocked(Long id) {
+        Services service = new Services("Service-" + id, null, ServiceType.BLOQUANT, Priority.NORMALE);
+        service.setId(id);
+        service.setState(ServiceState.BLOQUE);
+        return service;
+    }
+}
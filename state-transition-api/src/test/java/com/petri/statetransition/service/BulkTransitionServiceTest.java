@@ -0,0 +1,171 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.BulkTransitionCommandDTO;
+import com.petri.statetransition.dto.BulkTransitionDTO;
+import com.petri.statetransition.dto.BulkTransitionItemDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.BulkTransitionOutcome;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.EntityKind;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour l'application groupée de transitions
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkTransitionServiceTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private TransitionService transitionService;
+
+    @Mock
+    private BlockedServiceWakeup blockedServiceWakeup;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void applyAll_ShouldValidateInMemory_AndApplyOneUpdatePerGroup() {
+        // Given
+        ResourceMarking marking = new ResourceMarking();
+        BulkTransitionService service = service(marking, AllocationMode.CONDITIONNELLE);
+        when(unitResourceRepository.findAllById(List.of(1L, 2L, 3L, 4L))).thenReturn(Flux.just(
+                unit(1L, UnitResourceState.AFFECTE, 5L), unit(2L, UnitResourceState.LIBRE, null),
+                unit(4L, UnitResourceState.AFFECTE, 6L)));
+        when(serviceRepository.findAllById(List.of(7L, 8L, 9L))).thenReturn(Flux.just(
+                service(7L, ServiceState.EN_COURS), service(8L, ServiceState.PLANIFIE), service(9L, ServiceState.BLOQUE)));
+        // La ressource 4 a été prise entre la lecture et la mise à jour
+        when(unitResourceRepository.transitionAll(List.of(1L, 4L), "AFFECTE", "LIBRE")).thenReturn(Mono.just(1));
+        when(unitResourceRepository.findAllById(List.of(1L, 4L))).thenReturn(Flux.just(
+                unit(1L, UnitResourceState.LIBRE, null), unit(4L, UnitResourceState.OCCUPE, 6L)));
+        when(serviceRepository.transitionAll(List.of(8L), "PLANIFIE", "ANNULE")).thenReturn(Mono.just(1));
+        when(serviceRepository.transitionAll(List.of(9L), "BLOQUE", "ANNULE")).thenReturn(Mono.just(1));
+        when(transitionService.recordTransitions(anyList())).thenReturn(Mono.just(3L));
+
+        BulkTransitionDTO request = new BulkTransitionDTO(List.of(
+                command(EntityKind.UNITAIRE, 1L, "LIBRE"),
+                command(EntityKind.UNITAIRE, 2L, "OCCUPE"),
+                command(EntityKind.UNITAIRE, 3L, "LIBRE"),
+                command(EntityKind.UNITAIRE, 4L, "LIBRE"),
+                command(EntityKind.SERVICE, 7L, "TERMINE"),
+                command(EntityKind.SERVICE, 8L, "ANNULE"),
+                command(EntityKind.SERVICE, 9L, "ANNULE"),
+                command(EntityKind.SERVICE, 8L, "PUBLIE"),
+                command(EntityKind.COMPOSITE, 20L, "INCONNU")), "Nettoyage nocturne");
+
+        // When / Then
+        StepVerifier.create(service.applyAll(request))
+                .assertNext(result -> {
+                    assertEquals(9, result.requested());
+                    assertEquals(3, result.applied());
+                    assertEquals(6, result.failed());
+                    assertEquals(3L, result.transitionsRecorded());
+                    assertEquals(List.of(
+                                    BulkTransitionOutcome.APPLIQUEE, BulkTransitionOutcome.REJETEE,
+                                    BulkTransitionOutcome.INTROUVABLE, BulkTransitionOutcome.CONFLIT,
+                                    BulkTransitionOutcome.REJETEE, BulkTransitionOutcome.APPLIQUEE,
+                                    BulkTransitionOutcome.APPLIQUEE, BulkTransitionOutcome.REJETEE,
+                                    BulkTransitionOutcome.REJETEE),
+                            result.results().stream().map(BulkTransitionItemDTO::outcome).toList());
+                    assertEquals("AFFECTE", result.results().get(0).previousState());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<TransitionService.NewTransition>> transitions = ArgumentCaptor.forClass(List.class);
+        verify(transitionService).recordTransitions(transitions.capture());
+        assertEquals(List.of(List.of(5L), List.of(8L), List.of(9L)),
+                transitions.getValue().stream().map(TransitionService.NewTransition::serviceIds).toList());
+        assertTrue(transitions.getValue().get(0).description().endsWith("(Nettoyage nocturne)"));
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(1L), List.of()));
+        verify(blockedServiceWakeup).unpark(9L);
+        verify(compositeResourceRepository, never()).findAllById(anyIterable());
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertNull(marking.units().owner(1L));
+    }
+
+    @Test
+    void applyAll_ShouldTransitionTheMarking_WhenAllocationIsInMemory() {
+        // Given
+        ResourceMarking marking = new ResourceMarking();
+        marking.units().put(10L, UnitResourceState.OCCUPE, 5L);
+        marking.units().put(11L, UnitResourceState.LIBRE, null);
+        marking.composites().put(20L, CompositeResourceState.PRET, 5L);
+        marking.markLoaded();
+        BulkTransitionService service = service(marking, AllocationMode.EN_MEMOIRE);
+        when(transitionService.recordTransitions(anyList())).thenReturn(Mono.just(3L));
+
+        BulkTransitionDTO request = new BulkTransitionDTO(List.of(
+                command(EntityKind.UNITAIRE, 10L, "LIBRE"),
+                command(EntityKind.UNITAIRE, 11L, "INDISPONIBLE"),
+                command(EntityKind.COMPOSITE, 20L, "VIDE")), null);
+
+        // When / Then
+        StepVerifier.create(service.applyAll(request))
+                .assertNext(result -> assertEquals(3, result.applied()))
+                .verifyComplete();
+
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(10L));
+        assertNull(marking.units().owner(10L));
+        assertEquals(UnitResourceState.INDISPONIBLE, marking.units().state(11L));
+        assertEquals(CompositeResourceState.VIDE, marking.composites().state(20L));
+        assertEquals(3, marking.units().dirtyCount() + marking.composites().dirtyCount());
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository);
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(10L), List.of(20L)));
+    }
+
+    private BulkTransitionService service(ResourceMarking marking, AllocationMode mode) {
+        return new BulkTransitionService(serviceRepository, unitResourceRepository, compositeResourceRepository,
+                transitionService, marking, blockedServiceWakeup, eventPublisher, mode);
+    }
+
+    private static BulkTransitionCommandDTO command(EntityKind kind, Long id, String targetState) {
+        return new BulkTransitionCommandDTO(kind, id, targetState);
+    }
+
+    private static UnitResource unit(Long id, UnitResourceState state, Long owner) {
+        UnitResource unit = new UnitResource("Ressource " + id, null);
+        unit.setId(id);
+        unit.setState(state);
+        unit.setAllocatedServiceId(owner);
+        return unit;
+    }
+
+    private static Services service(Long id, ServiceState state) {
+        Services service = new Services();
+        service.setId(id);
+        service.setState(state);
+        return service;
+    }
+}
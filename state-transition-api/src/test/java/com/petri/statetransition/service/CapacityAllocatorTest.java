@@ -0,0 +1,194 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.engine.CapacityPlacer;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.CompositeResource;
+import com.petri.statetransition.model.entity.ServiceUnitResource;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.entity.UnitResourceLoad;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.model.enums.ServiceType;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceUnitResourceRepository;
+import com.petri.statetransition.repository.UnitResourceLoadRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour l'allocation fractionnaire sur ressources partagées
+ */
+@ExtendWith(MockitoExtension.class)
+class CapacityAllocatorTest {
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private UnitResourceLoadRepository unitResourceLoadRepository;
+
+    @Mock
+    private ServiceUnitResourceRepository serviceUnitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ResourceMarking marking = new ResourceMarking();
+
+    @Test
+    void place_ShouldShareUnitUntilCapacityIsReached_InMemory() {
+        // Given: une ressource de capacité 10, deux services de demande 4 puis un troisième
+        marking.units().put(10L, UnitResourceState.LIBRE, null);
+        marking.loads().track(10L, 10, 0);
+        marking.markLoaded();
+        CapacityAllocator allocator = allocator(AllocationMode.EN_MEMOIRE, false);
+        when(serviceUnitResourceRepository.findByServiceId(any())).thenReturn(Flux.empty());
+        when(unitResourceLoadRepository.save(any(UnitResourceLoad.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(allocator.place(service(1L, 4))).expectNext(10L).verifyComplete();
+        StepVerifier.create(allocator.place(service(2L, 4))).expectNext(10L).verifyComplete();
+        StepVerifier.create(allocator.place(service(3L, 4))).verifyComplete();
+
+        assertEquals(8, marking.loads().load(10L));
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(10L));
+        assertNull(marking.units().owner(10L));
+        assertFalse(marking.tryClaim(99L, List.of(10L), List.of()), "Une ressource partagée n'est plus allouable en exclusif");
+    }
+
+    @Test
+    void release_ShouldFreeUnitWhenLastLoadLeaves_InMemory() {
+        // Given
+        marking.units().put(10L, UnitResourceState.LIBRE, null);
+        marking.loads().track(10L, 10, 0);
+        marking.markLoaded();
+        marking.tryAddLoad(10L, 4);
+        CapacityAllocator allocator = allocator(AllocationMode.EN_MEMOIRE, false);
+        when(unitResourceLoadRepository.findByServiceId(1L))
+                .thenReturn(Flux.just(new UnitResourceLoad(1L, 10L, 4)));
+        when(unitResourceLoadRepository.deleteByServiceId(1L)).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(allocator.release(1L))
+                .expectNext(List.of(10L))
+                .verifyComplete();
+
+        // Then
+        assertEquals(0, marking.loads().load(10L));
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(10L));
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(10L), List.of()));
+    }
+
+    @Test
+    void place_ShouldFallThroughToNextCandidate_WhenConditionalIncrementLoses() {
+        // Given: best-fit préfère 11 (4 libres) mais un concurrent l'a remplie entre lecture et incrément
+        CapacityAllocator allocator = allocator(AllocationMode.CONDITIONNELLE, false);
+        when(serviceUnitResourceRepository.findByServiceId(1L)).thenReturn(Flux.just(
+                new ServiceUnitResource(1L, 10L, true), new ServiceUnitResource(1L, 11L, true)));
+        when(unitResourceRepository.findShareableFittingAmong(List.of(10L, 11L), 3))
+                .thenReturn(Flux.just(unit(10L, 10, 2), unit(11L, 10, 6)));
+        when(unitResourceRepository.addLoadIfFits(11L, 3)).thenReturn(Mono.just(0));
+        when(unitResourceRepository.addLoadIfFits(10L, 3)).thenReturn(Mono.just(1));
+        when(unitResourceLoadRepository.save(any(UnitResourceLoad.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(allocator.place(service(1L, 3)))
+                .expectNext(10L)
+                .verifyComplete();
+
+        verify(unitResourceLoadRepository).save(argThat(load ->
+                load.getServiceId() == 1L && load.getUnitResourceId() == 10L && load.getDemand() == 3));
+    }
+
+    @Test
+    void place_ShouldPreferUnitsCoLocatedWithServiceComposites_InMemory() {
+        // Given: best-fit choisirait 10 (Lyon), mais les composites du service sont à Paris
+        marking.units().put(10L, UnitResourceState.LIBRE, null);
+        marking.units().put(11L, UnitResourceState.LIBRE, null);
+        marking.trackShared(10L, 4, 0, "Lyon");
+        marking.trackShared(11L, 10, 0, "Paris");
+        marking.markLoaded();
+        CapacityAllocator allocator = allocator(AllocationMode.EN_MEMOIRE, true);
+        when(serviceUnitResourceRepository.findByServiceId(1L)).thenReturn(Flux.empty());
+        when(compositeResourceRepository.findByServiceId(1L)).thenReturn(Flux.just(composite("Paris"), composite(null)));
+        when(unitResourceLoadRepository.save(any(UnitResourceLoad.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(allocator.place(service(1L, 3)))
+                .expectNext(11L)
+                .verifyComplete();
+
+        verify(unitResourceRepository, never()).findShareableFitting(any());
+    }
+
+    @Test
+    void place_ShouldOrderCoLocatedCandidatesFirst_InDatabase() {
+        // Given
+        CapacityAllocator allocator = allocator(AllocationMode.CONDITIONNELLE, true);
+        when(serviceUnitResourceRepository.findByServiceId(1L)).thenReturn(Flux.empty());
+        when(compositeResourceRepository.findByServiceId(1L)).thenReturn(Flux.just(composite("Paris")));
+        UnitResource lyon = unit(10L, 4, 0);
+        lyon.setLocation("Lyon");
+        UnitResource paris = unit(11L, 10, 0);
+        paris.setLocation("Paris");
+        when(unitResourceRepository.findShareableFitting(3)).thenReturn(Flux.just(lyon, paris));
+        when(unitResourceRepository.addLoadIfFits(11L, 3)).thenReturn(Mono.just(1));
+        when(unitResourceLoadRepository.save(any(UnitResourceLoad.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(allocator.place(service(1L, 3)))
+                .expectNext(11L)
+                .verifyComplete();
+
+        verify(unitResourceRepository, never()).addLoadIfFits(10L, 3);
+    }
+
+    private CapacityAllocator allocator(AllocationMode mode, boolean locationAffinity) {
+        return new CapacityAllocator(unitResourceRepository, unitResourceLoadRepository, serviceUnitResourceRepository,
+                compositeResourceRepository, marking, eventPublisher, mode, CapacityPlacer.Strategy.BEST_FIT,
+                locationAffinity);
+    }
+
+    private static CompositeResource composite(String location) {
+        CompositeResource composite = new CompositeResource("Composite", null);
+        composite.setLocation(location);
+        return composite;
+    }
+
+    private static Services service(Long id, int demand) {
+        Services service = new Services("Service-" + id, null, ServiceType.NON_BLOQUANT, Priority.NORMALE);
+        service.setId(id);
+        service.setDemand(demand);
+        return service;
+    }
+
+    private static UnitResource unit(Long id, int capacity, int load) {
+        UnitResource unit = new UnitResource("Unit-" + id, null);
+        unit.setId(id);
+        unit.setCapacity(capacity);
+        unit.setCurrentLoad(load);
+        return unit;
+    }
+}
@@ -0,0 +1,96 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.SimulationRequestDTO;
+import com.petri.statetransition.exception.ValidationException;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.model.enums.TransitionType;
+import com.petri.statetransition.repository.TransitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CapacitySimulationServiceTest {
+
+    @Mock
+    private TransitionRepository transitionRepository;
+
+    @InjectMocks
+    private CapacitySimulationService capacitySimulationService;
+
+    @Test
+    void fit_ShouldDeriveRatesAndDurationsFromHistory() {
+        // Given: 4 transitions sur 100 s dont une échouée
+        List<Transition> history = List.of(
+                transition(TransitionStatus.TERMINEE, 200), transition(TransitionStatus.TERMINEE, 400),
+                transition(TransitionStatus.ECHOUEE, 600), transition(TransitionStatus.EN_ATTENTE, -1));
+
+        // When
+        CapacitySimulationService.FittedWorkload fitted = capacitySimulationService.fit(
+                request(null, null, null), history, Duration.ofSeconds(100));
+
+        // Then
+        assertEquals(0.04, fitted.workload().arrivalsPerSecond(), 1e-9);
+        assertArrayEquals(new long[]{200, 400, 600}, fitted.workload().durationSamplesMillis());
+        assertEquals(1.0 / 3, fitted.workload().failureRate(), 1e-9);
+        assertEquals("HISTORIQUE", fitted.source());
+    }
+
+    @Test
+    void fit_ShouldRequireParameters_WhenHistoryIsEmpty() {
+        assertThrows(ValidationException.class, () -> capacitySimulationService.fit(
+                request(null, null, null), List.of(), Duration.ofDays(7)));
+
+        CapacitySimulationService.FittedWorkload fitted = capacitySimulationService.fit(
+                request(5.0, 200L, 0.0), List.of(), Duration.ofDays(7));
+        assertEquals("PARAMETRES", fitted.source());
+        assertEquals(200, Arrays.stream(fitted.workload().durationSamplesMillis()).average().orElse(0), 20);
+    }
+
+    @Test
+    void simulate_ShouldSizeLocationFromHistory() {
+        // Given
+        when(transitionRepository.findByCreatedAtBetween(any(), any())).thenReturn(Flux.empty());
+
+        // When & Then
+        StepVerifier.create(capacitySimulationService.simulate(request(5.0, 1_000L, 0.0)))
+                .assertNext(result -> {
+                    assertEquals("zone-a", result.location());
+                    assertNotNull(result.recommendedUnits());
+                    assertTrue(result.recommendedUnits() >= 5);
+                    assertFalse(result.runs().isEmpty());
+                    assertEquals(10, result.runs().get(0).unitUtilizationHistogram().size());
+                })
+                .verifyComplete();
+    }
+
+    private static SimulationRequestDTO request(Double arrivalsPerSecond, Long meanDurationMillis, Double failureRate) {
+        return new SimulationRequestDTO("zone-a", null, 64, 1, 1, 20_000L, 0.01, 7,
+                arrivalsPerSecond, meanDurationMillis, failureRate, 5L);
+    }
+
+    private static Transition transition(TransitionStatus status, long durationMillis) {
+        Transition transition = new Transition(TransitionType.NORMALE, "t", "historique");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        if (durationMillis >= 0) {
+            transition.setStartedAt(start);
+            transition.setCompletedAt(start.plusNanos(durationMillis * 1_000_000));
+        }
+        transition.setStatus(status);
+        return transition;
+    }
+}
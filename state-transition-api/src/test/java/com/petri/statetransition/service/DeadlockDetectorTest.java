@@ -0,0 +1,107 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.DeadlockReportDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadlockDetectorTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private ResourceAllocationService resourceAllocationService;
+
+    private ResourceMarking marking;
+
+    @BeforeEach
+    void setUp() {
+        marking = new ResourceMarking();
+        marking.units().put(10L, UnitResourceState.AFFECTE, 1L);
+        marking.units().put(11L, UnitResourceState.AFFECTE, 2L);
+        marking.markLoaded();
+    }
+
+    @Test
+    void detect_ShouldReleaseLowestPriorityMember_WhenTwoServicesWaitForEachOther() {
+        // Given
+        DeadlockDetector detector = detector(true);
+        Services first = service(1L, Priority.HAUTE, LocalDateTime.now().minusMinutes(5));
+        Services second = service(2L, Priority.BASSE, LocalDateTime.now().minusMinutes(10));
+        when(serviceRepository.findAllById(List.of(2L, 1L))).thenReturn(Flux.just(first, second));
+        when(resourceAllocationService.forceReleaseResources(2L)).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(detector.detect(1L, List.of(11L), List.of()))
+                .verifyComplete();
+
+        // Then
+        StepVerifier.create(detector.detect(2L, List.of(10L), List.of()))
+                .assertNext(cycle -> {
+                    assertEquals(List.of(2L, 1L), cycle.serviceIds());
+                    assertEquals(2L, cycle.victimServiceId());
+                })
+                .verifyComplete();
+        verify(resourceAllocationService).forceReleaseResources(2L);
+
+        DeadlockReportDTO report = detector.report();
+        assertEquals(1L, report.detectedCycles());
+        assertEquals(1L, report.resolvedCycles());
+        assertEquals(1, report.waitEdges()); // 2 -> 1 reste : la victime attend toujours
+        assertEquals(1, report.recentCycles().size());
+    }
+
+    @Test
+    void detect_ShouldOnlyReport_WhenAutoResolveIsDisabled() {
+        // Given
+        DeadlockDetector detector = detector(false);
+        detector.detect(1L, List.of(11L), List.of()).block();
+
+        // When & Then
+        StepVerifier.create(detector.detect(2L, List.of(10L), List.of()))
+                .assertNext(cycle -> assertNull(cycle.victimServiceId()))
+                .verifyComplete();
+        verifyNoInteractions(serviceRepository, resourceAllocationService);
+        assertEquals(0L, detector.report().resolvedCycles());
+    }
+
+    private DeadlockDetector detector(boolean autoResolve) {
+        return new DeadlockDetector(serviceRepository, unitResourceRepository, compositeResourceRepository,
+                marking, resourceAllocationService, AllocationMode.EN_MEMOIRE, autoResolve);
+    }
+
+    private static Services service(Long id, Priority priority, LocalDateTime createdAt) {
+        Services service = new Services();
+        service.setId(id);
+        service.setPriority(priority);
+        service.setCreatedAt(createdAt);
+        return service;
+    }
+}
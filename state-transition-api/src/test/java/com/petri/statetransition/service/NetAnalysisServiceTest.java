@@ -0,0 +1,42 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.exception.ValidationException;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests unitaires pour la limite de marquages de l'analyse d'accessibilité
+ */
+@ExtendWith(MockitoExtension.class)
+class NetAnalysisServiceTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Test
+    void analyzeConfiguration_ShouldRejectNonPositiveLimit_WithoutLoadingTheConfiguration() {
+        // Given
+        NetAnalysisService service = new NetAnalysisService(serviceRepository, unitResourceRepository,
+                compositeResourceRepository, 1, 1_000, 2);
+
+        // When / Then
+        StepVerifier.create(service.analyzeConfiguration(0L))
+                .expectError(ValidationException.class)
+                .verify();
+        verifyNoInteractions(serviceRepository);
+    }
+}
@@ -0,0 +1,119 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour les baux de réservation des ressources composites
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservationLeasesTest {
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private CompositeResourceService compositeResourceService;
+
+    private MutableClock clock;
+    private ReservationLeases leases;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        leases = new ReservationLeases(compositeResourceRepository, compositeResourceService,
+                Duration.ofSeconds(10), 100, clock);
+    }
+
+    @Test
+    void tick_ShouldExpireReservation_WithComponentsTakenByIt() {
+        // Given
+        leases.grant(7L);
+        leases.recordComponent(7L, 1L);
+        leases.recordComponent(7L, 2L);
+        when(compositeResourceService.expireReservation(7L, Set.of(1L, 2L))).thenReturn(Mono.empty());
+
+        // When
+        clock.advance(Duration.ofSeconds(9));
+        leases.tick();
+        verifyNoInteractions(compositeResourceService);
+        clock.advance(Duration.ofSeconds(1));
+        leases.tick();
+
+        // Then
+        verify(compositeResourceService).expireReservation(7L, Set.of(1L, 2L));
+        assertEquals(0, leases.activeLeases());
+    }
+
+    @Test
+    void renew_ShouldPostponeExpiry() {
+        // Given
+        leases.grant(7L);
+        clock.advance(Duration.ofSeconds(8));
+
+        // When
+        Long deadline = leases.renew(7L, Duration.ofSeconds(30));
+        clock.advance(Duration.ofSeconds(20));
+        leases.tick();
+
+        // Then
+        assertEquals(clock.millis() + 10_000, deadline);
+        verify(compositeResourceService, never()).expireReservation(any(), any());
+        assertNull(leases.renew(8L, null));
+    }
+
+    @Test
+    void close_ShouldPreventExpiry_WhenReservationIsUsed() {
+        // Given
+        leases.grant(7L);
+
+        // When
+        leases.close(7L);
+        clock.advance(Duration.ofMinutes(1));
+        leases.tick();
+
+        // Then
+        verifyNoInteractions(compositeResourceService);
+        assertNull(leases.deadline(7L));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.petri.statetransition.service;
 
+import com.petri.statetransition.engine.ResourceMarking;
 import com.petri.statetransition.model.entity.Services;
 import com.petri.statetransition.model.entity.UnitResource;
 import com.petri.statetransition.model.entity.CompositeResource;
@@ -14,10 +15,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -46,6 +57,9 @@ class ResourceAllocationServiceTest {
     @Mock
     private CompositeUnitResourceRepository compositeUnitResourceRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private ResourceAllocationService resourceAllocationService;
 
     private Services testService;
@@ -55,15 +69,22 @@ class ResourceAllocationServiceTest {
     private ServiceCompositeResource serviceCompositeResource;
     private CompositeUnitResource compositeUnitResource1, compositeUnitResource2;
 
+    private ResourceMarking marking;
+
     @BeforeEach
     void setUp() {
+        marking = new ResourceMarking();
         resourceAllocationService = new ResourceAllocationService(
                 serviceRepository,
                 unitResourceRepository,
                 compositeResourceRepository,
                 serviceUnitResourceRepository,
                 serviceCompositeResourceRepository,
-                compositeUnitResourceRepository
+                compositeUnitResourceRepository,
+                marking,
+                eventPublisher,
+                PreemptionPolicy.disabled(),
+                AllocationMode.SEQUENTIELLE
         );
 
         setupTestData();
@@ -99,19 +120,97 @@ class ResourceAllocationServiceTest {
         compositeUnitResource2 = new CompositeUnitResource(1L, 2L, true);
     }
 
+    /**
+     * Lignes d'exigence correspondant aux associations de test (2 unités + 1 composite à 2 composants)
+     */
+    private List<ServiceRepository.ResourceRequirementState> requirementStates() {
+        return List.of(
+                new RequirementState(1L, unitResource1.getState(), null, null),
+                new RequirementState(2L, unitResource2.getState(), null, null),
+                new RequirementState(1L, unitResource1.getState(), 1L, compositeResource.getState()),
+                new RequirementState(2L, unitResource2.getState(), 1L, compositeResource.getState())
+        );
+    }
+
+    private ResourceAllocationService conditionalAllocationService() {
+        return new ResourceAllocationService(
+                serviceRepository,
+                unitResourceRepository,
+                compositeResourceRepository,
+                serviceUnitResourceRepository,
+                serviceCompositeResourceRepository,
+                compositeUnitResourceRepository,
+                marking,
+                eventPublisher,
+                PreemptionPolicy.disabled(),
+                AllocationMode.CONDITIONNELLE
+        );
+    }
+
+    private ResourceAllocationService inMemoryAllocationService() {
+        return new ResourceAllocationService(
+                serviceRepository,
+                unitResourceRepository,
+                compositeResourceRepository,
+                serviceUnitResourceRepository,
+                serviceCompositeResourceRepository,
+                compositeUnitResourceRepository,
+                marking,
+                eventPublisher,
+                PreemptionPolicy.disabled(),
+                AllocationMode.EN_MEMOIRE
+        );
+    }
+
+    private ResourceAllocationService preemptingAllocationService(int maxPerMinute) {
+        return new ResourceAllocationService(
+                serviceRepository,
+                unitResourceRepository,
+                compositeResourceRepository,
+                serviceUnitResourceRepository,
+                serviceCompositeResourceRepository,
+                compositeUnitResourceRepository,
+                marking,
+                eventPublisher,
+                new PreemptionPolicy(true, Priority.HAUTE, maxPerMinute, Clock.systemUTC()),
+                AllocationMode.EN_MEMOIRE
+        );
+    }
+
+    private record RequirementState(Long unitResourceId, UnitResourceState unitState,
+                                    Long compositeResourceId, CompositeResourceState compositeState,
+                                    Integer compositeReadyComponents, Integer compositeRequiredComponents)
+            implements ServiceRepository.ResourceRequirementState {
+
+        RequirementState(Long unitResourceId, UnitResourceState unitState,
+                         Long compositeResourceId, CompositeResourceState compositeState) {
+            this(unitResourceId, unitState, compositeResourceId, compositeState, null, null);
+        }
+
+        @Override
+        public Long getUnitResourceId() { return unitResourceId; }
+
+        @Override
+        public String getUnitState() { return unitState != null ? unitState.name() : null; }
+
+        @Override
+        public Long getCompositeResourceId() { return compositeResourceId; }
+
+        @Override
+        public String getCompositeState() { return compositeState != null ? compositeState.name() : null; }
+
+        @Override
+        public Integer getCompositeReadyComponents() { return compositeReadyComponents; }
+
+        @Override
+        public Integer getCompositeRequiredComponents() { return compositeRequiredComponents; }
+    }
+
     @Test
     void checkResourceAvailability_ShouldReturnTrue_WhenAllResourcesAvailableForBloquantService() {
         // Given
         when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
-        when(serviceUnitResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.just(serviceUnitResource1, serviceUnitResource2));
-        when(serviceCompositeResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.just(serviceCompositeResource));
-        when(unitResourceRepository.findById(1L)).thenReturn(Mono.just(unitResource1));
-        when(unitResourceRepository.findById(2L)).thenReturn(Mono.just(unitResource2));
-        when(compositeResourceRepository.findById(1L)).thenReturn(Mono.just(compositeResource));
-        when(compositeUnitResourceRepository.findByCompositeResourceId(1L))
-                .thenReturn(Flux.just(compositeUnitResource1, compositeUnitResource2));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.fromIterable(requirementStates()));
 
         // When
         Mono<Boolean> result = resourceAllocationService.checkResourceAvailability(1L);
@@ -128,12 +227,7 @@ class ResourceAllocationServiceTest {
         unitResource1.setState(UnitResourceState.OCCUPE); // Pas disponible
 
         when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
-        when(serviceUnitResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.just(serviceUnitResource1, serviceUnitResource2));
-        when(serviceCompositeResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.just(serviceCompositeResource));
-        when(unitResourceRepository.findById(1L)).thenReturn(Mono.just(unitResource1));
-        when(unitResourceRepository.findById(2L)).thenReturn(Mono.just(unitResource2));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.fromIterable(requirementStates()));
 
         // When
         Mono<Boolean> result = resourceAllocationService.checkResourceAvailability(1L);
@@ -144,6 +238,59 @@ class ResourceAllocationServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void evaluateAvailability_ShouldReportBlockingResources_WhenBloquantServiceIsBlocked() {
+        // Given
+        unitResource1.setState(UnitResourceState.OCCUPE); // Requis directement et composant de la composite
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.fromIterable(requirementStates()));
+
+        // When
+        Mono<ResourceAllocationService.AvailabilityReport> result = resourceAllocationService.evaluateAvailability(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(report -> {
+                    assertFalse(report.isAvailable());
+                    assertEquals(List.of(1L), report.getBlockingUnitResourceIds());
+                    assertTrue(report.getBlockingCompositeResourceIds().isEmpty());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void checkResourceAvailability_ShouldUseConstantRoundTrips_WhenServiceHasManyRequirements() {
+        // Given: service BLOQUANT avec 40 ressources unitaires et 10 composites de 3 composants
+        List<ServiceRepository.ResourceRequirementState> rows = new ArrayList<>();
+        for (long unitId = 1; unitId <= 40; unitId++) {
+            rows.add(new RequirementState(unitId, UnitResourceState.LIBRE, null, null));
+        }
+        for (long compositeId = 1; compositeId <= 10; compositeId++) {
+            for (long component = 0; component < 3; component++) {
+                rows.add(new RequirementState(100 + compositeId * 3 + component, UnitResourceState.LIBRE,
+                        compositeId, CompositeResourceState.VIDE));
+            }
+        }
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.fromIterable(rows));
+
+        // When
+        Mono<Boolean> result = resourceAllocationService.checkResourceAvailability(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(true)
+                .verifyComplete();
+
+        // Deux allers-retours au lieu d'un findById par association (~100 auparavant)
+        verify(serviceRepository, times(1)).findById(1L);
+        verify(serviceRepository, times(1)).findResourceRequirementStates(1L);
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository,
+                serviceUnitResourceRepository, serviceCompositeResourceRepository, compositeUnitResourceRepository);
+    }
+
     @Test
     void checkResourceAvailability_ShouldReturnTrue_WhenAtLeastOneResourceAvailableForNonBloquantService() {
         // Given
@@ -152,12 +299,9 @@ class ResourceAllocationServiceTest {
         // unitResource2 reste LIBRE
 
         when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
-        when(serviceUnitResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.just(serviceUnitResource1, serviceUnitResource2));
-        when(serviceCompositeResourceRepository.findByServiceId(1L))
-                .thenReturn(Flux.empty()); // Pas de ressources composites
-        when(unitResourceRepository.findById(1L)).thenReturn(Mono.just(unitResource1));
-        when(unitResourceRepository.findById(2L)).thenReturn(Mono.just(unitResource2));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just( // Pas de ressources composites
+                new RequirementState(1L, unitResource1.getState(), null, null),
+                new RequirementState(2L, unitResource2.getState(), null, null)));
 
         // When
         Mono<Boolean> result = resourceAllocationService.checkResourceAvailability(1L);
@@ -170,36 +314,35 @@ class ResourceAllocationServiceTest {
 
     @Test
     void allocateResources_ShouldAllocateAllResources_WhenAvailable() {
-        // Given
-        when(resourceAllocationService.checkResourceAvailability(1L)).thenReturn(Mono.just(true));
+        // Given: la composite possède ses propres composants, distincts des ressources requises directement
+        UnitResource component3 = new UnitResource("Storage-01", "Stockage test");
+        component3.setId(3L);
+        UnitResource component4 = new UnitResource("Network-01", "Réseau test");
+        component4.setId(4L);
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(2L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(3L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE),
+                new RequirementState(4L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE)));
         when(serviceUnitResourceRepository.findByServiceId(1L))
                 .thenReturn(Flux.just(serviceUnitResource1, serviceUnitResource2));
         when(serviceCompositeResourceRepository.findByServiceId(1L))
                 .thenReturn(Flux.just(serviceCompositeResource));
         when(unitResourceRepository.findById(1L)).thenReturn(Mono.just(unitResource1));
         when(unitResourceRepository.findById(2L)).thenReturn(Mono.just(unitResource2));
+        when(unitResourceRepository.findById(3L)).thenReturn(Mono.just(component3));
+        when(unitResourceRepository.findById(4L)).thenReturn(Mono.just(component4));
         when(compositeResourceRepository.findById(1L)).thenReturn(Mono.just(compositeResource));
         when(compositeUnitResourceRepository.findByCompositeResourceId(1L))
-                .thenReturn(Flux.just(compositeUnitResource1, compositeUnitResource2));
+                .thenReturn(Flux.just(new CompositeUnitResource(1L, 3L, true), new CompositeUnitResource(1L, 4L, true)));
 
         // Simulations des sauvegardes
-        UnitResource allocatedUnit1 = new UnitResource(unitResource1.getName(), unitResource1.getDescription());
-        allocatedUnit1.setId(1L);
-        allocatedUnit1.setState(UnitResourceState.AFFECTE);
-
-        UnitResource allocatedUnit2 = new UnitResource(unitResource2.getName(), unitResource2.getDescription());
-        allocatedUnit2.setId(2L);
-        allocatedUnit2.setState(UnitResourceState.AFFECTE);
-
-        CompositeResource allocatedComposite = new CompositeResource(compositeResource.getName(), compositeResource.getDescription());
-        allocatedComposite.setId(1L);
-        allocatedComposite.setState(CompositeResourceState.PRET);
-
         when(unitResourceRepository.save(any(UnitResource.class)))
-                .thenReturn(Mono.just(allocatedUnit1))
-                .thenReturn(Mono.just(allocatedUnit2));
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         when(compositeResourceRepository.save(any(CompositeResource.class)))
-                .thenReturn(Mono.just(allocatedComposite));
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         // When
         Mono<Void> result = resourceAllocationService.allocateResources(1L);
@@ -208,14 +351,159 @@ class ResourceAllocationServiceTest {
         StepVerifier.create(result)
                 .verifyComplete();
 
-        verify(unitResourceRepository, times(2)).save(any(UnitResource.class));
+        verify(unitResourceRepository, times(4)).save(any(UnitResource.class));
         verify(compositeResourceRepository, atLeastOnce()).save(any(CompositeResource.class));
+        assertEquals(CompositeResourceState.PRET, compositeResource.getState());
+        assertEquals(1L, compositeResource.getAllocatedServiceId());
+        assertEquals(1L, component4.getAllocatedServiceId());
+    }
+
+    @Test
+    void allocateResources_ShouldUseOneConditionalUpdatePerTable_WhenModeIsConditionnelle() {
+        // Given
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(2L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(3L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE),
+                new RequirementState(4L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE)));
+        when(compositeResourceRepository.reserveIfEmpty(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+        when(unitResourceRepository.allocateIfFree(Set.of(1L, 2L, 3L, 4L), 1L)).thenReturn(Mono.just(4));
+        when(compositeResourceRepository.markReady(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+
+        // When
+        Mono<Void> result = conditionalAllocationService().allocateResources(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        verify(unitResourceRepository, never()).save(any(UnitResource.class));
+        verify(compositeResourceRepository, never()).save(any(CompositeResource.class));
+        verify(unitResourceRepository, never()).revertAllocation(any(), any());
+        verify(compositeResourceRepository, never()).revertReservation(any(), any());
+    }
+
+    @Test
+    void allocateResources_ShouldCompensate_WhenConditionalUpdateLosesRace() {
+        // Given: une ressource unitaire est prise par un autre service entre la lecture et l'UPDATE
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(2L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(3L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE)));
+        when(compositeResourceRepository.reserveIfEmpty(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+        when(unitResourceRepository.allocateIfFree(Set.of(1L, 2L, 3L), 1L)).thenReturn(Mono.just(2));
+        when(unitResourceRepository.revertAllocation(Set.of(1L, 2L, 3L), 1L)).thenReturn(Mono.just(2));
+        when(compositeResourceRepository.revertReservation(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+
+        // When
+        Mono<Void> result = conditionalAllocationService().allocateResources(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(ResourceAllocationException.class)
+                .verify();
+
+        verify(compositeResourceRepository, never()).markReady(any(), any());
+        verify(unitResourceRepository).revertAllocation(Set.of(1L, 2L, 3L), 1L);
+        verify(compositeResourceRepository).revertReservation(Set.of(1L), 1L);
+    }
+
+    @Test
+    void allocateResources_ShouldClaimOnlyAvailableResources_WhenNonBloquantInConditionalMode() {
+        // Given
+        testService.setType(ServiceType.NON_BLOQUANT);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, UnitResourceState.OCCUPE, null, null),
+                new RequirementState(2L, UnitResourceState.LIBRE, null, null),
+                new RequirementState(3L, UnitResourceState.BLOQUE, 1L, CompositeResourceState.VIDE)));
+        when(unitResourceRepository.allocateIfFree(Set.of(2L), 1L)).thenReturn(Mono.just(1));
+
+        // When
+        Mono<Void> result = conditionalAllocationService().allocateResources(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        verify(compositeResourceRepository, never()).reserveIfEmpty(any(), any());
+        verify(compositeResourceRepository, never()).markReady(any(), any());
+    }
+
+    @Test
+    void allocateResources_ShouldClaimFreeComponentsOfPartialComposite_WhenReadyCounterMeetsThreshold() {
+        // Given: composite à trois composants dont deux requis ; le composant 5 est occupé
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(3L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE, 2, 2),
+                new RequirementState(4L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE, 2, 2),
+                new RequirementState(5L, UnitResourceState.OCCUPE, 1L, CompositeResourceState.VIDE, 2, 2)));
+        when(compositeResourceRepository.reserveIfEmpty(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+        when(unitResourceRepository.allocateIfFree(Set.of(3L, 4L), 1L)).thenReturn(Mono.just(2));
+        when(compositeResourceRepository.markReady(Set.of(1L), 1L)).thenReturn(Mono.just(1));
+
+        // When / Then
+        StepVerifier.create(conditionalAllocationService().allocateResources(1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void evaluate_ShouldTrustReadyCounter_AndReportComponentsOfUnreadyComposites() {
+        // When: le compteur (1 libre sur 2 requis) fait autorité sur les lignes de composants
+        ResourceAllocationService.AvailabilityReport report = ResourceAllocationService.AvailabilityReport.evaluate(
+                1L, ServiceType.NON_BLOQUANT, List.of(
+                        new RequirementState(3L, UnitResourceState.LIBRE, 1L, CompositeResourceState.VIDE, 1, 2),
+                        new RequirementState(4L, UnitResourceState.OCCUPE, 1L, CompositeResourceState.VIDE, 1, 2)));
+
+        // Then
+        assertFalse(report.isAvailable());
+        assertEquals(List.of(4L), report.getBlockingUnitResourceIds());
+        assertEquals(List.of(), report.getBlockingCompositeResourceIds());
+    }
+
+    @Test
+    void releaseResources_ShouldReleaseByOwner_WhenModeIsConditionnelle() {
+        // Given
+        when(unitResourceRepository.findIdsHeldByService(1L)).thenReturn(Flux.just(1L, 2L, 3L, 4L));
+        when(unitResourceRepository.releaseByService(1L)).thenReturn(Mono.just(4));
+        when(compositeResourceRepository.findIdsHeldByService(1L)).thenReturn(Flux.just(1L));
+        when(compositeResourceRepository.releaseByService(1L)).thenReturn(Mono.just(1));
+
+        // When
+        Mono<Void> result = conditionalAllocationService().releaseResources(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        verifyNoInteractions(serviceUnitResourceRepository, serviceCompositeResourceRepository, compositeUnitResourceRepository);
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(1L, 2L, 3L, 4L), List.of(1L)));
+    }
+
+    @Test
+    void releaseResources_ShouldNotSignalResources_WhenNothingWasHeld() {
+        // Given - libération rejouée : plus rien n'est détenu par le service
+        when(unitResourceRepository.findIdsHeldByService(1L)).thenReturn(Flux.empty());
+        when(compositeResourceRepository.findIdsHeldByService(1L)).thenReturn(Flux.empty());
+
+        // When
+        Mono<Void> result = conditionalAllocationService().releaseResources(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+
+        verify(eventPublisher, never()).publishEvent(any(BlockedServiceWakeup.ResourcesReleased.class));
     }
 
     @Test
     void allocateResources_ShouldThrowException_WhenResourcesNotAvailable() {
         // Given
-        when(resourceAllocationService.checkResourceAvailability(1L)).thenReturn(Mono.just(false));
+        unitResource2.setState(UnitResourceState.BLOQUE);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.fromIterable(requirementStates()));
 
         // When
         Mono<Void> result = resourceAllocationService.allocateResources(1L);
@@ -279,6 +567,7 @@ class ResourceAllocationServiceTest {
 
         verify(unitResourceRepository, times(2)).save(any(UnitResource.class));
         verify(compositeResourceRepository, atLeastOnce()).save(any(CompositeResource.class));
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(1L, 2L), List.of(1L)));
     }
 
     @Test
@@ -296,4 +585,329 @@ class ResourceAllocationServiceTest {
         StepVerifier.create(result)
                 .verifyComplete(); // Doit se terminer même avec erreur
     }
-}
\ No newline at end of file
+
+    @Test
+    void allocateResources_ShouldClaimInMemoryWithoutDatabaseWrites_WhenModeIsEnMemoire() {
+        // Given: marquage chargé, exigences lues une seule fois
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.LIBRE, null);
+        marking.units().put(3L, UnitResourceState.LIBRE, null);
+        marking.composites().put(1L, CompositeResourceState.VIDE, null);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(2L, null, null, null),
+                new RequirementState(3L, null, 1L, null)));
+        ResourceAllocationService service = inMemoryAllocationService();
+
+        // When / Then
+        StepVerifier.create(service.allocateResources(1L))
+                .verifyComplete();
+
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(3L));
+        assertEquals(1L, marking.units().owner(3L));
+        assertEquals(CompositeResourceState.PRET, marking.composites().state(1L));
+        assertEquals(3, marking.units().dirtyCount());
+
+        // Les jetons étant pris, la disponibilité est évaluée sans relire la base
+        StepVerifier.create(service.checkResourceAvailability(1L))
+                .expectNext(false)
+                .verifyComplete();
+
+        StepVerifier.create(service.releaseResources(1L))
+                .verifyComplete();
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertEquals(CompositeResourceState.VIDE, marking.composites().state(1L));
+
+        verify(serviceRepository, times(1)).findById(1L);
+        verify(serviceRepository, times(1)).findResourceRequirementStates(1L);
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository,
+                serviceUnitResourceRepository, serviceCompositeResourceRepository, compositeUnitResourceRepository);
+    }
+
+    @Test
+    void allocateResources_ShouldFailWithoutPartialClaim_WhenMarkedResourceIsTaken() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.AFFECTE, 99L);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(2L, null, null, null)));
+
+        // When / Then
+        StepVerifier.create(inMemoryAllocationService().allocateResources(1L))
+                .expectError(ResourceAllocationException.class)
+                .verify();
+
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        assertEquals(99L, marking.units().owner(2L));
+    }
+
+    @Test
+    void preempt_ShouldTransferTokensFromLowerPriorityService_InMemory() {
+        // Given: service CRITIQUE exigeant 1 et 2 ; 2 est tenue par le service 7 (BASSE, EN_COURS) qui tient aussi 5
+        testService.setPriority(Priority.CRITIQUE);
+        Services holder = new Services("Batch", null, ServiceType.BLOQUANT, Priority.BASSE);
+        holder.setId(7L);
+        holder.setState(ServiceState.EN_COURS);
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.OCCUPE, 7L);
+        marking.units().put(5L, UnitResourceState.AFFECTE, 7L);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(2L, null, null, null)));
+        when(serviceRepository.findAllById(Set.of(7L))).thenReturn(Flux.just(holder));
+        when(serviceRepository.findById(7L)).thenReturn(Mono.just(holder));
+        when(serviceRepository.findResourceRequirementStates(7L)).thenReturn(Flux.just(
+                new RequirementState(2L, null, null, null),
+                new RequirementState(5L, null, null, null)));
+        when(serviceRepository.markPaused(List.of(7L))).thenReturn(Mono.just(1));
+        ResourceAllocationService service = preemptingAllocationService(1);
+
+        // When / Then
+        StepVerifier.create(service.preempt(testService))
+                .expectNext(List.of(7L))
+                .verifyComplete();
+
+        assertEquals(1L, marking.units().owner(2L));
+        assertEquals(UnitResourceState.AFFECTE, marking.units().state(2L));
+        assertEquals(1L, marking.units().owner(1L));
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(5L));
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(5L), List.of()));
+
+        // Quota d'une éviction par minute épuisé : le service suivant reste bloqué
+        Services next = new Services("Critique 2", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        next.setId(2L);
+        StepVerifier.create(service.preempt(next).hasElement())
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void preempt_ShouldNotEvict_WhenHolderIsNotLowerPriority() {
+        // Given: l'unité 2 est tenue par un service CRITIQUE
+        testService.setPriority(Priority.HAUTE);
+        Services holder = new Services("Critique", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        holder.setId(7L);
+        holder.setState(ServiceState.EN_COURS);
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.AFFECTE, 7L);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(2L, null, null, null)));
+        when(serviceRepository.findAllById(Set.of(7L))).thenReturn(Flux.just(holder));
+
+        // When / Then
+        StepVerifier.create(preemptingAllocationService(10).preempt(testService))
+                .verifyComplete();
+
+        assertEquals(7L, marking.units().owner(2L));
+        assertEquals(UnitResourceState.LIBRE, marking.units().state(1L));
+        verify(serviceRepository, never()).markPaused(any());
+    }
+
+    @Test
+    void checkResourceAvailability_ShouldUseMarkingBitsets_WhenNonBloquantInMemory() {
+        // Given: unité directe occupée mais composite vide aux composants libres
+        testService.setType(ServiceType.NON_BLOQUANT);
+        marking.units().put(1L, UnitResourceState.OCCUPE, 7L);
+        marking.units().put(3L, UnitResourceState.LIBRE, null);
+        marking.units().put(4L, UnitResourceState.LIBRE, null);
+        marking.composites().put(1L, CompositeResourceState.VIDE, null);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(3L, null, 1L, null),
+                new RequirementState(4L, null, 1L, null)));
+        ResourceAllocationService service = inMemoryAllocationService();
+
+        // When / Then
+        StepVerifier.create(service.checkResourceAvailability(1L))
+                .expectNext(true)
+                .verifyComplete();
+
+        marking.units().put(4L, UnitResourceState.BLOQUE, null);
+        StepVerifier.create(service.checkResourceAvailability(1L))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void onRequirementsChanged_ShouldEvictOnlyServicesUsingTheChangedComposite() {
+        // Given: exigences en cache, le service 1 utilise la composite 1
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(3L, UnitResourceState.LIBRE, null);
+        marking.composites().put(1L, CompositeResourceState.VIDE, null);
+        marking.markLoaded();
+
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(serviceRepository.findResourceRequirementStates(1L)).thenReturn(Flux.just(
+                new RequirementState(1L, null, null, null),
+                new RequirementState(3L, null, 1L, null)));
+        ResourceAllocationService service = inMemoryAllocationService();
+        StepVerifier.create(service.checkResourceAvailability(1L)).expectNext(true).verifyComplete();
+
+        // When: composition d'une autre composite, puis de la composite 1
+        service.onRequirementsChanged(new ResourceAllocationService.RequirementsChanged(List.of(), List.of(), List.of(2L)));
+        StepVerifier.create(service.checkResourceAvailability(1L)).expectNext(true).verifyComplete();
+        service.onRequirementsChanged(new ResourceAllocationService.RequirementsChanged(List.of(), List.of(), List.of(1L)));
+        StepVerifier.create(service.checkResourceAvailability(1L)).expectNext(true).verifyComplete();
+
+        // Then: relu une seule fois après le changement qui le concerne
+        verify(serviceRepository, times(2)).findResourceRequirementStates(1L);
+    }
+
+    @Test
+    void getResourceUtilizationReport_ShouldCountFromMarking_WhenModeIsEnMemoire() {
+        // Given
+        marking.units().put(1L, UnitResourceState.LIBRE, null);
+        marking.units().put(2L, UnitResourceState.LIBRE, null);
+        marking.units().put(3L, UnitResourceState.OCCUPE, 1L);
+        marking.composites().put(1L, CompositeResourceState.PRET, 1L);
+        marking.markLoaded();
+
+        // When / Then
+        StepVerifier.create(inMemoryAllocationService().getResourceUtilizationReport())
+                .assertNext(report -> {
+                    assertEquals(2, report.getUnitResourceCounts().size());
+                    assertEquals("LIBRE", report.getUnitResourceCounts().get(0).getResourceState());
+                    assertEquals(2L, report.getUnitResourceCounts().get(0).getCountResources());
+                    assertEquals("PRET", report.getCompositeResourceCounts().get(0).getResourceState());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository);
+    }
+
+    @Test
+    void allocateBatch_ShouldGiveSharedResourceToFirstServiceInOrder_WhenConditional() {
+        // Given: les services 1 et 2 se disputent l'unité 10 ; le service 3 est indépendant
+        Services first = new Services("Critique", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        first.setId(1L);
+        Services second = new Services("Normal", null, ServiceType.BLOQUANT, Priority.NORMALE);
+        second.setId(2L);
+        Services third = new Services("Basse", null, ServiceType.BLOQUANT, Priority.BASSE);
+        third.setId(3L);
+
+        when(serviceRepository.findResourceRequirementStatesForServices(List.of(1L, 2L, 3L))).thenReturn(Flux.just(
+                new ServiceRequirementRow(1L, 10L, UnitResourceState.LIBRE),
+                new ServiceRequirementRow(2L, 10L, UnitResourceState.LIBRE),
+                new ServiceRequirementRow(2L, 11L, UnitResourceState.LIBRE),
+                new ServiceRequirementRow(3L, 12L, UnitResourceState.LIBRE)));
+        when(unitResourceRepository.allocateIfFree(Set.of(10L), 1L)).thenReturn(Mono.just(1));
+        when(unitResourceRepository.allocateIfFree(Set.of(12L), 3L)).thenReturn(Mono.just(1));
+
+        // When
+        Mono<ResourceAllocationService.BatchAllocation> result =
+                conditionalAllocationService().allocateBatch(List.of(first, second, third));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(allocation -> {
+                    assertEquals(List.of(1L, 3L), allocation.allocatedServiceIds());
+                    assertEquals(List.of(2L), allocation.refusedServiceIds());
+                })
+                .verifyComplete();
+
+        verify(unitResourceRepository, never()).allocateIfFree(any(), eq(2L));
+    }
+
+    @Test
+    void allocateBatch_ShouldResolveFiveHundredServicesWithOneQuery_WhenInMemory() {
+        // Given: 500 services BLOQUANT, chaque paire se disputant la même unité
+        List<Services> services = new ArrayList<>();
+        List<ServiceRepository.ServiceRequirementState> rows = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            Services service = new Services("Service-" + id, null, ServiceType.BLOQUANT, Priority.NORMALE);
+            service.setId(id);
+            services.add(service);
+            long unitId = (id + 1) / 2;
+            marking.units().put(unitId, UnitResourceState.LIBRE, null);
+            rows.add(new ServiceRequirementRow(id, unitId, UnitResourceState.LIBRE));
+        }
+        marking.markLoaded();
+        when(serviceRepository.findResourceRequirementStatesForServices(any())).thenReturn(Flux.fromIterable(rows));
+
+        // When
+        ResourceAllocationService.BatchAllocation allocation =
+                inMemoryAllocationService().allocateBatch(services).block();
+
+        // Then
+        assertEquals(250, allocation.allocatedServiceIds().size());
+        assertEquals(250, allocation.refusedServiceIds().size());
+        assertEquals(1L, marking.units().owner(1L));
+        assertEquals(250, marking.units().count(UnitResourceState.AFFECTE));
+        verify(serviceRepository, times(1)).findResourceRequirementStatesForServices(any());
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository);
+    }
+
+    @Test
+    void plan_ShouldReportBlockingResourceAndConflictWithoutWrites_ForThousandServices() {
+        // Given: 1000 services BLOQUANT, chaque paire se disputant la même unité ; l'unité 1 est déjà occupée
+        List<Services> services = new ArrayList<>();
+        List<ServiceRepository.ServiceRequirementState> rows = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            Services service = new Services("Service-" + id, null, ServiceType.BLOQUANT, Priority.NORMALE);
+            service.setId(id);
+            services.add(service);
+            long unitId = (id + 1) / 2;
+            rows.add(new ServiceRequirementRow(id, unitId, unitId == 1 ? UnitResourceState.OCCUPE : UnitResourceState.LIBRE));
+        }
+        when(serviceRepository.findResourceRequirementStatesForServices(any())).thenReturn(Flux.fromIterable(rows));
+
+        // When
+        List<ResourceAllocationService.PlannedAllocation> plan =
+                conditionalAllocationService().plan(services).block();
+
+        // Then
+        assertEquals(1000, plan.size());
+        assertFalse(plan.get(0).allocatable());
+        assertEquals(1L, plan.get(0).blockingUnitResourceId());
+        assertNull(plan.get(0).conflictingServiceId(), "Bloqué hors du lot");
+        assertEquals(Set.of(2L), plan.get(2).unitResourceIds());
+        assertEquals(2L, plan.get(3).blockingUnitResourceId());
+        assertEquals(3L, plan.get(3).conflictingServiceId());
+        assertEquals(499,
+                plan.stream().filter(ResourceAllocationService.PlannedAllocation::allocatable).count());
+        verify(serviceRepository, times(1)).findResourceRequirementStatesForServices(any());
+        verifyNoInteractions(unitResourceRepository, compositeResourceRepository);
+    }
+
+    private record ServiceRequirementRow(Long serviceId, Long unitResourceId, UnitResourceState unitState)
+            implements ServiceRepository.ServiceRequirementState {
+
+        @Override
+        public Long getServiceId() { return serviceId; }
+
+        @Override
+        public Long getUnitResourceId() { return unitResourceId; }
+
+        @Override
+        public String getUnitState() { return unitState.name(); }
+
+        @Override
+        public Long getCompositeResourceId() { return null; }
+
+        @Override
+        public String getCompositeState() { return null; }
+
+        @Override
+        public Integer getCompositeReadyComponents() { return null; }
+
+        @Override
+        public Integer getCompositeRequiredComponents() { return null; }
+    }
+}
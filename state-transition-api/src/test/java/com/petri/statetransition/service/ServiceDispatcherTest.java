@@ -0,0 +1,141 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.DispatcherStatsDTO;
+import com.petri.statetransition.dto.PriorityQueueStatsDTO;
+import com.petri.statetransition.exception.ConfigurationException;
+import com.petri.statetransition.exception.InvalidStateTransitionException;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.repository.ServiceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceDispatcherTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-01T12:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime NOW = LocalDateTime.now(CLOCK);
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private ServiceManager serviceManager;
+
+    @Test
+    void dispatch_ShouldStartServicesByWeightedShare_NotStrictPriority() {
+        // Given: HAUTE pèse deux fois NORMALE, un démarrage à la fois
+        stubReadyServices();
+        ServiceDispatcher dispatcher = dispatcher(1);
+        when(serviceManager.startService(anyLong())).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(dispatcher.dispatch())
+                .expectNext(6L)
+                .verifyComplete();
+
+        // Then
+        InOrder order = inOrder(serviceManager);
+        for (Long id : List.of(1L, 11L, 2L, 3L, 12L, 4L)) {
+            order.verify(serviceManager).startService(id);
+        }
+
+        DispatcherStatsDTO stats = dispatcher.stats();
+        assertEquals(6L, stats.dispatched());
+        assertEquals(0, stats.inFlight());
+        PriorityQueueStatsDTO normale = stats.priorities().get(Priority.NORMALE.ordinal());
+        assertEquals(2L, normale.dispatched());
+        assertEquals(30_000L, normale.maxWaitMs());
+        assertEquals(2L, normale.waitTimeHistogram().get("≤30000ms"));
+        assertEquals(0, normale.queueDepth());
+    }
+
+    @Test
+    void dispatch_ShouldBoundConcurrentStarts() {
+        // Given: les démarrages ne se terminent pas
+        stubReadyServices();
+        ServiceDispatcher dispatcher = dispatcher(2);
+        when(serviceManager.startService(anyLong())).thenReturn(Mono.never());
+
+        // When
+        dispatcher.dispatch().subscribe();
+
+        // Then: deux démarrages en cours, les autres restent en file
+        verify(serviceManager, times(2)).startService(anyLong());
+        DispatcherStatsDTO stats = dispatcher.stats();
+        assertEquals(2, stats.inFlight());
+        assertEquals(4, stats.priorities().stream().mapToInt(PriorityQueueStatsDTO::queueDepth).sum());
+
+        // Un second cycle est ignoré tant que le premier n'est pas terminé
+        StepVerifier.create(dispatcher.dispatch())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void dispatch_ShouldCountRefusedStartsAndContinue() {
+        // Given
+        stubReadyServices();
+        ServiceDispatcher dispatcher = dispatcher(1);
+        when(serviceManager.startService(anyLong())).thenReturn(Mono.empty());
+        when(serviceManager.startService(1L))
+                .thenReturn(Mono.error(new InvalidStateTransitionException("Service déjà démarré")));
+
+        // When & Then
+        StepVerifier.create(dispatcher.dispatch())
+                .expectNext(5L)
+                .verifyComplete();
+        assertEquals(1L, dispatcher.stats().failed());
+        assertEquals(5L, dispatcher.stats().dispatched());
+    }
+
+    @Test
+    void parseWeights_ShouldRejectInvalidEntries() {
+        assertEquals(Map.of(Priority.CRITIQUE, 8, Priority.BASSE, 1),
+                ServiceDispatcher.parseWeights("CRITIQUE=8, BASSE=1"));
+        assertThrows(ConfigurationException.class, () -> ServiceDispatcher.parseWeights("URGENT=3"));
+        assertThrows(ConfigurationException.class, () -> ServiceDispatcher.parseWeights("HAUTE=0"));
+    }
+
+    private ServiceDispatcher dispatcher(int maxConcurrency) {
+        return new ServiceDispatcher(serviceRepository, serviceManager, true, maxConcurrency, 16,
+                Map.of(Priority.HAUTE, 2, Priority.NORMALE, 1), CLOCK);
+    }
+
+    private static Services ready(Long id, Priority priority, long readySeconds) {
+        Services service = new Services();
+        service.setId(id);
+        service.setPriority(priority);
+        service.setUpdatedAt(NOW.minusSeconds(readySeconds));
+        return service;
+    }
+
+    private void stubReadyServices() {
+        when(serviceRepository.findReadyServicesByPriority(any(Priority.class), anyInt())).thenAnswer(invocation -> {
+            Priority priority = invocation.getArgument(0);
+            return switch (priority) {
+                case HAUTE -> Flux.just(ready(1L, priority, 2), ready(2L, priority, 2), ready(3L, priority, 2),
+                        ready(4L, priority, 2));
+                case NORMALE -> Flux.just(ready(11L, priority, 30), ready(12L, priority, 30));
+                default -> Flux.empty();
+            };
+        });
+    }
+}
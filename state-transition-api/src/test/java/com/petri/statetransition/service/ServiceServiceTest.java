@@ -1,27 +1,37 @@
 package com.petri.statetransition.service;
 
+import com.petri.statetransition.dto.BatchStartResultDTO;
 import com.petri.statetransition.dto.CreateServiceDTO;
 import com.petri.statetransition.dto.ServiceDTO;
+import com.petri.statetransition.dto.UpdateServiceDTO;
 import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.enums.JournalMode;
 import com.petri.statetransition.model.enums.ServiceState;
 import com.petri.statetransition.model.enums.ServiceType;
 import com.petri.statetransition.model.enums.Priority;
+import com.petri.statetransition.model.enums.TransitionType;
 import com.petri.statetransition.repository.ServiceRepository;
 import com.petri.statetransition.repository.ServiceUnitResourceRepository;
 import com.petri.statetransition.repository.ServiceCompositeResourceRepository;
+import com.petri.statetransition.exception.ConcurrencyException;
 import com.petri.statetransition.exception.ResourceNotFoundException;
 import com.petri.statetransition.exception.InvalidStateTransitionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -47,6 +57,12 @@ class ServiceServiceTest {
     @Mock
     private TransitionService transitionService;
 
+    @Mock
+    private BlockedServiceWakeup blockedServiceWakeup;
+
+    @Mock
+    private CapacityAllocator capacityAllocator;
+
     private ServiceManager serviceService;
 
     private Services testService;
@@ -59,7 +75,12 @@ class ServiceServiceTest {
                 serviceUnitResourceRepository,
                 serviceCompositeResourceRepository,
                 resourceAllocationService,
-                transitionService
+                transitionService,
+                new TransitionJournal(transitionService, JournalMode.DIRECT,
+                        1, 1, Duration.ofMillis(1), Duration.ZERO, 0),
+                blockedServiceWakeup,
+                capacityAllocator,
+                new ConcurrencyRetry(null, 2, 1, 5, 0.5)
         );
 
         // Service de test
@@ -77,7 +98,8 @@ class ServiceServiceTest {
                 List.of(1L, 2L), // Unit resources
                 List.of(1L),     // Composite resources
                 30,              // Max execution time
-                false            // Auto retry
+                false,           // Auto retry
+                null             // Allocation exclusive
         );
     }
 
@@ -135,6 +157,41 @@ class ServiceServiceTest {
                 .verify();
     }
 
+    @Test
+    void updateService_ShouldRereadAndRetry_WhenVersionConflicts() {
+        // Given: la première sauvegarde perd contre une mise à jour concurrente (version périmée)
+        when(serviceRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> testService));
+        when(serviceRepository.save(any(Services.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("version périmée")))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        UpdateServiceDTO update = new UpdateServiceDTO("Renamed", null, null, null, null, null, null);
+
+        // When / Then
+        StepVerifier.create(serviceService.updateService(1L, update))
+                .expectNextMatches(dto -> dto.name().equals("Renamed"))
+                .verifyComplete();
+
+        verify(serviceRepository, times(2)).findById(1L);
+        verify(serviceRepository, times(2)).save(any(Services.class));
+    }
+
+    @Test
+    void updateService_ShouldRaiseConcurrencyException_WhenConflictPersists() {
+        // Given
+        when(serviceRepository.findById(1L)).thenReturn(Mono.fromSupplier(() -> testService));
+        when(serviceRepository.save(any(Services.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("version périmée")));
+        UpdateServiceDTO update = new UpdateServiceDTO("Renamed", null, null, null, null, null, null);
+
+        // When / Then
+        StepVerifier.create(serviceService.updateService(1L, update))
+                .expectErrorMatches(error -> error instanceof ConcurrencyException conflict &&
+                        "Service".equals(conflict.getResourceType()) && conflict.getResourceId() == 1L)
+                .verify();
+
+        verify(serviceRepository, times(3)).save(any(Services.class));
+    }
+
     @Test
     void startService_ShouldReturnServiceDTO_WhenServiceIsReady() {
         // Given
@@ -168,6 +225,7 @@ class ServiceServiceTest {
         testService.setState(ServiceState.PRET);
         when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
         when(resourceAllocationService.checkResourceAvailability(1L)).thenReturn(Mono.just(false));
+        when(resourceAllocationService.preempt(testService)).thenReturn(Mono.empty());
         when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
 
         Services blockedService = new Services(testService.getName(), testService.getDescription(), testService.getType(), testService.getPriority());
@@ -175,6 +233,7 @@ class ServiceServiceTest {
         blockedService.setState(ServiceState.BLOQUE);
 
         when(serviceRepository.save(any(Services.class))).thenReturn(Mono.just(blockedService));
+        when(blockedServiceWakeup.park(1L)).thenReturn(Mono.just(true));
 
         // When
         Mono<ServiceDTO> result = serviceService.startService(1L);
@@ -185,6 +244,100 @@ class ServiceServiceTest {
                 .verifyComplete();
 
         verify(resourceAllocationService, never()).allocateResources(1L);
+        verify(blockedServiceWakeup).park(1L);
+    }
+
+    @Test
+    void startService_ShouldPreemptLowerPriorityServices_InsteadOfBlocking() {
+        // Given: service CRITIQUE sans ressources libres, deux services BASSE évincés
+        testService.setState(ServiceState.PRET);
+        testService.setPriority(Priority.CRITIQUE);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(resourceAllocationService.checkResourceAvailability(1L)).thenReturn(Mono.just(false));
+        when(resourceAllocationService.preempt(testService)).thenReturn(Mono.just(List.of(7L, 8L)));
+        when(transitionService.recordTransition(eq(TransitionType.NORMALE),
+                any(), eq(List.of(7L, 8L)), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+        when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+        when(blockedServiceWakeup.park(any(Long.class))).thenReturn(Mono.just(true));
+        when(serviceRepository.save(any(Services.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        Mono<ServiceDTO> result = serviceService.startService(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextMatches(dto -> dto.state() == ServiceState.EN_COURS)
+                .verifyComplete();
+
+        verify(blockedServiceWakeup).park(7L);
+        verify(blockedServiceWakeup).park(8L);
+        verify(blockedServiceWakeup, never()).park(1L);
+        verify(resourceAllocationService, never()).allocateResources(1L);
+    }
+
+    @Test
+    void startService_ShouldPlaceDemandOnSharedResource_WhenServiceDeclaresDemand() {
+        // Given
+        testService.setState(ServiceState.PRET);
+        testService.setDemand(4);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(capacityAllocator.place(testService)).thenReturn(Mono.just(10L));
+        when(serviceRepository.save(any(Services.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+
+        // When
+        Mono<ServiceDTO> result = serviceService.startService(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextMatches(dto -> dto.state() == ServiceState.EN_COURS && dto.demand() == 4)
+                .verifyComplete();
+
+        verifyNoInteractions(resourceAllocationService);
+    }
+
+    @Test
+    void startService_ShouldParkDemandServiceOnCandidates_WhenNoSharedCapacityLeft() {
+        // Given
+        testService.setState(ServiceState.PRET);
+        testService.setDemand(4);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(capacityAllocator.place(testService)).thenReturn(Mono.empty());
+        when(capacityAllocator.candidates(testService)).thenReturn(Mono.just(List.of(10L, 11L)));
+        when(serviceRepository.save(any(Services.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+
+        // When
+        Mono<ServiceDTO> result = serviceService.startService(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextMatches(dto -> dto.state() == ServiceState.BLOQUE)
+                .verifyComplete();
+
+        verify(blockedServiceWakeup).park(1L, List.of(10L, 11L), List.of());
+        verify(blockedServiceWakeup, never()).park(1L);
+    }
+
+    @Test
+    void completeService_ShouldReleaseSharedLoad_WhenServiceDeclaresDemand() {
+        // Given
+        testService.setState(ServiceState.EN_COURS);
+        testService.setDemand(4);
+        when(serviceRepository.findById(1L)).thenReturn(Mono.just(testService));
+        when(capacityAllocator.release(1L)).thenReturn(Mono.just(List.of(10L)));
+        when(serviceRepository.save(any(Services.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+
+        // When
+        Mono<ServiceDTO> result = serviceService.completeService(1L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextMatches(dto -> dto.state() == ServiceState.TERMINE)
+                .verifyComplete();
+
+        verify(resourceAllocationService, never()).releaseResources(1L);
     }
 
     @Test
@@ -289,6 +442,123 @@ class ServiceServiceTest {
                 .verify();
     }
 
+    @Test
+    void startServices_ShouldArbitrateByPriorityThenAge_AndApplyOutcomeInBulk() {
+        // Given
+        Services normalOld = new Services("Normal ancien", null, ServiceType.BLOQUANT, Priority.NORMALE);
+        normalOld.setId(1L);
+        normalOld.setState(ServiceState.PRET);
+        normalOld.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+        Services critical = new Services("Critique", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        critical.setId(2L);
+        critical.setState(ServiceState.PRET);
+        critical.setCreatedAt(LocalDateTime.now());
+
+        Services normalRecent = new Services("Normal récent", null, ServiceType.BLOQUANT, Priority.NORMALE);
+        normalRecent.setId(3L);
+        normalRecent.setState(ServiceState.PRET);
+        normalRecent.setCreatedAt(LocalDateTime.now().minusHours(1));
+
+        Services running = new Services("En cours", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        running.setId(4L);
+        running.setState(ServiceState.EN_COURS);
+
+        when(serviceRepository.findAllById(any(Iterable.class)))
+                .thenReturn(Flux.just(normalOld, critical, normalRecent, running));
+        when(resourceAllocationService.allocateBatch(List.of(critical, normalOld, normalRecent)))
+                .thenReturn(Mono.just(new ResourceAllocationService.BatchAllocation(List.of(2L, 1L), List.of(3L))));
+        when(serviceRepository.markStarted(List.of(2L, 1L))).thenReturn(Mono.just(2));
+        when(serviceRepository.markBlocked(List.of(3L))).thenReturn(Mono.just(1));
+        when(transitionService.recordTransitions(any())).thenReturn(Mono.just(3L));
+        when(blockedServiceWakeup.park(3L)).thenReturn(Mono.just(true));
+
+        // When
+        Mono<BatchStartResultDTO> result =
+                serviceService.startServices(List.of(1L, 2L, 3L, 4L, 5L));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(batch -> {
+                    assertEquals(List.of(2L, 1L), batch.startedServiceIds());
+                    assertEquals(List.of(3L), batch.blockedServiceIds());
+                    assertEquals(List.of(4L, 5L), batch.rejectedServiceIds());
+                    assertEquals(3L, batch.transitionsRecorded());
+                })
+                .verifyComplete();
+
+        verify(serviceRepository, never()).save(any(Services.class));
+        verify(transitionService).recordTransitions(argThat(transitions -> transitions.size() == 3));
+    }
+
+    @Test
+    void startServices_ShouldReleaseClaims_OfServicesNoLongerReadyWhenStarted() {
+        // Given - le service 1 est annulé entre l'allocation et le passage EN_COURS
+        Services first = new Services("Premier", null, ServiceType.BLOQUANT, Priority.NORMALE);
+        first.setId(1L);
+        first.setState(ServiceState.PRET);
+        Services second = new Services("Second", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        second.setId(2L);
+        second.setState(ServiceState.PRET);
+
+        when(serviceRepository.findAllById(any(Iterable.class))).thenReturn(Flux.just(first, second));
+        when(resourceAllocationService.allocateBatch(List.of(second, first)))
+                .thenReturn(Mono.just(new ResourceAllocationService.BatchAllocation(List.of(2L, 1L), List.of())));
+        when(serviceRepository.markStarted(List.of(2L, 1L))).thenReturn(Mono.just(1));
+        when(serviceRepository.findIdsInState(List.of(2L, 1L), "EN_COURS")).thenReturn(Flux.just(2L));
+        when(resourceAllocationService.releaseResources(1L)).thenReturn(Mono.empty());
+        when(transitionService.recordTransitions(any())).thenReturn(Mono.just(1L));
+
+        // When / Then
+        StepVerifier.create(serviceService.startServices(List.of(1L, 2L)))
+                .assertNext(batch -> {
+                    assertEquals(List.of(2L), batch.startedServiceIds());
+                    assertEquals(List.of(1L), batch.rejectedServiceIds());
+                })
+                .verifyComplete();
+
+        verify(resourceAllocationService).releaseResources(1L);
+        verify(transitionService).recordTransitions(List.of(
+                new TransitionService.NewTransition(TransitionType.NORMALE, "Service démarré", List.of(2L))));
+    }
+
+    @Test
+    void resumeBlockedServices_ShouldStartInPriorityOrder_AndParkThoseStillBlocked() {
+        // Given
+        Services normal = new Services("Normal", null, ServiceType.BLOQUANT, Priority.NORMALE);
+        normal.setId(1L);
+        normal.setState(ServiceState.BLOQUE);
+        Services critical = new Services("Critique", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        critical.setId(2L);
+        critical.setState(ServiceState.BLOQUE);
+        Services cancelled = new Services("Annulé", null, ServiceType.BLOQUANT, Priority.CRITIQUE);
+        cancelled.setId(3L);
+        cancelled.setState(ServiceState.ANNULE);
+
+        when(serviceRepository.findAllById(List.of(1L, 2L, 3L)))
+                .thenReturn(Flux.just(normal, critical, cancelled));
+        when(resourceAllocationService.checkResourceAvailability(2L)).thenReturn(Mono.just(true));
+        when(resourceAllocationService.allocateResources(2L)).thenReturn(Mono.empty());
+        when(resourceAllocationService.checkResourceAvailability(1L)).thenReturn(Mono.just(false));
+        when(blockedServiceWakeup.park(1L)).thenReturn(Mono.just(true));
+        when(serviceRepository.save(any(Services.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(transitionService.recordTransition(any(), any(), any(), any())).thenReturn(Mono.just(createMockTransitionDTO()));
+
+        // When
+        Flux<ServiceDTO> result = serviceService.resumeBlockedServices(List.of(1L, 2L, 3L));
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextMatches(dto -> dto.id().equals(2L) && dto.state() == ServiceState.EN_COURS)
+                .verifyComplete();
+
+        InOrder order = inOrder(resourceAllocationService);
+        order.verify(resourceAllocationService).checkResourceAvailability(2L);
+        order.verify(resourceAllocationService).checkResourceAvailability(1L);
+        verify(blockedServiceWakeup).park(1L);
+        verify(resourceAllocationService, never()).checkResourceAvailability(3L);
+    }
+
     // Méthodes utilitaires pour les tests
 
     private com.petri.statetransition.dto.TransitionDTO createMockTransitionDTO() {
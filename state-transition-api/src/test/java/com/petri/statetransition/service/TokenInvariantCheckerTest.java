@@ -0,0 +1,223 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.InvariantViolationDTO;
+import com.petri.statetransition.engine.ResourceMarking;
+import com.petri.statetransition.model.entity.Services;
+import com.petri.statetransition.model.entity.UnitResource;
+import com.petri.statetransition.model.enums.AllocationMode;
+import com.petri.statetransition.model.enums.CompositeResourceState;
+import com.petri.statetransition.model.enums.InvariantViolationType;
+import com.petri.statetransition.model.enums.ServiceState;
+import com.petri.statetransition.model.enums.UnitResourceState;
+import com.petri.statetransition.repository.CompositeResourceRepository;
+import com.petri.statetransition.repository.ServiceRepository;
+import com.petri.statetransition.repository.UnitResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenInvariantCheckerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T12:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime SETTLED = LocalDateTime.of(2026, 1, 1, 11, 0);
+    private static final LocalDateTime RECENT = LocalDateTime.of(2026, 1, 1, 11, 59, 50);
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private UnitResourceRepository unitResourceRepository;
+
+    @Mock
+    private CompositeResourceRepository compositeResourceRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CompositeResourceService compositeResourceService;
+
+    private ReservationLeases leases;
+
+    @BeforeEach
+    void setUp() {
+        leases = new ReservationLeases(compositeResourceRepository, compositeResourceService,
+                Duration.ofSeconds(120), 250, CLOCK);
+    }
+
+    @Test
+    void check_ShouldFlagTokensStillHeld_AfterServiceReleasedItsResources() {
+        // Given
+        ResourceMarking marking = loadedMarking();
+        TokenInvariantChecker checker = checker(marking, AllocationMode.EN_MEMOIRE);
+        assertTrue(marking.tryClaim(1L, List.of(10L, 11L), List.of()));
+
+        // When: la libération oublie la ressource 11 (exigences modifiées après l'allocation)
+        marking.release(1L, List.of(10L), List.of());
+        List<InvariantViolationDTO> violations = checker.check(1L, true);
+
+        // Then
+        assertEquals(1, violations.size());
+        assertEquals(InvariantViolationType.JETON_NON_RENDU, violations.get(0).type());
+        assertEquals(11L, violations.get(0).resourceId());
+        assertEquals(1L, checker.report().heldTokens());
+        assertEquals(1L, checker.report().violationsByType().get(InvariantViolationType.JETON_NON_RENDU));
+
+        marking.release(1L, List.of(11L), List.of());
+        assertTrue(checker.check(1L, true).isEmpty());
+        assertEquals(0L, checker.report().heldTokens());
+    }
+
+    @Test
+    void check_ShouldFlagReadyComposite_WhoseRequiredComponentsAreFree() {
+        // Given: composite 20 (composants 10 et 11) prête sans que ses composants aient été affectés
+        ResourceMarking marking = loadedMarking();
+        marking.composites().put(20L, CompositeResourceState.VIDE, null);
+        marking.trackComponent(20L, 10L);
+        marking.trackComponent(20L, 11L);
+        TokenInvariantChecker checker = checker(marking, AllocationMode.EN_MEMOIRE);
+
+        // When
+        assertTrue(marking.tryClaim(1L, List.of(), List.of(20L)));
+        List<InvariantViolationDTO> violations = checker.check(1L, false);
+
+        // Then
+        assertEquals(1, violations.size());
+        assertEquals(InvariantViolationType.COMPOSITE_INCOMPLETE, violations.get(0).type());
+        assertEquals("PRET", violations.get(0).resourceState());
+
+        // Composants affectés avec la composite : aucune violation
+        marking.release(1L, List.of(), List.of(20L));
+        assertTrue(marking.tryClaim(2L, List.of(10L, 11L), List.of(20L)));
+        assertTrue(checker.check(2L, false).isEmpty());
+    }
+
+    @Test
+    void scan_ShouldRepairLostTokensChunkByChunk_AndSkipRecentChanges() {
+        // Given: tranches de deux ressources
+        TokenInvariantChecker checker = checker(new ResourceMarking(), AllocationMode.CONDITIONNELLE);
+        UnitResource orphan = unit(1L, UnitResourceState.AFFECTE, 5L, SETTLED);
+        UnitResource free = unit(2L, UnitResourceState.LIBRE, null, SETTLED);
+        UnitResource running = unit(3L, UnitResourceState.OCCUPE, 6L, SETTLED);
+        UnitResource claiming = unit(4L, UnitResourceState.AFFECTE, null, RECENT);
+        when(unitResourceRepository.findChunkAfter(0L, 2)).thenReturn(Flux.just(orphan, free));
+        when(unitResourceRepository.findChunkAfter(2L, 2)).thenReturn(Flux.just(running, claiming));
+        when(unitResourceRepository.findChunkAfter(4L, 2)).thenReturn(Flux.empty());
+        when(compositeResourceRepository.findHoldingChunkAfter(0L, 2)).thenReturn(Flux.just(
+                new Holding(30L, "PRET", 6L, 2, 1L)));
+        when(serviceRepository.findAllById(Set.of(5L))).thenReturn(Flux.just(service(5L, ServiceState.TERMINE)));
+        when(serviceRepository.findAllById(Set.of(6L))).thenReturn(Flux.just(service(6L, ServiceState.EN_COURS)));
+        when(unitResourceRepository.repairToken(1L, 7L)).thenReturn(Mono.just(1));
+
+        // When / Then
+        StepVerifier.create(checker.scan(true))
+                .assertNext(scan -> {
+                    assertEquals(4L, scan.scannedUnitResources());
+                    assertEquals(1L, scan.scannedCompositeResources());
+                    assertEquals(1L, scan.repairedTokens());
+                    assertEquals(List.of(InvariantViolationType.UNITE_ORPHELINE, InvariantViolationType.COMPOSITE_INCOMPLETE),
+                            scan.violations().stream().map(InvariantViolationDTO::type).toList());
+                    assertTrue(scan.violations().get(0).repaired());
+                    assertFalse(scan.violations().get(1).repaired());
+                })
+                .verifyComplete();
+        verify(compositeResourceRepository, never()).repairToken(anyLong(), anyLong());
+        verify(eventPublisher).publishEvent(new BlockedServiceWakeup.ResourcesReleased(List.of(1L), List.of()));
+        assertNotNull(checker.report().lastScan());
+    }
+
+    @Test
+    void scan_ShouldLeaveLeasedReservationIntact_AndOnlyReportOwnerlessResources() {
+        // Given: composite 30 réservée sous bail avec son composant 1, ressource 2 et composite 31 prises sans propriétaire
+        TokenInvariantChecker checker = checker(new ResourceMarking(), AllocationMode.CONDITIONNELLE);
+        leases.grant(30L);
+        leases.recordComponent(30L, 1L);
+        when(unitResourceRepository.findChunkAfter(0L, 2)).thenReturn(Flux.just(
+                unit(1L, UnitResourceState.AFFECTE, null, SETTLED),
+                unit(2L, UnitResourceState.AFFECTE, null, SETTLED)));
+        when(unitResourceRepository.findChunkAfter(2L, 2)).thenReturn(Flux.empty());
+        when(compositeResourceRepository.findHoldingChunkAfter(0L, 2)).thenReturn(Flux.just(
+                new Holding(30L, "PRET", null, 2, 1L),
+                new Holding(31L, "EN_COURS_RESERVATION", null, 2, 0L)));
+        when(compositeResourceRepository.findHoldingChunkAfter(31L, 2)).thenReturn(Flux.empty());
+
+        // When / Then
+        StepVerifier.create(checker.scan(true))
+                .assertNext(scan -> {
+                    assertEquals(0L, scan.repairedTokens());
+                    assertEquals(List.of(InvariantViolationType.UNITE_SANS_DETENTEUR,
+                                    InvariantViolationType.COMPOSITE_SANS_DETENTEUR),
+                            scan.violations().stream().map(InvariantViolationDTO::type).toList());
+                    assertEquals(List.of(2L, 31L),
+                            scan.violations().stream().map(InvariantViolationDTO::resourceId).toList());
+                    assertFalse(scan.violations().get(0).repaired());
+                    assertFalse(scan.violations().get(1).repaired());
+                })
+                .verifyComplete();
+        verify(unitResourceRepository, never()).repairToken(anyLong(), anyLong());
+        verify(compositeResourceRepository, never()).repairToken(anyLong(), anyLong());
+        verifyNoInteractions(eventPublisher, compositeResourceService);
+        assertNotNull(leases.deadline(30L));
+        assertEquals(Set.of(1L), leases.leasedComponents());
+    }
+
+    private TokenInvariantChecker checker(ResourceMarking marking, AllocationMode mode) {
+        return new TokenInvariantChecker(serviceRepository, unitResourceRepository, compositeResourceRepository,
+                marking, leases, eventPublisher, mode, 2, Duration.ofSeconds(30), CLOCK);
+    }
+
+    private static ResourceMarking loadedMarking() {
+        ResourceMarking marking = new ResourceMarking();
+        marking.units().put(10L, UnitResourceState.LIBRE, null);
+        marking.units().put(11L, UnitResourceState.LIBRE, null);
+        marking.markLoaded();
+        return marking;
+    }
+
+    private static UnitResource unit(Long id, UnitResourceState state, Long owner, LocalDateTime updatedAt) {
+        UnitResource unit = new UnitResource("Ressource " + id, null);
+        unit.setId(id);
+        unit.setState(state);
+        unit.setAllocatedServiceId(owner);
+        unit.setUpdatedAt(updatedAt);
+        unit.setVersion(7L);
+        return unit;
+    }
+
+    private static Services service(Long id, ServiceState state) {
+        Services service = new Services();
+        service.setId(id);
+        service.setState(state);
+        return service;
+    }
+
+    private record Holding(Long id, String state, Long allocatedServiceId, Integer requiredComponents,
+                           Long heldComponents) implements CompositeResourceRepository.CompositeHolding {
+
+        public Long getId() { return id; }
+        public String getState() { return state; }
+        public Long getAllocatedServiceId() { return allocatedServiceId; }
+        public Long getVersion() { return 3L; }
+        public LocalDateTime getUpdatedAt() { return SETTLED; }
+        public Integer getRequiredComponents() { return requiredComponents; }
+        public Long getHeldComponents() { return heldComponents; }
+    }
+}
@@ -0,0 +1,121 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.dto.TransitionExecutorStatsDTO;
+import com.petri.statetransition.exception.ConfigurationException;
+import com.petri.statetransition.exception.TransitionException;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.TransitionType;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour l'aiguillage des transitions vers leurs exécuteurs
+ */
+class TransitionExecutorRegistryTest {
+
+    @Test
+    void execute_ShouldPreferNamedExecutor_AndCompleteTransitionsWithoutExecutor() {
+        // Given
+        AtomicBoolean typeExecuted = new AtomicBoolean();
+        AtomicBoolean namedExecuted = new AtomicBoolean();
+        TransitionExecutorRegistry registry = registry(
+                executor(TransitionType.NORMALE, null, null, transition -> Mono.fromRunnable(() -> typeExecuted.set(true))),
+                executor(TransitionType.NORMALE, "export", null, transition -> Mono.fromRunnable(() -> namedExecuted.set(true))));
+
+        // When / Then
+        StepVerifier.create(registry.execute(transition(1L, TransitionType.NORMALE, "export"))).verifyComplete();
+        assertTrue(namedExecuted.get());
+        assertFalse(typeExecuted.get());
+        StepVerifier.create(registry.execute(transition(2L, TransitionType.SYNCHRONE, "autre"))).verifyComplete();
+        assertFalse(typeExecuted.get());
+        assertEquals(List.of(0L, 1L), registry.stats().stream().map(TransitionExecutorStatsDTO::completed).toList());
+    }
+
+    @Test
+    void execute_ShouldFailWithReadableReason_OnTimeout() {
+        // Given
+        TransitionExecutorRegistry registry = registry(
+                executor(TransitionType.AUTOMATIQUE, null, Duration.ofMillis(50), transition -> Mono.never()));
+
+        // When / Then
+        StepVerifier.create(registry.execute(transition(1L, TransitionType.AUTOMATIQUE, "lente")))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(TransitionException.class, error);
+                    assertTrue(error.getMessage().startsWith("Délai d'exécution dépassé (50 ms)"));
+                })
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1L, registry.stats().get(0).timedOut());
+        assertEquals(0, registry.stats().get(0).active());
+    }
+
+    @Test
+    void cancel_ShouldInterruptRunningExecution_WithGivenReason() {
+        // Given
+        AtomicBoolean interrupted = new AtomicBoolean();
+        TransitionExecutorRegistry registry = registry(executor(TransitionType.NORMALE, null, null,
+                transition -> Mono.<Void>never().doOnCancel(() -> interrupted.set(true))));
+
+        // When / Then
+        StepVerifier.create(registry.execute(transition(7L, TransitionType.NORMALE, "longue")))
+                .then(() -> assertTrue(registry.cancel(7L, "Annulée: maintenance")))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(CancellationException.class, error);
+                    assertEquals("Annulée: maintenance", error.getMessage());
+                })
+                .verify(Duration.ofSeconds(5));
+        assertTrue(interrupted.get());
+        assertFalse(registry.cancel(7L, "Annulée: trop tard"));
+        assertEquals(1L, registry.stats().get(0).cancelled());
+    }
+
+    @Test
+    void constructor_ShouldRefuseTwoExecutorsForTheSameTransition() {
+        assertThrows(ConfigurationException.class, () -> registry(
+                executor(TransitionType.NORMALE, null, null, transition -> Mono.empty()),
+                executor(TransitionType.NORMALE, null, null, transition -> Mono.empty())));
+    }
+
+    private static TransitionExecutorRegistry registry(TransitionExecutor... executors) {
+        return new TransitionExecutorRegistry(List.of(executors), 2, 2, Duration.ofSeconds(5));
+    }
+
+    private static Transition transition(Long id, TransitionType type, String name) {
+        Transition transition = new Transition(type, name, null);
+        transition.setId(id);
+        return transition;
+    }
+
+    private static TransitionExecutor executor(TransitionType type, String name, Duration timeout,
+                                               Function<Transition, Mono<Void>> body) {
+        return new TransitionExecutor() {
+            @Override
+            public TransitionType type() {
+                return type;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Mono<Void> execute(Transition transition) {
+                return body.apply(transition);
+            }
+
+            @Override
+            public Duration timeout() {
+                return timeout;
+            }
+        };
+    }
+}
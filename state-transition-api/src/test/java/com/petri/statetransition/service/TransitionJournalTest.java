@@ -0,0 +1,146 @@
+package com.petri.statetransition.service;
+
+import com.petri.statetransition.exception.TransitionException;
+import com.petri.statetransition.model.enums.JournalMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour le journal des transitions en file
+ */
+@ExtendWith(MockitoExtension.class)
+class TransitionJournalTest {
+
+    @Mock
+    private TransitionService transitionService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldReturnImmediately_AndWriteOneBatch_WhenAsynchronous() {
+        // Given
+        TransitionJournal journal = journal(JournalMode.ASYNCHRONE, 16, 10);
+        when(transitionService.recordTransitions(anyList())).thenReturn(Mono.just(3L));
+
+        // When
+        for (long id = 1; id <= 3; id++) {
+            StepVerifier.create(journal.record("Service démarré", List.of(id), null, null)).verifyComplete();
+        }
+        verifyNoInteractions(transitionService);
+
+        // Then
+        StepVerifier.create(journal.flush()).expectNext(3L).verifyComplete();
+        ArgumentCaptor<List<TransitionService.NewTransition>> batch = ArgumentCaptor.forClass(List.class);
+        verify(transitionService).recordTransitions(batch.capture());
+        assertEquals(List.of(List.of(1L), List.of(2L), List.of(3L)),
+                batch.getValue().stream().map(TransitionService.NewTransition::serviceIds).toList());
+        assertEquals(3L, journal.stats().written());
+        assertEquals(1L, journal.stats().batches());
+        assertEquals(0, journal.stats().buffered());
+    }
+
+    @Test
+    void record_ShouldCompleteOnceTheBatchIsWritten_WhenGroupCommit() {
+        // Given: le lot part dès qu'il compte deux transitions
+        TransitionJournal journal = journal(JournalMode.GROUPE, 16, 2);
+        when(transitionService.recordTransitions(anyList())).thenReturn(Mono.just(2L));
+        AtomicBoolean firstWritten = new AtomicBoolean();
+
+        // When
+        Disposable first = journal.record("Service démarré", List.of(1L), null, null)
+                .subscribe(null, null, () -> firstWritten.set(true));
+        assertFalse(firstWritten.get());
+
+        // Then
+        StepVerifier.create(journal.record("Service terminé", List.of(2L), null, null)).verifyComplete();
+        assertTrue(firstWritten.get());
+        assertTrue(first.isDisposed());
+        verify(transitionService, times(1)).recordTransitions(argThat(transitions -> transitions.size() == 2));
+    }
+
+    @Test
+    void flush_ShouldReplayTheFailedBatch_WhenAsynchronous() {
+        // Given
+        TransitionJournal journal = journal(JournalMode.ASYNCHRONE, 16, 10);
+        when(transitionService.recordTransitions(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("Base indisponible")))
+                .thenReturn(Mono.just(1L));
+        StepVerifier.create(journal.record("Service bloqué", List.of(1L), null, null)).verifyComplete();
+
+        // When / Then
+        StepVerifier.create(journal.flush()).expectError(IllegalStateException.class).verify();
+        assertEquals(1, journal.stats().buffered());
+        assertEquals(1L, journal.stats().failedBatches());
+
+        StepVerifier.create(journal.flush()).expectNext(1L).verifyComplete();
+        assertEquals(0, journal.stats().buffered());
+        verify(transitionService, times(2)).recordTransitions(argThat(transitions -> transitions.size() == 1));
+    }
+
+    @Test
+    void flush_ShouldDropTheFailedBatch_AfterMaxRetries_AndMoveOn() {
+        // Given: un seul nouvel essai permis
+        TransitionJournal journal = journal(JournalMode.ASYNCHRONE, 16, 10, 1);
+        when(transitionService.recordTransitions(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("Base indisponible")))
+                .thenReturn(Mono.error(new IllegalStateException("Base indisponible")))
+                .thenReturn(Mono.just(1L));
+        StepVerifier.create(journal.record("Service bloqué", List.of(1L), null, null)).verifyComplete();
+
+        // When: échec initial puis échec du nouvel essai
+        StepVerifier.create(journal.flush()).expectError(IllegalStateException.class).verify();
+        StepVerifier.create(journal.flush()).expectError(IllegalStateException.class).verify();
+
+        // Then: le lot est abandonné, la transition suivante est écrite
+        assertEquals(0, journal.stats().buffered());
+        assertEquals(1L, journal.stats().dropped());
+        StepVerifier.create(journal.record("Service démarré", List.of(2L), null, null)).verifyComplete();
+        StepVerifier.create(journal.flush()).expectNext(1L).verifyComplete();
+        verify(transitionService).recordTransitions(argThat(transitions -> transitions.size() == 1
+                && transitions.get(0).serviceIds().equals(List.of(2L))));
+    }
+
+    @Test
+    void record_ShouldWaitForSpace_ThenFail_WhenTheBufferStaysFull() {
+        // Given: deux places et une écriture qui ne se termine pas
+        TransitionJournal journal = journal(JournalMode.ASYNCHRONE, 2, 10);
+        when(transitionService.recordTransitions(anyList())).thenReturn(Mono.never());
+        for (long id = 1; id <= 2; id++) {
+            StepVerifier.create(journal.record("Service démarré", List.of(id), null, null)).verifyComplete();
+        }
+
+        // When / Then: la file pleine déclenche un vidage, qui libère les places
+        for (long id = 3; id <= 4; id++) {
+            StepVerifier.create(journal.record("Service démarré", List.of(id), null, null)).verifyComplete();
+        }
+        // Le vidage en cours ne se termine pas : la cinquième attend puis abandonne
+        StepVerifier.create(journal.record("Service démarré", List.of(5L), null, null))
+                .expectError(TransitionException.class)
+                .verify(Duration.ofSeconds(5));
+        verify(transitionService, times(1)).recordTransitions(anyList());
+        assertEquals(2L, journal.stats().throttled());
+        assertEquals(1L, journal.stats().rejected());
+    }
+
+    private TransitionJournal journal(JournalMode mode, int capacity, int batchSize) {
+        return journal(mode, capacity, batchSize, 5);
+    }
+
+    private TransitionJournal journal(JournalMode mode, int capacity, int batchSize, int maxRetries) {
+        return new TransitionJournal(transitionService, mode, capacity, batchSize, Duration.ofMillis(1),
+                Duration.ofMillis(20), maxRetries);
+    }
+}
@@ -0,0 +1,188 @@
+package com.petri.statetransition.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petri.statetransition.dto.TriggerTransitionDTO;
+import com.petri.statetransition.model.entity.Transition;
+import com.petri.statetransition.model.enums.EntityKind;
+import com.petri.statetransition.model.enums.TransitionLifecycle;
+import com.petri.statetransition.model.enums.TransitionStatus;
+import com.petri.statetransition.model.enums.TransitionType;
+import com.petri.statetransition.repository.TransitionParticipantRepository;
+import com.petri.statetransition.repository.TransitionParticipantRepository.Participant;
+import com.petri.statetransition.repository.TransitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour le cycle de vie des transitions synchrones et leurs participants
+ */
+@ExtendWith(MockitoExtension.class)
+class TransitionServiceTest {
+
+    @Mock
+    private TransitionRepository transitionRepository;
+
+    @Mock
+    private TransitionParticipantRepository participantRepository;
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Test
+    void triggerSynchronousTransition_ShouldInsertStartedThenUpdateOnce_WhenLifecycleIsStarted() {
+        // Given
+        List<TransitionStatus> writes = recordWrites();
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.DEMARRE).triggerSynchronousTransition(trigger()))
+                .assertNext(dto -> assertEquals(TransitionStatus.TERMINEE, dto.status()))
+                .verifyComplete();
+        assertEquals(List.of(TransitionStatus.EN_COURS, TransitionStatus.TERMINEE), writes);
+    }
+
+    @Test
+    void triggerSynchronousTransition_ShouldCommitTheStart_BeforeExecuting() {
+        // Given - le démarrage est validé dans sa propre transaction, l'issue est écrite après
+        List<TransitionStatus> writes = recordWrites();
+        List<Integer> committedAfter = new ArrayList<>();
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation ->
+                ((Mono<?>) invocation.getArgument(0)).doOnSuccess(value -> committedAfter.add(writes.size())));
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.DEMARRE, transactionalOperator).triggerSynchronousTransition(trigger()))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(List.of(1), committedAfter);
+        assertEquals(List.of(TransitionStatus.EN_COURS, TransitionStatus.TERMINEE), writes);
+    }
+
+    @Test
+    void triggerSynchronousTransition_ShouldWriteOnlyTheOutcome_WhenLifecycleIsFinal() {
+        // Given
+        List<TransitionStatus> writes = recordWrites();
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.FINAL).triggerSynchronousTransition(trigger()))
+                .assertNext(dto -> {
+                    assertEquals(TransitionStatus.TERMINEE, dto.status());
+                    assertNotNull(dto.startedAt());
+                })
+                .verifyComplete();
+        assertEquals(List.of(TransitionStatus.TERMINEE), writes);
+        verify(participantRepository).saveAll(List.of(new Participant(1L, EntityKind.SERVICE, 1L)));
+    }
+
+    @Test
+    void triggerSynchronousTransition_ShouldKeepThreeWrites_WhenLifecycleIsComplete() {
+        // Given
+        List<TransitionStatus> writes = recordWrites();
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.COMPLET).triggerSynchronousTransition(trigger()))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(List.of(TransitionStatus.EN_ATTENTE, TransitionStatus.EN_COURS, TransitionStatus.TERMINEE), writes);
+    }
+
+    @Test
+    void recordTransition_ShouldPersistParticipants_AndReturnThem() {
+        // Given
+        recordWrites();
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.DEMARRE)
+                        .recordTransition("Ressources libérées", List.of(5L), List.of(10L, 10L, 11L), null))
+                .assertNext(dto -> {
+                    assertEquals(List.of(5L), dto.serviceIds());
+                    assertEquals(List.of(10L, 11L), dto.unitResourceIds());
+                    assertNull(dto.compositeResourceIds());
+                })
+                .verifyComplete();
+        verify(participantRepository).saveAll(List.of(new Participant(1L, EntityKind.SERVICE, 5L),
+                new Participant(1L, EntityKind.UNITAIRE, 10L), new Participant(1L, EntityKind.UNITAIRE, 11L)));
+    }
+
+    @Test
+    void findByParticipant_ShouldReturnAPageAndTheNextCursor_WhenHistoryContinues() {
+        // Given
+        when(transitionRepository.findByParticipant("UNITAIRE", 10L, 100L, 3)).thenReturn(Flux.just(
+                transition(90L), transition(80L), transition(70L)));
+        when(participantRepository.findByTransitionIds(List.of(90L, 80L))).thenReturn(Flux.just(
+                new Participant(90L, EntityKind.UNITAIRE, 10L), new Participant(90L, EntityKind.SERVICE, 5L),
+                new Participant(80L, EntityKind.UNITAIRE, 10L)));
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.DEMARRE).findByParticipant(EntityKind.UNITAIRE, 10L, 100L, 2))
+                .assertNext(page -> {
+                    assertEquals(List.of(90L, 80L), page.transitions().stream().map(dto -> dto.id()).toList());
+                    assertEquals(80L, page.nextCursor());
+                    assertEquals(List.of(5L), page.transitions().get(0).serviceIds());
+                    assertNull(page.transitions().get(1).serviceIds());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findByParticipant_ShouldStartFromTheMostRecent_AndEndWithoutCursor() {
+        // Given
+        when(transitionRepository.findByParticipant("SERVICE", 5L, Long.MAX_VALUE, 51)).thenReturn(Flux.just(transition(90L)));
+        when(participantRepository.findByTransitionIds(List.of(90L))).thenReturn(Flux.empty());
+
+        // When / Then
+        StepVerifier.create(service(TransitionLifecycle.DEMARRE).findByParticipant(EntityKind.SERVICE, 5L, null, 50))
+                .assertNext(page -> {
+                    assertEquals(1, page.transitions().size());
+                    assertNull(page.nextCursor());
+                })
+                .verifyComplete();
+    }
+
+    private List<TransitionStatus> recordWrites() {
+        List<TransitionStatus> writes = new ArrayList<>();
+        when(transitionRepository.save(any(Transition.class))).thenAnswer(invocation -> {
+            Transition transition = invocation.getArgument(0);
+            writes.add(transition.getStatus());
+            transition.setId(1L);
+            return Mono.just(transition);
+        });
+        lenient().when(participantRepository.saveAll(anyList())).thenReturn(Mono.just(1L));
+        return writes;
+    }
+
+    private static Transition transition(Long id) {
+        Transition transition = new Transition(TransitionType.NORMALE, "NORMALE_" + id, null);
+        transition.setId(id);
+        return transition;
+    }
+
+    private TransitionService service(TransitionLifecycle lifecycle) {
+        return service(lifecycle, null);
+    }
+
+    private TransitionService service(TransitionLifecycle lifecycle, TransactionalOperator transactionalOperator) {
+        TransitionExecutorRegistry registry = new TransitionExecutorRegistry(List.of(), 1, 0, Duration.ofSeconds(1));
+        return new TransitionService(transitionRepository, participantRepository, new ObjectMapper(), databaseClient,
+                registry, transactionalOperator, lifecycle);
+    }
+
+    private static TriggerTransitionDTO trigger() {
+        return new TriggerTransitionDTO(TransitionType.SYNCHRONE, "synchro", "Transition de test", List.of(1L), null, null, null);
+    }
+}